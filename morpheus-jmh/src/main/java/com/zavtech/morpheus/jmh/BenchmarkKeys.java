@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.range.Range;
+
+/**
+ * A utility class that creates the row and column keys used across the Morpheus benchmarks
+ *
+ * @author  Xavier Witdouck
+ */
+public class BenchmarkKeys {
+
+    /**
+     * Returns a range of row keys of the type and length specified
+     * @param keyType   the key type name, for example Integer, Long, String, Date, Instant, LocalDateTime, ZonedDateTime
+     * @param count     the number of keys in the range
+     * @return          the range of keys
+     */
+    @SuppressWarnings("unchecked")
+    public static <K> Range<K> rowKeys(String keyType, int count) {
+        switch (keyType) {
+            case "Integer":
+                return (Range<K>)Range.of(0, count);
+            case "Long":
+                return (Range<K>)Range.of(0L, (long)count);
+            case "String":
+                return (Range<K>)Range.of(0, count).map(i -> "Key-" + i);
+            case "Date":
+                final long now = System.currentTimeMillis();
+                return (Range<K>)Range.of(0, count).map(i -> new Date(now + (i * 1000L)));
+            case "Instant":
+                final Instant instant = Instant.now();
+                return (Range<K>)Range.of(0, count).map(instant::plusSeconds);
+            case "LocalDateTime":
+                final LocalDateTime start = LocalDateTime.now().minusYears(10);
+                return (Range<K>)Range.of(start, start.plusSeconds(count), Duration.ofSeconds(1));
+            case "ZonedDateTime":
+                final ZonedDateTime zonedStart = ZonedDateTime.now();
+                return (Range<K>)Range.of(zonedStart, zonedStart.plusSeconds(count), Duration.ofSeconds(1));
+            default:
+                throw new IllegalArgumentException("Unsupported row key type: " + keyType);
+        }
+    }
+
+
+    /**
+     * Returns an array of column keys A, B, C ... of the length specified
+     * @param count     the number of column keys
+     * @return          the array of column keys
+     */
+    public static Array<String> colKeys(int count) {
+        final Array<String> colKeys = Array.of(String.class, count);
+        for (int i=0; i<count; ++i) {
+            colKeys.setValue(i, i < 26 ? String.valueOf((char)('A' + i)) : "C" + i);
+        }
+        return colKeys;
+    }
+}
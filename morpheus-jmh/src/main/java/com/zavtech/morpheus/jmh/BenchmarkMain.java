@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The entry point for the Morpheus benchmark jar, which accepts the standard JMH command line arguments
+ * but defaults the results to be written in JSON format so that runs can be compared across releases.
+ *
+ * <p>Typical usage: <code>java -jar target/benchmarks.jar DataFrameCreate -p rowCount=1000000</code></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class BenchmarkMain {
+
+    static final String DEFAULT_RESULT_FILE = "morpheus-jmh-results.json";
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        if (cmdOptions.shouldHelp() || cmdOptions.shouldList() || cmdOptions.shouldListProfilers() || cmdOptions.shouldListResultFormats()) {
+            Main.main(args);
+        } else {
+            final ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmdOptions);
+            if (!cmdOptions.getResultFormat().hasValue()) {
+                builder.resultFormat(ResultFormatType.JSON);
+            }
+            if (!cmdOptions.getResult().hasValue()) {
+                builder.result(DEFAULT_RESULT_FILE);
+            }
+            new Runner(builder.build()).run();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
+
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * A runner that executes the DataFrame, Array and Index benchmarks and either records the results as a versioned
+ * baseline, or checks the results against a previously recorded baseline and fails if performance has regressed.
+ *
+ * <p>Usage:</p>
+ * <pre>
+ *     java -cp target/benchmarks.jar com.zavtech.morpheus.jmh.RegressionGate record [baselineFile]
+ *     java -cp target/benchmarks.jar com.zavtech.morpheus.jmh.RegressionGate check baselineFile
+ * </pre>
+ *
+ * <p>The following system properties can be used to tailor the run:</p>
+ * <ul>
+ *     <li>gate.include - the regular expression of benchmarks to run</li>
+ *     <li>gate.medianTolerance - the fractional increase in median time that is tolerated, default 0.1</li>
+ *     <li>gate.p99Tolerance - the fractional increase in p99 time that is tolerated, default 0.2</li>
+ *     <li>gate.baselineDir - the directory in which baselines are recorded, default ./baselines</li>
+ *     <li>morpheus.version - the version used to name the baseline, defaults to the morpheus-core Maven version</li>
+ * </ul>
+ *
+ * @author  Xavier Witdouck
+ */
+public class RegressionGate {
+
+    static final String MORPHEUS_POM_PROPERTIES = "/META-INF/maven/com.zavtech/morpheus-core/pom.properties";
+    static final String DEFAULT_INCLUDE = "DataFrameApplyDoublesBenchmark|DataFrameSortingBenchmark|IndexCreateBenchmark|ArrayBenchmark";
+
+    private double medianTolerance;
+    private double p99Tolerance;
+
+
+    /**
+     * Constructor
+     * @param medianTolerance   the fractional increase in median time that is tolerated
+     * @param p99Tolerance      the fractional increase in p99 time that is tolerated
+     */
+    public RegressionGate(double medianTolerance, double p99Tolerance) {
+        this.medianTolerance = medianTolerance;
+        this.p99Tolerance = p99Tolerance;
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || !(args[0].equals("record") || args[0].equals("check"))) {
+            System.err.println("Usage: RegressionGate record [baselineFile] | check baselineFile");
+            System.exit(2);
+        } else if (args[0].equals("check") && args.length < 2) {
+            System.err.println("A baseline file must be specified to check against");
+            System.exit(2);
+        } else {
+            final String version = getMorpheusVersion();
+            final String include = System.getProperty("gate.include", DEFAULT_INCLUDE);
+            final double medianTolerance = Double.parseDouble(System.getProperty("gate.medianTolerance", "0.1"));
+            final double p99Tolerance = Double.parseDouble(System.getProperty("gate.p99Tolerance", "0.2"));
+            final File baselineDir = new File(System.getProperty("gate.baselineDir", "baselines"));
+            final RegressionGate gate = new RegressionGate(medianTolerance, p99Tolerance);
+            final DataFrame<String,String> results = gate.run(include);
+            if (args[0].equals("record")) {
+                final File file = args.length > 1 ? new File(args[1]) : new File(baselineDir, "morpheus-" + version + ".csv");
+                write(results, file);
+                System.out.println("Recorded baseline for Morpheus " + version + " in " + file.getAbsolutePath());
+            } else {
+                write(results, new File("target", "morpheus-" + version + ".csv"));
+                final DataFrame<String,String> baseline = read(new File(args[1]));
+                final DataFrame<String,String> report = gate.compare(baseline, results);
+                report.out().print(report.rowCount());
+                final List<String> failures = report.rows().keys().filter(key -> {
+                    final String status = report.data().getValue(key, "Status");
+                    return status.equals("FAIL") || status.equals("MISSING");
+                }).collect(Collectors.toList());
+                if (!failures.isEmpty()) {
+                    throw new IllegalStateException("Performance regression or missing results in " + failures.size() + " benchmarks: " + failures);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the version of Morpheus being benchmarked
+     * <p>The jar manifest cannot be used, since the shaded benchmark jar only carries the manifest of this module,
+     * so the version is read from the Maven properties that morpheus-core packages with its classes.</p>
+     * @return  the Morpheus version, from system property or the morpheus-core pom.properties
+     * @throws IOException  if the pom.properties cannot be read
+     * @throws IllegalStateException    if the version cannot be determined
+     */
+    static String getMorpheusVersion() throws IOException {
+        final String version = System.getProperty("morpheus.version");
+        if (version != null) {
+            return version;
+        } else {
+            try (InputStream is = DataFrame.class.getResourceAsStream(MORPHEUS_POM_PROPERTIES)) {
+                if (is == null) {
+                    throw new IllegalStateException("Unable to resolve Morpheus version, set -Dmorpheus.version or include " + MORPHEUS_POM_PROPERTIES);
+                } else {
+                    final Properties properties = new Properties();
+                    properties.load(is);
+                    final String pomVersion = properties.getProperty("version");
+                    if (pomVersion == null || pomVersion.trim().isEmpty()) {
+                        throw new IllegalStateException("No version property in " + MORPHEUS_POM_PROPERTIES);
+                    } else {
+                        return pomVersion.trim();
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Runs the benchmarks matching the expression in sample mode, and returns a frame of summary statistics
+     * <p>The gate pins a small fixed subset of the benchmark parameters, namely 1,000,000 rows and array elements,
+     * 4 columns and Integer and LocalDateTime keys, so that it completes in minutes within the forked heap limits.
+     * The full parameter matrix declared on the benchmarks is only run through BenchmarkMain.</p>
+     * @param include   the regular expression to select benchmarks
+     * @return          the frame of results keyed by benchmark label, with Median, P99, Mean, Samples and Unit
+     * @throws Exception    if the benchmark run fails
+     */
+    public DataFrame<String,String> run(String include) throws Exception {
+        final Collection<RunResult> runResults = new Runner(new OptionsBuilder()
+            .include(include)
+            .param("rowCount", "1000000")
+            .param("colCount", "4")
+            .param("keyType", "Integer", "LocalDateTime")
+            .param("length", "1000000")
+            .mode(Mode.SampleTime)
+            .shouldFailOnError(true)
+            .build()
+        ).run();
+        final List<RunResult> resultList = new ArrayList<>(runResults);
+        final List<String> labels = resultList.stream().map(r -> getLabel(r.getParams())).collect(Collectors.toList());
+        final DataFrame<String,String> results = createFrame(labels);
+        for (int i=0; i<resultList.size(); ++i) {
+            final RunResult result = resultList.get(i);
+            final Statistics stats = result.getPrimaryResult().getStatistics();
+            results.data().setDouble(i, 0, stats.getPercentile(50d));
+            results.data().setDouble(i, 1, stats.getPercentile(99d));
+            results.data().setDouble(i, 2, stats.getMean());
+            results.data().setDouble(i, 3, stats.getN());
+            results.data().setValue(i, 4, result.getPrimaryResult().getScoreUnit());
+        }
+        return results;
+    }
+
+
+    /**
+     * Compares the results against a baseline, and returns a report of the changes in median and p99
+     * <p>A benchmark in the baseline with no current result, for example because it was renamed, failed or is no
+     * longer selected, is reported as MISSING so that the gate cannot pass by silently dropping it.</p>
+     * @param baseline  the baseline results
+     * @param results   the current results
+     * @return          the report, with a Status column that is PASS, FAIL, NEW or MISSING
+     */
+    public DataFrame<String,String> compare(DataFrame<String,String> baseline, DataFrame<String,String> results) {
+        final List<String> current = results.rows().keys().collect(Collectors.toList());
+        final List<String> missing = baseline.rows().keys().filter(label -> !results.rows().contains(label)).collect(Collectors.toList());
+        final List<String> labels = new ArrayList<>(current);
+        labels.addAll(missing);
+        final DataFrame<String,String> report = DataFrame.of(labels, String.class, columns -> {
+            columns.add("Baseline Median", Double.class);
+            columns.add("Median", Double.class);
+            columns.add("Median Change", Double.class);
+            columns.add("Baseline P99", Double.class);
+            columns.add("P99", Double.class);
+            columns.add("P99 Change", Double.class);
+            columns.add("Status", String.class);
+        });
+        for (String label : missing) {
+            report.data().setDouble(label, "Baseline Median", baseline.data().getDouble(label, "Median"));
+            report.data().setDouble(label, "Baseline P99", baseline.data().getDouble(label, "P99"));
+            report.data().setValue(label, "Status", "MISSING");
+        }
+        for (String label : current) {
+            final double median = results.data().getDouble(label, "Median");
+            final double p99 = results.data().getDouble(label, "P99");
+            report.data().setDouble(label, "Median", median);
+            report.data().setDouble(label, "P99", p99);
+            if (!baseline.rows().contains(label)) {
+                report.data().setValue(label, "Status", "NEW");
+            } else {
+                final double baselineMedian = baseline.data().getDouble(label, "Median");
+                final double baselineP99 = baseline.data().getDouble(label, "P99");
+                final double medianChange = median / baselineMedian - 1d;
+                final double p99Change = p99 / baselineP99 - 1d;
+                final boolean failed = medianChange > medianTolerance || p99Change > p99Tolerance;
+                report.data().setDouble(label, "Baseline Median", baselineMedian);
+                report.data().setDouble(label, "Median Change", medianChange);
+                report.data().setDouble(label, "Baseline P99", baselineP99);
+                report.data().setDouble(label, "P99 Change", p99Change);
+                report.data().setValue(label, "Status", failed ? "FAIL" : "PASS");
+            }
+        }
+        return report;
+    }
+
+
+    /**
+     * Returns a label for a benchmark run, which is the class and method name followed by the parameters
+     * @param params    the benchmark parameters
+     * @return          the label, for example ArrayBenchmark.sum[length=1000000]
+     */
+    static String getLabel(BenchmarkParams params) {
+        final String benchmark = params.getBenchmark();
+        final String[] tokens = benchmark.split("\\.");
+        final String name = tokens.length > 1 ? tokens[tokens.length-2] + "." + tokens[tokens.length-1] : benchmark;
+        final String args = params.getParamsKeys().stream()
+            .map(key -> key + "=" + params.getParam(key))
+            .collect(Collectors.joining(" "));
+        return args.isEmpty() ? name : name + "[" + args + "]";
+    }
+
+
+    /**
+     * Returns a newly created results frame for the labels specified
+     * @param labels    the benchmark labels
+     * @return          the empty results frame
+     */
+    private static DataFrame<String,String> createFrame(List<String> labels) {
+        return DataFrame.of(labels, String.class, columns -> {
+            columns.add("Median", Double.class);
+            columns.add("P99", Double.class);
+            columns.add("Mean", Double.class);
+            columns.add("Samples", Double.class);
+            columns.add("Unit", String.class);
+        });
+    }
+
+
+    /**
+     * Writes benchmark results to a CSV file
+     * @param results   the results to write
+     * @param file      the output file
+     */
+    static void write(DataFrame<String,String> results, File file) {
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IllegalStateException("Unable to create directory: " + dir.getAbsolutePath());
+        }
+        results.write().csv(options -> {
+            options.setFile(file.getAbsolutePath());
+            options.setTitle("Benchmark");
+            options.setIncludeRowHeader(true);
+            options.setIncludeColumnHeader(true);
+        });
+    }
+
+
+    /**
+     * Reads benchmark results from a CSV file previously recorded
+     * @param file  the baseline file
+     * @return      the baseline results
+     */
+    static DataFrame<String,String> read(File file) {
+        if (!file.exists()) {
+            throw new IllegalArgumentException("No baseline file exists at " + file.getAbsolutePath());
+        }
+        return DataFrame.read().csv(options -> {
+            options.setResource(file.getAbsolutePath());
+            options.setRowKeyParser(String.class, values -> values[0]);
+            options.setExcludeColumnIndexes(0);
+        });
+    }
+}
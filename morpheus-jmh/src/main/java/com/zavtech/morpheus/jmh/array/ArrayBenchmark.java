@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh.array;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.array.Array;
+
+/**
+ * JMH version of ArrayStatsPerf and ArraySortPerf, which measure common operations on a Morpheus Array of doubles
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2G", "-Xmx4G"})
+public class ArrayBenchmark {
+
+    @Param({"10000000"})
+    public int length;
+
+    private Array<Double> array;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.array = Array.of(Double.class, length);
+    }
+
+
+    @Setup(Level.Invocation)
+    public void randomize() {
+        this.array.applyDoubles(v -> Math.random());
+    }
+
+
+    @Benchmark()
+    public Array<Double> applyDoubles() {
+        return array.applyDoubles(v -> v.getDouble() > 0.5d ? 0.5d : v.getDouble());
+    }
+
+
+    @Benchmark()
+    public Array<Double> sort() {
+        return array.sort(true);
+    }
+
+
+    @Benchmark()
+    public Number sum() {
+        return array.stats().sum();
+    }
+
+
+    @Benchmark()
+    public Number mean() {
+        return array.stats().mean();
+    }
+
+
+    @Benchmark()
+    public Number variance() {
+        return array.stats().variance();
+    }
+}
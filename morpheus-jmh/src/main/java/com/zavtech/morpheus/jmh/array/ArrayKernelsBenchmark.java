@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh.array;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.perf.array.ArrayKernels;
+import com.zavtech.morpheus.perf.array.PrimitiveKernels;
+
+/**
+ * Compares the block based kernels in ArrayKernels against the lambda based applyDoubles() and stats() path
+ *
+ * <p>Run with -jvmArgsAppend -Dmorpheus.kernels.scalar=true to measure the scalar double sum and variance
+ * reductions, which are the only kernels that flag switches. The cap benchmarks update their input in place,
+ * so the input is restored from an untouched copy before every invocation, otherwise every call after the first
+ * would find nothing left to cap.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2G", "-Xmx4G"})
+public class ArrayKernelsBenchmark {
+
+    @Param({"10000000"})
+    public int length;
+
+    @Param({"Double", "Long", "Integer"})
+    public String type;
+
+    private Array<?> array;
+    private Array<?> original;
+    private double[] values;
+    private double[] originalValues;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Random random = new Random(1);
+        switch (type) {
+            case "Double":  this.array = Array.of(Double.class, length).applyDoubles(v -> random.nextDouble());  break;
+            case "Long":    this.array = Array.of(Long.class, length).applyLongs(v -> random.nextInt(1000));     break;
+            case "Integer": this.array = Array.of(Integer.class, length).applyInts(v -> random.nextInt(1000));   break;
+            default:        throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+        this.values = random.doubles(length).toArray();
+        this.original = array.copy();
+        this.originalValues = values.clone();
+    }
+
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        System.arraycopy(originalValues, 0, values, 0, length);
+        switch (type) {
+            case "Double":  for (int i=0; i<length; ++i) array.setDouble(i, original.getDouble(i));  break;
+            case "Long":    for (int i=0; i<length; ++i) array.setLong(i, original.getLong(i));      break;
+            default:        for (int i=0; i<length; ++i) array.setInt(i, original.getInt(i));        break;
+        }
+    }
+
+
+    @Benchmark()
+    public Object capLambda() {
+        switch (type) {
+            case "Double":  return array.applyDoubles(v -> v.getDouble() > 0.5d ? 0.5d : v.getDouble());
+            case "Long":    return array.applyLongs(v -> v.getLong() > 500L ? 500L : v.getLong());
+            default:        return array.applyInts(v -> v.getInt() > 500 ? 500 : v.getInt());
+        }
+    }
+
+
+    @Benchmark()
+    public Object capKernel() {
+        return ArrayKernels.cap(array, Double.NEGATIVE_INFINITY, type.equals("Double") ? 0.5d : 500d);
+    }
+
+
+    @Benchmark()
+    public double[] capPrimitive() {
+        PrimitiveKernels.cap(values, 0, values.length, Double.NEGATIVE_INFINITY, 0.5d);
+        return values;
+    }
+
+
+    @Benchmark()
+    public Number sumStats() {
+        return array.stats().sum();
+    }
+
+
+    @Benchmark()
+    public Number sumKernel() {
+        return ArrayKernels.sum(array);
+    }
+
+
+    @Benchmark()
+    public double sumPrimitive() {
+        return PrimitiveKernels.sum(values, 0, values.length);
+    }
+
+
+    @Benchmark()
+    public Number varianceStats() {
+        return array.stats().variance();
+    }
+
+
+    @Benchmark()
+    public double varianceKernel() {
+        return ArrayKernels.variance(array);
+    }
+
+
+    @Benchmark()
+    public Number minStats() {
+        return array.stats().min();
+    }
+
+
+    @Benchmark()
+    public Number minKernel() {
+        return ArrayKernels.min(array);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh.frame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.jmh.BenchmarkKeys;
+import com.zavtech.morpheus.perf.array.ArrayKernels;
+
+/**
+ * JMH version of DataFrameApplyDoubles, which measures the time to cap every element in a frame of random doubles
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4G", "-Xmx8G"})
+public class DataFrameApplyDoublesBenchmark {
+
+    @Param({"50000000"})
+    public int rowCount;
+
+    @Param({"4"})
+    public int colCount;
+
+    @Param({"Integer"})
+    public String keyType;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private DataFrame<Object,String> frame;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.frame = DataFrame.ofDoubles(BenchmarkKeys.rowKeys(keyType, rowCount), BenchmarkKeys.colKeys(colCount));
+    }
+
+
+    @Setup(Level.Iteration)
+    public void randomize() {
+        this.frame.applyDoubles(v -> Math.random());
+    }
+
+
+    @Benchmark()
+    public DataFrame<Object,String> cap() {
+        if (parallel) {
+            return frame.parallel().applyDoubles(v -> v.getDouble() > 0.5 ? 0.5 : v.getDouble());
+        } else {
+            return frame.sequential().applyDoubles(v -> v.getDouble() > 0.5 ? 0.5 : v.getDouble());
+        }
+    }
+
+
+    @Benchmark()
+    public DataFrame<Object,String> capKernel() {
+        if (parallel) {
+            return ArrayKernels.cap(frame.parallel(), Double.NEGATIVE_INFINITY, 0.5d);
+        } else {
+            return ArrayKernels.cap(frame.sequential(), Double.NEGATIVE_INFINITY, 0.5d);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh.frame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.jmh.BenchmarkKeys;
+
+/**
+ * JMH version of DataFrameCreate, which measures the time to create a frame of doubles for various row key types
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4G", "-Xmx8G"})
+public class DataFrameCreateBenchmark {
+
+    @Param({"1000000", "5000000"})
+    public int rowCount;
+
+    @Param({"10"})
+    public int colCount;
+
+    @Param({"Integer", "Long", "Date", "Instant", "LocalDateTime", "ZonedDateTime"})
+    public String keyType;
+
+    private Array<String> colKeys;
+
+
+    @Setup()
+    public void setup() {
+        this.colKeys = BenchmarkKeys.colKeys(colCount);
+    }
+
+
+    @Benchmark()
+    public DataFrame<Object,String> create() {
+        return DataFrame.ofDoubles(BenchmarkKeys.rowKeys(keyType, rowCount), colKeys);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh.frame;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.jmh.BenchmarkKeys;
+
+/**
+ * JMH version of DataFrameRowIteration, which measures the time to compute the mean of every row in a frame
+ *
+ * <p>The row means are accumulated into a DoubleAdder which is returned, so that the JIT cannot eliminate the work</p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4G", "-Xmx8G"})
+public class DataFrameRowIterationBenchmark {
+
+    @Param({"10000000"})
+    public int rowCount;
+
+    @Param({"7"})
+    public int colCount;
+
+    @Param({"Integer"})
+    public String keyType;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private DataFrame<Object,String> frame;
+
+
+    @Setup()
+    public void setup() {
+        this.frame = DataFrame.ofDoubles(BenchmarkKeys.rowKeys(keyType, rowCount), BenchmarkKeys.colKeys(colCount));
+        this.frame.applyDoubles(v -> Math.random());
+    }
+
+
+    @Benchmark()
+    public double rowMeans() {
+        final DoubleAdder total = new DoubleAdder();
+        if (parallel) {
+            frame.parallel().rows().forEach(row -> total.add(row.stats().mean()));
+        } else {
+            frame.sequential().rows().forEach(row -> total.add(row.stats().mean()));
+        }
+        return total.sum();
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh.frame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.jmh.BenchmarkKeys;
+import com.zavtech.morpheus.range.Range;
+
+/**
+ * JMH version of DataFrameSorting, which measures the time to sort the rows of a frame by a key column of various types
+ *
+ * <p>The frame has a shuffled key column A of the type specified, followed by colCount - 1 columns of random doubles,
+ * all of which are moved by the sort.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4G", "-Xmx8G"})
+public class DataFrameSortingBenchmark {
+
+    @Param({"1000000", "5000000", "10000000"})
+    public int rowCount;
+
+    @Param({"4", "20", "50"})
+    public int colCount;
+
+    @Param({"Integer", "Long", "String", "Date", "Instant", "LocalDateTime", "ZonedDateTime"})
+    public String keyType;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private DataFrame<Integer,String> frame;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Array<String> colKeys = BenchmarkKeys.colKeys(colCount);
+        this.frame = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add(colKeys.getValue(0), BenchmarkKeys.rowKeys(keyType, rowCount).toArray().shuffle(2));
+            for (int i=1; i<colCount; ++i) {
+                columns.add(colKeys.getValue(i), Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+            }
+        });
+    }
+
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        this.frame.rows().sort(null);
+    }
+
+
+    @Benchmark()
+    public DataFrame<Integer,String> sort() {
+        if (parallel) {
+            return frame.rows().parallel().sort(true, "A");
+        } else {
+            return frame.rows().sequential().sort(true, "A");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh.index;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.perf.index.IntOrdinalMap;
+import com.zavtech.morpheus.perf.index.LongOrdinalMap;
+
+/**
+ * Compares random lookup latency of the open addressing ordinal maps against the Trove maps that back Index
+ *
+ * <p>Memory per key for the same maps is reported by OrdinalMapMem in the main project.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8G", "-Xmx16G"})
+public class OrdinalMapBenchmark {
+
+    private static final int LOOKUPS = 1 << 20;
+
+    @Param({"1000000", "10000000", "100000000"})
+    public int size;
+
+    @Param({"int", "long"})
+    public String keyType;
+
+    private int[] intKeys;
+    private long[] longKeys;
+    private TIntIntMap troveIntMap;
+    private TLongIntMap troveLongMap;
+    private IntOrdinalMap intMap;
+    private LongOrdinalMap longMap;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Random random = new Random(1);
+        this.intKeys = new int[LOOKUPS];
+        this.longKeys = new long[LOOKUPS];
+        for (int i=0; i<LOOKUPS; ++i) {
+            final int ordinal = random.nextInt(size);
+            this.intKeys[i] = key(ordinal);
+            this.longKeys[i] = 1500000000000000000L + key(ordinal) * 1000000000L;
+        }
+        if (keyType.equals("int")) {
+            this.troveIntMap = new TIntIntHashMap(size, 0.75f, -1, -1);
+            this.intMap = new IntOrdinalMap(size);
+            for (int i=0; i<size; ++i) {
+                this.troveIntMap.put(key(i), i);
+                this.intMap.put(key(i), i);
+            }
+        } else {
+            this.troveLongMap = new TLongIntHashMap(size, 0.75f, -1L, -1);
+            this.longMap = new LongOrdinalMap(size);
+            for (int i=0; i<size; ++i) {
+                final long key = 1500000000000000000L + key(i) * 1000000000L;
+                this.troveLongMap.put(key, i);
+                this.longMap.put(key, i);
+            }
+        }
+    }
+
+
+    /**
+     * Returns a scrambled but unique key for the ordinal, so keys are not inserted in hash order
+     * @param ordinal   the ordinal
+     * @return          the key for ordinal
+     */
+    private static int key(int ordinal) {
+        return ordinal * 0x2545F491;
+    }
+
+
+    @Benchmark()
+    @OperationsPerInvocation(LOOKUPS)
+    public long trove() {
+        long total = 0L;
+        if (keyType.equals("int")) {
+            for (int key : intKeys) total += troveIntMap.get(key);
+        } else {
+            for (long key : longKeys) total += troveLongMap.get(key);
+        }
+        return total;
+    }
+
+
+    @Benchmark()
+    @OperationsPerInvocation(LOOKUPS)
+    public long ordinalMap() {
+        long total = 0L;
+        if (keyType.equals("int")) {
+            for (int key : intKeys) total += intMap.get(key);
+        } else {
+            for (long key : longKeys) total += longMap.get(key);
+        }
+        return total;
+    }
+}
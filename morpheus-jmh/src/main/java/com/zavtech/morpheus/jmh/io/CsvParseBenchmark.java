@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.frame.DataFrame;
+
+/**
+ * JMH version of CsvParse, which measures the time to parse a file of FX quote bars
+ *
+ * <p>If no path is configured, a synthetic file with the same shape as the FXCM AUDUSD-2012 file is generated</p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2G", "-Xmx4G"})
+public class CsvParseBenchmark {
+
+    private static final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+    private static final DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Param({""})
+    public String path;
+
+    @Param({"760000"})
+    public int rowCount;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private File file;
+    private boolean generated;
+
+
+    @Setup()
+    public void setup() throws IOException {
+        if (path != null && path.length() > 0) {
+            this.file = new File(path);
+        } else {
+            this.file = File.createTempFile("morpheus-fx-", ".csv");
+            this.generated = true;
+            writeQuoteBars(file, rowCount);
+        }
+    }
+
+
+    @TearDown()
+    public void tearDown() {
+        if (generated && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+
+    @Benchmark()
+    public DataFrame<LocalDateTime,String> parse() {
+        return DataFrame.read().csv(options -> {
+            options.setHeader(false);
+            options.setParallel(parallel);
+            options.setResource(file.getAbsolutePath());
+            options.setExcludeColumnIndexes(1);
+            options.setRowKeyParser(LocalDateTime.class, row -> {
+                final LocalDate date = LocalDate.parse(row[0], dateFormat);
+                final LocalTime time = LocalTime.parse(row[1], timeFormat);
+                return LocalDateTime.of(date, time);
+            });
+        });
+    }
+
+
+    /**
+     * Writes a file of random minute quote bars in the format date,time,open,high,low,close,volume
+     * @param file      the file to write to
+     * @param rowCount  the number of bars to write
+     * @throws IOException  if there is an I/O error
+     */
+    static void writeQuoteBars(File file, int rowCount) throws IOException {
+        final Random random = new Random(1);
+        LocalDateTime timestamp = LocalDateTime.of(2012, 1, 2, 0, 0);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            double price = 1.0250d;
+            for (int i=0; i<rowCount; ++i) {
+                final double open = price;
+                final double close = open + (random.nextGaussian() * 0.0005d);
+                final double high = Math.max(open, close) + random.nextDouble() * 0.0002d;
+                final double low = Math.min(open, close) - random.nextDouble() * 0.0002d;
+                writer.write(dateFormat.format(timestamp));
+                writer.write(',');
+                writer.write(timeFormat.format(timestamp));
+                writer.write(String.format(Locale.ROOT, ",%.5f,%.5f,%.5f,%.5f,%d", open, high, low, close, random.nextInt(1000)));
+                writer.newLine();
+                timestamp = timestamp.plusMinutes(1);
+                price = close;
+            }
+        }
+    }
+}
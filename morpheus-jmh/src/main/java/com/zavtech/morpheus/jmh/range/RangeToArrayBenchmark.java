@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.jmh.range;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.jmh.BenchmarkKeys;
+import com.zavtech.morpheus.range.Range;
+
+/**
+ * JMH version of RangePerf1 and RangePerf2, which measure the time to materialize a Range into an Array
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4G", "-Xmx8G"})
+public class RangeToArrayBenchmark {
+
+    @Param({"1000000", "5000000", "10000000"})
+    public int rowCount;
+
+    @Param({"Integer", "LocalDateTime", "ZonedDateTime"})
+    public String keyType;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Range<Object> range;
+    private Class<Object> keyClass;
+
+
+    @Setup()
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        this.range = BenchmarkKeys.rowKeys(keyType, rowCount);
+        this.keyClass = (Class<Object>)range.iterator().next().getClass();
+    }
+
+
+    @Benchmark()
+    public Array<Object> toArray() {
+        return range.toArray(parallel);
+    }
+
+
+    @Benchmark()
+    public Array<Object> iterate() {
+        int count = 0;
+        final Array<Object> array = Array.of(keyClass, rowCount);
+        for (Object value : range) {
+            array.setValue(count++, value);
+        }
+        return array;
+    }
+}
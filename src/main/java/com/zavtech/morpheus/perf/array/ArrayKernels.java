@@ -0,0 +1,443 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import java.util.stream.IntStream;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.array.ArrayType;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameContent;
+
+/**
+ * Applies the PrimitiveKernels to Morpheus Arrays and DataFrame columns, as an alternative to a per element lambda.
+ *
+ * <p>Values are copied in blocks into a primitive buffer that fits comfortably in the L1/L2 cache, the kernel
+ * is applied to the buffer, and the results are copied back. Morpheus does not expose the primitive array behind
+ * an Array or a DataFrame column, so the copy in and out still costs a virtual getter and setter call per element,
+ * and adds two passes over each block. Only the kernel itself runs as a tight loop over a primitive array that
+ * the JIT can unroll and vectorize; the saving over applyDoubles() comes from avoiding its per element cursor
+ * and callback, not from removing per element dispatch. Code that owns its primitive arrays should call the
+ * PrimitiveKernels directly. Only arrays of double, long and int values are supported, and an
+ * IllegalArgumentException is raised for any other type.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class ArrayKernels {
+
+    static final int BLOCK_SIZE = 4096;
+
+    /**
+     * A function that operates on a block of values
+     */
+    private interface DoubleBlock { void apply(double[] block, int length); }
+    private interface LongBlock { void apply(long[] block, int length); }
+    private interface IntBlock { void apply(int[] block, int length); }
+
+
+    /**
+     * Adds a scalar to every element of the array
+     * @param array     the array of double, long or int values
+     * @param scalar    the scalar to add, which must be integral for long and int arrays
+     * @return          the input array
+     */
+    public static <T> Array<T> add(Array<T> array, double scalar) {
+        return apply(array,
+            (block, length) -> PrimitiveKernels.add(block, 0, length, scalar),
+            (block, length) -> PrimitiveKernels.add(block, 0, length, toLong(scalar)),
+            (block, length) -> PrimitiveKernels.add(block, 0, length, toInt(scalar))
+        );
+    }
+
+
+    /**
+     * Multiplies every element of the array by a scalar
+     * @param array     the array of double, long or int values
+     * @param scalar    the scalar to multiply by, which must be integral for long and int arrays
+     * @return          the input array
+     */
+    public static <T> Array<T> mul(Array<T> array, double scalar) {
+        return apply(array,
+            (block, length) -> PrimitiveKernels.mul(block, 0, length, scalar),
+            (block, length) -> PrimitiveKernels.mul(block, 0, length, toLong(scalar)),
+            (block, length) -> PrimitiveKernels.mul(block, 0, length, toInt(scalar))
+        );
+    }
+
+
+    /**
+     * Caps every element of the array so that it is no more than the upper bound
+     * @param array     the array of double, long or int values
+     * @param upper     the upper bound
+     * @return          the input array
+     */
+    public static <T> Array<T> capUpper(Array<T> array, double upper) {
+        return cap(array, Double.NEGATIVE_INFINITY, upper);
+    }
+
+
+    /**
+     * Caps every element of the array so that it is no less than the lower bound
+     * @param array     the array of double, long or int values
+     * @param lower     the lower bound
+     * @return          the input array
+     */
+    public static <T> Array<T> capLower(Array<T> array, double lower) {
+        return cap(array, lower, Double.POSITIVE_INFINITY);
+    }
+
+
+    /**
+     * Caps every element of the array so that it lies between the lower and upper bound
+     * @param array     the array of double, long or int values
+     * @param lower     the lower bound
+     * @param upper     the upper bound
+     * @return          the input array
+     */
+    public static <T> Array<T> cap(Array<T> array, double lower, double upper) {
+        return apply(array,
+            (block, length) -> PrimitiveKernels.cap(block, 0, length, lower, upper),
+            (block, length) -> PrimitiveKernels.cap(block, 0, length, (long)Math.ceil(lower), (long)Math.floor(upper)),
+            (block, length) -> PrimitiveKernels.cap(block, 0, length, (int)Math.ceil(lower), (int)Math.floor(upper))
+        );
+    }
+
+
+    /**
+     * Replaces every element of the array with its absolute value
+     * @param array     the array of double, long or int values
+     * @return          the input array
+     */
+    public static <T> Array<T> abs(Array<T> array) {
+        return apply(array,
+            (block, length) -> PrimitiveKernels.abs(block, 0, length),
+            (block, length) -> PrimitiveKernels.abs(block, 0, length),
+            (block, length) -> PrimitiveKernels.abs(block, 0, length)
+        );
+    }
+
+
+    /**
+     * Replaces every element of the array with its natural logarithm
+     * @param array     the array of double values
+     * @return          the input array
+     */
+    public static <T> Array<T> log(Array<T> array) {
+        if (array.typeCode() != ArrayType.DOUBLE) {
+            throw new IllegalArgumentException("The log kernel only applies to double arrays, not " + array.typeCode());
+        } else {
+            return apply(array, (block, length) -> PrimitiveKernels.log(block, 0, length), null, null);
+        }
+    }
+
+
+    /**
+     * Caps every double precision column of the frame so that values lie between the lower and upper bound
+     * @param frame     the frame to operate on
+     * @param lower     the lower bound
+     * @param upper     the upper bound
+     * @return          the input frame
+     */
+    public static <R,C> DataFrame<R,C> cap(DataFrame<R,C> frame, double lower, double upper) {
+        final int rowCount = frame.rowCount();
+        final IntStream colOrdinals = IntStream.range(0, frame.colCount());
+        (frame.isParallel() ? colOrdinals.parallel() : colOrdinals).forEach(colOrdinal -> {
+            final C colKey = frame.cols().key(colOrdinal);
+            if (frame.cols().type(colKey) == Double.class) {
+                final DataFrameContent<R,C> data = frame.data();
+                final double[] block = new double[BLOCK_SIZE];
+                for (int start=0; start<rowCount; start+=BLOCK_SIZE) {
+                    final int length = Math.min(BLOCK_SIZE, rowCount - start);
+                    for (int i=0; i<length; ++i) block[i] = data.getDouble(start + i, colOrdinal);
+                    PrimitiveKernels.cap(block, 0, length, lower, upper);
+                    for (int i=0; i<length; ++i) data.setDouble(start + i, colOrdinal, block[i]);
+                }
+            }
+        });
+        return frame;
+    }
+
+
+    /**
+     * Returns the count of non-null values in the array
+     * @param array     the array of double, long or int values
+     * @return          the count of values, excluding NaN for double arrays
+     */
+    public static int count(Array<?> array) {
+        if (array.typeCode() != ArrayType.DOUBLE) {
+            return array.length();
+        } else {
+            final int[] count = new int[1];
+            reduce(array, (block, length) -> count[0] += PrimitiveKernels.count(block, 0, length), null, null);
+            return count[0];
+        }
+    }
+
+
+    /**
+     * Returns the sum of values in the array, which for long and int arrays is accumulated exactly in a long
+     * @param array     the array of double, long or int values
+     * @return          the sum of values as a Double for double arrays, or a Long for long and int arrays
+     */
+    public static Number sum(Array<?> array) {
+        final double[] sum = new double[1];
+        final long[] total = new long[1];
+        reduce(array,
+            (block, length) -> sum[0] += PrimitiveKernels.sum(block, 0, length),
+            (block, length) -> total[0] += PrimitiveKernels.sum(block, 0, length),
+            (block, length) -> total[0] += PrimitiveKernels.sum(block, 0, length)
+        );
+        if (array.typeCode() == ArrayType.DOUBLE) {
+            return sum[0];
+        } else {
+            return total[0];
+        }
+    }
+
+
+    /**
+     * Returns the sum of squares of values in the array
+     * @param array     the array of double, long or int values
+     * @return          the sum of squares
+     */
+    public static double sumSquares(Array<?> array) {
+        return sumSquaredDeviations(array, 0d);
+    }
+
+
+    /**
+     * Returns the minimum value in the array, which for long and int arrays is computed exactly in a long
+     * @param array     the array of double, long or int values
+     * @return          the minimum value as a Double, Long or Integer matching the array, or NaN if there are no values
+     */
+    public static Number min(Array<?> array) {
+        if (array.typeCode() == ArrayType.DOUBLE) {
+            final double[] min = new double[] {Double.NaN};
+            reduce(array, (block, length) -> min[0] = nanMin(min[0], PrimitiveKernels.min(block, 0, length)), null, null);
+            return min[0];
+        } else {
+            final long[] min = new long[] {Long.MAX_VALUE};
+            reduce(array, null,
+                (block, length) -> min[0] = Math.min(min[0], PrimitiveKernels.min(block, 0, length)),
+                (block, length) -> min[0] = Math.min(min[0], PrimitiveKernels.min(block, 0, length))
+            );
+            return integral(array, min[0]);
+        }
+    }
+
+
+    /**
+     * Returns the maximum value in the array, which for long and int arrays is computed exactly in a long
+     * @param array     the array of double, long or int values
+     * @return          the maximum value as a Double, Long or Integer matching the array, or NaN if there are no values
+     */
+    public static Number max(Array<?> array) {
+        if (array.typeCode() == ArrayType.DOUBLE) {
+            final double[] max = new double[] {Double.NaN};
+            reduce(array, (block, length) -> max[0] = nanMax(max[0], PrimitiveKernels.max(block, 0, length)), null, null);
+            return max[0];
+        } else {
+            final long[] max = new long[] {Long.MIN_VALUE};
+            reduce(array, null,
+                (block, length) -> max[0] = Math.max(max[0], PrimitiveKernels.max(block, 0, length)),
+                (block, length) -> max[0] = Math.max(max[0], PrimitiveKernels.max(block, 0, length))
+            );
+            return integral(array, max[0]);
+        }
+    }
+
+
+    /**
+     * Returns the arithmetic mean of values in the array
+     * @param array     the array of double, long or int values
+     * @return          the mean, or NaN if the array has no values
+     */
+    public static double mean(Array<?> array) {
+        final int count = count(array);
+        return count > 0 ? sum(array).doubleValue() / count : Double.NaN;
+    }
+
+
+    /**
+     * Returns the unbiased sample variance of values in the array, computed in two passes for accuracy
+     * @param array     the array of double, long or int values
+     * @return          the sample variance, or NaN if there are fewer than two values
+     */
+    public static double variance(Array<?> array) {
+        final int count = count(array);
+        if (count < 2) {
+            return Double.NaN;
+        } else {
+            final double mean = sum(array).doubleValue() / count;
+            return sumSquaredDeviations(array, mean) / (count - 1);
+        }
+    }
+
+
+    /**
+     * Returns the sum of squared deviations of values in the array from some centre
+     * @param array     the array of double, long or int values
+     * @param centre    the value to measure deviations from
+     * @return          the sum of squared deviations
+     */
+    private static double sumSquaredDeviations(Array<?> array, double centre) {
+        final double[] sum = new double[1];
+        reduce(array,
+            (block, length) -> sum[0] += PrimitiveKernels.sumSquaredDeviations(block, 0, length, centre),
+            (block, length) -> sum[0] += PrimitiveKernels.sumSquaredDeviations(block, 0, length, centre),
+            (block, length) -> sum[0] += PrimitiveKernels.sumSquaredDeviations(block, 0, length, centre)
+        );
+        return sum[0];
+    }
+
+
+    /**
+     * Applies a block function to the array, writing the results back
+     * @param array         the array to operate on
+     * @param doubleBlock   the function for double arrays
+     * @param longBlock     the function for long arrays
+     * @param intBlock      the function for int arrays
+     * @return              the input array
+     */
+    private static <T> Array<T> apply(Array<T> array, DoubleBlock doubleBlock, LongBlock longBlock, IntBlock intBlock) {
+        final int arrayLength = array.length();
+        switch (array.typeCode()) {
+            case DOUBLE:
+                final double[] doubles = new double[BLOCK_SIZE];
+                for (int start=0; start<arrayLength; start+=BLOCK_SIZE) {
+                    final int length = Math.min(BLOCK_SIZE, arrayLength - start);
+                    for (int i=0; i<length; ++i) doubles[i] = array.getDouble(start + i);
+                    doubleBlock.apply(doubles, length);
+                    for (int i=0; i<length; ++i) array.setDouble(start + i, doubles[i]);
+                }
+                return array;
+            case LONG:
+                final long[] longs = new long[BLOCK_SIZE];
+                for (int start=0; start<arrayLength; start+=BLOCK_SIZE) {
+                    final int length = Math.min(BLOCK_SIZE, arrayLength - start);
+                    for (int i=0; i<length; ++i) longs[i] = array.getLong(start + i);
+                    longBlock.apply(longs, length);
+                    for (int i=0; i<length; ++i) array.setLong(start + i, longs[i]);
+                }
+                return array;
+            case INTEGER:
+                final int[] ints = new int[BLOCK_SIZE];
+                for (int start=0; start<arrayLength; start+=BLOCK_SIZE) {
+                    final int length = Math.min(BLOCK_SIZE, arrayLength - start);
+                    for (int i=0; i<length; ++i) ints[i] = array.getInt(start + i);
+                    intBlock.apply(ints, length);
+                    for (int i=0; i<length; ++i) array.setInt(start + i, ints[i]);
+                }
+                return array;
+            default:
+                throw new IllegalArgumentException("Kernels are only supported for double, long and int arrays, not " + array.typeCode());
+        }
+    }
+
+
+    /**
+     * Applies a read-only block function to the array for the purpose of some reduction
+     * @param array         the array to operate on
+     * @param doubleBlock   the function for double arrays
+     * @param longBlock     the function for long arrays
+     * @param intBlock      the function for int arrays
+     */
+    private static void reduce(Array<?> array, DoubleBlock doubleBlock, LongBlock longBlock, IntBlock intBlock) {
+        final int arrayLength = array.length();
+        switch (array.typeCode()) {
+            case DOUBLE:
+                final double[] doubles = new double[BLOCK_SIZE];
+                for (int start=0; start<arrayLength; start+=BLOCK_SIZE) {
+                    final int length = Math.min(BLOCK_SIZE, arrayLength - start);
+                    for (int i=0; i<length; ++i) doubles[i] = array.getDouble(start + i);
+                    doubleBlock.apply(doubles, length);
+                }
+                break;
+            case LONG:
+                final long[] longs = new long[BLOCK_SIZE];
+                for (int start=0; start<arrayLength; start+=BLOCK_SIZE) {
+                    final int length = Math.min(BLOCK_SIZE, arrayLength - start);
+                    for (int i=0; i<length; ++i) longs[i] = array.getLong(start + i);
+                    longBlock.apply(longs, length);
+                }
+                break;
+            case INTEGER:
+                final int[] ints = new int[BLOCK_SIZE];
+                for (int start=0; start<arrayLength; start+=BLOCK_SIZE) {
+                    final int length = Math.min(BLOCK_SIZE, arrayLength - start);
+                    for (int i=0; i<length; ++i) ints[i] = array.getInt(start + i);
+                    intBlock.apply(ints, length);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Kernels are only supported for double, long and int arrays, not " + array.typeCode());
+        }
+    }
+
+
+    /**
+     * Returns the minimum of two values, where NaN represents no value
+     */
+    private static double nanMin(double current, double value) {
+        return current != current ? value : (value != value ? current : Math.min(current, value));
+    }
+
+
+    /**
+     * Returns the maximum of two values, where NaN represents no value
+     */
+    private static double nanMax(double current, double value) {
+        return current != current ? value : (value != value ? current : Math.max(current, value));
+    }
+
+
+    /**
+     * Returns an integral reduction boxed to match the array type, or NaN if the array is empty
+     */
+    private static Number integral(Array<?> array, long value) {
+        if (array.length() == 0) {
+            return Double.NaN;
+        } else if (array.typeCode() == ArrayType.INTEGER) {
+            return (int)value;
+        } else {
+            return value;
+        }
+    }
+
+
+    /**
+     * Returns the scalar as a long, ensuring it is integral
+     */
+    private static long toLong(double scalar) {
+        if (scalar != Math.rint(scalar)) {
+            throw new IllegalArgumentException("Scalar must be integral for long arrays: " + scalar);
+        } else {
+            return (long)scalar;
+        }
+    }
+
+
+    /**
+     * Returns the scalar as an int, ensuring it is integral
+     */
+    private static int toInt(double scalar) {
+        if (scalar != Math.rint(scalar) || scalar > Integer.MAX_VALUE || scalar < Integer.MIN_VALUE) {
+            throw new IllegalArgumentException("Scalar must be an integral int value for int arrays: " + scalar);
+        } else {
+            return (int)scalar;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import java.util.Arrays;
+
+import com.zavtech.morpheus.array.Array;
+
+/**
+ * A fixed length array of booleans packed 64 to a long word, which also serves as a selection or validity mask.
+ *
+ * <p>A Morpheus boolean array uses at least a byte per element, while this array uses a single bit, and bulk
+ * operations such as counting and combining masks operate on whole words at a time. Bits beyond the length in the
+ * last word are always kept clear, so that word level operations need no special handling at the boundary.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class BitArray {
+
+    private int length;
+    private long[] words;
+
+
+    /**
+     * Constructor
+     * @param length    the length for this array
+     * @param words     the words for this array
+     */
+    private BitArray(int length, long[] words) {
+        this.length = length;
+        this.words = words;
+    }
+
+
+    /**
+     * Returns a new array of the length specified, with all bits clear
+     * @param length    the array length
+     * @return          the newly created array
+     */
+    public static BitArray of(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("The array length must be >= 0, not " + length);
+        } else {
+            return new BitArray(length, new long[wordCount(length)]);
+        }
+    }
+
+
+    /**
+     * Returns a new array of the length specified, with all bits set
+     * @param length    the array length
+     * @return          the newly created array
+     */
+    public static BitArray ofSet(int length) {
+        final BitArray result = of(length);
+        Arrays.fill(result.words, -1L);
+        result.clearTail();
+        return result;
+    }
+
+
+    /**
+     * Returns a bit packed copy of the Morpheus boolean array, where nulls are copied as false
+     * @param array     the array to copy
+     * @return          the bit packed copy
+     */
+    public static BitArray copyOf(Array<Boolean> array) {
+        final int length = array.length();
+        final BitArray result = of(length);
+        for (int i=0; i<length; ++i) {
+            if (array.getBoolean(i)) {
+                result.words[i >>> 6] |= 1L << i;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the number of words required to hold the number of bits specified
+     * @param length    the number of bits
+     * @return          the number of 64-bit words
+     */
+    static int wordCount(int length) {
+        return (length + 63) >>> 6;
+    }
+
+
+    /**
+     * Returns the length of this array
+     * @return  the length of this array
+     */
+    public int length() {
+        return length;
+    }
+
+
+    /**
+     * Returns the backing words of this array, which callers must not modify beyond the length
+     * @return  the backing words, 64 elements per word, lowest index in the lowest bit
+     */
+    public long[] words() {
+        return words;
+    }
+
+
+    /**
+     * Returns the word at the word index specified
+     * @param wordIndex the word index
+     * @return          the 64 bits for elements wordIndex * 64 onwards
+     */
+    public long word(int wordIndex) {
+        return words[wordIndex];
+    }
+
+
+    /**
+     * Returns the value at the index specified
+     * @param index     the element index
+     * @return          the boolean value
+     */
+    public boolean get(int index) {
+        checkIndex(index);
+        return (words[index >>> 6] & (1L << index)) != 0L;
+    }
+
+
+    /**
+     * Sets the value at the index specified
+     * @param index     the element index
+     * @param value     the value to set
+     */
+    public void set(int index, boolean value) {
+        checkIndex(index);
+        if (value) {
+            words[index >>> 6] |= 1L << index;
+        } else {
+            words[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+
+    /**
+     * Sets or clears all bits in the range specified
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param value     true to set, false to clear
+     */
+    public void fill(int from, int to, boolean value) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for length " + length);
+        } else if (from < to) {
+            final int first = from >>> 6;
+            final int last = (to - 1) >>> 6;
+            final long firstMask = -1L << from;
+            final long lastMask = -1L >>> -to;
+            for (int w=first; w<=last; ++w) {
+                long mask = -1L;
+                if (w == first) mask &= firstMask;
+                if (w == last) mask &= lastMask;
+                words[w] = value ? words[w] | mask : words[w] & ~mask;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the number of set bits in this array
+     * @return  the number of true values
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+
+    /**
+     * Returns the index of the next set bit at or after the index specified
+     * @param from      the index to start from
+     * @return          the index of the next set bit, or -1 if none
+     */
+    public int nextSetBit(int from) {
+        if (from >= length) {
+            return -1;
+        } else {
+            int w = from >>> 6;
+            long word = words[w] & (-1L << from);
+            while (true) {
+                if (word != 0L) {
+                    return (w << 6) + Long.numberOfTrailingZeros(word);
+                } else if (++w == words.length) {
+                    return -1;
+                } else {
+                    word = words[w];
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the indexes of all set bits in ascending order
+     * @return  the indexes of true values
+     */
+    public int[] indexes() {
+        int count = 0;
+        final int[] result = new int[cardinality()];
+        for (int w=0; w<words.length; ++w) {
+            long word = words[w];
+            final int base = w << 6;
+            while (word != 0L) {
+                result[count++] = base + Long.numberOfTrailingZeros(word);
+                word &= word - 1L;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Combines this array with another using a logical AND, in place
+     * @param other     the other array of the same length
+     * @return          this array
+     */
+    public BitArray and(BitArray other) {
+        checkLength(other);
+        for (int w=0; w<words.length; ++w) {
+            words[w] &= other.words[w];
+        }
+        return this;
+    }
+
+
+    /**
+     * Combines this array with another using a logical OR, in place
+     * @param other     the other array of the same length
+     * @return          this array
+     */
+    public BitArray or(BitArray other) {
+        checkLength(other);
+        for (int w=0; w<words.length; ++w) {
+            words[w] |= other.words[w];
+        }
+        return this;
+    }
+
+
+    /**
+     * Clears all bits in this array that are set in the other array, in place
+     * @param other     the other array of the same length
+     * @return          this array
+     */
+    public BitArray andNot(BitArray other) {
+        checkLength(other);
+        for (int w=0; w<words.length; ++w) {
+            words[w] &= ~other.words[w];
+        }
+        return this;
+    }
+
+
+    /**
+     * Inverts all bits in this array, in place
+     * @return  this array
+     */
+    public BitArray not() {
+        for (int w=0; w<words.length; ++w) {
+            words[w] = ~words[w];
+        }
+        clearTail();
+        return this;
+    }
+
+
+    /**
+     * Returns a deep copy of this array
+     * @return  the copy of this array
+     */
+    public BitArray copy() {
+        return new BitArray(length, words.clone());
+    }
+
+
+    /**
+     * Returns a Morpheus boolean array with the values of this array
+     * @return  the Morpheus boolean array
+     */
+    public Array<Boolean> toArray() {
+        final Array<Boolean> result = Array.of(Boolean.class, length);
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            result.setBoolean(i, true);
+        }
+        return result;
+    }
+
+
+    /**
+     * Clears any bits in the last word that lie beyond the length of this array
+     */
+    private void clearTail() {
+        if ((length & 63) != 0) {
+            words[words.length - 1] &= -1L >>> -length;
+        }
+    }
+
+
+    /**
+     * Checks that the index is within the bounds of this array
+     * @param index the element index
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+    }
+
+
+    /**
+     * Checks that the other array has the same length as this array
+     * @param other the other array
+     */
+    private void checkLength(BitArray other) {
+        if (other.length != length) {
+            throw new IllegalArgumentException("Bit array lengths do not match: " + length + " != " + other.length);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.zavtech.morpheus.perf.array;
+
+import java.awt.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class BitArrayPerf {
+
+    public static void main(String[] args) {
+
+        final int rowCount = 10000000;
+        final Random random = new Random(3);
+        final Array<Boolean> booleans = Array.of(Boolean.class, rowCount).applyValues(v -> random.nextBoolean());
+        final Array<Double> doubles = Array.of(Double.class, rowCount).applyDoubles(v -> random.nextInt(10) == 0 ? Double.NaN : random.nextGaussian());
+        final BitArray bits = BitArray.copyOf(booleans);
+        final NullableArray<Double> nullable = NullableArray.copyOf(doubles);
+
+        DataFrame<String,String> timingStats = PerfStat.run(10, TimeUnit.MILLISECONDS, false, tasks -> {
+
+            tasks.put("Count(Array<Boolean>)", () -> {
+                int count = 0;
+                for (int i=0; i<rowCount; ++i) {
+                    if (booleans.getBoolean(i)) count++;
+                }
+                return count;
+            });
+
+            tasks.put("Count(BitArray)", bits::cardinality);
+
+            tasks.put("Mean(Array<Double>)", () -> doubles.stats().mean());
+
+            tasks.put("Mean(NullableArray)", nullable::mean);
+
+            tasks.put("Filter(Array<Double>)", () -> {
+                int count = 0;
+                for (int i=0; i<rowCount; ++i) {
+                    final double value = doubles.getDouble(i);
+                    if (!Double.isNaN(value) && value > 1d) count++;
+                }
+                return count;
+            });
+
+            tasks.put("Filter(NullableArray)", () -> nullable.whereDouble(v -> v > 1d).cardinality());
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("Morpheus Arrays vs Bit Packed Booleans and Validity Masks (10 Million rows, 10% null)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+    }
+}
@@ -0,0 +1,579 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import com.zavtech.morpheus.array.Array;
+
+/**
+ * A read-only array of values that are encoded as longs and compressed in fixed size blocks.
+ *
+ * <p>Values are mapped onto longs by a LongCodec, which covers ints, longs, dates and timestamps, and the array
+ * is split into blocks of 128 values. Each block is stored with whichever of three encodings is smallest: frame
+ * of reference, which bit packs each value as an offset from the block minimum; delta, which bit packs the
+ * difference between consecutive values as an offset from the smallest difference; and run length, which stores
+ * each distinct run as a value and a run end. Monotonic timestamps at a regular interval delta encode to zero bits
+ * per value, and slowly changing columns run length encode to a handful of words per block.</p>
+ *
+ * <p>Random access locates the block through an offset table and decodes the single value required, or for a
+ * delta block with varying differences, the prefix of the block up to that value. Sequential scans decode a whole
+ * block at a time into a scratch buffer in a tight loop. All state is held in primitive arrays on the heap, so a
+ * MemoryEstimator reports the compressed size directly.</p>
+ *
+ * @param <T>   the element type
+ *
+ * @author  Xavier Witdouck
+ */
+public class CompressedArray<T> {
+
+    static final int BLOCK_SIZE = 128;
+
+    /** The available block encodings */
+    public enum Encoding { FOR, DELTA, RLE }
+
+    private static final byte FOR = 0;
+    private static final byte DELTA = 1;
+    private static final byte RLE = 2;
+
+    private int length;
+    private LongCodec<T> codec;
+    private byte[] encodings;
+    private byte[] widths;
+    private long[] bases;
+    private long[] params;
+    private int[] offsets;
+    private long[] data;
+
+
+    /**
+     * Constructor
+     * @param codec     the codec for this array
+     * @param values    the encoded values to compress
+     * @param length    the number of values
+     */
+    private CompressedArray(LongCodec<T> codec, long[] values, int length) {
+        final int blockCount = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.codec = codec;
+        this.length = length;
+        this.encodings = new byte[blockCount];
+        this.widths = new byte[blockCount];
+        this.bases = new long[blockCount];
+        this.params = new long[blockCount];
+        this.offsets = new int[blockCount + 1];
+        this.data = new long[Math.max(16, length / 16)];
+        for (int b=0; b<blockCount; ++b) {
+            final int from = b * BLOCK_SIZE;
+            final int to = Math.min(from + BLOCK_SIZE, length);
+            this.encode(b, values, from, to);
+        }
+        this.data = Arrays.copyOf(data, offsets[blockCount]);
+    }
+
+
+    /**
+     * Returns a compressed array of the encoded values specified
+     * @param codec     the codec for the element type
+     * @param values    the encoded values, which are not modified
+     * @return          the compressed array
+     */
+    public static <T> CompressedArray<T> of(LongCodec<T> codec, long[] values) {
+        return new CompressedArray<>(codec, values, values.length);
+    }
+
+
+    /**
+     * Returns a compressed array of ints
+     * @param values    the values to compress
+     * @return          the compressed array
+     */
+    public static CompressedArray<Integer> ofInts(int[] values) {
+        final long[] longs = new long[values.length];
+        for (int i=0; i<values.length; ++i) longs[i] = values[i];
+        return new CompressedArray<>(LongCodec.ofInteger(), longs, longs.length);
+    }
+
+
+    /**
+     * Returns a compressed copy of the values in the Morpheus array
+     * @param array     the array to copy, which must have a type supported by LongCodec.of()
+     * @return          the compressed copy
+     */
+    public static <T> CompressedArray<T> copyOf(Array<T> array) {
+        final LongCodec<T> codec = LongCodec.of(array.type());
+        final long[] values = new long[array.length()];
+        for (int i=0; i<values.length; ++i) {
+            values[i] = codec.encode(array.getValue(i));
+        }
+        return new CompressedArray<>(codec, values, values.length);
+    }
+
+
+    /**
+     * Returns a compressed copy of the values in the epoch array
+     * @param array     the array to copy
+     * @return          the compressed copy
+     */
+    public static <T> CompressedArray<T> copyOf(EpochArray<T> array) {
+        final long[] values = new long[array.length()];
+        for (int i=0; i<values.length; ++i) {
+            values[i] = array.getLong(i);
+        }
+        return new CompressedArray<>(array.codec(), values, values.length);
+    }
+
+
+    /**
+     * Returns the element type of this array
+     * @return  the element type
+     */
+    public Class<T> type() {
+        return codec.type();
+    }
+
+
+    /**
+     * Returns the codec for this array
+     * @return  the codec for this array
+     */
+    public LongCodec<T> codec() {
+        return codec;
+    }
+
+
+    /**
+     * Returns the length of this array
+     * @return  the array length
+     */
+    public int length() {
+        return length;
+    }
+
+
+    /**
+     * Returns the encoding used for the block specified
+     * @param blockIndex    the block index
+     * @return              the block encoding
+     */
+    public Encoding encoding(int blockIndex) {
+        return Encoding.values()[encodings[blockIndex]];
+    }
+
+
+    /**
+     * Returns the number of blocks in this array
+     * @return  the block count
+     */
+    public int blockCount() {
+        return encodings.length;
+    }
+
+
+    /**
+     * Returns true if the value at the index is null
+     * @param index     the array index
+     * @return          true if value is null
+     */
+    public boolean isNull(int index) {
+        return getLong(index) == LongCodec.NULL;
+    }
+
+
+    /**
+     * Returns the value at the index specified, which is created from the encoded value on each call
+     * @param index     the array index
+     * @return          the value, which may be null
+     */
+    public T getValue(int index) {
+        return codec.decode(getLong(index));
+    }
+
+
+    /**
+     * Returns the encoded value at the index specified
+     * @param index     the array index
+     * @return          the encoded value
+     */
+    public long getLong(int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        } else {
+            final int b = index / BLOCK_SIZE;
+            final int j = index - b * BLOCK_SIZE;
+            final int width = widths[b];
+            final int offset = offsets[b];
+            switch (encodings[b]) {
+                case FOR:
+                    return width == 0 ? bases[b] : bases[b] + unpack(data, offset, (long)j * width, width);
+                case DELTA:
+                    if (width == 0) {
+                        return bases[b] + j * params[b];
+                    } else {
+                        long value = bases[b];
+                        for (int k=0; k<j; ++k) {
+                            value += params[b] + unpack(data, offset, (long)k * width, width);
+                        }
+                        return value;
+                    }
+                default:
+                    final int runCount = (int)params[b];
+                    for (int r=0; r<runCount; ++r) {
+                        if (j <= runEnd(offset, runCount, r)) {
+                            return data[offset + r];
+                        }
+                    }
+                    throw new IllegalStateException("Corrupt run length block at index " + b);
+            }
+        }
+    }
+
+
+    /**
+     * Decodes the block specified into the buffer provided
+     * @param blockIndex    the block index
+     * @param buffer        the buffer to decode into, of at least BLOCK_SIZE length
+     * @return              the number of values decoded
+     */
+    int decode(int blockIndex, long[] buffer) {
+        final int from = blockIndex * BLOCK_SIZE;
+        final int count = Math.min(BLOCK_SIZE, length - from);
+        final int width = widths[blockIndex];
+        final int offset = offsets[blockIndex];
+        final long base = bases[blockIndex];
+        switch (encodings[blockIndex]) {
+            case FOR:
+                if (width == 0) {
+                    Arrays.fill(buffer, 0, count, base);
+                } else {
+                    long bitPos = 0L;
+                    for (int k=0; k<count; ++k, bitPos += width) {
+                        buffer[k] = base + unpack(data, offset, bitPos, width);
+                    }
+                }
+                return count;
+            case DELTA:
+                final long minDelta = params[blockIndex];
+                long value = base;
+                buffer[0] = value;
+                if (width == 0) {
+                    for (int k=1; k<count; ++k) {
+                        value += minDelta;
+                        buffer[k] = value;
+                    }
+                } else {
+                    long bitPos = 0L;
+                    for (int k=1; k<count; ++k, bitPos += width) {
+                        value += minDelta + unpack(data, offset, bitPos, width);
+                        buffer[k] = value;
+                    }
+                }
+                return count;
+            default:
+                int start = 0;
+                final int runCount = (int)params[blockIndex];
+                for (int r=0; r<runCount; ++r) {
+                    final int end = runEnd(offset, runCount, r) + 1;
+                    Arrays.fill(buffer, start, end, data[offset + r]);
+                    start = end;
+                }
+                return count;
+        }
+    }
+
+
+    /**
+     * Calls the consumer with each encoded value in order
+     * @param consumer  the consumer to receive encoded values
+     */
+    public void forEachLong(LongConsumer consumer) {
+        final long[] buffer = new long[BLOCK_SIZE];
+        for (int b=0; b<encodings.length; ++b) {
+            final int count = decode(b, buffer);
+            for (int k=0; k<count; ++k) {
+                consumer.accept(buffer[k]);
+            }
+        }
+    }
+
+
+    /**
+     * Calls the consumer with each decoded value in order
+     * @param consumer  the consumer to receive values, which may be null
+     */
+    public void forEachValue(Consumer<T> consumer) {
+        final long[] buffer = new long[BLOCK_SIZE];
+        for (int b=0; b<encodings.length; ++b) {
+            final int count = decode(b, buffer);
+            for (int k=0; k<count; ++k) {
+                consumer.accept(codec.decode(buffer[k]));
+            }
+        }
+    }
+
+
+    /**
+     * Returns the number of non-null values in this array
+     * @return  the count of non-null values
+     */
+    public int count() {
+        int count = 0;
+        final long[] buffer = new long[BLOCK_SIZE];
+        for (int b=0; b<encodings.length; ++b) {
+            final int size = decode(b, buffer);
+            for (int k=0; k<size; ++k) {
+                count += buffer[k] != LongCodec.NULL ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Returns the sum of the non-null encoded values, which is meaningful for Integer and Long arrays
+     * @return  the sum of non-null values
+     */
+    public long sum() {
+        long sum = 0L;
+        final long[] buffer = new long[BLOCK_SIZE];
+        for (int b=0; b<encodings.length; ++b) {
+            final int count = decode(b, buffer);
+            for (int k=0; k<count; ++k) {
+                final long value = buffer[k];
+                sum += value != LongCodec.NULL ? value : 0L;
+            }
+        }
+        return sum;
+    }
+
+
+    /**
+     * Returns the minimum non-null value in this array
+     * @return  the minimum value, or null if there are no non-null values
+     */
+    public T min() {
+        long min = Long.MAX_VALUE;
+        boolean found = false;
+        final long[] buffer = new long[BLOCK_SIZE];
+        for (int b=0; b<encodings.length; ++b) {
+            if (encodings[b] == FOR && bases[b] != LongCodec.NULL) {
+                min = Math.min(min, bases[b]);
+                found = true;
+            } else {
+                final int count = decode(b, buffer);
+                for (int k=0; k<count; ++k) {
+                    final long value = buffer[k];
+                    if (value != LongCodec.NULL && value <= min) {
+                        min = value;
+                        found = true;
+                    }
+                }
+            }
+        }
+        return found ? codec.decode(min) : null;
+    }
+
+
+    /**
+     * Returns the maximum non-null value in this array
+     * @return  the maximum value, or null if there are no non-null values
+     */
+    public T max() {
+        long max = LongCodec.NULL;
+        final long[] buffer = new long[BLOCK_SIZE];
+        for (int b=0; b<encodings.length; ++b) {
+            final int count = decode(b, buffer);
+            for (int k=0; k<count; ++k) {
+                final long value = buffer[k];
+                max = value > max ? value : max;
+            }
+        }
+        return max == LongCodec.NULL ? null : codec.decode(max);
+    }
+
+
+    /**
+     * Returns a copy of all encoded values in this array
+     * @return  the decompressed encoded values
+     */
+    public long[] toLongArray() {
+        final long[] result = new long[length];
+        final long[] buffer = new long[BLOCK_SIZE];
+        for (int b=0; b<encodings.length; ++b) {
+            final int count = decode(b, buffer);
+            System.arraycopy(buffer, 0, result, b * BLOCK_SIZE, count);
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns a Morpheus array containing the decoded values of this array
+     * @return  the Morpheus array of decoded values
+     */
+    public Array<T> toArray() {
+        final Array<T> array = Array.of(codec.type(), length);
+        final long[] buffer = new long[BLOCK_SIZE];
+        for (int b=0; b<encodings.length; ++b) {
+            final int count = decode(b, buffer);
+            final int from = b * BLOCK_SIZE;
+            for (int k=0; k<count; ++k) {
+                array.setValue(from + k, codec.decode(buffer[k]));
+            }
+        }
+        return array;
+    }
+
+
+    /**
+     * Encodes the values in the range as the block specified, choosing the smallest encoding
+     * @param b         the block index
+     * @param values    the values to encode
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     */
+    private void encode(int b, long[] values, int from, int to) {
+        long min = values[from], max = values[from];
+        long minDelta = 0L, maxDelta = 0L;
+        int runCount = 1;
+        for (int i=from+1; i<to; ++i) {
+            final long value = values[i];
+            final long delta = value - values[i-1];
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            minDelta = i == from + 1 ? delta : Math.min(minDelta, delta);
+            maxDelta = i == from + 1 ? delta : Math.max(maxDelta, delta);
+            runCount += delta != 0L ? 1 : 0;
+        }
+        final int count = to - from;
+        final int forWidth = 64 - Long.numberOfLeadingZeros(max - min);
+        final int deltaWidth = 64 - Long.numberOfLeadingZeros(maxDelta - minDelta);
+        final int forWords = words((long)count * forWidth);
+        final int deltaWords = words((long)(count - 1) * deltaWidth);
+        final int rleWords = runCount + (runCount + 7) / 8;
+        final int offset = offsets[b];
+        if (forWords <= deltaWords && forWords <= rleWords) {
+            this.ensureCapacity(offset + forWords);
+            this.encodings[b] = FOR;
+            this.widths[b] = (byte)forWidth;
+            this.bases[b] = min;
+            if (forWidth > 0) {
+                for (int i=from; i<to; ++i) {
+                    pack(data, offset, (long)(i - from) * forWidth, forWidth, values[i] - min);
+                }
+            }
+            this.offsets[b + 1] = offset + forWords;
+        } else if (deltaWords <= rleWords) {
+            this.ensureCapacity(offset + deltaWords);
+            this.encodings[b] = DELTA;
+            this.widths[b] = (byte)deltaWidth;
+            this.bases[b] = values[from];
+            this.params[b] = minDelta;
+            if (deltaWidth > 0) {
+                for (int i=from+1; i<to; ++i) {
+                    pack(data, offset, (long)(i - from - 1) * deltaWidth, deltaWidth, values[i] - values[i-1] - minDelta);
+                }
+            }
+            this.offsets[b + 1] = offset + deltaWords;
+        } else {
+            this.ensureCapacity(offset + rleWords);
+            this.encodings[b] = RLE;
+            this.bases[b] = values[from];
+            this.params[b] = runCount;
+            int run = 0;
+            for (int i=from; i<to; ++i) {
+                if (i + 1 == to || values[i + 1] != values[i]) {
+                    this.data[offset + run] = values[i];
+                    this.data[offset + runCount + run / 8] |= (long)(i - from) << ((run & 7) << 3);
+                    run++;
+                }
+            }
+            this.offsets[b + 1] = offset + rleWords;
+        }
+    }
+
+
+    /**
+     * Returns the index within its block of the last element of the run specified
+     * @param offset    the data offset for the block
+     * @param runCount  the number of runs in the block
+     * @param run       the run index
+     * @return          the block relative index of the last element in the run
+     */
+    private int runEnd(int offset, int runCount, int run) {
+        return (int)(data[offset + runCount + run / 8] >>> ((run & 7) << 3)) & 0xFF;
+    }
+
+
+    /**
+     * Ensures the data array can hold at least the number of words specified
+     * @param capacity  the required capacity in words
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            this.data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+        }
+    }
+
+
+    /**
+     * Returns the number of words required to hold the number of bits specified
+     * @param bits  the number of bits
+     * @return      the number of 64-bit words
+     */
+    private static int words(long bits) {
+        return (int)((bits + 63) >>> 6);
+    }
+
+
+    /**
+     * Returns the unsigned value of the width specified, read from the bit position
+     * @param data      the packed data
+     * @param offset    the word offset of the block
+     * @param bitPos    the bit position relative to the offset
+     * @param width     the width in bits, from 1 to 64
+     * @return          the unpacked value
+     */
+    private static long unpack(long[] data, int offset, long bitPos, int width) {
+        final int index = offset + (int)(bitPos >>> 6);
+        final int shift = (int)bitPos & 63;
+        long value = data[index] >>> shift;
+        if (shift + width > 64) {
+            value |= data[index + 1] << (64 - shift);
+        }
+        return width == 64 ? value : value & ((1L << width) - 1L);
+    }
+
+
+    /**
+     * Writes the low bits of the value at the bit position, into words that are initially clear
+     * @param data      the packed data
+     * @param offset    the word offset of the block
+     * @param bitPos    the bit position relative to the offset
+     * @param width     the width in bits, from 1 to 64
+     * @param value     the value to write
+     */
+    private static void pack(long[] data, int offset, long bitPos, int width, long value) {
+        final int index = offset + (int)(bitPos >>> 6);
+        final int shift = (int)bitPos & 63;
+        final long bits = width == 64 ? value : value & ((1L << width) - 1L);
+        data[index] |= bits << shift;
+        if (shift + width > 64) {
+            data[index + 1] |= bits >>> (64 - shift);
+        }
+    }
+}
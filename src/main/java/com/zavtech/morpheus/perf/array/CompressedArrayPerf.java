@@ -0,0 +1,92 @@
+package com.zavtech.morpheus.perf.array;
+
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.util.MemoryEstimator;
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class CompressedArrayPerf {
+
+    public static void main(String[] args) {
+
+        final int rowCount = 5000000;
+        final Random random = new Random(11);
+        final LocalDateTime start = LocalDateTime.of(2010, 1, 1, 0, 0);
+        final Array<LocalDateTime> timestamps = Array.of(LocalDateTime.class, rowCount).applyValues(v -> start.plusMinutes(v.index()));
+        final Array<LocalDate> dates = Array.of(LocalDate.class, rowCount).applyValues(v -> start.toLocalDate().plusDays(v.index() / 100));
+        final Array<Integer> levels = Array.of(Integer.class, rowCount).applyInts(v -> 1000 + v.index() / 5000);
+        final Array<Integer> randoms = Array.of(Integer.class, rowCount).applyInts(v -> random.nextInt());
+
+        final MemoryEstimator estimator = new MemoryEstimator.DefaultMemoryEstimator();
+        final List<Array<?>> arrays = Arrays.asList(timestamps, dates, levels, randoms);
+        final Array<String> rowKeys = Array.of("LocalDateTime", "LocalDate", "Integer(Levels)", "Integer(Random)");
+        final DataFrame<String,String> memory = DataFrame.ofDoubles(rowKeys, Array.of("Morpheus", "Compressed"));
+        for (int i=0; i<arrays.size(); ++i) {
+            final Array<?> array = arrays.get(i);
+            final CompressedArray<?> compressed = CompressedArray.copyOf(array);
+            memory.data().setDouble(i, 0, estimator.getObjectSize(array) / Math.pow(1024, 2));
+            memory.data().setDouble(i, 1, estimator.getObjectSize(compressed) / Math.pow(1024, 2));
+        }
+
+        memory.out().print();
+
+        final CompressedArray<LocalDateTime> compressed = CompressedArray.copyOf(timestamps);
+        final int[] indexes = random.ints(rowCount, 0, rowCount).toArray();
+
+        DataFrame<String,String> timingStats = PerfStat.run(10, TimeUnit.MILLISECONDS, false, tasks -> {
+
+            tasks.put("Scan(Morpheus)", () -> {
+                final long[] sum = new long[1];
+                timestamps.forEachLong(v -> sum[0] += v);
+                return sum[0];
+            });
+
+            tasks.put("Scan(Compressed)", () -> {
+                final long[] sum = new long[1];
+                compressed.forEachLong(v -> sum[0] += v);
+                return sum[0];
+            });
+
+            tasks.put("Random(Morpheus)", () -> {
+                long sum = 0L;
+                for (int index : indexes) sum += timestamps.getLong(index);
+                return sum;
+            });
+
+            tasks.put("Random(Compressed)", () -> {
+                long sum = 0L;
+                for (int index : indexes) sum += compressed.getLong(index);
+                return sum;
+            });
+
+        });
+
+        Chart.create().withBarPlot(memory, false, chart -> {
+            chart.title().withText("Memory Usage, Morpheus vs Compressed Arrays (5 Million rows)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Array Type");
+            chart.plot().axes().range(0).label().withText("Memory Usage (MB)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("Scan and Random Access Times, Morpheus vs Compressed LocalDateTime Arrays (5 Million rows)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+    }
+}
@@ -0,0 +1,421 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.zavtech.morpheus.array.Array;
+
+/**
+ * An array of low cardinality values, such as Strings or enums, stored as a code per element into a dictionary
+ * of distinct values.
+ *
+ * <p>Codes are held in a short[] while there are at most 32767 distinct values, and are widened to an int[] beyond
+ * that, with -1 representing null. Equality filters compare codes after a single dictionary lookup, predicates are
+ * evaluated once per distinct value rather than once per element, grouping is a counting pass over the codes, and
+ * sorting ranks the dictionary and then counting sorts the codes, so each is linear in the array length. Values
+ * are never copied, so every element with the same value shares one instance.</p>
+ *
+ * @param <T>   the element type
+ *
+ * @author  Xavier Witdouck
+ */
+public class DictionaryArray<T> {
+
+    private static final int NULL = -1;
+
+    private Class<T> type;
+    private int length;
+    private short[] shortCodes;
+    private int[] intCodes;
+    private List<T> values;
+    private Map<T,Integer> codeMap;
+
+
+    /**
+     * Constructor
+     * @param type      the element type
+     * @param length    the length for this array
+     * @param values    the initial dictionary values, which must be distinct and non-null
+     */
+    private DictionaryArray(Class<T> type, int length, List<T> values) {
+        this.type = type;
+        this.length = length;
+        this.values = new ArrayList<>(values);
+        this.codeMap = new HashMap<>(values.size() * 2);
+        for (int i=0; i<values.size(); ++i) {
+            if (codeMap.put(values.get(i), i) != null) {
+                throw new IllegalArgumentException("Duplicate dictionary value: " + values.get(i));
+            }
+        }
+        if (values.size() <= Short.MAX_VALUE) {
+            this.shortCodes = new short[length];
+            Arrays.fill(shortCodes, (short)NULL);
+        } else {
+            this.intCodes = new int[length];
+            Arrays.fill(intCodes, NULL);
+        }
+    }
+
+
+    /**
+     * Returns a new array of the length specified, initialized with nulls
+     * @param type      the element type
+     * @param length    the array length
+     * @return          the newly created array
+     */
+    public static <T> DictionaryArray<T> of(Class<T> type, int length) {
+        return new DictionaryArray<>(type, length, Collections.emptyList());
+    }
+
+
+    /**
+     * Returns a new array from codes into a dictionary of distinct values
+     * @param type          the element type
+     * @param dictionary    the distinct non-null values, indexed by code
+     * @param codes         the code for each element, -1 for null
+     * @return              the newly created array
+     */
+    public static <T> DictionaryArray<T> of(Class<T> type, List<T> dictionary, int[] codes) {
+        final DictionaryArray<T> result = new DictionaryArray<>(type, codes.length, dictionary);
+        for (int i=0; i<codes.length; ++i) {
+            final int code = codes[i];
+            if (code < NULL || code >= dictionary.size()) {
+                throw new IllegalArgumentException("Dictionary code out of bounds at index " + i + ": " + code);
+            } else {
+                result.setCode(i, code);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns a dictionary encoded copy of the values in the Morpheus array
+     * @param array     the array to copy
+     * @return          the dictionary encoded copy
+     */
+    public static <T> DictionaryArray<T> copyOf(Array<T> array) {
+        final DictionaryArray<T> result = of(array.type(), array.length());
+        for (int i=0; i<array.length(); ++i) {
+            result.setValue(i, array.getValue(i));
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the element type of this array
+     * @return  the element type
+     */
+    public Class<T> type() {
+        return type;
+    }
+
+
+    /**
+     * Returns the length of this array
+     * @return  the array length
+     */
+    public int length() {
+        return length;
+    }
+
+
+    /**
+     * Returns the number of distinct non-null values in the dictionary
+     * @return  the dictionary size
+     */
+    public int cardinality() {
+        return values.size();
+    }
+
+
+    /**
+     * Returns an unmodifiable view of the dictionary, indexed by code
+     * @return  the dictionary values
+     */
+    public List<T> dictionary() {
+        return Collections.unmodifiableList(values);
+    }
+
+
+    /**
+     * Returns the code for the value specified
+     * @param value     the value, which may be null
+     * @return          the code for value, -1 if null, or -2 if the value is not in the dictionary
+     */
+    public int codeOf(T value) {
+        if (value == null) {
+            return NULL;
+        } else {
+            final Integer code = codeMap.get(value);
+            return code != null ? code : -2;
+        }
+    }
+
+
+    /**
+     * Returns true if the value at the index is null
+     * @param index     the array index
+     * @return          true if value is null
+     */
+    public boolean isNull(int index) {
+        return getCode(index) == NULL;
+    }
+
+
+    /**
+     * Returns the dictionary code at the index specified
+     * @param index     the array index
+     * @return          the dictionary code, -1 for null
+     */
+    public int getCode(int index) {
+        return shortCodes != null ? shortCodes[index] : intCodes[index];
+    }
+
+
+    /**
+     * Returns the value at the index specified
+     * @param index     the array index
+     * @return          the value, which may be null
+     */
+    public T getValue(int index) {
+        final int code = getCode(index);
+        return code == NULL ? null : values.get(code);
+    }
+
+
+    /**
+     * Sets the value at the index specified, adding it to the dictionary if necessary
+     * @param index     the array index
+     * @param value     the value, which may be null
+     */
+    public void setValue(int index, T value) {
+        if (value == null) {
+            this.setCode(index, NULL);
+        } else {
+            final Integer code = codeMap.get(value);
+            if (code != null) {
+                this.setCode(index, code);
+            } else {
+                final int newCode = values.size();
+                this.values.add(value);
+                this.codeMap.put(value, newCode);
+                if (shortCodes != null && newCode > Short.MAX_VALUE - 1) {
+                    this.intCodes = new int[length];
+                    for (int i=0; i<length; ++i) intCodes[i] = shortCodes[i];
+                    this.shortCodes = null;
+                }
+                this.setCode(index, newCode);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the indexes of elements equal to the value, which compares codes after one dictionary lookup
+     * @param value     the value to match, which may be null
+     * @return          the matching indexes in ascending order
+     */
+    public int[] indexesOf(T value) {
+        final int code = codeOf(value);
+        if (code < NULL) {
+            return new int[0];
+        } else {
+            int count = 0;
+            int[] indexes = new int[16];
+            for (int i=0; i<length; ++i) {
+                if (getCode(i) == code) {
+                    if (count == indexes.length) indexes = Arrays.copyOf(indexes, count * 2);
+                    indexes[count++] = i;
+                }
+            }
+            return Arrays.copyOf(indexes, count);
+        }
+    }
+
+
+    /**
+     * Returns the indexes of elements that match the predicate, which is evaluated once per distinct value
+     * @param predicate     the predicate, which is also tested with null if the array contains nulls
+     * @return              the matching indexes in ascending order
+     */
+    public int[] indexesOf(Predicate<T> predicate) {
+        final boolean[] matches = new boolean[values.size() + 1];
+        final boolean matchNull = predicate.test(null);
+        for (int code=0; code<values.size(); ++code) {
+            matches[code + 1] = predicate.test(values.get(code));
+        }
+        matches[0] = matchNull;
+        int count = 0;
+        int[] indexes = new int[16];
+        for (int i=0; i<length; ++i) {
+            if (matches[getCode(i) + 1]) {
+                if (count == indexes.length) indexes = Arrays.copyOf(indexes, count * 2);
+                indexes[count++] = i;
+            }
+        }
+        return Arrays.copyOf(indexes, count);
+    }
+
+
+    /**
+     * Returns the number of elements with each code
+     * @return  the counts indexed by code, with the null count in the last element
+     */
+    public int[] counts() {
+        final int[] counts = new int[values.size() + 1];
+        for (int i=0; i<length; ++i) {
+            final int code = getCode(i);
+            counts[code == NULL ? values.size() : code]++;
+        }
+        return counts;
+    }
+
+
+    /**
+     * Returns the indexes of elements grouped by value, in dictionary order and excluding nulls
+     * @return  the map of value to ascending element indexes
+     */
+    public Map<T,int[]> groupBy() {
+        final int[] counts = counts();
+        final int[][] groups = new int[values.size()][];
+        for (int code=0; code<groups.length; ++code) {
+            groups[code] = new int[counts[code]];
+        }
+        final int[] offsets = new int[values.size()];
+        for (int i=0; i<length; ++i) {
+            final int code = getCode(i);
+            if (code != NULL) {
+                groups[code][offsets[code]++] = i;
+            }
+        }
+        final Map<T,int[]> result = new LinkedHashMap<>(groups.length * 2);
+        for (int code=0; code<groups.length; ++code) {
+            if (groups[code].length > 0) {
+                result.put(values.get(code), groups[code]);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the permutation of indexes that sorts this array, which is stable and places nulls first when ascending
+     * @param ascending     true for ascending order, false for descending
+     * @return              the sorted order of indexes
+     */
+    public int[] sortOrder(boolean ascending) {
+        final int[] ranks = ranks(ascending);
+        final int[] starts = new int[values.size() + 2];
+        for (int i=0; i<length; ++i) {
+            starts[ranks[getCode(i) + 1] + 1]++;
+        }
+        for (int i=1; i<starts.length; ++i) {
+            starts[i] += starts[i-1];
+        }
+        final int[] order = new int[length];
+        for (int i=0; i<length; ++i) {
+            order[starts[ranks[getCode(i) + 1]]++] = i;
+        }
+        return order;
+    }
+
+
+    /**
+     * Sorts this array in place by value, with nulls first when ascending
+     * @param ascending     true for ascending order, false for descending
+     * @return              this array
+     */
+    public DictionaryArray<T> sort(boolean ascending) {
+        final int[] ranks = ranks(ascending);
+        final int[] codesByRank = new int[ranks.length];
+        final int[] counts = new int[ranks.length];
+        for (int i=0; i<ranks.length; ++i) {
+            codesByRank[ranks[i]] = i - 1;
+        }
+        for (int i=0; i<length; ++i) {
+            counts[ranks[getCode(i) + 1]]++;
+        }
+        int index = 0;
+        for (int rank=0; rank<counts.length; ++rank) {
+            final int code = codesByRank[rank];
+            for (int i=0; i<counts[rank]; ++i) {
+                this.setCode(index++, code);
+            }
+        }
+        return this;
+    }
+
+
+    /**
+     * Returns a Morpheus array of the values in this array, where equal values share one instance
+     * @return  the Morpheus array
+     */
+    public Array<T> toArray() {
+        final Array<T> array = Array.of(type, length);
+        for (int i=0; i<length; ++i) {
+            final int code = getCode(i);
+            if (code != NULL) {
+                array.setValue(i, values.get(code));
+            }
+        }
+        return array;
+    }
+
+
+    /**
+     * Sets the code at the index specified
+     * @param index     the array index
+     * @param code      the dictionary code, -1 for null
+     */
+    private void setCode(int index, int code) {
+        if (shortCodes != null) {
+            this.shortCodes[index] = (short)code;
+        } else {
+            this.intCodes[index] = code;
+        }
+    }
+
+
+    /**
+     * Returns the sort rank of each code offset by one, so null is at index 0, from sorting the dictionary
+     * @param ascending     true for ascending order, false for descending
+     * @return              the rank of each code + 1
+     */
+    @SuppressWarnings("unchecked")
+    private int[] ranks(boolean ascending) {
+        final Integer[] sorted = new Integer[values.size()];
+        for (int i=0; i<sorted.length; ++i) sorted[i] = i;
+        final Comparator<T> comparator = (Comparator<T>)Comparator.naturalOrder();
+        Arrays.sort(sorted, (c1, c2) -> comparator.compare(values.get(c1), values.get(c2)));
+        final int[] ranks = new int[values.size() + 1];
+        for (int rank=0; rank<sorted.length; ++rank) {
+            ranks[sorted[rank] + 1] = ascending ? rank + 1 : sorted.length - 1 - rank;
+        }
+        ranks[0] = ascending ? 0 : sorted.length;
+        return ranks;
+    }
+}
@@ -0,0 +1,69 @@
+package com.zavtech.morpheus.perf.array;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class DictionaryPerf {
+
+    public static void main(String[] args) {
+
+        final int rowCount = 5000000;
+        final Random random = new Random(7);
+        final String[] countries = {"Australia", "Brazil", "Canada", "France", "Germany", "Japan", "Spain", "United Kingdom", "United States"};
+        final Array<String> strings = Array.of(String.class, rowCount);
+        for (int i=0; i<rowCount; ++i) {
+            strings.setValue(i, new String(countries[random.nextInt(countries.length)]));
+        }
+
+        final DictionaryArray<String> encoded = DictionaryArray.copyOf(strings);
+
+        DataFrame<String,String> timingStats = PerfStat.run(10, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("GroupBy(String)", () -> {
+                final Map<String,List<Integer>> groups = new HashMap<>();
+                for (int i=0; i<rowCount; ++i) {
+                    groups.computeIfAbsent(strings.getValue(i), k -> new ArrayList<>()).add(i);
+                }
+                return groups;
+            });
+
+            tasks.put("GroupBy(Dictionary)", encoded::groupBy);
+
+            tasks.put("Filter(String)", () -> {
+                int count = 0;
+                for (int i=0; i<rowCount; ++i) {
+                    final String value = strings.getValue(i);
+                    if (value.startsWith("United")) count++;
+                }
+                return count;
+            });
+
+            tasks.put("Filter(Dictionary)", () -> encoded.indexesOf(v -> v.startsWith("United")).length);
+
+            tasks.put("Sort(String)", () -> strings.copy().sort(true));
+
+            tasks.put("Sort(Dictionary)", () -> encoded.sortOrder(true));
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("String vs Dictionary Encoded Array Performance incl. GC (5 Million rows, 9 distinct values)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+    }
+}
@@ -0,0 +1,361 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.zavtech.morpheus.array.Array;
+
+/**
+ * An array of temporal values that are stored as epoch offsets in a long[], with objects only created on access.
+ *
+ * <p>ZonedDateTime arrays are stored with either a single zone for the whole array, or a short zone code per
+ * element that refers into a small table of distinct zones, so that the original zone of each value is preserved.
+ * Sorting and searching operate directly on the encoded longs.</p>
+ *
+ * @param <T>   the element type
+ *
+ * @author  Xavier Witdouck
+ */
+public class EpochArray<T> {
+
+    private int length;
+    private long[] values;
+    private LongCodec<T> codec;
+    private short[] zoneCodes;
+    private List<ZoneId> zones;
+    private Map<ZoneId,Short> zoneMap;
+
+
+    /**
+     * Constructor
+     * @param codec     the codec for this array
+     * @param length    the length for this array
+     * @param zoned     true to store a zone per element
+     */
+    private EpochArray(LongCodec<T> codec, int length, boolean zoned) {
+        this.codec = codec;
+        this.length = length;
+        this.values = new long[length];
+        Arrays.fill(values, LongCodec.NULL);
+        if (zoned) {
+            this.zoneCodes = new short[length];
+            this.zones = new ArrayList<>();
+            this.zoneMap = new HashMap<>();
+        }
+    }
+
+
+    /**
+     * Returns a new array of the length specified, initialized with nulls
+     * @param codec     the codec for the element type
+     * @param length    the array length
+     * @return          the newly created array
+     */
+    public static <T> EpochArray<T> of(LongCodec<T> codec, int length) {
+        return new EpochArray<>(codec, length, false);
+    }
+
+
+    /**
+     * Returns a new array of LocalDateTimes, initialized with nulls
+     * @param length    the array length
+     * @return          the newly created array
+     */
+    public static EpochArray<LocalDateTime> ofLocalDateTimes(int length) {
+        return new EpochArray<>(LongCodec.ofLocalDateTime(), length, false);
+    }
+
+
+    /**
+     * Returns a new array of Instants, initialized with nulls
+     * @param length    the array length
+     * @return          the newly created array
+     */
+    public static EpochArray<Instant> ofInstants(int length) {
+        return new EpochArray<>(LongCodec.ofInstant(), length, false);
+    }
+
+
+    /**
+     * Returns a new array of ZonedDateTimes that all share the zone specified
+     * @param length    the array length
+     * @param zoneId    the zone for all values, which values from other zones are converted into on access
+     * @return          the newly created array
+     */
+    public static EpochArray<ZonedDateTime> ofZonedDateTimes(int length, ZoneId zoneId) {
+        return new EpochArray<>(LongCodec.ofZonedDateTime(zoneId), length, false);
+    }
+
+
+    /**
+     * Returns a new array of ZonedDateTimes that records the zone of each element
+     * @param length    the array length
+     * @return          the newly created array
+     */
+    public static EpochArray<ZonedDateTime> ofZonedDateTimes(int length) {
+        return new EpochArray<>(LongCodec.ofZonedDateTime(ZoneId.of("UTC")), length, true);
+    }
+
+
+    /**
+     * Returns an epoch encoded copy of the values in the Morpheus array
+     * @param array     the array to copy
+     * @return          the epoch encoded copy
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EpochArray<T> copyOf(Array<T> array) {
+        final Class<T> type = array.type();
+        final EpochArray<T> result = type == ZonedDateTime.class
+            ? (EpochArray<T>)ofZonedDateTimes(array.length())
+            : of(LongCodec.of(type), array.length());
+        for (int i=0; i<array.length(); ++i) {
+            result.setValue(i, array.getValue(i));
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the element type of this array
+     * @return  the element type
+     */
+    public Class<T> type() {
+        return codec.type();
+    }
+
+
+    /**
+     * Returns the codec for this array
+     * @return  the codec for this array
+     */
+    public LongCodec<T> codec() {
+        return codec;
+    }
+
+
+    /**
+     * Returns the length of this array
+     * @return  the array length
+     */
+    public int length() {
+        return length;
+    }
+
+
+    /**
+     * Returns true if the value at the index is null
+     * @param index     the array index
+     * @return          true if value is null
+     */
+    public boolean isNull(int index) {
+        return values[index] == LongCodec.NULL;
+    }
+
+
+    /**
+     * Returns the encoded value at the index specified
+     * @param index     the array index
+     * @return          the epoch encoded value
+     */
+    public long getLong(int index) {
+        return values[index];
+    }
+
+
+    /**
+     * Sets the encoded value at the index specified
+     * @param index     the array index
+     * @param value     the epoch encoded value
+     * @throws UnsupportedOperationException    if the value is not null and this array stores a zone per element
+     */
+    public void setLong(int index, long value) {
+        if (zoneCodes != null && value != LongCodec.NULL) {
+            throw new UnsupportedOperationException("The zone must be specified to set an encoded value in an array with a zone per element");
+        } else {
+            this.values[index] = value;
+        }
+    }
+
+
+    /**
+     * Sets the encoded value at the index specified, along with its zone if this array stores a zone per element
+     * @param index     the array index
+     * @param value     the epoch encoded value
+     * @param zoneId    the zone of the value, which is ignored unless this array stores a zone per element
+     */
+    public void setLong(int index, long value, ZoneId zoneId) {
+        this.values[index] = value;
+        if (zoneCodes != null && value != LongCodec.NULL) {
+            this.zoneCodes[index] = zoneCode(Objects.requireNonNull(zoneId, "The zone id cannot be null"));
+        }
+    }
+
+
+    /**
+     * Returns the value at the index specified, which is created from the encoded value on each call
+     * @param index     the array index
+     * @return          the value, which may be null
+     */
+    @SuppressWarnings("unchecked")
+    public T getValue(int index) {
+        final long value = values[index];
+        if (value == LongCodec.NULL) {
+            return null;
+        } else if (zoneCodes == null) {
+            return codec.decode(value);
+        } else {
+            final ZoneId zoneId = zones.get(zoneCodes[index]);
+            final Instant instant = Instant.ofEpochSecond(Math.floorDiv(value, 1000000000L), Math.floorMod(value, 1000000000L));
+            return (T)ZonedDateTime.ofInstant(instant, zoneId);
+        }
+    }
+
+
+    /**
+     * Sets the value at the index specified, encoding it as a long
+     * @param index     the array index
+     * @param value     the value, which may be null
+     */
+    public void setValue(int index, T value) {
+        this.values[index] = codec.encode(value);
+        if (zoneCodes != null && value != null) {
+            this.zoneCodes[index] = zoneCode(((ZonedDateTime)value).getZone());
+        }
+    }
+
+
+    /**
+     * Returns the code for the zone specified, adding it to the zone table if necessary
+     * @param zoneId    the zone id
+     * @return          the zone code
+     */
+    private synchronized short zoneCode(ZoneId zoneId) {
+        final Short code = zoneMap.get(zoneId);
+        if (code != null) {
+            return code;
+        } else if (zones.size() >= Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct zones in array");
+        } else {
+            final short newCode = (short)zones.size();
+            this.zones.add(zoneId);
+            this.zoneMap.put(zoneId, newCode);
+            return newCode;
+        }
+    }
+
+
+    /**
+     * Sorts this array in place by the encoded values, with nulls first when ascending
+     * @param ascending     true for ascending order, false for descending
+     * @return              this array
+     */
+    public EpochArray<T> sort(boolean ascending) {
+        if (zoneCodes == null) {
+            Arrays.sort(values, 0, length);
+        } else {
+            sort(values, zoneCodes, 0, length - 1);
+        }
+        if (!ascending) {
+            for (int i=0, j=length-1; i<j; ++i, --j) {
+                final long value = values[i]; values[i] = values[j]; values[j] = value;
+                if (zoneCodes != null) {
+                    final short code = zoneCodes[i]; zoneCodes[i] = zoneCodes[j]; zoneCodes[j] = code;
+                }
+            }
+        }
+        return this;
+    }
+
+
+    /**
+     * Returns the index of the value in this array, which must be sorted in ascending order
+     * @param value     the value to search for
+     * @return          the index of the value, otherwise (-(insertion point) - 1)
+     * @see Arrays#binarySearch(long[], long)
+     */
+    public int binarySearch(T value) {
+        return Arrays.binarySearch(values, 0, length, codec.encode(value));
+    }
+
+
+    /**
+     * Returns a Morpheus array containing the decoded values of this array
+     * @return  the Morpheus array of decoded values
+     */
+    public Array<T> toArray() {
+        final Array<T> array = Array.of(codec.type(), length);
+        for (int i=0; i<length; ++i) {
+            array.setValue(i, getValue(i));
+        }
+        return array;
+    }
+
+
+    /**
+     * Sorts the values and zone codes together over the range specified
+     * @param values    the encoded values
+     * @param codes     the zone codes
+     * @param left      the left index, inclusive
+     * @param right     the right index, inclusive
+     */
+    private static void sort(long[] values, short[] codes, int left, int right) {
+        while (right - left > 16) {
+            final int mid = (left + right) >>> 1;
+            final long pivot = median(values[left], values[mid], values[right]);
+            int i = left, j = right;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) {
+                    swap(values, codes, i++, j--);
+                }
+            }
+            if (j - left < right - i) {
+                sort(values, codes, left, j);
+                left = i;
+            } else {
+                sort(values, codes, i, right);
+                right = j;
+            }
+        }
+        for (int i=left+1; i<=right; ++i) {
+            for (int j=i; j>left && values[j-1] > values[j]; --j) {
+                swap(values, codes, j, j-1);
+            }
+        }
+    }
+
+
+    private static long median(long a, long b, long c) {
+        return a < b ? (b < c ? b : Math.max(a, c)) : (a < c ? a : Math.max(b, c));
+    }
+
+
+    private static void swap(long[] values, short[] codes, int i, int j) {
+        final long value = values[i]; values[i] = values[j]; values[j] = value;
+        final short code = codes[i]; codes[i] = codes[j]; codes[j] = code;
+    }
+}
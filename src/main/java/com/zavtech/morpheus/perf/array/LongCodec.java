@@ -0,0 +1,364 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+/**
+ * A codec that maps values of some type onto a long, such that the natural ordering of values is preserved.
+ *
+ * <p>Temporal types are encoded as epoch offsets, which allows arrays and indexes of these types to be stored,
+ * sorted and searched as primitive longs, with objects only created on demand. LocalDateTime, Instant and
+ * ZonedDateTime are encoded as nanoseconds since the epoch which covers the years 1677 through 2262, Date as
+ * milliseconds, LocalDate as days and LocalTime as nanoseconds of the day. Long.MIN_VALUE is reserved to
+ * represent null.</p>
+ *
+ * <p>Encoding a value outside the range of an encoding throws a DateTimeException rather than wrapping. The
+ * millisecond codecs returned by ofMillis() cover some 292 million years either side of the epoch, which matches
+ * the precision and range of the Morpheus arrays, so the I/O paths use these to carry values such as a
+ * 9999-12-31 sentinel that epoch nanoseconds cannot represent.</p>
+ *
+ * @param <T>   the value type
+ *
+ * @author  Xavier Witdouck
+ */
+public interface LongCodec<T> {
+
+    long NULL = Long.MIN_VALUE;
+
+    /**
+     * Returns the value type for this codec
+     * @return  the value type
+     */
+    Class<T> type();
+
+    /**
+     * Returns the long encoding of the value
+     * @param value     the value to encode, which may be null
+     * @return          the encoded value, or NULL
+     */
+    long encode(T value);
+
+    /**
+     * Returns the value for the long encoding
+     * @param value     the encoded value
+     * @return          the decoded value, or null if the value is NULL
+     */
+    T decode(long value);
+
+
+    /**
+     * Returns a codec for Integer values
+     * @return  the Integer codec
+     */
+    static LongCodec<Integer> ofInteger() {
+        return new LongCodec<Integer>() {
+            public Class<Integer> type() { return Integer.class; }
+            public long encode(Integer value) { return value == null ? NULL : value; }
+            public Integer decode(long value) { return value == NULL ? null : (int)value; }
+        };
+    }
+
+
+    /**
+     * Returns a codec for Long values, where Long.MIN_VALUE cannot be represented
+     * @return  the Long codec
+     */
+    static LongCodec<Long> ofLong() {
+        return new LongCodec<Long>() {
+            public Class<Long> type() { return Long.class; }
+            public long encode(Long value) { return value == null ? NULL : value; }
+            public Long decode(long value) { return value == NULL ? null : value; }
+        };
+    }
+
+
+    /**
+     * Returns a codec for Date values encoded as epoch milliseconds
+     * @return  the Date codec
+     */
+    static LongCodec<Date> ofDate() {
+        return new LongCodec<Date>() {
+            public Class<Date> type() { return Date.class; }
+            public long encode(Date value) { return value == null ? NULL : value.getTime(); }
+            public Date decode(long value) { return value == NULL ? null : new Date(value); }
+        };
+    }
+
+
+    /**
+     * Returns a codec for LocalDate values encoded as epoch days
+     * @return  the LocalDate codec
+     */
+    static LongCodec<LocalDate> ofLocalDate() {
+        return new LongCodec<LocalDate>() {
+            public Class<LocalDate> type() { return LocalDate.class; }
+            public long encode(LocalDate value) { return value == null ? NULL : value.toEpochDay(); }
+            public LocalDate decode(long value) { return value == NULL ? null : LocalDate.ofEpochDay(value); }
+        };
+    }
+
+
+    /**
+     * Returns a codec for LocalTime values encoded as nanoseconds of the day
+     * @return  the LocalTime codec
+     */
+    static LongCodec<LocalTime> ofLocalTime() {
+        return new LongCodec<LocalTime>() {
+            public Class<LocalTime> type() { return LocalTime.class; }
+            public long encode(LocalTime value) { return value == null ? NULL : value.toNanoOfDay(); }
+            public LocalTime decode(long value) { return value == NULL ? null : LocalTime.ofNanoOfDay(value); }
+        };
+    }
+
+
+    /**
+     * Returns a codec for LocalDateTime values encoded as epoch nanoseconds, treating the local time as UTC.
+     * The codec throws a DateTimeException when encoding a value outside the years 1677 through 2262.
+     * @return  the LocalDateTime codec
+     */
+    static LongCodec<LocalDateTime> ofLocalDateTime() {
+        return new LongCodec<LocalDateTime>() {
+            public Class<LocalDateTime> type() {
+                return LocalDateTime.class;
+            }
+            public long encode(LocalDateTime value) {
+                return value == null ? NULL : toEpochNanos(value.toEpochSecond(ZoneOffset.UTC), value.getNano());
+            }
+            public LocalDateTime decode(long value) {
+                if (value == NULL) {
+                    return null;
+                } else {
+                    final long seconds = Math.floorDiv(value, 1000000000L);
+                    final int nanos = (int)Math.floorMod(value, 1000000000L);
+                    return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+                }
+            }
+        };
+    }
+
+
+    /**
+     * Returns a codec for Instant values encoded as epoch nanoseconds.
+     * The codec throws a DateTimeException when encoding a value outside the years 1677 through 2262.
+     * @return  the Instant codec
+     */
+    static LongCodec<Instant> ofInstant() {
+        return new LongCodec<Instant>() {
+            public Class<Instant> type() {
+                return Instant.class;
+            }
+            public long encode(Instant value) {
+                return value == null ? NULL : toEpochNanos(value.getEpochSecond(), value.getNano());
+            }
+            public Instant decode(long value) {
+                return value == NULL ? null : Instant.ofEpochSecond(Math.floorDiv(value, 1000000000L), Math.floorMod(value, 1000000000L));
+            }
+        };
+    }
+
+
+    /**
+     * Returns a codec for ZonedDateTime values encoded as epoch nanoseconds, which decodes values in the zone given.
+     * The codec throws a DateTimeException when encoding a value outside the years 1677 through 2262.
+     * @param zoneId    the zone in which to create decoded values
+     * @return          the ZonedDateTime codec
+     */
+    static LongCodec<ZonedDateTime> ofZonedDateTime(ZoneId zoneId) {
+        final LongCodec<Instant> instants = ofInstant();
+        return new LongCodec<ZonedDateTime>() {
+            public Class<ZonedDateTime> type() {
+                return ZonedDateTime.class;
+            }
+            public long encode(ZonedDateTime value) {
+                return value == null ? NULL : toEpochNanos(value.toEpochSecond(), value.getNano());
+            }
+            public ZonedDateTime decode(long value) {
+                return value == NULL ? null : ZonedDateTime.ofInstant(instants.decode(value), zoneId);
+            }
+        };
+    }
+
+
+    /**
+     * Returns a codec for LocalDateTime values encoded as epoch milliseconds, treating the local time as UTC
+     * @return  the LocalDateTime codec, which truncates nanoseconds to milliseconds
+     */
+    static LongCodec<LocalDateTime> ofLocalDateTimeMillis() {
+        return new LongCodec<LocalDateTime>() {
+            public Class<LocalDateTime> type() {
+                return LocalDateTime.class;
+            }
+            public long encode(LocalDateTime value) {
+                return value == null ? NULL : toEpochMillis(value.toEpochSecond(ZoneOffset.UTC), value.getNano());
+            }
+            public LocalDateTime decode(long value) {
+                if (value == NULL) {
+                    return null;
+                } else {
+                    final long seconds = Math.floorDiv(value, 1000L);
+                    final int nanos = (int)Math.floorMod(value, 1000L) * 1000000;
+                    return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+                }
+            }
+        };
+    }
+
+
+    /**
+     * Returns a codec for Instant values encoded as epoch milliseconds
+     * @return  the Instant codec, which truncates nanoseconds to milliseconds
+     */
+    static LongCodec<Instant> ofInstantMillis() {
+        return new LongCodec<Instant>() {
+            public Class<Instant> type() {
+                return Instant.class;
+            }
+            public long encode(Instant value) {
+                return value == null ? NULL : toEpochMillis(value.getEpochSecond(), value.getNano());
+            }
+            public Instant decode(long value) {
+                return value == NULL ? null : Instant.ofEpochMilli(value);
+            }
+        };
+    }
+
+
+    /**
+     * Returns a codec for ZonedDateTime values encoded as epoch milliseconds, which decodes values in the zone given
+     * @param zoneId    the zone in which to create decoded values
+     * @return          the ZonedDateTime codec, which truncates nanoseconds to milliseconds
+     */
+    static LongCodec<ZonedDateTime> ofZonedDateTimeMillis(ZoneId zoneId) {
+        return new LongCodec<ZonedDateTime>() {
+            public Class<ZonedDateTime> type() {
+                return ZonedDateTime.class;
+            }
+            public long encode(ZonedDateTime value) {
+                return value == null ? NULL : toEpochMillis(value.toEpochSecond(), value.getNano());
+            }
+            public ZonedDateTime decode(long value) {
+                return value == NULL ? null : ZonedDateTime.ofInstant(Instant.ofEpochMilli(value), zoneId);
+            }
+        };
+    }
+
+
+    /**
+     * Returns a codec for the type specified
+     * @param type      the value type
+     * @return          the codec for type, with ZonedDateTime values decoded in the system default zone
+     * @throws IllegalArgumentException if there is no codec for the type
+     */
+    @SuppressWarnings("unchecked")
+    static <T> LongCodec<T> of(Class<T> type) {
+        if (type == Integer.class) {
+            return (LongCodec<T>)ofInteger();
+        } else if (type == Long.class) {
+            return (LongCodec<T>)ofLong();
+        } else if (type == Date.class) {
+            return (LongCodec<T>)ofDate();
+        } else if (type == LocalDate.class) {
+            return (LongCodec<T>)ofLocalDate();
+        } else if (type == LocalTime.class) {
+            return (LongCodec<T>)ofLocalTime();
+        } else if (type == LocalDateTime.class) {
+            return (LongCodec<T>)ofLocalDateTime();
+        } else if (type == Instant.class) {
+            return (LongCodec<T>)ofInstant();
+        } else if (type == ZonedDateTime.class) {
+            return (LongCodec<T>)ofZonedDateTime(ZoneId.systemDefault());
+        } else {
+            throw new IllegalArgumentException("No long codec exists for type: " + type);
+        }
+    }
+
+
+    /**
+     * Returns a codec for the type specified, where LocalDateTime, Instant and ZonedDateTime are encoded as epoch millis
+     * @param type      the value type
+     * @return          the codec for type, with ZonedDateTime values decoded in the system default zone
+     * @throws IllegalArgumentException if there is no codec for the type
+     */
+    @SuppressWarnings("unchecked")
+    static <T> LongCodec<T> ofMillis(Class<T> type) {
+        if (type == LocalDateTime.class) {
+            return (LongCodec<T>)ofLocalDateTimeMillis();
+        } else if (type == Instant.class) {
+            return (LongCodec<T>)ofInstantMillis();
+        } else if (type == ZonedDateTime.class) {
+            return (LongCodec<T>)ofZonedDateTimeMillis(ZoneId.systemDefault());
+        } else {
+            return of(type);
+        }
+    }
+
+
+    /**
+     * Returns epoch nanoseconds for the epoch seconds and nano adjustment
+     * @param epochSeconds  the seconds since the epoch
+     * @param nanos         the nano of second
+     * @return              the nanoseconds since the epoch
+     * @throws DateTimeException    if the value is outside the years 1677 through 2262
+     */
+    static long toEpochNanos(long epochSeconds, int nanos) {
+        try {
+            return Math.addExact(Math.multiplyExact(epochSeconds, 1000000000L), nanos);
+        } catch (ArithmeticException ex) {
+            throw new DateTimeException("Epoch second " + epochSeconds + " is outside the range of epoch nanoseconds", ex);
+        }
+    }
+
+
+    /**
+     * Returns epoch milliseconds for the epoch seconds and nano adjustment, truncating to the millisecond
+     * @param epochSeconds  the seconds since the epoch
+     * @param nanos         the nano of second
+     * @return              the milliseconds since the epoch
+     * @throws DateTimeException    if the value is outside the range of epoch milliseconds
+     */
+    static long toEpochMillis(long epochSeconds, int nanos) {
+        try {
+            return Math.addExact(Math.multiplyExact(epochSeconds, 1000L), nanos / 1000000);
+        } catch (ArithmeticException ex) {
+            throw new DateTimeException("Epoch second " + epochSeconds + " is outside the range of epoch milliseconds", ex);
+        }
+    }
+
+
+    /**
+     * Returns the product of an epoch offset and a unit scale, such as micros to nanos
+     * @param value     the epoch offset in some unit
+     * @param scale     the number of target units per source unit
+     * @return          the epoch offset in the target unit
+     * @throws DateTimeException    if the result is outside the range of a long
+     */
+    static long scale(long value, long scale) {
+        try {
+            return Math.multiplyExact(value, scale);
+        } catch (ArithmeticException ex) {
+            throw new DateTimeException("Epoch offset " + value + " overflows when scaled by " + scale, ex);
+        }
+    }
+}
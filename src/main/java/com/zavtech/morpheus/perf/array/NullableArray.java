@@ -0,0 +1,581 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+import com.zavtech.morpheus.array.Array;
+
+/**
+ * An array of booleans, ints, longs or doubles with an optional validity mask that records which elements are null.
+ *
+ * <p>Morpheus arrays of primitives have no null representation other than NaN for doubles, so this array pairs
+ * the primitive values with a BitArray in which a set bit marks a valid element. The mask is only allocated once
+ * the first null is recorded, so arrays without nulls carry no overhead. Boolean values are themselves bit packed.
+ * Setting a double to NaN records a null, so the mask is the single source of truth for missing values.</p>
+ *
+ * <p>Null aware statistics and filters operate one 64-bit mask word at a time: words that are entirely valid are
+ * processed with a plain counted loop, words with no valid elements are skipped, and only mixed words visit the
+ * set bits individually. Filters produce a BitArray that already excludes null elements.</p>
+ *
+ * @param <T>   the element type, one of Boolean, Integer, Long or Double
+ *
+ * @author  Xavier Witdouck
+ */
+public class NullableArray<T> {
+
+    private static final int BOOLEAN = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+
+    private int code;
+    private int length;
+    private Class<T> type;
+    private BitArray bits;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private BitArray validity;
+
+
+    /**
+     * Constructor
+     * @param type      the element type
+     * @param length    the length for this array
+     */
+    private NullableArray(Class<T> type, int length) {
+        this.type = type;
+        this.length = length;
+        if (type == Boolean.class) {
+            this.code = BOOLEAN;
+            this.bits = BitArray.of(length);
+        } else if (type == Integer.class) {
+            this.code = INT;
+            this.ints = new int[length];
+        } else if (type == Long.class) {
+            this.code = LONG;
+            this.longs = new long[length];
+        } else if (type == Double.class) {
+            this.code = DOUBLE;
+            this.doubles = new double[length];
+        } else {
+            throw new IllegalArgumentException("Unsupported type for nullable array: " + type);
+        }
+    }
+
+
+    /**
+     * Returns a new array of the type and length specified, initialized with nulls
+     * @param type      the element type, one of Boolean, Integer, Long or Double
+     * @param length    the array length
+     * @return          the newly created array
+     */
+    public static <T> NullableArray<T> of(Class<T> type, int length) {
+        final NullableArray<T> result = new NullableArray<>(type, length);
+        result.validity = BitArray.of(length);
+        return result;
+    }
+
+
+    /**
+     * Returns a copy of the Morpheus array, where elements that Morpheus reports as null are recorded as null
+     * @param array     the array to copy
+     * @return          the nullable copy
+     */
+    public static <T> NullableArray<T> copyOf(Array<T> array) {
+        final int length = array.length();
+        final NullableArray<T> result = new NullableArray<>(array.type(), length);
+        for (int i=0; i<length; ++i) {
+            if (array.isNull(i)) {
+                result.setNull(i);
+            } else {
+                switch (result.code) {
+                    case BOOLEAN:   result.bits.set(i, array.getBoolean(i));    break;
+                    case INT:       result.ints[i] = array.getInt(i);           break;
+                    case LONG:      result.longs[i] = array.getLong(i);         break;
+                    case DOUBLE:    result.doubles[i] = array.getDouble(i);     break;
+                }
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the element type for this array
+     * @return  the element type
+     */
+    public Class<T> type() {
+        return type;
+    }
+
+
+    /**
+     * Returns the length of this array
+     * @return  the length of this array
+     */
+    public int length() {
+        return length;
+    }
+
+
+    /**
+     * Returns true if this array has allocated a validity mask
+     * @return  true if a validity mask exists, false if all elements are valid
+     */
+    public boolean hasValidity() {
+        return validity != null;
+    }
+
+
+    /**
+     * Returns a copy of the validity mask for this array, in which set bits mark non-null elements
+     * @return  the validity mask
+     */
+    public BitArray validity() {
+        return validity != null ? validity.copy() : BitArray.ofSet(length);
+    }
+
+
+    /**
+     * Returns true if the value at the index is null
+     * @param index     the array index
+     * @return          true if value is null
+     */
+    public boolean isNull(int index) {
+        return validity != null && !validity.get(index);
+    }
+
+
+    /**
+     * Records the element at the index as null, allocating the validity mask if required
+     * @param index     the array index
+     */
+    public void setNull(int index) {
+        if (validity == null) {
+            this.validity = BitArray.ofSet(length);
+        }
+        this.validity.set(index, false);
+        switch (code) {
+            case BOOLEAN:   bits.set(index, false); break;
+            case INT:       ints[index] = 0;        break;
+            case LONG:      longs[index] = 0L;      break;
+            case DOUBLE:    doubles[index] = 0d;    break;
+        }
+    }
+
+
+    /**
+     * Marks the element at the index as valid
+     * @param index     the array index
+     */
+    private void setValid(int index) {
+        if (validity != null) {
+            this.validity.set(index, true);
+        }
+    }
+
+
+    /**
+     * Returns the boolean at the index, which is false for null
+     * @param index     the array index
+     * @return          the boolean value
+     */
+    public boolean getBoolean(int index) {
+        return bits.get(index);
+    }
+
+
+    /**
+     * Returns the int at the index, which is zero for null
+     * @param index     the array index
+     * @return          the int value
+     */
+    public int getInt(int index) {
+        return ints[index];
+    }
+
+
+    /**
+     * Returns the long at the index, which is zero for null
+     * @param index     the array index
+     * @return          the long value
+     */
+    public long getLong(int index) {
+        return longs[index];
+    }
+
+
+    /**
+     * Returns the double at the index, which is NaN for null
+     * @param index     the array index
+     * @return          the double value
+     */
+    public double getDouble(int index) {
+        return isNull(index) ? Double.NaN : doubles[index];
+    }
+
+
+    /**
+     * Returns the boxed value at the index specified
+     * @param index     the array index
+     * @return          the value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public T getValue(int index) {
+        if (isNull(index)) {
+            return null;
+        } else {
+            switch (code) {
+                case BOOLEAN:   return (T)Boolean.valueOf(bits.get(index));
+                case INT:       return (T)Integer.valueOf(ints[index]);
+                case LONG:      return (T)Long.valueOf(longs[index]);
+                default:        return (T)Double.valueOf(doubles[index]);
+            }
+        }
+    }
+
+
+    /**
+     * Sets the boolean at the index, which also marks it as valid
+     * @param index     the array index
+     * @param value     the value to set
+     */
+    public void setBoolean(int index, boolean value) {
+        this.bits.set(index, value);
+        this.setValid(index);
+    }
+
+
+    /**
+     * Sets the int at the index, which also marks it as valid
+     * @param index     the array index
+     * @param value     the value to set
+     */
+    public void setInt(int index, int value) {
+        this.ints[index] = value;
+        this.setValid(index);
+    }
+
+
+    /**
+     * Sets the long at the index, which also marks it as valid
+     * @param index     the array index
+     * @param value     the value to set
+     */
+    public void setLong(int index, long value) {
+        this.longs[index] = value;
+        this.setValid(index);
+    }
+
+
+    /**
+     * Sets the double at the index, where NaN records a null
+     * @param index     the array index
+     * @param value     the value to set
+     */
+    public void setDouble(int index, double value) {
+        if (Double.isNaN(value)) {
+            this.setNull(index);
+        } else {
+            this.doubles[index] = value;
+            this.setValid(index);
+        }
+    }
+
+
+    /**
+     * Sets the boxed value at the index specified
+     * @param index     the array index
+     * @param value     the value, which may be null
+     */
+    public void setValue(int index, T value) {
+        if (value == null) {
+            this.setNull(index);
+        } else {
+            switch (code) {
+                case BOOLEAN:   setBoolean(index, (Boolean)value);              break;
+                case INT:       setInt(index, ((Number)value).intValue());      break;
+                case LONG:      setLong(index, ((Number)value).longValue());    break;
+                case DOUBLE:    setDouble(index, ((Number)value).doubleValue());  break;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the validity word at the word index, with bits beyond the length clear
+     * @param wordIndex the word index
+     * @return          the validity bits for elements wordIndex * 64 onwards
+     */
+    private long validWord(int wordIndex) {
+        if (validity != null) {
+            return validity.word(wordIndex);
+        } else {
+            final int remaining = length - (wordIndex << 6);
+            return remaining >= 64 ? -1L : -1L >>> -remaining;
+        }
+    }
+
+
+    /**
+     * Returns the number of non-null elements in this array
+     * @return  the count of non-null values
+     */
+    public int count() {
+        return validity != null ? validity.cardinality() : length;
+    }
+
+
+    /**
+     * Returns the sum of the non-null numeric values in this array, or of the true values for booleans
+     * @return  the sum of non-null values, which is exact for int, long and boolean arrays
+     * @throws ArithmeticException  if the sum of a long array overflows the range of a long
+     */
+    public double sum() {
+        return code == DOUBLE ? sumDoubles() : sumLong();
+    }
+
+
+    /**
+     * Returns the exact sum of the non-null integral values in this array, or the count of true values for booleans
+     * <p>Int values are accumulated in a long, which cannot overflow for an array of at most Integer.MAX_VALUE
+     * elements. Long values are accumulated with Math.addExact(), so an overflow is reported rather than wrapped.</p>
+     * @return  the exact sum of non-null values
+     * @throws ArithmeticException      if the sum of a long array overflows the range of a long
+     * @throws IllegalStateException    if this is an array of double values
+     */
+    public long sumLong() {
+        switch (code) {
+            case BOOLEAN:   return validity != null ? bits.copy().and(validity).cardinality() : bits.cardinality();
+            case INT:       return sumInts();
+            case LONG:      return sumLongs();
+            default:        throw new IllegalStateException("No exact integral sum for nullable array of " + type);
+        }
+    }
+
+
+    /**
+     * Returns the mean of the non-null numeric values in this array
+     * <p>For int, long and boolean arrays the mean is derived from the exact sumLong(), so no precision is lost
+     * accumulating the total before the final division.</p>
+     * @return  the mean of non-null values, or NaN if there are none
+     * @throws ArithmeticException  if the sum of a long array overflows the range of a long
+     */
+    public double mean() {
+        final int count = count();
+        if (count == 0) {
+            return Double.NaN;
+        } else if (code == DOUBLE) {
+            return sumDoubles() / count;
+        } else {
+            return (double)sumLong() / count;
+        }
+    }
+
+
+    /**
+     * Returns the sum of the non-null int values
+     * @return  the sum of values
+     */
+    private long sumInts() {
+        long sum = 0L;
+        final int wordCount = BitArray.wordCount(length);
+        for (int w=0; w<wordCount; ++w) {
+            long word = validWord(w);
+            final int base = w << 6;
+            if (word == -1L) {
+                for (int i=base; i<base+64; ++i) {
+                    sum += ints[i];
+                }
+            } else {
+                while (word != 0L) {
+                    sum += ints[base + Long.numberOfTrailingZeros(word)];
+                    word &= word - 1L;
+                }
+            }
+        }
+        return sum;
+    }
+
+
+    /**
+     * Returns the sum of the non-null long values
+     * @return  the sum of values
+     * @throws ArithmeticException  if the sum overflows the range of a long
+     */
+    private long sumLongs() {
+        long sum = 0L;
+        final int wordCount = BitArray.wordCount(length);
+        for (int w=0; w<wordCount; ++w) {
+            long word = validWord(w);
+            final int base = w << 6;
+            if (word == -1L) {
+                for (int i=base; i<base+64; ++i) {
+                    sum = Math.addExact(sum, longs[i]);
+                }
+            } else {
+                while (word != 0L) {
+                    sum = Math.addExact(sum, longs[base + Long.numberOfTrailingZeros(word)]);
+                    word &= word - 1L;
+                }
+            }
+        }
+        return sum;
+    }
+
+
+    /**
+     * Returns the sum of the non-null double values
+     * @return  the sum of values
+     */
+    private double sumDoubles() {
+        if (validity == null) {
+            return PrimitiveKernels.sum(doubles, 0, length);
+        } else {
+            double sum = 0d;
+            final int wordCount = BitArray.wordCount(length);
+            for (int w=0; w<wordCount; ++w) {
+                long word = validity.word(w);
+                final int base = w << 6;
+                if (word == -1L) {
+                    sum += PrimitiveKernels.sum(doubles, base, base + 64);
+                } else {
+                    while (word != 0L) {
+                        sum += doubles[base + Long.numberOfTrailingZeros(word)];
+                        word &= word - 1L;
+                    }
+                }
+            }
+            return sum;
+        }
+    }
+
+
+    /**
+     * Returns a mask of the non-null booleans that are true
+     * @return  the mask of matching elements
+     */
+    public BitArray whereTrue() {
+        final BitArray result = bits.copy();
+        return validity != null ? result.and(validity) : result;
+    }
+
+
+    /**
+     * Returns a mask of the non-null booleans that are false
+     * @return  the mask of matching elements
+     */
+    public BitArray whereFalse() {
+        final BitArray result = bits.copy().not();
+        return validity != null ? result.and(validity) : result;
+    }
+
+
+    /**
+     * Returns a mask of the non-null ints that match the predicate
+     * @param predicate the predicate to test values against
+     * @return          the mask of matching elements
+     */
+    public BitArray whereInt(IntPredicate predicate) {
+        final BitArray result = BitArray.of(length);
+        final long[] words = result.words();
+        for (int w=0; w<words.length; ++w) {
+            final long valid = validWord(w);
+            if (valid != 0L) {
+                long matches = 0L;
+                final int base = w << 6;
+                final int end = Math.min(base + 64, length);
+                for (int i=base; i<end; ++i) {
+                    if (predicate.test(ints[i])) matches |= 1L << i;
+                }
+                words[w] = matches & valid;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns a mask of the non-null longs that match the predicate
+     * @param predicate the predicate to test values against
+     * @return          the mask of matching elements
+     */
+    public BitArray whereLong(LongPredicate predicate) {
+        final BitArray result = BitArray.of(length);
+        final long[] words = result.words();
+        for (int w=0; w<words.length; ++w) {
+            final long valid = validWord(w);
+            if (valid != 0L) {
+                long matches = 0L;
+                final int base = w << 6;
+                final int end = Math.min(base + 64, length);
+                for (int i=base; i<end; ++i) {
+                    if (predicate.test(longs[i])) matches |= 1L << i;
+                }
+                words[w] = matches & valid;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns a mask of the non-null doubles that match the predicate
+     * @param predicate the predicate to test values against
+     * @return          the mask of matching elements
+     */
+    public BitArray whereDouble(DoublePredicate predicate) {
+        final BitArray result = BitArray.of(length);
+        final long[] words = result.words();
+        for (int w=0; w<words.length; ++w) {
+            final long valid = validWord(w);
+            if (valid != 0L) {
+                long matches = 0L;
+                final int base = w << 6;
+                final int end = Math.min(base + 64, length);
+                for (int i=base; i<end; ++i) {
+                    if (predicate.test(doubles[i])) matches |= 1L << i;
+                }
+                words[w] = matches & valid;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns a Morpheus array with the values of this array, where nulls become the Morpheus default value
+     * @return  the Morpheus array, with NaN for null doubles, and false or zero for other null primitives
+     */
+    public Array<T> toArray() {
+        final Array<T> result = Array.of(type, length);
+        for (int i=0; i<length; ++i) {
+            if (!isNull(i)) {
+                switch (code) {
+                    case BOOLEAN:   result.setBoolean(i, bits.get(i));  break;
+                    case INT:       result.setInt(i, ints[i]);          break;
+                    case LONG:      result.setLong(i, longs[i]);        break;
+                    case DOUBLE:    result.setDouble(i, doubles[i]);    break;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameContent;
+
+/**
+ * An arena that allocates off-heap arrays with a shared lifetime, so that all of them are released in one close().
+ *
+ * <p>A typical use is to hold the columns of a very large frame off-heap within a try-with-resources block:</p>
+ * <pre>
+ *     try (OffHeapArena arena = new OffHeapArena()) {
+ *         OffHeapArray&lt;Double&gt; prices = arena.allocate(Double.class, 500000000);
+ *         ...
+ *     }
+ * </pre>
+ *
+ * <p>The total held by an arena is bounded by -XX:MaxDirectMemorySize, as described in OffHeapArray.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class OffHeapArena implements AutoCloseable {
+
+    private boolean closed;
+    private List<OffHeapArray<?>> arrays = new ArrayList<>();
+
+
+    /**
+     * Allocates a new off-heap array which will be released when this arena is closed
+     * @param type      the element type, which is one of Boolean, Integer, Long or Double
+     * @param length    the length of the array
+     * @return          the newly allocated array
+     */
+    public synchronized <T> OffHeapArray<T> allocate(Class<T> type, int length) {
+        if (closed) {
+            throw new IllegalStateException("This off-heap arena has been closed");
+        } else {
+            final OffHeapArray<T> array = OffHeapArray.of(type, length);
+            this.arrays.add(array);
+            return array;
+        }
+    }
+
+
+    /**
+     * Allocates a new off-heap array and fills it with the loader, so a column can be read directly off-heap
+     * <p>Unlike copyOf(DataFrame), no on-heap frame is needed, so data larger than the heap can be loaded one
+     * column at a time straight from its source, such as a columnar file. If the loader fails, the array is
+     * released immediately rather than being held until this arena is closed.</p>
+     * @param type      the element type, which is one of Boolean, Integer, Long or Double
+     * @param length    the length of the array
+     * @param loader    the function that writes values into the newly allocated array
+     * @return          the newly allocated and loaded array
+     */
+    public <T> OffHeapArray<T> load(Class<T> type, int length, Consumer<OffHeapArray<T>> loader) {
+        final OffHeapArray<T> array = allocate(type, length);
+        try {
+            loader.accept(array);
+            return array;
+        } catch (RuntimeException | Error ex) {
+            synchronized (this) {
+                this.arrays.remove(array);
+            }
+            array.close();
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Allocates a new off-heap copy of the Morpheus array specified
+     * @param array     the array to copy
+     * @return          the off-heap copy of the array
+     */
+    public <T> OffHeapArray<T> copyOf(Array<T> array) {
+        return allocate(array.type(), array.length()).copyFrom(array);
+    }
+
+
+    /**
+     * Allocates off-heap copies of all the numeric and boolean columns in the frame specified
+     * <p>Values are copied element by element from the frame, so no intermediate on-heap copy is made, but the
+     * frame itself must already fit on the heap. Use load() to fill columns directly from their source instead.</p>
+     * @param frame     the frame to copy columns from
+     * @return          the list of off-heap columns in column order, with null for unsupported column types
+     */
+    public <R,C> List<OffHeapArray<?>> copyOf(DataFrame<R,C> frame) {
+        final int rowCount = frame.rowCount();
+        final DataFrameContent<R,C> data = frame.data();
+        final List<OffHeapArray<?>> columns = new ArrayList<>(frame.colCount());
+        for (int j=0; j<frame.colCount(); ++j) {
+            final Class<?> type = frame.cols().type(frame.cols().key(j));
+            if (type == Boolean.class) {
+                final OffHeapArray<?> column = allocate(type, rowCount);
+                for (int i=0; i<rowCount; ++i) column.setBoolean(i, data.getBoolean(i, j));
+                columns.add(column);
+            } else if (type == Integer.class) {
+                final OffHeapArray<?> column = allocate(type, rowCount);
+                for (int i=0; i<rowCount; ++i) column.setInt(i, data.getInt(i, j));
+                columns.add(column);
+            } else if (type == Long.class) {
+                final OffHeapArray<?> column = allocate(type, rowCount);
+                for (int i=0; i<rowCount; ++i) column.setLong(i, data.getLong(i, j));
+                columns.add(column);
+            } else if (type == Double.class) {
+                final OffHeapArray<?> column = allocate(type, rowCount);
+                for (int i=0; i<rowCount; ++i) column.setDouble(i, data.getDouble(i, j));
+                columns.add(column);
+            } else {
+                columns.add(null);
+            }
+        }
+        return columns;
+    }
+
+
+    /**
+     * Returns the total number of bytes of off-heap memory held by this arena
+     * @return  the number of bytes allocated
+     */
+    public synchronized long bytes() {
+        return arrays.stream().filter(a -> !a.isClosed()).mapToLong(OffHeapArray::bytes).sum();
+    }
+
+
+    /**
+     * Releases all arrays allocated by this arena
+     * <p>This must not be called while another thread may still be accessing any of the arrays. Every array is
+     * released even if some fail, and the first failure is thrown with any later ones attached as suppressed.</p>
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            this.closed = true;
+            RuntimeException failure = null;
+            for (OffHeapArray<?> array : arrays) {
+                try {
+                    array.close();
+                } catch (RuntimeException ex) {
+                    if (failure == null) failure = ex;
+                    else failure.addSuppressed(ex);
+                }
+            }
+            this.arrays.clear();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
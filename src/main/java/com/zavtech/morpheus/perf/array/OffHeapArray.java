@@ -0,0 +1,389 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.DoubleUnaryOperator;
+
+import com.zavtech.morpheus.array.Array;
+
+/**
+ * A fixed length array of boolean, int, long or double values stored outside of the Java heap.
+ *
+ * <p>Storage is allocated as a sequence of direct ByteBuffer segments of 1GB each, so an array is not limited
+ * to the 2GB capacity of a single buffer, and none of the storage is visible to the garbage collector. The memory
+ * is released deterministically when the array is closed, either directly or by closing the OffHeapArena that
+ * allocated it.</p>
+ *
+ * <p>Direct buffers are limited by the JVM option -XX:MaxDirectMemorySize, which defaults to the maximum heap size
+ * given by -Xmx. Allocating beyond that limit fails with an OutOfMemoryError for direct buffer memory even though
+ * the machine may have plenty of free memory, so processes holding large arrays off-heap should set the limit
+ * explicitly, for example -XX:MaxDirectMemorySize=64g.</p>
+ *
+ * <p>Values may be read and written from several threads, but element access is not guarded against a concurrent
+ * close, since that would add a lock to every access. The caller must ensure close() is only called once no other
+ * thread can still access the array, for example after all tasks using it have completed. Access that follows the
+ * close in the same thread, or in a thread that has observed the close, results in an IllegalStateException, but
+ * access that races with close() may read or write released memory.</p>
+ *
+ * @param <T>   the element type, which is one of Boolean, Integer, Long or Double
+ *
+ * @author  Xavier Witdouck
+ */
+public class OffHeapArray<T> implements AutoCloseable {
+
+    static final int SEGMENT_SHIFT = 30;
+    static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1L;
+
+    private Class<T> type;
+    private int length;
+    private int shift;
+    private volatile ByteBuffer[] segments;
+
+
+    /**
+     * Constructor
+     * @param type      the element type
+     * @param length    the length of the array
+     */
+    OffHeapArray(Class<T> type, int length) {
+        this.type = type;
+        this.length = length;
+        this.shift = shift(type);
+        final long bytes = (long)length << shift;
+        final int segmentCount = (int)((bytes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        final ByteBuffer[] segments = new ByteBuffer[Math.max(1, segmentCount)];
+        try {
+            for (int i=0; i<segments.length; ++i) {
+                final long remaining = bytes - ((long)i << SEGMENT_SHIFT);
+                final int capacity = (int)Math.min(remaining, 1L << SEGMENT_SHIFT);
+                segments[i] = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+            }
+            this.segments = segments;
+        } catch (OutOfMemoryError | RuntimeException ex) {
+            for (ByteBuffer segment : segments) {
+                if (segment != null) {
+                    free(segment);
+                }
+            }
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Returns a newly created off-heap array of the type and length specified, initialized to zero
+     * @param type      the element type, which is one of Boolean, Integer, Long or Double
+     * @param length    the length of the array
+     * @return          the newly created array, which must be closed to release memory
+     */
+    public static <T> OffHeapArray<T> of(Class<T> type, int length) {
+        return new OffHeapArray<>(type, length);
+    }
+
+
+    /**
+     * Returns a newly created off-heap copy of the Morpheus array specified
+     * @param array     the array of boolean, int, long or double values to copy
+     * @return          the off-heap copy, which must be closed to release memory
+     */
+    public static <T> OffHeapArray<T> copyOf(Array<T> array) {
+        final OffHeapArray<T> result = new OffHeapArray<>(array.type(), array.length());
+        return result.copyFrom(array);
+    }
+
+
+    /**
+     * Returns the element size in bytes expressed as a power of 2 for the type specified
+     * @param type  the element type
+     * @return      the shift to convert an index into a byte offset
+     */
+    private static int shift(Class<?> type) {
+        if (type == Boolean.class) {
+            return 0;
+        } else if (type == Integer.class) {
+            return 2;
+        } else if (type == Long.class || type == Double.class) {
+            return 3;
+        } else {
+            throw new IllegalArgumentException("Off-heap arrays only support Boolean, Integer, Long and Double, not " + type);
+        }
+    }
+
+
+    /**
+     * Returns the element type for this array
+     * @return  the element type
+     */
+    public Class<T> type() {
+        return type;
+    }
+
+
+    /**
+     * Returns the length of this array
+     * @return  the length of this array
+     */
+    public int length() {
+        return length;
+    }
+
+
+    /**
+     * Returns the number of bytes of off-heap memory held by this array
+     * @return  the number of bytes allocated
+     */
+    public long bytes() {
+        return (long)length << shift;
+    }
+
+
+    /**
+     * Returns true if this array has been closed and its memory released
+     * @return  true if this array has been closed
+     */
+    public boolean isClosed() {
+        return segments == null;
+    }
+
+
+    /**
+     * Returns the segment that holds the element at the index specified
+     * @param offset    the byte offset of the element
+     * @return          the segment buffer
+     */
+    private ByteBuffer segment(long offset) {
+        final ByteBuffer[] segments = this.segments;
+        if (segments == null) {
+            throw new IllegalStateException("This off-heap array has been closed");
+        } else {
+            return segments[(int)(offset >>> SEGMENT_SHIFT)];
+        }
+    }
+
+
+    /**
+     * Returns the byte offset for the index, after checking bounds
+     * @param index     the array index
+     * @return          the byte offset
+     */
+    private long offset(int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException("Array index out of bounds: " + index + ", length: " + length);
+        } else {
+            return (long)index << shift;
+        }
+    }
+
+
+    public boolean getBoolean(int index) {
+        final long offset = offset(index);
+        return segment(offset).get((int)(offset & SEGMENT_MASK)) != 0;
+    }
+
+    public int getInt(int index) {
+        final long offset = offset(index);
+        return segment(offset).getInt((int)(offset & SEGMENT_MASK));
+    }
+
+    public long getLong(int index) {
+        final long offset = offset(index);
+        return segment(offset).getLong((int)(offset & SEGMENT_MASK));
+    }
+
+    public double getDouble(int index) {
+        final long offset = offset(index);
+        return segment(offset).getDouble((int)(offset & SEGMENT_MASK));
+    }
+
+    public void setBoolean(int index, boolean value) {
+        final long offset = offset(index);
+        segment(offset).put((int)(offset & SEGMENT_MASK), value ? (byte)1 : (byte)0);
+    }
+
+    public void setInt(int index, int value) {
+        final long offset = offset(index);
+        segment(offset).putInt((int)(offset & SEGMENT_MASK), value);
+    }
+
+    public void setLong(int index, long value) {
+        final long offset = offset(index);
+        segment(offset).putLong((int)(offset & SEGMENT_MASK), value);
+    }
+
+    public void setDouble(int index, double value) {
+        final long offset = offset(index);
+        segment(offset).putDouble((int)(offset & SEGMENT_MASK), value);
+    }
+
+
+    /**
+     * Returns the boxed value at the index specified
+     * @param index     the array index
+     * @return          the boxed value
+     */
+    @SuppressWarnings("unchecked")
+    public T getValue(int index) {
+        switch (shift) {
+            case 0:     return (T)Boolean.valueOf(getBoolean(index));
+            case 2:     return (T)Integer.valueOf(getInt(index));
+            default:    return type == Long.class ? (T)Long.valueOf(getLong(index)) : (T)Double.valueOf(getDouble(index));
+        }
+    }
+
+
+    /**
+     * Applies a function to every value in this double array
+     * @param function  the function to apply
+     * @return          this array
+     */
+    public OffHeapArray<T> applyDoubles(DoubleUnaryOperator function) {
+        if (type != Double.class) {
+            throw new IllegalStateException("applyDoubles() is only supported for double arrays");
+        } else {
+            for (int i=0; i<length; ++i) {
+                setDouble(i, function.applyAsDouble(getDouble(i)));
+            }
+            return this;
+        }
+    }
+
+
+    /**
+     * Returns the sum of all values in this numeric array, ignoring NaN values
+     * @return      the sum of values, as a Long accumulated exactly for int and long arrays, otherwise a Double
+     */
+    public Number sum() {
+        if (type == Integer.class) {
+            long sum = 0L;
+            for (int i=0; i<length; ++i) sum += getInt(i);
+            return sum;
+        } else if (type == Long.class) {
+            long sum = 0L;
+            for (int i=0; i<length; ++i) sum += getLong(i);
+            return sum;
+        } else if (type == Double.class) {
+            double sum = 0d;
+            for (int i=0; i<length; ++i) {
+                final double v = getDouble(i);
+                sum += v == v ? v : 0d;
+            }
+            return sum;
+        } else {
+            throw new IllegalStateException("sum() is not supported for " + type);
+        }
+    }
+
+
+    /**
+     * Copies all values from the Morpheus array into this array
+     * @param array     the array to copy from, which must have the same type and length
+     * @return          this array
+     */
+    public OffHeapArray<T> copyFrom(Array<T> array) {
+        if (array.length() != length) {
+            throw new IllegalArgumentException("Array lengths do not match: " + array.length() + " != " + length);
+        } else {
+            switch (shift) {
+                case 0:     for (int i=0; i<length; ++i) setBoolean(i, array.getBoolean(i));   break;
+                case 2:     for (int i=0; i<length; ++i) setInt(i, array.getInt(i));           break;
+                default:
+                    if (type == Long.class) {
+                        for (int i=0; i<length; ++i) setLong(i, array.getLong(i));
+                    } else {
+                        for (int i=0; i<length; ++i) setDouble(i, array.getDouble(i));
+                    }
+            }
+            return this;
+        }
+    }
+
+
+    /**
+     * Returns a copy of this array as an on-heap Morpheus array
+     * @return  the on-heap copy of this array
+     */
+    public Array<T> toArray() {
+        final Array<T> array = Array.of(type, length);
+        switch (shift) {
+            case 0:     for (int i=0; i<length; ++i) array.setBoolean(i, getBoolean(i));   break;
+            case 2:     for (int i=0; i<length; ++i) array.setInt(i, getInt(i));           break;
+            default:
+                if (type == Long.class) {
+                    for (int i=0; i<length; ++i) array.setLong(i, getLong(i));
+                } else {
+                    for (int i=0; i<length; ++i) array.setDouble(i, getDouble(i));
+                }
+        }
+        return array;
+    }
+
+
+    /**
+     * Releases the off-heap memory held by this array, after which the array can no longer be accessed
+     * <p>This must not be called while another thread may still be accessing the array</p>
+     */
+    @Override
+    public synchronized void close() {
+        final ByteBuffer[] segments = this.segments;
+        if (segments != null) {
+            this.segments = null;
+            IllegalStateException failure = null;
+            for (ByteBuffer segment : segments) {
+                try {
+                    free(segment);
+                } catch (IllegalStateException ex) {
+                    if (failure == null) failure = ex;
+                    else failure.addSuppressed(ex);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+
+    /**
+     * Releases the native memory held by a direct buffer without waiting for it to be garbage collected
+     * @param buffer    the direct buffer to free
+     */
+    static void free(ByteBuffer buffer) {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            invokeCleaner.invoke(field.get(null), buffer);
+        } catch (NoSuchMethodException ex) {
+            try {
+                final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                final Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (Exception ex2) {
+                throw new IllegalStateException("Unable to release off-heap memory", ex2);
+            }
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unable to release off-heap memory", ex);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.zavtech.morpheus.perf.array;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.util.PerfStat;
+
+/**
+ * Compares GC overhead for columns of doubles held on-heap against the same columns held in an OffHeapArena.
+ *
+ * <p>Each off-heap sample allocates 5 million x 10 doubles, or 400MB, of direct memory. Direct memory is capped by
+ * -XX:MaxDirectMemorySize, which defaults to the -Xmx heap size, so run with for example -XX:MaxDirectMemorySize=2g
+ * to avoid an OutOfMemoryError for direct buffer memory when running with a small heap.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class OffHeapPerf {
+
+    public static void main(String[] args) {
+
+        final int sample = 5;
+        final int rowCount = 5000000;
+        final int colCount = 10;
+
+        PerfStat stat1 = PerfStat.run("On-Heap", sample, TimeUnit.MILLISECONDS, () -> {
+            final List<Array<Double>> columns = new ArrayList<>(colCount);
+            for (int i=0; i<colCount; ++i) {
+                columns.add(Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+            }
+            return columns.stream().mapToDouble(c -> c.stats().sum().doubleValue()).sum();
+        });
+
+        PerfStat stat2 = PerfStat.run("Off-Heap", sample, TimeUnit.MILLISECONDS, () -> {
+            try (OffHeapArena arena = new OffHeapArena()) {
+                final List<OffHeapArray<Double>> columns = new ArrayList<>(colCount);
+                for (int i=0; i<colCount; ++i) {
+                    columns.add(arena.allocate(Double.class, rowCount).applyDoubles(v -> Math.random()));
+                }
+                return columns.stream().mapToDouble(c -> c.sum().doubleValue()).sum();
+            }
+        });
+
+        final DataFrame<String,String> runTimes = DataFrame.combineFirst(stat1.getRunStats(), stat2.getRunStats());
+        final DataFrame<String,String> gcTimes = DataFrame.combineFirst(stat1.getGcStats(), stat2.getGcStats());
+
+        runTimes.out().print();
+        gcTimes.out().print();
+
+        Chart.create().withBarPlot(gcTimes, false, chart -> {
+            chart.title().withText("GC Times, On-Heap vs Off-Heap, 5 Million rows x 10 columns of Doubles (Sample " + sample + ")");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+    }
+}
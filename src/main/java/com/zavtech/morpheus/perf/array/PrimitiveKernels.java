@@ -0,0 +1,535 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+/**
+ * A collection of elementwise and reduction kernels that operate on ranges of primitive arrays.
+ *
+ * <p>The elementwise kernels are written as simple counted loops with no calls or side exits, which is the shape
+ * that the HotSpot superword optimizer will compile to SIMD instructions. Floating point reductions cannot be
+ * reordered by the JIT, so these are unrolled across four independent accumulators to break the dependency chain.
+ * The plain scalar loops for sum() and sumSquaredDeviations() over doubles can be selected with
+ * -Dmorpheus.kernels.scalar=true for comparison; the flag has no effect on any other kernel, since the integral
+ * reductions and the elementwise kernels are already free of a floating point dependency chain.</p>
+ *
+ * <p>Consistent with Morpheus statistics, reductions over doubles ignore NaN values.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class PrimitiveKernels {
+
+    static final boolean UNROLLED = !Boolean.getBoolean("morpheus.kernels.scalar");
+
+
+    /**
+     * Adds a scalar to each element in the range
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param scalar    the scalar to add
+     */
+    public static void add(double[] values, int from, int to, double scalar) {
+        for (int i=from; i<to; ++i) {
+            values[i] = values[i] + scalar;
+        }
+    }
+
+
+    /**
+     * Multiplies each element in the range by a scalar
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param scalar    the scalar to multiply by
+     */
+    public static void mul(double[] values, int from, int to, double scalar) {
+        for (int i=from; i<to; ++i) {
+            values[i] = values[i] * scalar;
+        }
+    }
+
+
+    /**
+     * Caps each element in the range so that it is no less than the lower bound, and no more than the upper bound
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param lower     the lower bound, which can be -Infinity
+     * @param upper     the upper bound, which can be +Infinity
+     */
+    public static void cap(double[] values, int from, int to, double lower, double upper) {
+        for (int i=from; i<to; ++i) {
+            final double v = values[i];
+            values[i] = v < lower ? lower : (v > upper ? upper : v);
+        }
+    }
+
+
+    /**
+     * Replaces each element in the range with its absolute value
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     */
+    public static void abs(double[] values, int from, int to) {
+        for (int i=from; i<to; ++i) {
+            values[i] = Math.abs(values[i]);
+        }
+    }
+
+
+    /**
+     * Replaces each element in the range with its natural logarithm
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     */
+    public static void log(double[] values, int from, int to) {
+        for (int i=from; i<to; ++i) {
+            values[i] = Math.log(values[i]);
+        }
+    }
+
+
+    /**
+     * Adds a scalar to each element in the range
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param scalar    the scalar to add
+     */
+    public static void add(long[] values, int from, int to, long scalar) {
+        for (int i=from; i<to; ++i) {
+            values[i] = values[i] + scalar;
+        }
+    }
+
+
+    /**
+     * Multiplies each element in the range by a scalar
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param scalar    the scalar to multiply by
+     */
+    public static void mul(long[] values, int from, int to, long scalar) {
+        for (int i=from; i<to; ++i) {
+            values[i] = values[i] * scalar;
+        }
+    }
+
+
+    /**
+     * Caps each element in the range so that it lies between the lower and upper bound
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param lower     the lower bound
+     * @param upper     the upper bound
+     */
+    public static void cap(long[] values, int from, int to, long lower, long upper) {
+        for (int i=from; i<to; ++i) {
+            final long v = values[i];
+            values[i] = v < lower ? lower : (v > upper ? upper : v);
+        }
+    }
+
+
+    /**
+     * Replaces each element in the range with its absolute value
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     */
+    public static void abs(long[] values, int from, int to) {
+        for (int i=from; i<to; ++i) {
+            values[i] = Math.abs(values[i]);
+        }
+    }
+
+
+    /**
+     * Adds a scalar to each element in the range
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param scalar    the scalar to add
+     */
+    public static void add(int[] values, int from, int to, int scalar) {
+        for (int i=from; i<to; ++i) {
+            values[i] = values[i] + scalar;
+        }
+    }
+
+
+    /**
+     * Multiplies each element in the range by a scalar
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param scalar    the scalar to multiply by
+     */
+    public static void mul(int[] values, int from, int to, int scalar) {
+        for (int i=from; i<to; ++i) {
+            values[i] = values[i] * scalar;
+        }
+    }
+
+
+    /**
+     * Caps each element in the range so that it lies between the lower and upper bound
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param lower     the lower bound
+     * @param upper     the upper bound
+     */
+    public static void cap(int[] values, int from, int to, int lower, int upper) {
+        for (int i=from; i<to; ++i) {
+            final int v = values[i];
+            values[i] = v < lower ? lower : (v > upper ? upper : v);
+        }
+    }
+
+
+    /**
+     * Replaces each element in the range with its absolute value
+     * @param values    the values to update
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     */
+    public static void abs(int[] values, int from, int to) {
+        for (int i=from; i<to; ++i) {
+            values[i] = Math.abs(values[i]);
+        }
+    }
+
+
+    /**
+     * Returns the number of non-NaN values in the range
+     * @param values    the values to count
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the count of non-NaN values
+     */
+    public static int count(double[] values, int from, int to) {
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            c0 += values[i] == values[i] ? 1 : 0;
+            c1 += values[i+1] == values[i+1] ? 1 : 0;
+            c2 += values[i+2] == values[i+2] ? 1 : 0;
+            c3 += values[i+3] == values[i+3] ? 1 : 0;
+        }
+        for (; i < to; ++i) {
+            c0 += values[i] == values[i] ? 1 : 0;
+        }
+        return c0 + c1 + c2 + c3;
+    }
+
+
+    /**
+     * Returns the sum of the non-NaN values in the range
+     * @param values    the values to sum
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the sum of values
+     */
+    public static double sum(double[] values, int from, int to) {
+        if (!UNROLLED) {
+            double sum = 0d;
+            for (int i=from; i<to; ++i) {
+                final double v = values[i];
+                if (v == v) {
+                    sum += v;
+                }
+            }
+            return sum;
+        } else {
+            double s0 = 0d, s1 = 0d, s2 = 0d, s3 = 0d;
+            int i = from;
+            for (; i + 3 < to; i += 4) {
+                final double v0 = values[i], v1 = values[i+1], v2 = values[i+2], v3 = values[i+3];
+                s0 += v0 == v0 ? v0 : 0d;
+                s1 += v1 == v1 ? v1 : 0d;
+                s2 += v2 == v2 ? v2 : 0d;
+                s3 += v3 == v3 ? v3 : 0d;
+            }
+            for (; i < to; ++i) {
+                final double v = values[i];
+                s0 += v == v ? v : 0d;
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+    }
+
+
+    /**
+     * Returns the sum of squares of the non-NaN values in the range
+     * @param values    the values to sum
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the sum of squares
+     */
+    public static double sumSquares(double[] values, int from, int to) {
+        return sumSquaredDeviations(values, from, to, 0d);
+    }
+
+
+    /**
+     * Returns the sum of squared deviations from some centre of the non-NaN values in the range
+     * @param values    the values to sum
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param centre    the value to measure deviations from, which is usually the mean
+     * @return          the sum of squared deviations
+     */
+    public static double sumSquaredDeviations(double[] values, int from, int to, double centre) {
+        if (!UNROLLED) {
+            double sum = 0d;
+            for (int i=from; i<to; ++i) {
+                final double v = values[i];
+                if (v == v) {
+                    sum += (v - centre) * (v - centre);
+                }
+            }
+            return sum;
+        } else {
+            double s0 = 0d, s1 = 0d, s2 = 0d, s3 = 0d;
+            int i = from;
+            for (; i + 3 < to; i += 4) {
+                final double v0 = values[i], v1 = values[i+1], v2 = values[i+2], v3 = values[i+3];
+                final double d0 = v0 - centre, d1 = v1 - centre, d2 = v2 - centre, d3 = v3 - centre;
+                s0 += v0 == v0 ? d0 * d0 : 0d;
+                s1 += v1 == v1 ? d1 * d1 : 0d;
+                s2 += v2 == v2 ? d2 * d2 : 0d;
+                s3 += v3 == v3 ? d3 * d3 : 0d;
+            }
+            for (; i < to; ++i) {
+                final double v = values[i];
+                final double d = v - centre;
+                s0 += v == v ? d * d : 0d;
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+    }
+
+
+    /**
+     * Returns the minimum of the non-NaN values in the range, or NaN if there are none
+     * @param values    the values to scan
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the minimum value
+     */
+    public static double min(double[] values, int from, int to) {
+        double m0 = Double.POSITIVE_INFINITY, m1 = m0, m2 = m0, m3 = m0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            m0 = values[i] < m0 ? values[i] : m0;
+            m1 = values[i+1] < m1 ? values[i+1] : m1;
+            m2 = values[i+2] < m2 ? values[i+2] : m2;
+            m3 = values[i+3] < m3 ? values[i+3] : m3;
+        }
+        for (; i < to; ++i) {
+            m0 = values[i] < m0 ? values[i] : m0;
+        }
+        final double min = Math.min(Math.min(m0, m1), Math.min(m2, m3));
+        return min == Double.POSITIVE_INFINITY && count(values, from, to) == 0 ? Double.NaN : min;
+    }
+
+
+    /**
+     * Returns the maximum of the non-NaN values in the range, or NaN if there are none
+     * @param values    the values to scan
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the maximum value
+     */
+    public static double max(double[] values, int from, int to) {
+        double m0 = Double.NEGATIVE_INFINITY, m1 = m0, m2 = m0, m3 = m0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            m0 = values[i] > m0 ? values[i] : m0;
+            m1 = values[i+1] > m1 ? values[i+1] : m1;
+            m2 = values[i+2] > m2 ? values[i+2] : m2;
+            m3 = values[i+3] > m3 ? values[i+3] : m3;
+        }
+        for (; i < to; ++i) {
+            m0 = values[i] > m0 ? values[i] : m0;
+        }
+        final double max = Math.max(Math.max(m0, m1), Math.max(m2, m3));
+        return max == Double.NEGATIVE_INFINITY && count(values, from, to) == 0 ? Double.NaN : max;
+    }
+
+
+    /**
+     * Returns the sum of the values in the range
+     * @param values    the values to sum
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the sum of values
+     */
+    public static long sum(int[] values, int from, int to) {
+        long s0 = 0L, s1 = 0L, s2 = 0L, s3 = 0L;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += values[i];
+            s1 += values[i+1];
+            s2 += values[i+2];
+            s3 += values[i+3];
+        }
+        for (; i < to; ++i) {
+            s0 += values[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+
+    /**
+     * Returns the sum of the values in the range, accumulated exactly in a long
+     * @param values    the values to sum
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the sum of values, which wraps if it exceeds the range of a long
+     */
+    public static long sum(long[] values, int from, int to) {
+        long s0 = 0L, s1 = 0L, s2 = 0L, s3 = 0L;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += values[i];
+            s1 += values[i+1];
+            s2 += values[i+2];
+            s3 += values[i+3];
+        }
+        for (; i < to; ++i) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+
+    /**
+     * Returns the sum of squared deviations from some centre of the values in the range
+     * @param values    the values to sum
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param centre    the value to measure deviations from, which is usually the mean
+     * @return          the sum of squared deviations
+     */
+    public static double sumSquaredDeviations(int[] values, int from, int to, double centre) {
+        double s0 = 0d, s1 = 0d;
+        int i = from;
+        for (; i + 1 < to; i += 2) {
+            final double d0 = values[i] - centre, d1 = values[i+1] - centre;
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+        }
+        for (; i < to; ++i) {
+            final double d = values[i] - centre;
+            s0 += d * d;
+        }
+        return s0 + s1;
+    }
+
+
+    /**
+     * Returns the sum of squared deviations from some centre of the values in the range
+     * @param values    the values to sum
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @param centre    the value to measure deviations from, which is usually the mean
+     * @return          the sum of squared deviations
+     */
+    public static double sumSquaredDeviations(long[] values, int from, int to, double centre) {
+        double s0 = 0d, s1 = 0d;
+        int i = from;
+        for (; i + 1 < to; i += 2) {
+            final double d0 = values[i] - centre, d1 = values[i+1] - centre;
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+        }
+        for (; i < to; ++i) {
+            final double d = values[i] - centre;
+            s0 += d * d;
+        }
+        return s0 + s1;
+    }
+
+
+    /**
+     * Returns the minimum of the values in the range
+     * @param values    the values to scan
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the minimum value, or Integer.MAX_VALUE if the range is empty
+     */
+    public static int min(int[] values, int from, int to) {
+        int min = Integer.MAX_VALUE;
+        for (int i=from; i<to; ++i) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+
+    /**
+     * Returns the maximum of the values in the range
+     * @param values    the values to scan
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the maximum value, or Integer.MIN_VALUE if the range is empty
+     */
+    public static int max(int[] values, int from, int to) {
+        int max = Integer.MIN_VALUE;
+        for (int i=from; i<to; ++i) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+
+    /**
+     * Returns the minimum of the values in the range
+     * @param values    the values to scan
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the minimum value, or Long.MAX_VALUE if the range is empty
+     */
+    public static long min(long[] values, int from, int to) {
+        long min = Long.MAX_VALUE;
+        for (int i=from; i<to; ++i) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+
+    /**
+     * Returns the maximum of the values in the range
+     * @param values    the values to scan
+     * @param from      the start index, inclusive
+     * @param to        the end index, exclusive
+     * @return          the maximum value, or Long.MIN_VALUE if the range is empty
+     */
+    public static long max(long[] values, int from, int to) {
+        long max = Long.MIN_VALUE;
+        for (int i=from; i<to; ++i) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,383 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.array;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.array.ArrayType;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameContent;
+import com.zavtech.morpheus.perf.frame.RowPermutation;
+
+/**
+ * A stable least significant digit radix sort that produces a permutation of ordinals, rather than moving values.
+ *
+ * <p>Keys are first mapped onto unsigned integers whose order matches the natural order of the values: ints and
+ * longs by flipping the sign bit, doubles by flipping the sign bit of positive values and all bits of negative
+ * values, so that -0.0 sorts before 0.0 and NaN sorts last, consistent with Double.compare(). Descending order
+ * inverts all bits, which keeps the sort stable. The keys and ordinals are then distributed one byte at a time,
+ * taking all byte histograms in a single initial pass, and any byte that is the same for every key is skipped,
+ * which makes sorting epoch timestamps or small integers far cheaper than the full key width suggests.</p>
+ *
+ * <p>Morpheus arrays of temporal values are stored as epoch longs, as are EpochArrays, so these sort as longs.
+ * Sorting a DataFrame by a column computes the permutation from that column alone, and returns a view of the
+ * frame in the new row order without swapping values in any column.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class RadixSort {
+
+
+    /**
+     * Returns the permutation that sorts the values specified, which are not modified
+     * @param values        the values to sort
+     * @param ascending     true for ascending order, false for descending
+     * @return              the ordinals of values in sorted order, with ties in their original order
+     */
+    public static int[] argsort(int[] values, boolean ascending) {
+        return argsort(values, ascending, null);
+    }
+
+
+    /**
+     * Returns the permutation that stably sorts a prior permutation of the values specified, which are not modified
+     * @param values        the values to sort
+     * @param ascending     true for ascending order, false for descending
+     * @param order         the prior order of ordinals, which is not modified, or null for the natural order
+     * @return              the ordinals of values in sorted order, with ties in their prior order
+     */
+    public static int[] argsort(int[] values, boolean ascending, int[] order) {
+        final int flip = ascending ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        final int[] keys = new int[values.length];
+        for (int i=0; i<keys.length; ++i) {
+            keys[i] = values[i] ^ flip;
+        }
+        return sortUnsigned(keys, order);
+    }
+
+
+    /**
+     * Returns the permutation that sorts the values specified, which are not modified
+     * @param values        the values to sort
+     * @param ascending     true for ascending order, false for descending
+     * @return              the ordinals of values in sorted order, with ties in their original order
+     */
+    public static int[] argsort(long[] values, boolean ascending) {
+        final long flip = ascending ? Long.MIN_VALUE : Long.MAX_VALUE;
+        final long[] keys = new long[values.length];
+        for (int i=0; i<keys.length; ++i) {
+            keys[i] = values[i] ^ flip;
+        }
+        return sortUnsigned(keys, null);
+    }
+
+
+    /**
+     * Returns the permutation that sorts the values specified, which are not modified
+     * @param values        the values to sort
+     * @param ascending     true for ascending order, false for descending
+     * @return              the ordinals of values in sorted order, with ties in their original order
+     */
+    public static int[] argsort(double[] values, boolean ascending) {
+        final long[] keys = new long[values.length];
+        for (int i=0; i<keys.length; ++i) {
+            keys[i] = doubleKey(values[i], ascending);
+        }
+        return sortUnsigned(keys, null);
+    }
+
+
+    /**
+     * Returns the permutation that sorts the Morpheus array, which is not modified
+     * @param array         the array of int, long, double or temporal values
+     * @param ascending     true for ascending order, false for descending
+     * @return              the ordinals of the array in sorted order, with ties in their original order
+     */
+    public static int[] argsort(Array<?> array, boolean ascending) {
+        final int length = array.length();
+        switch (array.typeCode()) {
+            case INTEGER:
+                final int flip = ascending ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+                final int[] ints = new int[length];
+                for (int i=0; i<length; ++i) ints[i] = array.getInt(i) ^ flip;
+                return sortUnsigned(ints, null);
+            case DOUBLE:
+                final long[] doubles = new long[length];
+                for (int i=0; i<length; ++i) doubles[i] = doubleKey(array.getDouble(i), ascending);
+                return sortUnsigned(doubles, null);
+            default:
+                checkLongType(array.typeCode());
+                final long[] longs = new long[length];
+                final long longFlip = ascending ? Long.MIN_VALUE : Long.MAX_VALUE;
+                for (int i=0; i<length; ++i) longs[i] = array.getLong(i) ^ longFlip;
+                return sortUnsigned(longs, null);
+        }
+    }
+
+
+    /**
+     * Returns the permutation that sorts the epoch array by its encoded values, which is not modified
+     * @param array         the epoch array
+     * @param ascending     true for ascending order, false for descending
+     * @return              the ordinals of the array in sorted order, with ties in their original order
+     */
+    public static int[] argsort(EpochArray<?> array, boolean ascending) {
+        final long flip = ascending ? Long.MIN_VALUE : Long.MAX_VALUE;
+        final long[] keys = new long[array.length()];
+        for (int i=0; i<keys.length; ++i) {
+            keys[i] = array.getLong(i) ^ flip;
+        }
+        return sortUnsigned(keys, null);
+    }
+
+
+    /**
+     * Sorts the Morpheus array in place, by gathering values through the radix sort permutation
+     * @param array         the array of int, long, double or temporal values
+     * @param ascending     true for ascending order, false for descending
+     * @return              the input array
+     */
+    public static <T> Array<T> sort(Array<T> array, boolean ascending) {
+        final int[] order = argsort(array, ascending);
+        final int length = order.length;
+        switch (array.typeCode()) {
+            case INTEGER:
+                final int[] ints = new int[length];
+                for (int i=0; i<length; ++i) ints[i] = array.getInt(order[i]);
+                for (int i=0; i<length; ++i) array.setInt(i, ints[i]);
+                return array;
+            case DOUBLE:
+                final double[] doubles = new double[length];
+                for (int i=0; i<length; ++i) doubles[i] = array.getDouble(order[i]);
+                for (int i=0; i<length; ++i) array.setDouble(i, doubles[i]);
+                return array;
+            default:
+                final long[] longs = new long[length];
+                for (int i=0; i<length; ++i) longs[i] = array.getLong(order[i]);
+                for (int i=0; i<length; ++i) array.setLong(i, longs[i]);
+                return array;
+        }
+    }
+
+
+    /**
+     * Returns the permutation that sorts the rows of the frame by a single column, computed from that column alone
+     * @param frame         the frame to sort
+     * @param colKey        the key of the int, long, double or temporal column to sort by
+     * @param ascending     true for ascending order, false for descending
+     * @return              the row ordinals in sorted order, with ties in their original order
+     */
+    public static <R,C> int[] argsort(DataFrame<R,C> frame, C colKey, boolean ascending) {
+        return argsort(frame, frame.cols().ordinalOf(colKey), ascending, null);
+    }
+
+
+    /**
+     * Returns a view of the frame with its rows sorted by a single column, without moving any values
+     * <p>This is equivalent to RowPermutation.of(frame, ascending, colKey).view(), which also sorts by several keys
+     * and can gather the sorted rows into a new frame.</p>
+     * @param frame         the frame to sort
+     * @param colKey        the key of the int, long, double or temporal column to sort by
+     * @param ascending     true for ascending order, false for descending
+     * @return              a view of the frame with rows in sorted order
+     */
+    public static <R,C> DataFrame<R,C> sort(DataFrame<R,C> frame, C colKey, boolean ascending) {
+        return RowPermutation.of(frame, ascending, colKey).view();
+    }
+
+
+    /**
+     * Returns the permutation that stably sorts a prior permutation of the frame rows by the column specified
+     * @param frame         the frame to sort
+     * @param colOrdinal    the ordinal of the int, long, double or temporal column to sort by
+     * @param ascending     true for ascending order, false for descending
+     * @param order         the prior order of row ordinals, which is not modified, or null for the natural order
+     * @return              the row ordinals in sorted order, with ties in their prior order
+     */
+    public static <R,C> int[] argsort(DataFrame<R,C> frame, int colOrdinal, boolean ascending, int[] order) {
+        final int rowCount = frame.rowCount();
+        final DataFrameContent<R,C> data = frame.data();
+        final ArrayType type = ArrayType.of(frame.cols().type(frame.cols().key(colOrdinal)));
+        switch (type) {
+            case INTEGER:
+                final int flip = ascending ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+                final int[] ints = new int[rowCount];
+                for (int i=0; i<rowCount; ++i) ints[i] = data.getInt(i, colOrdinal) ^ flip;
+                return sortUnsigned(ints, order);
+            case DOUBLE:
+                final long[] doubles = new long[rowCount];
+                for (int i=0; i<rowCount; ++i) doubles[i] = doubleKey(data.getDouble(i, colOrdinal), ascending);
+                return sortUnsigned(doubles, order);
+            default:
+                checkLongType(type);
+                final long longFlip = ascending ? Long.MIN_VALUE : Long.MAX_VALUE;
+                final long[] longs = new long[rowCount];
+                for (int i=0; i<rowCount; ++i) longs[i] = data.getLong(i, colOrdinal) ^ longFlip;
+                return sortUnsigned(longs, order);
+        }
+    }
+
+
+    /**
+     * Returns true if values of the array type can be radix sorted
+     * @param type  the array type
+     * @return      true for int, long, double and temporal types
+     */
+    public static boolean isSupported(ArrayType type) {
+        switch (type) {
+            case INTEGER:
+            case DOUBLE:
+                return true;
+            default:
+                return isLongType(type);
+        }
+    }
+
+
+    /**
+     * Returns the unsigned key for a double, such that unsigned order matches Double.compare() order
+     * @param value         the double value
+     * @param ascending     true for ascending order, false for descending
+     * @return              the unsigned sort key
+     */
+    static long doubleKey(double value, boolean ascending) {
+        final long bits = Double.doubleToLongBits(value);
+        final long key = bits < 0L ? ~bits : bits ^ Long.MIN_VALUE;
+        return ascending ? key : ~key;
+    }
+
+
+    /**
+     * Checks that the array type is stored as longs
+     * @param type  the array type
+     * @throws IllegalArgumentException if the type is not sortable as a long
+     */
+    private static void checkLongType(ArrayType type) {
+        if (!isLongType(type)) {
+            throw new IllegalArgumentException("Radix sort is only supported for int, long, double and temporal values, not " + type);
+        }
+    }
+
+
+    /**
+     * Returns true if the array type is stored as longs
+     * @param type  the array type
+     * @return      true for long and temporal types
+     */
+    private static boolean isLongType(ArrayType type) {
+        switch (type) {
+            case LONG:
+            case DATE:
+            case INSTANT:
+            case LOCAL_DATE:
+            case LOCAL_TIME:
+            case LOCAL_DATETIME:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Returns the permutation that stably sorts the unsigned keys, where keys are indexed by ordinal
+     * @param keys      the unsigned keys indexed by ordinal, which are not modified
+     * @param order     the prior order of ordinals, which is not modified, or null for the natural order
+     * @return          the ordinals in sorted order, with ties in their prior order
+     */
+    static int[] sortUnsigned(long[] keys, int[] order) {
+        final int n = keys.length;
+        long[] k1 = new long[n], k2 = new long[n];
+        int[] o1 = new int[n], o2 = new int[n];
+        for (int i=0; i<n; ++i) {
+            final int ordinal = order != null ? order[i] : i;
+            k1[i] = keys[ordinal];
+            o1[i] = ordinal;
+        }
+        final int[][] counts = new int[8][256];
+        for (int i=0; i<n; ++i) {
+            final long key = k1[i];
+            for (int b=0; b<8; ++b) {
+                counts[b][(int)(key >>> (b << 3)) & 0xFF]++;
+            }
+        }
+        for (int b=0; b<8; ++b) {
+            final int shift = b << 3;
+            final int[] count = counts[b];
+            if (n > 0 && count[(int)(k1[0] >>> shift) & 0xFF] < n) {
+                for (int d=0, offset=0; d<256; ++d) {
+                    final int c = count[d];
+                    count[d] = offset;
+                    offset += c;
+                }
+                for (int i=0; i<n; ++i) {
+                    final long key = k1[i];
+                    final int index = count[(int)(key >>> shift) & 0xFF]++;
+                    k2[index] = key;
+                    o2[index] = o1[i];
+                }
+                final long[] k = k1; k1 = k2; k2 = k;
+                final int[] o = o1; o1 = o2; o2 = o;
+            }
+        }
+        return o1;
+    }
+
+
+    /**
+     * Returns the permutation that stably sorts the unsigned keys, where keys are indexed by ordinal
+     * @param keys      the unsigned keys indexed by ordinal, which are not modified
+     * @param order     the prior order of ordinals, which is not modified, or null for the natural order
+     * @return          the ordinals in sorted order, with ties in their prior order
+     */
+    static int[] sortUnsigned(int[] keys, int[] order) {
+        final int n = keys.length;
+        int[] k1 = new int[n], k2 = new int[n];
+        int[] o1 = new int[n], o2 = new int[n];
+        for (int i=0; i<n; ++i) {
+            final int ordinal = order != null ? order[i] : i;
+            k1[i] = keys[ordinal];
+            o1[i] = ordinal;
+        }
+        final int[][] counts = new int[4][256];
+        for (int i=0; i<n; ++i) {
+            final int key = k1[i];
+            counts[0][key & 0xFF]++;
+            counts[1][(key >>> 8) & 0xFF]++;
+            counts[2][(key >>> 16) & 0xFF]++;
+            counts[3][key >>> 24]++;
+        }
+        for (int b=0; b<4; ++b) {
+            final int shift = b << 3;
+            final int[] count = counts[b];
+            if (n > 0 && count[(k1[0] >>> shift) & 0xFF] < n) {
+                for (int d=0, offset=0; d<256; ++d) {
+                    final int c = count[d];
+                    count[d] = offset;
+                    offset += c;
+                }
+                for (int i=0; i<n; ++i) {
+                    final int key = k1[i];
+                    final int index = count[(key >>> shift) & 0xFF]++;
+                    k2[index] = key;
+                    o2[index] = o1[i];
+                }
+                final int[] k = k1; k1 = k2; k2 = k;
+                final int[] o = o1; o1 = o2; o2 = o;
+            }
+        }
+        return o1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.zavtech.morpheus.perf.array;
+
+import java.awt.*;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class RadixSortPerf {
+
+    public static void main(String[] args) {
+
+        final int count = 5000000;
+        final Random random = new Random(7);
+        final LocalDateTime start = LocalDateTime.of(2010, 1, 1, 0, 0);
+        final Array<Double> doubles = Array.of(Double.class, count).applyDoubles(v -> random.nextDouble() * 1000d);
+        final Array<Long> longs = Array.of(Long.class, count).applyLongs(v -> random.nextLong());
+        final Array<LocalDateTime> timestamps = Array.of(LocalDateTime.class, count).applyValues(v -> start.plusSeconds(random.nextInt(100000000)));
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, count), Array.of("A", "B", "C", "D"), v -> random.nextDouble());
+
+        DataFrame<String,String> timingStats = PerfStat.run(5, TimeUnit.MILLISECONDS, false, tasks -> {
+
+            tasks.beforeEach(() -> frame.rows().sort(null));
+
+            tasks.put("Doubles(Morpheus)", () -> doubles.copy().sort(true));
+            tasks.put("Doubles(Radix)", () -> RadixSort.sort(doubles.copy(), true));
+            tasks.put("Longs(Morpheus)", () -> longs.copy().sort(true));
+            tasks.put("Longs(Radix)", () -> RadixSort.sort(longs.copy(), true));
+            tasks.put("LocalDateTime(Morpheus)", () -> timestamps.copy().sort(true));
+            tasks.put("LocalDateTime(Radix)", () -> RadixSort.sort(timestamps.copy(), true));
+            tasks.put("Frame(Morpheus)", () -> frame.rows().sort(true, "A"));
+            tasks.put("Frame(Radix)", () -> RadixSort.sort(frame, "A", true));
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("Morpheus Sort vs Radix Sort (5 Million values)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+    }
+}
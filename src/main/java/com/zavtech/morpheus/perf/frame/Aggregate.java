@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.frame;
+
+/**
+ * The aggregate functions supported by a GroupAggregator, all of which ignore NaN values
+ *
+ * @author  Xavier Witdouck
+ */
+public enum Aggregate {
+
+    COUNT("Count"),
+    SUM("Sum"),
+    MEAN("Mean"),
+    MIN("Min"),
+    MAX("Max");
+
+    private String label;
+
+    /**
+     * Constructor
+     * @param label the label for this aggregate
+     */
+    Aggregate(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the label for this aggregate, used to name result columns
+     * @return  the label for this aggregate
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.frame;
+
+import java.util.Arrays;
+
+/**
+ * Running aggregates per group and column, held in primitive arrays indexed by column and then by dense group id.
+ *
+ * <p>Only the arrays required by the requested aggregates are allocated: counts are always kept, sums only for
+ * SUM and MEAN, and minimums and maximums only when requested. The arrays grow by doubling as groups are added, and
+ * accumulators for the same columns can be merged group by group, which allows partial results to be combined.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+class GroupAccumulators {
+
+    private int capacity;
+    private int colCount;
+    private long[][] counts;
+    private double[][] sums;
+    private double[][] mins;
+    private double[][] maxs;
+
+
+    /**
+     * Constructor
+     * @param colCount      the number of value columns
+     * @param capacity      the initial group capacity
+     * @param sums          true to accumulate sums
+     * @param mins          true to accumulate minimums
+     * @param maxs          true to accumulate maximums
+     */
+    GroupAccumulators(int colCount, int capacity, boolean sums, boolean mins, boolean maxs) {
+        this.colCount = colCount;
+        this.capacity = Math.max(capacity, 16);
+        this.counts = new long[colCount][this.capacity];
+        this.sums = sums ? new double[colCount][this.capacity] : null;
+        this.mins = mins ? new double[colCount][this.capacity] : null;
+        this.maxs = maxs ? new double[colCount][this.capacity] : null;
+    }
+
+
+    /**
+     * Ensures the accumulators can hold the group id specified
+     * @param groupId   the group id
+     */
+    final void ensureCapacity(int groupId) {
+        if (groupId >= capacity) {
+            final int newCapacity = Math.max(groupId + 1, capacity * 2);
+            for (int c=0; c<colCount; ++c) {
+                this.counts[c] = Arrays.copyOf(counts[c], newCapacity);
+                if (sums != null) sums[c] = Arrays.copyOf(sums[c], newCapacity);
+                if (mins != null) mins[c] = Arrays.copyOf(mins[c], newCapacity);
+                if (maxs != null) maxs[c] = Arrays.copyOf(maxs[c], newCapacity);
+            }
+            this.capacity = newCapacity;
+        }
+    }
+
+
+    /**
+     * Adds a value to the accumulators for the group and column, ignoring NaN
+     * @param groupId   the group id, which must be within capacity
+     * @param col       the value column index
+     * @param value     the value to add
+     */
+    final void add(int groupId, int col, double value) {
+        if (value == value) {
+            final long count = counts[col][groupId]++;
+            if (sums != null) {
+                sums[col][groupId] += value;
+            }
+            if (mins != null) {
+                final double[] min = mins[col];
+                min[groupId] = count == 0L || value < min[groupId] ? value : min[groupId];
+            }
+            if (maxs != null) {
+                final double[] max = maxs[col];
+                max[groupId] = count == 0L || value > max[groupId] ? value : max[groupId];
+            }
+        }
+    }
+
+
+    /**
+     * Merges the accumulators of a group from another instance into a group of this instance
+     * @param groupId       the group id in this instance, which must be within capacity
+     * @param other         the other accumulators, for the same columns and aggregates
+     * @param otherGroupId  the group id in the other instance
+     */
+    final void merge(int groupId, GroupAccumulators other, int otherGroupId) {
+        for (int c=0; c<colCount; ++c) {
+            final long otherCount = other.counts[c][otherGroupId];
+            if (otherCount > 0L) {
+                final long count = counts[c][groupId];
+                this.counts[c][groupId] = count + otherCount;
+                if (sums != null) {
+                    sums[c][groupId] += other.sums[c][otherGroupId];
+                }
+                if (mins != null) {
+                    final double value = other.mins[c][otherGroupId];
+                    mins[c][groupId] = count == 0L || value < mins[c][groupId] ? value : mins[c][groupId];
+                }
+                if (maxs != null) {
+                    final double value = other.maxs[c][otherGroupId];
+                    maxs[c][groupId] = count == 0L || value > maxs[c][groupId] ? value : maxs[c][groupId];
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the value of the aggregate for the group and column specified
+     * @param aggregate the aggregate function
+     * @param groupId   the group id
+     * @param col       the value column index
+     * @return          the aggregate value, NaN for the mean, min or max of a group with no values
+     */
+    final double get(Aggregate aggregate, int groupId, int col) {
+        final long count = counts[col][groupId];
+        switch (aggregate) {
+            case COUNT: return count;
+            case SUM:   return sums[col][groupId];
+            case MEAN:  return count == 0L ? Double.NaN : sums[col][groupId] / count;
+            case MIN:   return count == 0L ? Double.NaN : mins[col][groupId];
+            case MAX:   return count == 0L ? Double.NaN : maxs[col][groupId];
+            default:    throw new IllegalArgumentException("Unsupported aggregate: " + aggregate);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameContent;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.perf.index.LongOrdinalMap;
+import com.zavtech.morpheus.util.Tuple;
+
+/**
+ * Computes aggregates of value columns per group of key columns in a single streaming pass over the rows of a frame,
+ * without creating a frame per group.
+ *
+ * <p>Each row is mapped to a dense group id by encoding its key columns as int codes and chaining them through
+ * primitive ordinal maps, exactly as for a HashGrouping but for the innermost depth only, and the row values are
+ * added to running accumulators held per column in primitive arrays indexed by group id. A group key Tuple is only
+ * created once per group when the result frame is built, so the cost per row is a few primitive hash probes and
+ * array updates, and memory grows with the number of groups rather than the number of rows.</p>
+ *
+ * <p>Large frames are aggregated in parallel without shared locks. Each thread first aggregates a contiguous range
+ * of rows into its own tables, then the groups of every thread are hash partitioned on their key values, and each
+ * partition is merged by a single thread that combines the partial accumulators of matching groups. Only the
+ * groups, rather than the rows, are hashed and compared in the merge, and a final sort of the merged groups by
+ * first row restores the same group order as a sequential pass.</p>
+ *
+ * <p>The result frame is keyed by group key, in order of first appearance. With a single aggregate its columns are
+ * named after the value columns, otherwise each column is named after its aggregate and value column, such as
+ * "Mean(Price)".</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class GroupAggregator<R,C> {
+
+    private static final int MIN_ROWS_PER_THREAD = 100000;
+
+    private DataFrame<R,C> frame;
+    private GroupAggregatorOptions<C> options;
+
+
+    /**
+     * Constructor
+     * @param frame     the frame to aggregate
+     * @param options   the aggregation options
+     */
+    public GroupAggregator(DataFrame<R,C> frame, GroupAggregatorOptions<C> options) {
+        this.frame = frame;
+        this.options = options;
+    }
+
+
+    /**
+     * Returns the aggregates per group of the frame, as configured by the consumer
+     * @param frame         the frame to aggregate
+     * @param configurator  the consumer to configure options
+     * @return              the frame of aggregates keyed by group key
+     */
+    public static <R,C> DataFrame<Tuple,String> aggregate(DataFrame<R,C> frame, Consumer<GroupAggregatorOptions<C>> configurator) {
+        final GroupAggregatorOptions<C> options = new GroupAggregatorOptions<>();
+        configurator.accept(options);
+        return new GroupAggregator<>(frame, options).apply();
+    }
+
+
+    /**
+     * Returns the aggregates per group of the frame
+     * @return  the frame of aggregates keyed by group key
+     */
+    public DataFrame<Tuple,String> apply() {
+        this.options.validate();
+        final List<C> columns = valueColumns();
+        final int[] keyOrdinals = ordinals(options.getKeys());
+        final int[] valueOrdinals = ordinals(columns);
+        final int rowCount = frame.rowCount();
+        final int threads = Math.max(1, Math.min(options.getThreads(), rowCount / MIN_ROWS_PER_THREAD));
+        if (threads == 1) {
+            final Partial partial = scan(keyOrdinals, valueOrdinals, 0, rowCount);
+            return toFrame(keyOrdinals, columns, partial.accumulators, partial.firstRows, partial.groupCount);
+        } else {
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                final List<Future<Partial>> scans = new ArrayList<>(threads);
+                for (int i=0; i<threads; ++i) {
+                    final int from = (int)((long)rowCount * i / threads);
+                    final int to = (int)((long)rowCount * (i + 1) / threads);
+                    scans.add(executor.submit(() -> scan(keyOrdinals, valueOrdinals, from, to).hash(hashers(keyOrdinals), threads)));
+                }
+                final Partial[] partials = new Partial[threads];
+                for (int i=0; i<threads; ++i) {
+                    partials[i] = scans.get(i).get();
+                }
+                final List<Future<Partial>> merges = new ArrayList<>(threads);
+                final KeyCodes.RowMatcher matcher = matcher(keyOrdinals);
+                for (int i=0; i<threads; ++i) {
+                    final int partition = i;
+                    merges.add(executor.submit(() -> merge(partials, partition, matcher, columns.size())));
+                }
+                final Partial[] merged = new Partial[threads];
+                for (int i=0; i<threads; ++i) {
+                    merged[i] = merges.get(i).get();
+                }
+                return combine(keyOrdinals, columns, merged);
+            } catch (ExecutionException ex) {
+                throw new DataFrameException("Failed to aggregate groups in parallel", ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new DataFrameException("Interrupted while aggregating groups in parallel", ex);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+
+    /**
+     * Returns the partial aggregates for the range of rows specified, using encoders private to the calling thread
+     * @param keyOrdinals   the ordinals of the key columns
+     * @param valueOrdinals the ordinals of the value columns
+     * @param from          the first row ordinal, inclusive
+     * @param to            the last row ordinal, exclusive
+     * @return              the partial aggregates, with groups in order of first appearance
+     */
+    private Partial scan(int[] keyOrdinals, int[] valueOrdinals, int from, int to) {
+        final GroupAccumulators accumulators = newAccumulators(valueOrdinals.length, 1024);
+        final IntUnaryOperator[] encoders = encoders(keyOrdinals);
+        final LongOrdinalMap[] maps = new LongOrdinalMap[keyOrdinals.length];
+        for (int d=0; d<maps.length; ++d) {
+            maps[d] = new LongOrdinalMap(1024);
+        }
+        int groupCount = 0;
+        int[] firstRows = new int[1024];
+        final int last = maps.length - 1;
+        final DataFrameContent<R,C> data = frame.data();
+        for (int row=from; row<to; ++row) {
+            long parent = 0L;
+            for (int d=0; d<last; ++d) {
+                final int next = maps[d].size();
+                final int existing = maps[d].putIfAbsent((parent << 32) | (encoders[d].applyAsInt(row) & 0xFFFFFFFFL), next);
+                parent = existing >= 0 ? existing : next;
+            }
+            final int existing = maps[last].putIfAbsent((parent << 32) | (encoders[last].applyAsInt(row) & 0xFFFFFFFFL), groupCount);
+            final int groupId = existing >= 0 ? existing : groupCount++;
+            if (existing < 0) {
+                if (groupId == firstRows.length) {
+                    firstRows = Arrays.copyOf(firstRows, groupId * 2);
+                }
+                firstRows[groupId] = row;
+                accumulators.ensureCapacity(groupId);
+            }
+            for (int c=0; c<valueOrdinals.length; ++c) {
+                accumulators.add(groupId, c, data.getDouble(row, valueOrdinals[c]));
+            }
+        }
+        return new Partial(accumulators, firstRows, groupCount);
+    }
+
+
+    /**
+     * Returns the groups of one hash partition merged across all partial results, without any shared state
+     * @param partials      the partial results in row order, each with hashes and partitions assigned
+     * @param partition     the partition to merge
+     * @param matcher       the matcher to compare key values of two rows
+     * @param colCount      the number of value columns
+     * @return              the merged groups of the partition, in order of first appearance
+     */
+    private Partial merge(Partial[] partials, int partition, KeyCodes.RowMatcher matcher, int colCount) {
+        int groupCount = 0;
+        int[] firstRows = new int[1024];
+        int[] hashes = new int[1024];
+        int[] table = new int[2048];
+        Arrays.fill(table, -1);
+        final GroupAccumulators accumulators = newAccumulators(colCount, 1024);
+        for (Partial partial : partials) {
+            for (int i=partial.offsets[partition]; i<partial.offsets[partition + 1]; ++i) {
+                final int g = partial.groups[i];
+                final int hash = partial.hashes[g];
+                final int row = partial.firstRows[g];
+                int slot = hash & (table.length - 1);
+                while (table[slot] >= 0 && (hashes[table[slot]] != hash || !matcher.matches(firstRows[table[slot]], row))) {
+                    slot = (slot + 1) & (table.length - 1);
+                }
+                int groupId = table[slot];
+                if (groupId < 0) {
+                    groupId = groupCount++;
+                    if (groupId == firstRows.length) {
+                        firstRows = Arrays.copyOf(firstRows, groupId * 2);
+                        hashes = Arrays.copyOf(hashes, groupId * 2);
+                    }
+                    firstRows[groupId] = row;
+                    hashes[groupId] = hash;
+                    accumulators.ensureCapacity(groupId);
+                    table[slot] = groupId;
+                    if (groupCount * 2 > table.length) {
+                        table = rehash(hashes, groupCount, table.length * 2);
+                    }
+                }
+                accumulators.merge(groupId, partial.accumulators, g);
+            }
+        }
+        return new Partial(accumulators, firstRows, groupCount);
+    }
+
+
+    /**
+     * Returns a new open addressing table of group ids for the hashes specified
+     * @param hashes        the hash of each group
+     * @param groupCount    the number of groups
+     * @param capacity      the table capacity, which must be a power of two
+     * @return              the new table, with -1 in empty slots
+     */
+    private static int[] rehash(int[] hashes, int groupCount, int capacity) {
+        final int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        for (int g=0; g<groupCount; ++g) {
+            int slot = hashes[g] & (capacity - 1);
+            while (table[slot] >= 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table[slot] = g;
+        }
+        return table;
+    }
+
+
+    /**
+     * Returns the result frame for merged partitions, with groups in order of first appearance across all partitions
+     * @param keyOrdinals   the ordinals of the key columns
+     * @param columns       the value columns
+     * @param merged        the merged groups of each partition
+     * @return              the frame of aggregates keyed by group key
+     */
+    private DataFrame<Tuple,String> combine(int[] keyOrdinals, List<C> columns, Partial[] merged) {
+        int total = 0;
+        for (Partial partial : merged) {
+            total += partial.groupCount;
+        }
+        int index = 0;
+        final long[] order = new long[total];
+        final int[] partitions = new int[total];
+        final int[] groupIds = new int[total];
+        for (int p=0; p<merged.length; ++p) {
+            for (int g=0; g<merged[p].groupCount; ++g) {
+                order[index] = ((long)merged[p].firstRows[g] << 32) | index;
+                partitions[index] = p;
+                groupIds[index] = g;
+                index++;
+            }
+        }
+        Arrays.parallelSort(order);
+        final int[] firstRows = new int[total];
+        final GroupAccumulators accumulators = newAccumulators(columns.size(), total);
+        for (int i=0; i<total; ++i) {
+            final int source = (int)order[i];
+            firstRows[i] = (int)(order[i] >>> 32);
+            accumulators.merge(i, merged[partitions[source]].accumulators, groupIds[source]);
+        }
+        return toFrame(keyOrdinals, columns, accumulators, firstRows, total);
+    }
+
+
+    /**
+     * Returns the value columns to aggregate, which default to all numeric non-key columns
+     * @return  the value columns
+     */
+    private List<C> valueColumns() {
+        return options.getColumns().orElseGet(() -> {
+            final List<C> columns = new ArrayList<>();
+            this.frame.cols().keys().forEach(key -> {
+                if (!options.getKeys().contains(key) && Number.class.isAssignableFrom(frame.cols().type(key))) {
+                    columns.add(key);
+                }
+            });
+            return columns;
+        });
+    }
+
+
+    /**
+     * Returns the column ordinals for the column keys specified
+     * @param colKeys   the column keys
+     * @return          the column ordinals
+     */
+    private int[] ordinals(List<C> colKeys) {
+        return colKeys.stream().mapToInt(key -> frame.cols().ordinalOf(key)).toArray();
+    }
+
+
+    /**
+     * Returns a new set of key encoders for the key column ordinals, which are only safe for use by a single thread
+     * @param keyOrdinals   the ordinals of the key columns
+     * @return              the key encoders
+     */
+    private IntUnaryOperator[] encoders(int[] keyOrdinals) {
+        final IntUnaryOperator[] encoders = new IntUnaryOperator[keyOrdinals.length];
+        for (int d=0; d<keyOrdinals.length; ++d) {
+            final C key = frame.cols().key(keyOrdinals[d]);
+            encoders[d] = KeyCodes.encoder(frame, keyOrdinals[d], options.getDictionary(key).orElse(null));
+        }
+        return encoders;
+    }
+
+
+    /**
+     * Returns the hash functions for the key column ordinals, which are thread safe
+     * @param keyOrdinals   the ordinals of the key columns
+     * @return              the hash functions
+     */
+    private IntUnaryOperator[] hashers(int[] keyOrdinals) {
+        final IntUnaryOperator[] hashers = new IntUnaryOperator[keyOrdinals.length];
+        for (int d=0; d<keyOrdinals.length; ++d) {
+            final C key = frame.cols().key(keyOrdinals[d]);
+            hashers[d] = KeyCodes.hasher(frame, keyOrdinals[d], options.getDictionary(key).orElse(null));
+        }
+        return hashers;
+    }
+
+
+    /**
+     * Returns a matcher that tests whether two rows have equal values in all key columns, which is thread safe
+     * @param keyOrdinals   the ordinals of the key columns
+     * @return              the row matcher
+     */
+    private KeyCodes.RowMatcher matcher(int[] keyOrdinals) {
+        final KeyCodes.RowMatcher[] matchers = new KeyCodes.RowMatcher[keyOrdinals.length];
+        for (int d=0; d<keyOrdinals.length; ++d) {
+            final C key = frame.cols().key(keyOrdinals[d]);
+            matchers[d] = KeyCodes.matcher(frame, keyOrdinals[d], options.getDictionary(key).orElse(null));
+        }
+        return (row1, row2) -> {
+            for (KeyCodes.RowMatcher matcher : matchers) {
+                if (!matcher.matches(row1, row2)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+
+    /**
+     * Returns new empty accumulators for the configured aggregates
+     * @param colCount  the number of value columns
+     * @param capacity  the initial group capacity
+     * @return          the new accumulators
+     */
+    private GroupAccumulators newAccumulators(int colCount, int capacity) {
+        final Set<Aggregate> aggregates = options.getAggregates();
+        final boolean sums = aggregates.contains(Aggregate.SUM) || aggregates.contains(Aggregate.MEAN);
+        return new GroupAccumulators(colCount, capacity, sums, aggregates.contains(Aggregate.MIN), aggregates.contains(Aggregate.MAX));
+    }
+
+
+    /**
+     * Returns the result frame for the accumulated groups
+     * @param keyOrdinals   the ordinals of the key columns
+     * @param columns       the value columns
+     * @param accumulators  the accumulators indexed by group id
+     * @param firstRows     the row ordinal of the first row in each group
+     * @param groupCount    the number of groups
+     * @return              the frame of aggregates keyed by group key
+     */
+    private DataFrame<Tuple,String> toFrame(int[] keyOrdinals, List<C> columns, GroupAccumulators accumulators, int[] firstRows, int groupCount) {
+        final DataFrameContent<R,C> data = frame.data();
+        final Set<Aggregate> aggregates = options.getAggregates();
+        final List<Tuple> groupKeys = new ArrayList<>(groupCount);
+        for (int g=0; g<groupCount; ++g) {
+            final Object[] items = new Object[keyOrdinals.length];
+            for (int d=0; d<keyOrdinals.length; ++d) {
+                items[d] = data.getValue(firstRows[g], keyOrdinals[d]);
+            }
+            groupKeys.add(Tuple.of(items));
+        }
+        final List<String> colNames = new ArrayList<>();
+        for (Aggregate aggregate : aggregates) {
+            for (C column : columns) {
+                colNames.add(aggregates.size() == 1 ? String.valueOf(column) : aggregate.getLabel() + "(" + column + ")");
+            }
+        }
+        final DataFrame<Tuple,String> result = DataFrame.ofDoubles(groupKeys, colNames);
+        final DataFrameContent<Tuple,String> target = result.data();
+        int colOrdinal = 0;
+        for (Aggregate aggregate : aggregates) {
+            for (int c=0; c<columns.size(); ++c) {
+                for (int g=0; g<groupCount; ++g) {
+                    target.setDouble(g, colOrdinal, accumulators.get(aggregate, g, c));
+                }
+                colOrdinal++;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * The aggregates for the groups found in some subset of rows, indexed by a group id local to the subset
+     */
+    private static class Partial {
+
+        private int groupCount;
+        private int[] firstRows;
+        private int[] hashes;
+        private int[] offsets;
+        private int[] groups;
+        private GroupAccumulators accumulators;
+
+        /**
+         * Constructor
+         * @param accumulators  the accumulators indexed by group id
+         * @param firstRows     the first row ordinal of each group
+         * @param groupCount    the number of groups
+         */
+        Partial(GroupAccumulators accumulators, int[] firstRows, int groupCount) {
+            this.accumulators = accumulators;
+            this.firstRows = firstRows;
+            this.groupCount = groupCount;
+        }
+
+        /**
+         * Assigns the key hash of each group from the key values of its first row, and buckets groups by partition
+         * @param hashers       the hash functions of the key columns
+         * @param partitions    the number of partitions
+         * @return              this partial
+         */
+        Partial hash(IntUnaryOperator[] hashers, int partitions) {
+            final int[] partitionOf = new int[groupCount];
+            this.hashes = new int[groupCount];
+            this.offsets = new int[partitions + 1];
+            this.groups = new int[groupCount];
+            for (int g=0; g<groupCount; ++g) {
+                int hash = 1;
+                for (IntUnaryOperator hasher : hashers) {
+                    hash = 31 * hash + hasher.applyAsInt(firstRows[g]);
+                }
+                hash *= 0x9E3779B9;
+                this.hashes[g] = hash ^ (hash >>> 16);
+                partitionOf[g] = (int)(((hashes[g] & 0xFFFFFFFFL) * partitions) >>> 32);
+                this.offsets[partitionOf[g] + 1]++;
+            }
+            for (int p=0; p<partitions; ++p) {
+                this.offsets[p + 1] += offsets[p];
+            }
+            final int[] cursor = Arrays.copyOf(offsets, partitions);
+            for (int g=0; g<groupCount; ++g) {
+                this.groups[cursor[partitionOf[g]]++] = g;
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.zavtech.morpheus.perf.array.DictionaryArray;
+
+/**
+ * The options to configure a GroupAggregator
+ *
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class GroupAggregatorOptions<C> {
+
+    private List<C> keys = new ArrayList<>();
+    private List<C> columns;
+    private Set<Aggregate> aggregates = EnumSet.of(Aggregate.MEAN);
+    private Map<C,DictionaryArray<?>> dictionaries = new HashMap<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+
+    /**
+     * Constructor
+     */
+    public GroupAggregatorOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the key columns to group by, outermost first
+     * @return  the key columns
+     */
+    public List<C> getKeys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * Returns the value columns to aggregate, empty to aggregate all numeric non-key columns
+     * @return  the optional value columns
+     */
+    public Optional<List<C>> getColumns() {
+        return Optional.ofNullable(columns).map(Collections::unmodifiableList);
+    }
+
+    /**
+     * Returns the aggregates to compute for each value column
+     * @return  the aggregates, in declaration order
+     */
+    public Set<Aggregate> getAggregates() {
+        return Collections.unmodifiableSet(aggregates);
+    }
+
+    /**
+     * Returns the dictionary encoding for the key column, if one was specified
+     * @param key   the key column
+     * @return      the optional dictionary encoding
+     */
+    public Optional<DictionaryArray<?>> getDictionary(C key) {
+        return Optional.ofNullable(dictionaries.get(key));
+    }
+
+    /**
+     * Returns the maximum number of threads used to aggregate, which is reduced for small frames
+     * @return  the maximum thread count
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the key columns to group by, outermost first
+     * @param keys  the key columns
+     */
+    public void setKeys(List<C> keys) {
+        this.keys = new ArrayList<>(keys);
+    }
+
+    /**
+     * Sets the key columns to group by, outermost first
+     * @param keys  the key columns
+     */
+    @SafeVarargs
+    public final void setKeys(C... keys) {
+        this.keys = new ArrayList<>(keys.length);
+        for (C key : keys) this.keys.add(key);
+    }
+
+    /**
+     * Sets the value columns to aggregate
+     * @param columns   the value columns
+     */
+    public void setColumns(List<C> columns) {
+        this.columns = new ArrayList<>(columns);
+    }
+
+    /**
+     * Sets the value columns to aggregate
+     * @param columns   the value columns
+     */
+    @SafeVarargs
+    public final void setColumns(C... columns) {
+        this.columns = new ArrayList<>(columns.length);
+        for (C column : columns) this.columns.add(column);
+    }
+
+    /**
+     * Sets the aggregates to compute for each value column
+     * @param aggregates    the aggregates to compute
+     */
+    public void setAggregates(Aggregate... aggregates) {
+        this.aggregates = aggregates.length == 0 ? EnumSet.noneOf(Aggregate.class) : EnumSet.copyOf(Arrays.asList(aggregates));
+    }
+
+    /**
+     * Sets the dictionary encoding for a key column, so that its codes are used in place of hashing values
+     * @param key           the key column
+     * @param dictionary    the dictionary encoding, such as from MappedCsvReader.getDictionary()
+     */
+    public void setDictionary(C key, DictionaryArray<?> dictionary) {
+        this.dictionaries.put(key, dictionary);
+    }
+
+    /**
+     * Sets the maximum number of threads used to aggregate, where 1 aggregates on the calling thread
+     * @param threads   the maximum thread count
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+
+    /**
+     * Validates these options
+     */
+    void validate() {
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("At least one key column must be specified for grouping");
+        } else if (aggregates.isEmpty()) {
+            throw new IllegalStateException("At least one aggregate must be specified");
+        } else if (threads < 1) {
+            throw new IllegalStateException("The thread count must be > 0: " + threads);
+        } else if (columns != null && columns.stream().anyMatch(keys::contains)) {
+            throw new IllegalStateException("Key columns cannot also be aggregated: " + columns);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.zavtech.morpheus.perf.frame;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.perf.io.MappedCsvReader;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class GroupAggregatorPerf {
+
+    public static void main(String[] args) {
+
+        final String path = args.length > 0 ? args[0] : "/Users/witdxav/Dropbox/data/uk-house-prices/uk-house-prices-2006.csv";
+
+        final DataFrame<Integer,String> frame = MappedCsvReader.read(options -> {
+            options.setFile(path);
+            options.setHeader(false);
+            options.setIncludeColumnIndexes(1, 3, 11, 13);
+            options.setColumnType(1, Double.class);
+        });
+
+        DataFrame<String,String> timingStats = PerfStat.run(5, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("Morpheus(County, Town)", () -> frame.rows().groupBy("Column-13", "Column-11").stats(1).mean());
+
+            tasks.put("HashGrouping(County, Town)", () -> HashGrouping.of(frame, "Column-13", "Column-11").stats(1).mean());
+
+            tasks.put("Aggregator(County, Town)", () -> GroupAggregator.aggregate(frame, options -> {
+                options.setKeys("Column-13", "Column-11");
+                options.setColumns("Column-1");
+                options.setAggregates(Aggregate.MEAN);
+            }));
+
+            tasks.put("Morpheus(PostCode)", () -> frame.rows().groupBy("Column-3").stats(0).mean());
+
+            tasks.put("Aggregator(PostCode)", () -> GroupAggregator.aggregate(frame, options -> {
+                options.setKeys("Column-3");
+                options.setColumns("Column-1");
+                options.setAggregates(Aggregate.COUNT, Aggregate.MEAN, Aggregate.MIN, Aggregate.MAX);
+            }));
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("Mean House Price by Group, Morpheus Grouping vs Streaming Aggregation incl. GC");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+    }
+}
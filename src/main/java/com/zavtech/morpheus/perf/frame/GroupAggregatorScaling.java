@@ -0,0 +1,82 @@
+package com.zavtech.morpheus.perf.frame;
+
+import java.awt.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class GroupAggregatorScaling {
+
+    public static void main(String[] args) {
+
+        final int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000000;
+        final int[] threadCounts = {1, 2, 4, 8, 16, 32, 64};
+
+        final Random random = new Random(17);
+        final String[] types = {"D", "S", "T", "F", "O"};
+        final String[] counties = new String[120];
+        final String[] towns = new String[1200];
+        final String[] postCodes = new String[1500000];
+        for (int i=0; i<counties.length; ++i) counties[i] = "COUNTY-" + i;
+        for (int i=0; i<towns.length; ++i) towns[i] = "TOWN-" + i;
+        for (int i=0; i<postCodes.length; ++i) postCodes[i] = "PC" + i;
+
+        System.out.println("Creating house price shaped frame with " + rowCount + " rows...");
+        final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add("Price", Array.of(Double.class, rowCount).applyDoubles(v -> 50000d + random.nextInt(950000)));
+            columns.add("PropertyType", Array.of(String.class, rowCount).applyValues(v -> types[random.nextInt(types.length)]));
+            columns.add("County", Array.of(String.class, rowCount).applyValues(v -> counties[random.nextInt(counties.length)]));
+            columns.add("Town/City", Array.of(String.class, rowCount).applyValues(v -> towns[random.nextInt(towns.length)]));
+            columns.add("PostCode", Array.of(String.class, rowCount).applyValues(v -> postCodes[random.nextInt(postCodes.length)]));
+        });
+
+        final DataFrame<String,String> lowCardinality = PerfStat.run(3, TimeUnit.MILLISECONDS, false, tasks -> {
+            for (int threads : threadCounts) {
+                tasks.put(threads + " Threads", () -> GroupAggregator.aggregate(frame, options -> {
+                    options.setKeys("County", "Town/City", "PropertyType");
+                    options.setColumns("Price");
+                    options.setAggregates(Aggregate.COUNT, Aggregate.MEAN, Aggregate.MAX);
+                    options.setThreads(threads);
+                }));
+            }
+        });
+
+        final DataFrame<String,String> highCardinality = PerfStat.run(3, TimeUnit.MILLISECONDS, false, tasks -> {
+            for (int threads : threadCounts) {
+                tasks.put(threads + " Threads", () -> GroupAggregator.aggregate(frame, options -> {
+                    options.setKeys("PostCode");
+                    options.setColumns("Price");
+                    options.setAggregates(Aggregate.COUNT, Aggregate.MEAN, Aggregate.MAX);
+                    options.setThreads(threads);
+                }));
+            }
+        });
+
+        lowCardinality.out().print();
+        highCardinality.out().print();
+
+        Chart.create().withBarPlot(lowCardinality, false, chart -> {
+            chart.title().withText("Parallel Group Aggregation by County, Town & Type (" + rowCount + " rows, ~720K groups)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+
+        Chart.create().withBarPlot(highCardinality, false, chart -> {
+            chart.title().withText("Parallel Group Aggregation by PostCode (" + rowCount + " rows, ~1.5M groups)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.frame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.util.Tuple;
+
+/**
+ * The statistics of numeric columns per group, computed from a dense group id per row in one pass over each column.
+ *
+ * <p>Running count, sum, minimum, maximum, mean and sum of squared deviations are kept per group in primitive
+ * arrays and updated with Welford's method, so no group frame is created. All statistics are computed together
+ * on first access, and consistent with Morpheus statistics, NaN values are ignored.</p>
+ *
+ * @param <R>   the row key type of the source frame
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class GroupStats<R,C> {
+
+    private DataFrame<R,C> frame;
+    private List<C> colKeys;
+    private List<Tuple> groupKeys;
+    private int[] groupIds;
+    private double[][] counts;
+    private double[][] sums;
+    private double[][] mins;
+    private double[][] maxs;
+    private double[][] means;
+    private double[][] m2s;
+
+
+    /**
+     * Constructor
+     * @param frame     the source frame
+     * @param colKeys   the numeric columns to compute statistics for
+     * @param groupKeys the group keys, indexed by group id
+     * @param groupIds  the group id per row ordinal
+     */
+    GroupStats(DataFrame<R,C> frame, List<C> colKeys, List<Tuple> groupKeys, int[] groupIds) {
+        this.frame = frame;
+        this.colKeys = colKeys;
+        this.groupKeys = groupKeys;
+        this.groupIds = groupIds;
+    }
+
+
+    /**
+     * Returns the count of non-NaN values per group and column
+     * @return  the frame of counts, keyed by group key
+     */
+    public DataFrame<Tuple,C> count() {
+        return toFrame(compute().counts);
+    }
+
+
+    /**
+     * Returns the sum of values per group and column
+     * @return  the frame of sums, keyed by group key
+     */
+    public DataFrame<Tuple,C> sum() {
+        return toFrame(compute().sums);
+    }
+
+
+    /**
+     * Returns the minimum value per group and column
+     * @return  the frame of minimums, keyed by group key
+     */
+    public DataFrame<Tuple,C> min() {
+        return toFrame(compute().mins);
+    }
+
+
+    /**
+     * Returns the maximum value per group and column
+     * @return  the frame of maximums, keyed by group key
+     */
+    public DataFrame<Tuple,C> max() {
+        return toFrame(compute().maxs);
+    }
+
+
+    /**
+     * Returns the mean value per group and column
+     * @return  the frame of means, keyed by group key
+     */
+    public DataFrame<Tuple,C> mean() {
+        return toFrame(compute().means);
+    }
+
+
+    /**
+     * Returns the unbiased sample variance per group and column
+     * @return  the frame of variances, keyed by group key
+     */
+    public DataFrame<Tuple,C> variance() {
+        compute();
+        final double[][] result = new double[colKeys.size()][groupKeys.size()];
+        for (int c=0; c<result.length; ++c) {
+            for (int g=0; g<result[c].length; ++g) {
+                final double n = counts[c][g];
+                result[c][g] = n < 2d ? Double.NaN : m2s[c][g] / (n - 1d);
+            }
+        }
+        return toFrame(result);
+    }
+
+
+    /**
+     * Returns the unbiased sample standard deviation per group and column
+     * @return  the frame of standard deviations, keyed by group key
+     */
+    public DataFrame<Tuple,C> stdDev() {
+        return variance().applyDoubles(v -> Math.sqrt(v.getDouble()));
+    }
+
+
+    /**
+     * Computes the running statistics for all columns, if not already computed
+     * @return  this statistics object
+     */
+    private synchronized GroupStats<R,C> compute() {
+        if (counts == null) {
+            final int colCount = colKeys.size();
+            final int groupCount = groupKeys.size();
+            this.counts = new double[colCount][groupCount];
+            this.sums = new double[colCount][groupCount];
+            this.mins = new double[colCount][groupCount];
+            this.maxs = new double[colCount][groupCount];
+            this.means = new double[colCount][groupCount];
+            this.m2s = new double[colCount][groupCount];
+            for (int c=0; c<colCount; ++c) {
+                final int colOrdinal = frame.cols().ordinalOf(colKeys.get(c));
+                final double[] count = counts[c], sum = sums[c], min = mins[c], max = maxs[c], mean = means[c], m2 = m2s[c];
+                Arrays.fill(min, Double.NaN);
+                Arrays.fill(max, Double.NaN);
+                Arrays.fill(mean, Double.NaN);
+                for (int row=0; row<groupIds.length; ++row) {
+                    final double value = frame.data().getDouble(row, colOrdinal);
+                    if (!Double.isNaN(value)) {
+                        final int g = groupIds[row];
+                        final double n = ++count[g];
+                        if (n == 1d) {
+                            sum[g] = value;
+                            min[g] = value;
+                            max[g] = value;
+                            mean[g] = value;
+                        } else {
+                            final double delta = value - mean[g];
+                            sum[g] += value;
+                            min[g] = value < min[g] ? value : min[g];
+                            max[g] = value > max[g] ? value : max[g];
+                            mean[g] += delta / n;
+                            m2[g] += delta * (value - mean[g]);
+                        }
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+
+    /**
+     * Returns a frame of results keyed by group key, from values indexed by column then group id
+     * @param values    the values indexed by column then group id
+     * @return          the frame of results
+     */
+    private DataFrame<Tuple,C> toFrame(double[][] values) {
+        final DataFrame<Tuple,C> result = DataFrame.ofDoubles(groupKeys, colKeys);
+        for (int c=0; c<values.length; ++c) {
+            for (int g=0; g<values[c].length; ++g) {
+                result.data().setDouble(g, c, values[c][g]);
+            }
+        }
+        return result;
+    }
+}
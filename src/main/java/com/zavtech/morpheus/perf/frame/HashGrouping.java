@@ -0,0 +1,317 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.perf.array.DictionaryArray;
+import com.zavtech.morpheus.perf.index.LongOrdinalMap;
+import com.zavtech.morpheus.util.Tuple;
+
+/**
+ * A grouping of DataFrame rows by one or more key columns, which assigns every row a dense group id at each depth in
+ * a single pass over the frame.
+ *
+ * <p>Each key column is first reduced to an int code per row: int and boolean columns use the value itself,
+ * dictionary encoded columns use their dictionary code, long, double and temporal columns are hashed into a
+ * primitive ordinal map, and only other object columns go through a HashMap. The group id at a given depth is then
+ * the dense ordinal of the parent group id and the code of the next key column, packed into a single long. No
+ * Tuple is created per row, and no intermediate frame is created per depth: group keys are created once per group
+ * from its first row, and group frames are views over the source frame built from a counting sort of the ids.</p>
+ *
+ * <p>Depths follow the Morpheus convention, so depth 0 groups by the first key column, and depth N-1 by all N.</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class HashGrouping<R,C> {
+
+    private DataFrame<R,C> frame;
+    private List<C> keys;
+    private int[] keyOrdinals;
+    private int[] groupCounts;
+    private int[][] groupIds;
+    private int[][] firstRows;
+    private int[][] offsets;
+    private int[][] rowOrdinals;
+    private List<Map<Tuple,Integer>> keyMaps;
+
+
+    /**
+     * Constructor
+     * @param frame         the frame to group
+     * @param keys          the key columns, outermost first
+     * @param dictionaries  the dictionary encodings for key columns, which may be empty
+     */
+    private HashGrouping(DataFrame<R,C> frame, List<C> keys, Map<C,DictionaryArray<?>> dictionaries) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key column must be specified for grouping");
+        } else {
+            final int depth = keys.size();
+            final int rowCount = frame.rowCount();
+            this.frame = frame;
+            this.keys = new ArrayList<>(keys);
+            this.keyOrdinals = keys.stream().mapToInt(k -> frame.cols().ordinalOf(k)).toArray();
+            this.groupCounts = new int[depth];
+            this.groupIds = new int[depth][rowCount];
+            this.firstRows = new int[depth][16];
+            this.offsets = new int[depth][];
+            this.rowOrdinals = new int[depth][];
+            this.keyMaps = new ArrayList<>(Collections.nCopies(depth, null));
+            final IntUnaryOperator[] encoders = new IntUnaryOperator[depth];
+            final LongOrdinalMap[] maps = new LongOrdinalMap[depth];
+            for (int d=0; d<depth; ++d) {
+                encoders[d] = KeyCodes.encoder(frame, keyOrdinals[d], dictionaries.get(keys.get(d)));
+                maps[d] = new LongOrdinalMap(1024);
+            }
+            for (int row=0; row<rowCount; ++row) {
+                long parent = 0L;
+                for (int d=0; d<depth; ++d) {
+                    final int code = encoders[d].applyAsInt(row);
+                    final int next = groupCounts[d];
+                    final int existing = maps[d].putIfAbsent((parent << 32) | (code & 0xFFFFFFFFL), next);
+                    if (existing >= 0) {
+                        this.groupIds[d][row] = existing;
+                        parent = existing;
+                    } else {
+                        if (next == firstRows[d].length) {
+                            this.firstRows[d] = Arrays.copyOf(firstRows[d], next * 2);
+                        }
+                        this.firstRows[d][next] = row;
+                        this.groupIds[d][row] = next;
+                        this.groupCounts[d]++;
+                        parent = next;
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns a grouping of the frame rows by the key columns specified
+     * @param frame     the frame to group
+     * @param keys      the key columns, outermost first
+     * @return          the resulting grouping
+     */
+    @SafeVarargs
+    public static <R,C> HashGrouping<R,C> of(DataFrame<R,C> frame, C... keys) {
+        final List<C> keyList = new ArrayList<>(keys.length);
+        for (C key : keys) keyList.add(key);
+        return new HashGrouping<>(frame, keyList, Collections.emptyMap());
+    }
+
+
+    /**
+     * Returns a grouping of the frame rows by the key columns specified, using dictionary codes where available
+     * @param frame         the frame to group
+     * @param keys          the key columns, outermost first
+     * @param dictionaries  the dictionary encodings of key columns, such as from MappedCsvReader.getDictionary()
+     * @return              the resulting grouping
+     */
+    public static <R,C> HashGrouping<R,C> of(DataFrame<R,C> frame, List<C> keys, Map<C,DictionaryArray<?>> dictionaries) {
+        return new HashGrouping<>(frame, keys, dictionaries);
+    }
+
+
+    /**
+     * Returns the frame that was grouped
+     * @return  the source frame
+     */
+    public DataFrame<R,C> frame() {
+        return frame;
+    }
+
+
+    /**
+     * Returns the key columns for this grouping, outermost first
+     * @return  the key columns
+     */
+    public List<C> keys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+
+    /**
+     * Returns the number of grouping levels, which equals the number of key columns
+     * @return  the grouping depth
+     */
+    public int getDepth() {
+        return keys.size();
+    }
+
+
+    /**
+     * Returns the number of groups at the depth specified
+     * @param depth     the depth, from 0 to getDepth() - 1
+     * @return          the group count
+     */
+    public int getGroupCount(int depth) {
+        return groupCounts[depth];
+    }
+
+
+    /**
+     * Returns the dense group id of every row at the depth specified, which callers must not modify
+     * @param depth     the depth, from 0 to getDepth() - 1
+     * @return          the group id per row ordinal, numbered in order of first appearance
+     */
+    public int[] getGroupIds(int depth) {
+        return groupIds[depth];
+    }
+
+
+    /**
+     * Returns the group key for the group id at the depth specified
+     * @param depth     the depth, from 0 to getDepth() - 1
+     * @param groupId   the group id
+     * @return          the group key with depth + 1 items
+     */
+    public Tuple getGroupKey(int depth, int groupId) {
+        final int row = firstRows[depth][groupId];
+        final Object[] items = new Object[depth + 1];
+        for (int d=0; d<=depth; ++d) {
+            items[d] = frame.data().getValue(row, keyOrdinals[d]);
+        }
+        return Tuple.of(items);
+    }
+
+
+    /**
+     * Returns a stream of the group keys at the depth specified, in order of first appearance
+     * @param depth     the depth, from 0 to getDepth() - 1
+     * @return          the stream of group keys
+     */
+    public Stream<Tuple> getGroupKeys(int depth) {
+        return IntStream.range(0, groupCounts[depth]).mapToObj(id -> getGroupKey(depth, id));
+    }
+
+
+    /**
+     * Returns the group id for the group key specified
+     * @param groupKey  the group key, whose size determines the depth
+     * @return          the group id, or -1 if no such group exists
+     */
+    public synchronized int getGroupId(Tuple groupKey) {
+        final int depth = groupKey.size() - 1;
+        if (depth < 0 || depth >= keys.size()) {
+            return -1;
+        } else {
+            Map<Tuple,Integer> keyMap = keyMaps.get(depth);
+            if (keyMap == null) {
+                keyMap = new HashMap<>(groupCounts[depth] * 2);
+                for (int id=0; id<groupCounts[depth]; ++id) {
+                    keyMap.put(getGroupKey(depth, id), id);
+                }
+                this.keyMaps.set(depth, keyMap);
+            }
+            final Integer id = keyMap.get(groupKey);
+            return id != null ? id : -1;
+        }
+    }
+
+
+    /**
+     * Returns the row ordinals for the group id at the depth specified, in ascending order
+     * @param depth     the depth, from 0 to getDepth() - 1
+     * @param groupId   the group id
+     * @return          the row ordinals of the group
+     */
+    public int[] getRowOrdinals(int depth, int groupId) {
+        this.index(depth);
+        return Arrays.copyOfRange(rowOrdinals[depth], offsets[depth][groupId], offsets[depth][groupId + 1]);
+    }
+
+
+    /**
+     * Returns the frame of rows for the group key specified, which is a view over the source frame
+     * @param groupKey  the group key, whose size determines the depth
+     * @return          the frame for the group
+     * @throws DataFrameException   if no group exists for the key
+     */
+    public DataFrame<R,C> getGroup(Tuple groupKey) {
+        final int groupId = getGroupId(groupKey);
+        if (groupId < 0) {
+            throw new DataFrameException("No group exists for key: " + groupKey);
+        } else {
+            final int[] ordinals = getRowOrdinals(groupKey.size() - 1, groupId);
+            final List<R> rowKeys = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                rowKeys.add(frame.rows().key(ordinal));
+            }
+            return frame.rows().select(rowKeys);
+        }
+    }
+
+
+    /**
+     * Returns the statistics of the numeric non-key columns for each group at the depth specified
+     * @param depth     the depth, from 0 to getDepth() - 1
+     * @return          the group statistics, computed on first access
+     */
+    public GroupStats<R,C> stats(int depth) {
+        if (depth < 0 || depth >= keys.size()) {
+            throw new IllegalArgumentException("Grouping depth must be in range [0, " + keys.size() + "), not " + depth);
+        } else {
+            final List<C> colKeys = new ArrayList<>();
+            final List<Tuple> groupKeys = new ArrayList<>(groupCounts[depth]);
+            this.getGroupKeys(depth).forEach(groupKeys::add);
+            this.frame.cols().keys().forEach(key -> {
+                if (!keys.contains(key) && Number.class.isAssignableFrom(frame.cols().type(key))) {
+                    colKeys.add(key);
+                }
+            });
+            return new GroupStats<>(frame, colKeys, groupKeys, groupIds[depth]);
+        }
+    }
+
+
+    /**
+     * Builds the counting sort index of row ordinals by group id for the depth specified, if not already built
+     * @param depth     the depth, from 0 to getDepth() - 1
+     */
+    private synchronized void index(int depth) {
+        if (rowOrdinals[depth] == null) {
+            final int[] ids = groupIds[depth];
+            final int[] starts = new int[groupCounts[depth] + 1];
+            for (int id : ids) {
+                starts[id + 1]++;
+            }
+            for (int i=0; i<groupCounts[depth]; ++i) {
+                starts[i + 1] += starts[i];
+            }
+            final int[] cursor = Arrays.copyOf(starts, groupCounts[depth]);
+            final int[] ordinals = new int[ids.length];
+            for (int row=0; row<ids.length; ++row) {
+                ordinals[cursor[ids[row]]++] = row;
+            }
+            this.offsets[depth] = starts;
+            this.rowOrdinals[depth] = ordinals;
+        }
+    }
+}
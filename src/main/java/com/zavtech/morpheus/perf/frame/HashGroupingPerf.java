@@ -0,0 +1,63 @@
+package com.zavtech.morpheus.perf.frame;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.perf.array.DictionaryArray;
+import com.zavtech.morpheus.perf.io.MappedCsvOptions;
+import com.zavtech.morpheus.perf.io.MappedCsvReader;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class HashGroupingPerf {
+
+    public static void main(String[] args) {
+
+        final String path = args.length > 0 ? args[0] : "/Users/witdxav/Dropbox/data/uk-house-prices/uk-house-prices-2006.csv";
+
+        final MappedCsvOptions options = new MappedCsvOptions();
+        options.setFile(path);
+        options.setHeader(false);
+        options.setIncludeColumnIndexes(1, 4, 11, 13);
+        options.setColumnType(1, Double.class);
+
+        final MappedCsvReader reader = new MappedCsvReader(options);
+        final DataFrame<Integer,String> frame = reader.read();
+        final Map<String,DictionaryArray<?>> dictionaries = new HashMap<>();
+        reader.getDictionary("Column-4").ifPresent(d -> dictionaries.put("Column-4", d));
+        reader.getDictionary("Column-11").ifPresent(d -> dictionaries.put("Column-11", d));
+        reader.getDictionary("Column-13").ifPresent(d -> dictionaries.put("Column-13", d));
+
+        DataFrame<String,String> timingStats = PerfStat.run(5, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("Morpheus(1 Key)", () -> frame.rows().groupBy("Column-11"));
+
+            tasks.put("Hash(1 Key)", () -> HashGrouping.of(frame, "Column-11"));
+
+            tasks.put("Morpheus(3 Keys)", () -> frame.rows().groupBy("Column-13", "Column-11", "Column-4"));
+
+            tasks.put("Hash(3 Keys)", () -> HashGrouping.of(frame, "Column-13", "Column-11", "Column-4"));
+
+            tasks.put("Hash+Dictionary(3 Keys)", () -> HashGrouping.of(frame, Arrays.asList("Column-13", "Column-11", "Column-4"), dictionaries));
+
+            tasks.put("Morpheus(Mean)", () -> frame.rows().groupBy("Column-13", "Column-11").stats(1).mean());
+
+            tasks.put("Hash(Mean)", () -> HashGrouping.of(frame, "Column-13", "Column-11").stats(1).mean());
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("Grouping UK House Prices, Morpheus vs Single Pass Hash Grouping incl. GC");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+    }
+}
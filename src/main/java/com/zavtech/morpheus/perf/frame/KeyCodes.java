@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.frame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+import com.zavtech.morpheus.array.ArrayType;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameContent;
+import com.zavtech.morpheus.perf.array.DictionaryArray;
+import com.zavtech.morpheus.perf.index.LongOrdinalMap;
+
+/**
+ * Encoders that reduce the value of a grouping key column in each row to an int code, such that equal values map
+ * to equal codes. Encoders hold mutable state and are not thread safe, so each thread must create its own.
+ *
+ * <p>Hashers and matchers are stateless and thread safe, and compare key values across rows using the same notion
+ * of equality as the encoders, which allows groups found independently by different threads to be merged.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+final class KeyCodes {
+
+    /**
+     * A predicate that tests whether the key values in two rows are equal
+     */
+    interface RowMatcher {
+
+        /**
+         * Returns true if the key values in the two rows are equal
+         * @param row1  the first row ordinal
+         * @param row2  the second row ordinal
+         * @return      true if the key values match
+         */
+        boolean matches(int row1, int row2);
+    }
+
+
+    /**
+     * Constructor
+     */
+    private KeyCodes() {
+        super();
+    }
+
+
+    /**
+     * Returns a function that maps a row ordinal to an int code for the value in the key column
+     * @param frame         the frame that contains the key column
+     * @param colOrdinal    the ordinal of the key column
+     * @param dictionary    the dictionary encoding for the column, null if none
+     * @return              the encoder function
+     */
+    static <R,C> IntUnaryOperator encoder(DataFrame<R,C> frame, int colOrdinal, DictionaryArray<?> dictionary) {
+        final DataFrameContent<R,C> data = frame.data();
+        if (dictionary != null) {
+            if (dictionary.length() != frame.rowCount()) {
+                throw new IllegalArgumentException("Dictionary length does not match row count: " + dictionary.length());
+            } else {
+                return dictionary::getCode;
+            }
+        } else {
+            final C key = frame.cols().key(colOrdinal);
+            switch (ArrayType.of(frame.cols().type(key))) {
+                case BOOLEAN:           return row -> data.getBoolean(row, colOrdinal) ? 1 : 0;
+                case INTEGER:           return row -> data.getInt(row, colOrdinal);
+                case LONG:
+                case DATE:
+                case INSTANT:
+                case LOCAL_DATE:
+                case LOCAL_TIME:
+                case LOCAL_DATETIME:    return longEncoder(row -> data.getLong(row, colOrdinal));
+                case DOUBLE:            return longEncoder(row -> doubleBits(data.getDouble(row, colOrdinal)));
+                default:
+                    final Map<Object,Integer> codes = new HashMap<>();
+                    return row -> codes.computeIfAbsent(data.getValue(row, colOrdinal), v -> codes.size());
+            }
+        }
+    }
+
+
+    /**
+     * Returns a function that maps a row ordinal to a hash code for the value in the key column
+     * @param frame         the frame that contains the key column
+     * @param colOrdinal    the ordinal of the key column
+     * @param dictionary    the dictionary encoding for the column, null if none
+     * @return              the hash function
+     */
+    static <R,C> IntUnaryOperator hasher(DataFrame<R,C> frame, int colOrdinal, DictionaryArray<?> dictionary) {
+        final DataFrameContent<R,C> data = frame.data();
+        if (dictionary != null) {
+            return dictionary::getCode;
+        } else {
+            final C key = frame.cols().key(colOrdinal);
+            switch (ArrayType.of(frame.cols().type(key))) {
+                case BOOLEAN:           return row -> data.getBoolean(row, colOrdinal) ? 1231 : 1237;
+                case INTEGER:           return row -> data.getInt(row, colOrdinal);
+                case LONG:
+                case DATE:
+                case INSTANT:
+                case LOCAL_DATE:
+                case LOCAL_TIME:
+                case LOCAL_DATETIME:    return row -> Long.hashCode(data.getLong(row, colOrdinal));
+                case DOUBLE:            return row -> Long.hashCode(doubleBits(data.getDouble(row, colOrdinal)));
+                default:                return row -> Objects.hashCode(data.getValue(row, colOrdinal));
+            }
+        }
+    }
+
+
+    /**
+     * Returns a matcher that tests whether two rows have equal values in the key column
+     * @param frame         the frame that contains the key column
+     * @param colOrdinal    the ordinal of the key column
+     * @param dictionary    the dictionary encoding for the column, null if none
+     * @return              the row matcher
+     */
+    static <R,C> RowMatcher matcher(DataFrame<R,C> frame, int colOrdinal, DictionaryArray<?> dictionary) {
+        final DataFrameContent<R,C> data = frame.data();
+        if (dictionary != null) {
+            return (row1, row2) -> dictionary.getCode(row1) == dictionary.getCode(row2);
+        } else {
+            final C key = frame.cols().key(colOrdinal);
+            switch (ArrayType.of(frame.cols().type(key))) {
+                case BOOLEAN:           return (row1, row2) -> data.getBoolean(row1, colOrdinal) == data.getBoolean(row2, colOrdinal);
+                case INTEGER:           return (row1, row2) -> data.getInt(row1, colOrdinal) == data.getInt(row2, colOrdinal);
+                case LONG:
+                case DATE:
+                case INSTANT:
+                case LOCAL_DATE:
+                case LOCAL_TIME:
+                case LOCAL_DATETIME:    return (row1, row2) -> data.getLong(row1, colOrdinal) == data.getLong(row2, colOrdinal);
+                case DOUBLE:            return (row1, row2) -> doubleBits(data.getDouble(row1, colOrdinal)) == doubleBits(data.getDouble(row2, colOrdinal));
+                default:                return (row1, row2) -> Objects.equals(data.getValue(row1, colOrdinal), data.getValue(row2, colOrdinal));
+            }
+        }
+    }
+
+
+    /**
+     * Returns an encoder that assigns dense codes to the long values of a column
+     * @param values    the function to read the long value for a row
+     * @return          the encoder function
+     */
+    private static IntUnaryOperator longEncoder(IntToLongFunction values) {
+        final LongOrdinalMap codes = new LongOrdinalMap(1024);
+        return row -> {
+            final int next = codes.size();
+            final int existing = codes.putIfAbsent(values.applyAsLong(row), next);
+            return existing >= 0 ? existing : next;
+        };
+    }
+
+
+    /**
+     * Returns the bits of a double such that equal values, including zeros of either sign and all NaNs, match
+     * @param value     the double value
+     * @return          the canonical bits of value
+     */
+    static long doubleBits(double value) {
+        return value == 0d ? 0L : Double.doubleToLongBits(value);
+    }
+}
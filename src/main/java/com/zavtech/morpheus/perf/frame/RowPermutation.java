@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.array.ArrayType;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameContent;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.perf.array.RadixSort;
+
+/**
+ * A sort order for the rows of a DataFrame, held as a single permutation of row ordinals that is computed from the
+ * key columns alone.
+ *
+ * <p>Sorting a frame in place moves every value in every column each time two rows are swapped, so the cost grows
+ * with the number of columns as well as rows. Here the permutation is built by stable radix passes over the key
+ * columns, from the last key to the first, so that ties on an earlier key are left in the order of the later keys.
+ * Int, long, double and temporal keys are sorted on their values, booleans as 0 and 1, and any other Comparable
+ * key on the rank of its distinct values, with nulls first.</p>
+ *
+ * <p>The permutation can then be applied lazily, as a view of the source frame whose rows follow the sorted order,
+ * or eagerly, as a new frame that gathers each column once through the permutation. A gather reads one column at
+ * a time and writes it sequentially, so sorting a wide frame by one column costs about one column sort plus one
+ * gather per column.</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class RowPermutation<R,C> {
+
+    private DataFrame<R,C> frame;
+    private int[] ordinals;
+
+
+    /**
+     * Constructor
+     * @param frame         the frame to sort
+     * @param ascending     true for ascending order, false for descending
+     * @param keys          the key columns, most significant first
+     */
+    private RowPermutation(DataFrame<R,C> frame, boolean ascending, List<C> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key column must be specified for sorting");
+        } else {
+            int[] order = null;
+            for (int i=keys.size()-1; i>=0; --i) {
+                final C key = keys.get(i);
+                final int colOrdinal = frame.cols().ordinalOf(key);
+                final ArrayType type = ArrayType.of(frame.cols().type(key));
+                if (RadixSort.isSupported(type)) {
+                    order = RadixSort.argsort(frame, colOrdinal, ascending, order);
+                } else {
+                    order = RadixSort.argsort(ranks(frame, colOrdinal, type), ascending, order);
+                }
+            }
+            this.frame = frame;
+            this.ordinals = order;
+        }
+    }
+
+
+    /**
+     * Returns the permutation that sorts the frame rows by the key columns specified
+     * @param frame         the frame to sort
+     * @param ascending     true for ascending order, false for descending
+     * @param keys          the key columns, most significant first
+     * @return              the resulting permutation
+     */
+    @SafeVarargs
+    public static <R,C> RowPermutation<R,C> of(DataFrame<R,C> frame, boolean ascending, C... keys) {
+        final List<C> keyList = new ArrayList<>(keys.length);
+        for (C key : keys) keyList.add(key);
+        return new RowPermutation<>(frame, ascending, keyList);
+    }
+
+
+    /**
+     * Returns the permutation that sorts the frame rows by the key columns specified
+     * @param frame         the frame to sort
+     * @param ascending     true for ascending order, false for descending
+     * @param keys          the key columns, most significant first
+     * @return              the resulting permutation
+     */
+    public static <R,C> RowPermutation<R,C> of(DataFrame<R,C> frame, boolean ascending, List<C> keys) {
+        return new RowPermutation<>(frame, ascending, keys);
+    }
+
+
+    /**
+     * Returns the source row ordinals in sorted order, which should not be modified
+     * @return  the row ordinals in sorted order
+     */
+    public int[] ordinals() {
+        return ordinals;
+    }
+
+
+    /**
+     * Returns the source row keys in sorted order
+     * @return  the row keys in sorted order
+     */
+    public Array<R> rowKeys() {
+        return frame.rows().keyArray().copy(ordinals);
+    }
+
+
+    /**
+     * Returns a view of the source frame with rows in sorted order, without moving any values
+     * @return  the sorted view of the source frame
+     */
+    public DataFrame<R,C> view() {
+        return frame.rows().select(rowKeys());
+    }
+
+
+    /**
+     * Returns a new frame with rows in sorted order, gathering each column of the source once through the permutation
+     * @return  the sorted copy of the source frame
+     */
+    public DataFrame<R,C> apply() {
+        return DataFrame.of(rowKeys(), frame.cols().keyType(), columns -> {
+            for (int j=0; j<frame.colCount(); ++j) {
+                final C colKey = frame.cols().key(j);
+                columns.add(colKey, gather(frame.cols().type(colKey), j));
+            }
+        });
+    }
+
+
+    /**
+     * Returns the values of a source column gathered in sorted row order
+     * @param type          the column type
+     * @param colOrdinal    the column ordinal
+     * @return              the gathered values
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Array<T> gather(Class<T> type, int colOrdinal) {
+        final int length = ordinals.length;
+        final DataFrameContent<R,C> data = frame.data();
+        switch (ArrayType.of(type)) {
+            case BOOLEAN:
+                final boolean[] booleans = new boolean[length];
+                for (int i=0; i<length; ++i) booleans[i] = data.getBoolean(ordinals[i], colOrdinal);
+                return (Array<T>)Array.of(booleans);
+            case INTEGER:
+                final int[] ints = new int[length];
+                for (int i=0; i<length; ++i) ints[i] = data.getInt(ordinals[i], colOrdinal);
+                return (Array<T>)Array.of(ints);
+            case LONG:
+                final long[] longs = new long[length];
+                for (int i=0; i<length; ++i) longs[i] = data.getLong(ordinals[i], colOrdinal);
+                return (Array<T>)Array.of(longs);
+            case DOUBLE:
+                final double[] doubles = new double[length];
+                for (int i=0; i<length; ++i) doubles[i] = data.getDouble(ordinals[i], colOrdinal);
+                return (Array<T>)Array.of(doubles);
+            case DATE:
+            case INSTANT:
+            case LOCAL_DATE:
+            case LOCAL_TIME:
+            case LOCAL_DATETIME:
+                final Array<T> epochs = Array.of(type, length);
+                for (int i=0; i<length; ++i) epochs.setLong(i, data.getLong(ordinals[i], colOrdinal));
+                return epochs;
+            default:
+                final Array<T> values = Array.of(type, length);
+                for (int i=0; i<length; ++i) values.setValue(i, data.getValue(ordinals[i], colOrdinal));
+                return values;
+        }
+    }
+
+
+    /**
+     * Returns the rank of each row value in a column that cannot be radix sorted on its values
+     * <p>Distinct values are collected by equals(), but ranked by compareTo(), so values such as BigDecimal 1.0
+     * and 1.00 that are unequal yet compare as equal share a rank and keep their prior order, as in a stable
+     * comparison sort.</p>
+     * @param frame         the frame to sort
+     * @param colOrdinal    the column ordinal
+     * @param type          the column type
+     * @return              the rank of the value in each row, where values that compare as equal share a rank
+     */
+    @SuppressWarnings("unchecked")
+    private static <R,C> int[] ranks(DataFrame<R,C> frame, int colOrdinal, ArrayType type) {
+        final int rowCount = frame.rowCount();
+        final int[] ranks = new int[rowCount];
+        final DataFrameContent<R,C> data = frame.data();
+        if (type == ArrayType.BOOLEAN) {
+            for (int i=0; i<rowCount; ++i) ranks[i] = data.getBoolean(i, colOrdinal) ? 1 : 0;
+            return ranks;
+        } else {
+            final C colKey = frame.cols().key(colOrdinal);
+            if (!Comparable.class.isAssignableFrom(frame.cols().type(colKey))) {
+                throw new DataFrameException("Cannot sort by column " + colKey + " as its values are not Comparable");
+            } else {
+                final List<Object> distinct = new ArrayList<>();
+                final Map<Object,Integer> codes = new HashMap<>();
+                for (int i=0; i<rowCount; ++i) {
+                    final Object value = data.getValue(i, colOrdinal);
+                    final Integer code = codes.get(value);
+                    if (code != null) {
+                        ranks[i] = code;
+                    } else {
+                        ranks[i] = distinct.size();
+                        codes.put(value, distinct.size());
+                        distinct.add(value);
+                    }
+                }
+                final Comparator<Object> comparator = Comparator.nullsFirst((v1, v2) -> ((Comparable<Object>)v1).compareTo(v2));
+                final Integer[] sorted = new Integer[distinct.size()];
+                for (int i=0; i<sorted.length; ++i) sorted[i] = i;
+                Arrays.sort(sorted, (i1, i2) -> comparator.compare(distinct.get(i1), distinct.get(i2)));
+                final int[] rankOfCode = new int[sorted.length];
+                for (int i=0, rank=0; i<sorted.length; ++i) {
+                    if (i > 0 && comparator.compare(distinct.get(sorted[i-1]), distinct.get(sorted[i])) != 0) ++rank;
+                    rankOfCode[sorted[i]] = rank;
+                }
+                for (int i=0; i<rowCount; ++i) ranks[i] = rankOfCode[ranks[i]];
+                return ranks;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.zavtech.morpheus.perf.frame;
+
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class RowPermutationPerf {
+
+    public static void main(String[] args) {
+
+        final int rowCount = 2000000;
+        final Array<Integer> rowKeys = Range.of(0, rowCount).toArray().shuffle(2);
+        final List<String> colKeys = IntStream.range(0, 50).mapToObj(i -> "C" + i).collect(Collectors.toList());
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(rowKeys, colKeys).applyDoubles(v -> Math.random());
+
+        DataFrame<String,String> timingStats = PerfStat.run(5, TimeUnit.MILLISECONDS, false, tasks -> {
+
+            tasks.beforeEach(() -> frame.rows().sort(null));
+
+            tasks.put("Sort(Morpheus)", () -> frame.rows().sort(true, "C0"));
+            tasks.put("Permutation", () -> RowPermutation.of(frame, true, "C0").ordinals());
+            tasks.put("Permutation(View)", () -> RowPermutation.of(frame, true, "C0").view());
+            tasks.put("Permutation(Gather)", () -> RowPermutation.of(frame, true, "C0").apply());
+            tasks.put("Permutation(2 Keys)", () -> RowPermutation.of(frame, true, "C0", "C1").apply());
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("Sorting a 2 Million x 50 DataFrame by Column, Morpheus vs Row Permutation");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+    }
+}
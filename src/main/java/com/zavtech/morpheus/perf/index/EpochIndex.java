@@ -0,0 +1,294 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.index;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.index.Index;
+import com.zavtech.morpheus.perf.array.LongCodec;
+
+/**
+ * An index of temporal keys that stores each key as an epoch encoded long, and resolves keys to ordinals without boxing.
+ *
+ * <p>While keys are added in strictly ascending order, which is typical of time series, lookups use a binary search
+ * over the long[] and no hash table exists at all. As soon as a key is added out of order, a primitive long to int
+ * open addressing map is built once and used from then on.</p>
+ *
+ * <p>Since keys are identified by their epoch encoding alone, ZonedDateTime keys must all be in the same zone, which
+ * is the zone of the first key when created from a collection of keys, or else the zone the codec decodes into.
+ * Keys in any other zone are rejected, so that every key decodes equal to the key that was added.</p>
+ *
+ * @param <K>   the key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class EpochIndex<K> {
+
+    private int size;
+    private long[] keys;
+    private boolean ascending;
+    private LongCodec<K> codec;
+    private LongOrdinalMap indexMap;
+    private ZoneId zoneId;
+
+
+    /**
+     * Constructor
+     * @param codec     the codec for keys
+     * @param capacity  the initial capacity
+     */
+    public EpochIndex(LongCodec<K> codec, int capacity) {
+        this.codec = codec;
+        this.ascending = true;
+        this.keys = new long[Math.max(capacity, 10)];
+        if (codec.type() == ZonedDateTime.class) {
+            this.zoneId = ((ZonedDateTime)codec.decode(0L)).getZone();
+        }
+    }
+
+
+    /**
+     * Returns a new index containing the keys specified
+     * @param type  the key type
+     * @param keys  the keys for index
+     * @return      the newly created index
+     */
+    public static <K> EpochIndex<K> of(Class<K> type, Iterable<K> keys) {
+        final EpochIndex<K> index = new EpochIndex<>(codec(type, keys), 1000);
+        keys.forEach(index::add);
+        return index;
+    }
+
+
+    /**
+     * Returns a new index containing the keys in the array
+     * @param keys  the array of keys
+     * @return      the newly created index
+     */
+    public static <K> EpochIndex<K> of(Array<K> keys) {
+        final EpochIndex<K> index = new EpochIndex<>(codec(keys.type(), keys), keys.length());
+        keys.forEach(index::add);
+        return index;
+    }
+
+
+    /**
+     * Returns the codec for the key type, which for ZonedDateTime decodes into the zone of the first key
+     * @param type  the key type
+     * @param keys  the keys for index
+     * @return      the codec for keys
+     */
+    @SuppressWarnings("unchecked")
+    private static <K> LongCodec<K> codec(Class<K> type, Iterable<K> keys) {
+        if (type == ZonedDateTime.class) {
+            for (K key : keys) {
+                if (key != null) {
+                    return (LongCodec<K>)LongCodec.ofZonedDateTime(((ZonedDateTime)key).getZone());
+                }
+            }
+        }
+        return LongCodec.of(type);
+    }
+
+
+    /**
+     * Returns the key type for this index
+     * @return  the key type
+     */
+    public Class<K> type() {
+        return codec.type();
+    }
+
+
+    /**
+     * Returns the number of keys in this index
+     * @return  the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns true if the keys are in strictly ascending order, in which case no hash table is used
+     * @return  true if keys are strictly ascending
+     */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+
+    /**
+     * Returns the key at the ordinal specified, which is created on each call
+     * @param ordinal   the ordinal for key
+     * @return          the key at ordinal
+     */
+    public K getKey(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("Ordinal out of bounds: " + ordinal);
+        } else {
+            return codec.decode(keys[ordinal]);
+        }
+    }
+
+
+    /**
+     * Returns the ordinal for the key specified
+     * @param key   the key to lookup
+     * @return      the ordinal for key, -1 if no match or if the key cannot be encoded as an epoch value
+     */
+    public int getIndexForKey(K key) {
+        if (key == null || !inZone(key)) {
+            return -1;
+        } else {
+            try {
+                return getIndexForLong(codec.encode(key));
+            } catch (DateTimeException | ArithmeticException ex) {
+                return -1;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the ordinal for the epoch encoded key specified
+     * @param key   the encoded key to lookup
+     * @return      the ordinal for key, -1 if no match
+     */
+    public int getIndexForLong(long key) {
+        if (ascending) {
+            final int ordinal = Arrays.binarySearch(keys, 0, size, key);
+            return ordinal < 0 ? -1 : ordinal;
+        } else {
+            return indexMap.get(key);
+        }
+    }
+
+
+    /**
+     * Returns true if this index contains the key specified
+     * @param key   the key to check
+     * @return      true if key exists
+     */
+    public boolean contains(K key) {
+        return getIndexForKey(key) >= 0;
+    }
+
+
+    /**
+     * Adds a key to this index if it does not already exist
+     * @param key   the key to add
+     * @return      true if the key was added
+     */
+    public boolean add(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("EpochIndex does not support null keys");
+        } else if (!inZone(key)) {
+            throw new IllegalArgumentException("ZonedDateTime keys must all be in the index zone " + zoneId + ", not: " + key);
+        } else {
+            return addLong(codec.encode(key));
+        }
+    }
+
+
+    /**
+     * Returns true if the key is not zoned, or is in the zone of this index
+     * @param key   the key to check
+     * @return      true if the key can be encoded without losing its zone
+     */
+    private boolean inZone(K key) {
+        return zoneId == null || zoneId.equals(((ZonedDateTime)key).getZone());
+    }
+
+
+    /**
+     * Adds an epoch encoded key to this index if it does not already exist
+     * @param value the encoded key to add
+     * @return      true if the key was added
+     */
+    boolean addLong(long value) {
+        if (ascending && (size == 0 || value > keys[size - 1])) {
+            this.append(value);
+            return true;
+        } else if (getIndexForLong(value) >= 0) {
+            return false;
+        } else {
+            if (ascending) {
+                this.ascending = false;
+                this.indexMap = new LongOrdinalMap(Math.max(size * 2, 1000));
+                for (int i=0; i<size; ++i) {
+                    this.indexMap.put(keys[i], i);
+                }
+            }
+            this.indexMap.put(value, size);
+            this.append(value);
+            return true;
+        }
+    }
+
+
+    /**
+     * Sorts the keys of this index, after which lookups revert to binary search if ascending
+     * @param ascending true for ascending order, false for descending
+     * @return          this index
+     */
+    public EpochIndex<K> sort(boolean ascending) {
+        Arrays.sort(keys, 0, size);
+        if (ascending) {
+            this.ascending = true;
+            this.indexMap = null;
+        } else {
+            for (int i=0, j=size-1; i<j; ++i, --j) {
+                final long key = keys[i]; keys[i] = keys[j]; keys[j] = key;
+            }
+            this.ascending = false;
+            this.indexMap = new LongOrdinalMap(Math.max(size * 2, 1000));
+            for (int i=0; i<size; ++i) {
+                this.indexMap.put(keys[i], i);
+            }
+        }
+        return this;
+    }
+
+
+    /**
+     * Returns a Morpheus index containing the decoded keys of this index
+     * @return  the Morpheus index
+     */
+    public Index<K> toIndex() {
+        final Array<K> array = Array.of(codec.type(), size);
+        for (int i=0; i<size; ++i) {
+            array.setValue(i, codec.decode(keys[i]));
+        }
+        return Index.of(array);
+    }
+
+
+    /**
+     * Appends an encoded key to the end of the key array, growing if necessary
+     * @param value the encoded key
+     */
+    private void append(long value) {
+        if (size == keys.length) {
+            this.keys = Arrays.copyOf(keys, keys.length + (keys.length >> 1));
+        }
+        this.keys[size++] = value;
+    }
+}
@@ -0,0 +1,65 @@
+package com.zavtech.morpheus.perf.index;
+
+import java.awt.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.index.Index;
+import com.zavtech.morpheus.perf.array.EpochArray;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class EpochIndexPerf {
+
+    public static void main(String[] args) {
+
+        final int size = 5000000;
+        final Duration step = Duration.ofSeconds(1);
+        final LocalDateTime start = LocalDateTime.now().minusYears(1);
+        final Range<LocalDateTime> range = Range.of(start, start.plusSeconds(size), step);
+        final Array<LocalDateTime> keys = range.toArray();
+        final Index<LocalDateTime> index = Index.of(keys);
+        final EpochIndex<LocalDateTime> epochIndex = EpochIndex.of(keys);
+        final EpochArray<LocalDateTime> epochArray = EpochArray.copyOf(keys);
+
+        DataFrame<String,String> times = PerfStat.run(10, TimeUnit.MILLISECONDS, false, tasks -> {
+
+            tasks.put("Index(create)", () -> Index.of(keys));
+            tasks.put("EpochIndex(create)", () -> EpochIndex.of(keys));
+
+            tasks.put("Index(lookup)", () -> {
+                int count = 0;
+                for (int i=0; i<keys.length(); ++i) {
+                    count += index.getIndexForKey(keys.getValue(i)) >= 0 ? 1 : 0;
+                }
+                return count;
+            });
+
+            tasks.put("EpochIndex(lookup)", () -> {
+                int count = 0;
+                for (int i=0; i<keys.length(); ++i) {
+                    count += epochIndex.getIndexForKey(keys.getValue(i)) >= 0 ? 1 : 0;
+                }
+                return count;
+            });
+
+            tasks.put("Array(sort)", () -> keys.copy().sort(false));
+            tasks.put("EpochArray(sort)", () -> EpochArray.copyOf(keys).sort(false));
+            tasks.put("EpochArray(decode)", epochArray::toArray);
+        });
+
+        Chart.create().withBarPlot(times, false, chart -> {
+            chart.title().withText("Median Times for LocalDateTime keys, 5 million entries");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.index;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from int keys to int ordinals, designed as the backing store of an index.
+ *
+ * <p>Each slot packs the key and ordinal into a single long, so a probe touches exactly one array and a cache
+ * line holds 8 consecutive slots. Collisions are resolved by linear probing in a power of two table, and an
+ * empty slot is identified by an ordinal of -1, so every int value is a legal key. Ordinals must be non-negative.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class IntOrdinalMap {
+
+    private static final long EMPTY = -1L;
+
+    private int size;
+    private int mask;
+    private long[] slots;
+    private float loadFactor;
+    private int threshold;
+
+
+    /**
+     * Constructor
+     * @param expectedSize  the expected number of keys
+     */
+    public IntOrdinalMap(int expectedSize) {
+        this(expectedSize, 0.75f);
+    }
+
+
+    /**
+     * Constructor
+     * @param expectedSize  the expected number of keys
+     * @param loadFactor    the load factor, between 0 and 1 exclusive
+     */
+    public IntOrdinalMap(int expectedSize, float loadFactor) {
+        if (loadFactor <= 0f || loadFactor >= 1f) {
+            throw new IllegalArgumentException("Load factor must be between 0 and 1: " + loadFactor);
+        } else {
+            this.loadFactor = loadFactor;
+            this.allocate(capacity(expectedSize, loadFactor));
+        }
+    }
+
+
+    /**
+     * Returns the number of keys in this map
+     * @return  the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of slots in the hash table
+     * @return  the number of slots
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+
+    /**
+     * Returns the ordinal for the key specified
+     * @param key   the key to lookup
+     * @return      the ordinal for key, -1 if no match
+     */
+    public int get(int key) {
+        int slot = hash(key) & mask;
+        while (true) {
+            final long entry = slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            } else if ((int)(entry >>> 32) == key) {
+                return (int)entry;
+            } else {
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+
+    /**
+     * Returns true if this map contains the key specified
+     * @param key   the key to check
+     * @return      true if key exists
+     */
+    public boolean containsKey(int key) {
+        return get(key) >= 0;
+    }
+
+
+    /**
+     * Maps the key to the ordinal specified, replacing any existing mapping
+     * @param key       the key
+     * @param ordinal   the ordinal for key, which must be non-negative
+     * @return          the previous ordinal for key, -1 if none
+     */
+    public int put(int key, int ordinal) {
+        return put(key, ordinal, true);
+    }
+
+
+    /**
+     * Maps the key to the ordinal specified only if the key is not already present
+     * @param key       the key
+     * @param ordinal   the ordinal for key, which must be non-negative
+     * @return          the existing ordinal for key, -1 if the key was added
+     */
+    public int putIfAbsent(int key, int ordinal) {
+        return put(key, ordinal, false);
+    }
+
+
+    /**
+     * Removes all keys from this map
+     */
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        this.size = 0;
+    }
+
+
+    /**
+     * Maps the key to the ordinal, optionally replacing an existing mapping
+     * @param key       the key
+     * @param ordinal   the ordinal for key
+     * @param replace   true to replace an existing mapping
+     * @return          the previous ordinal for key, -1 if none
+     */
+    private int put(int key, int ordinal, boolean replace) {
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Ordinal must be non-negative: " + ordinal);
+        } else {
+            final long entry = ((long)key << 32) | (ordinal & 0xFFFFFFFFL);
+            int slot = hash(key) & mask;
+            while (true) {
+                final long existing = slots[slot];
+                if (existing == EMPTY) {
+                    this.slots[slot] = entry;
+                    if (++size > threshold) {
+                        this.rehash(slots.length << 1);
+                    }
+                    return -1;
+                } else if ((int)(existing >>> 32) == key) {
+                    if (replace) {
+                        this.slots[slot] = entry;
+                    }
+                    return (int)existing;
+                } else {
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Rebuilds the hash table with the capacity specified
+     * @param capacity  the new capacity, which must be a power of two
+     */
+    private void rehash(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalStateException("Hash table cannot grow beyond " + slots.length + " slots");
+        }
+        final long[] previous = slots;
+        this.allocate(capacity);
+        for (long entry : previous) {
+            if (entry != EMPTY) {
+                int slot = hash((int)(entry >>> 32)) & mask;
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                this.slots[slot] = entry;
+            }
+        }
+    }
+
+
+    /**
+     * Allocates an empty hash table with the capacity specified
+     * @param capacity  the capacity, which must be a power of two
+     */
+    private void allocate(int capacity) {
+        this.slots = new long[capacity];
+        this.mask = capacity - 1;
+        this.threshold = (int)Math.min(capacity - 1, (long)(capacity * (double)loadFactor));
+        Arrays.fill(slots, EMPTY);
+    }
+
+
+    /**
+     * Returns the power of two table capacity to hold the number of keys at the load factor
+     * @param expectedSize  the expected number of keys
+     * @param loadFactor    the load factor
+     * @return              the table capacity
+     */
+    static int capacity(int expectedSize, float loadFactor) {
+        final long required = Math.max(2L, (long)Math.ceil(Math.max(expectedSize, 1) / (double)loadFactor));
+        if (required > (1 << 30)) {
+            throw new IllegalArgumentException("Too many keys for map: " + expectedSize);
+        } else {
+            return Integer.highestOneBit((int)required - 1) << 1;
+        }
+    }
+
+
+    /**
+     * Returns a well mixed hash for the key, so that sequential keys are spread across the table
+     * @param key   the key to hash
+     * @return      the hash code
+     */
+    private static int hash(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.index;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from long keys to int ordinals, designed as the backing store of an index.
+ *
+ * <p>Keys and ordinals are held in parallel arrays of a power of two length, and collisions are resolved by
+ * linear probing. Unlike Trove there is no separate array of slot states: an empty slot holds the key
+ * Long.MIN_VALUE, and a mapping for that key itself is held outside the table. That saves a byte per slot and
+ * one memory access per probe. Ordinals must be non-negative.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class LongOrdinalMap {
+
+    private static final long FREE = Long.MIN_VALUE;
+
+    private int size;
+    private int mask;
+    private long[] keys;
+    private int[] ordinals;
+    private float loadFactor;
+    private int threshold;
+    private int freeKeyOrdinal = -1;
+
+
+    /**
+     * Constructor
+     * @param expectedSize  the expected number of keys
+     */
+    public LongOrdinalMap(int expectedSize) {
+        this(expectedSize, 0.75f);
+    }
+
+
+    /**
+     * Constructor
+     * @param expectedSize  the expected number of keys
+     * @param loadFactor    the load factor, between 0 and 1 exclusive
+     */
+    public LongOrdinalMap(int expectedSize, float loadFactor) {
+        if (loadFactor <= 0f || loadFactor >= 1f) {
+            throw new IllegalArgumentException("Load factor must be between 0 and 1: " + loadFactor);
+        } else {
+            this.loadFactor = loadFactor;
+            this.allocate(IntOrdinalMap.capacity(expectedSize, loadFactor));
+        }
+    }
+
+
+    /**
+     * Returns the number of keys in this map
+     * @return  the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of slots in the hash table
+     * @return  the number of slots
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+
+    /**
+     * Returns the ordinal for the key specified
+     * @param key   the key to lookup
+     * @return      the ordinal for key, -1 if no match
+     */
+    public int get(long key) {
+        if (key == FREE) {
+            return freeKeyOrdinal;
+        } else {
+            int slot = hash(key) & mask;
+            while (true) {
+                final long existing = keys[slot];
+                if (existing == key) {
+                    return ordinals[slot];
+                } else if (existing == FREE) {
+                    return -1;
+                } else {
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns true if this map contains the key specified
+     * @param key   the key to check
+     * @return      true if key exists
+     */
+    public boolean containsKey(long key) {
+        return get(key) >= 0;
+    }
+
+
+    /**
+     * Maps the key to the ordinal specified, replacing any existing mapping
+     * @param key       the key
+     * @param ordinal   the ordinal for key, which must be non-negative
+     * @return          the previous ordinal for key, -1 if none
+     */
+    public int put(long key, int ordinal) {
+        return put(key, ordinal, true);
+    }
+
+
+    /**
+     * Maps the key to the ordinal specified only if the key is not already present
+     * @param key       the key
+     * @param ordinal   the ordinal for key, which must be non-negative
+     * @return          the existing ordinal for key, -1 if the key was added
+     */
+    public int putIfAbsent(long key, int ordinal) {
+        return put(key, ordinal, false);
+    }
+
+
+    /**
+     * Removes all keys from this map
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        this.freeKeyOrdinal = -1;
+        this.size = 0;
+    }
+
+
+    /**
+     * Maps the key to the ordinal, optionally replacing an existing mapping
+     * @param key       the key
+     * @param ordinal   the ordinal for key
+     * @param replace   true to replace an existing mapping
+     * @return          the previous ordinal for key, -1 if none
+     */
+    private int put(long key, int ordinal, boolean replace) {
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Ordinal must be non-negative: " + ordinal);
+        } else if (key == FREE) {
+            final int previous = freeKeyOrdinal;
+            if (previous < 0) {
+                this.freeKeyOrdinal = ordinal;
+                this.size++;
+            } else if (replace) {
+                this.freeKeyOrdinal = ordinal;
+            }
+            return previous;
+        } else {
+            int slot = hash(key) & mask;
+            while (true) {
+                final long existing = keys[slot];
+                if (existing == FREE) {
+                    this.keys[slot] = key;
+                    this.ordinals[slot] = ordinal;
+                    if (++size > threshold) {
+                        this.rehash(keys.length << 1);
+                    }
+                    return -1;
+                } else if (existing == key) {
+                    final int previous = ordinals[slot];
+                    if (replace) {
+                        this.ordinals[slot] = ordinal;
+                    }
+                    return previous;
+                } else {
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Rebuilds the hash table with the capacity specified
+     * @param capacity  the new capacity, which must be a power of two
+     */
+    private void rehash(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalStateException("Hash table cannot grow beyond " + keys.length + " slots");
+        }
+        final long[] previousKeys = keys;
+        final int[] previousOrdinals = ordinals;
+        this.allocate(capacity);
+        for (int i=0; i<previousKeys.length; ++i) {
+            final long key = previousKeys[i];
+            if (key != FREE) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = key;
+                this.ordinals[slot] = previousOrdinals[i];
+            }
+        }
+    }
+
+
+    /**
+     * Allocates an empty hash table with the capacity specified
+     * @param capacity  the capacity, which must be a power of two
+     */
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.ordinals = new int[capacity];
+        this.mask = capacity - 1;
+        this.threshold = (int)Math.min(capacity - 1, (long)(capacity * (double)loadFactor));
+        Arrays.fill(keys, FREE);
+    }
+
+
+    /**
+     * Returns a well mixed hash for the key, using the MurmurHash3 64-bit finalizer
+     * @param key   the key to hash
+     * @return      the hash code
+     */
+    private static int hash(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int)h;
+    }
+}
@@ -0,0 +1,34 @@
+package com.zavtech.morpheus.perf.index;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+import com.zavtech.morpheus.util.MemoryEstimator;
+
+public class OrdinalMapMem {
+
+    public static void main(String[] args) {
+        final MemoryEstimator estimator = new MemoryEstimator.DefaultMemoryEstimator();
+        for (int size : new int[] {1000000, 5000000, 10000000}) {
+            final TIntIntHashMap troveIntMap = new TIntIntHashMap(size, 0.75f, -1, -1);
+            final TLongIntHashMap troveLongMap = new TLongIntHashMap(size, 0.75f, -1L, -1);
+            final IntOrdinalMap intMap = new IntOrdinalMap(size);
+            final LongOrdinalMap longMap = new LongOrdinalMap(size);
+            for (int i=0; i<size; ++i) {
+                troveIntMap.put(i, i);
+                troveLongMap.put(i, i);
+                intMap.put(i, i);
+                longMap.put(i, i);
+            }
+            System.out.println("Size = " + size);
+            System.out.println("  TIntIntHashMap  = " + bytesPerKey(estimator.getObjectSize(troveIntMap), size) + " bytes/key");
+            System.out.println("  IntOrdinalMap   = " + bytesPerKey(estimator.getObjectSize(intMap), size) + " bytes/key");
+            System.out.println("  TLongIntHashMap = " + bytesPerKey(estimator.getObjectSize(troveLongMap), size) + " bytes/key");
+            System.out.println("  LongOrdinalMap  = " + bytesPerKey(estimator.getObjectSize(longMap), size) + " bytes/key");
+        }
+    }
+
+    private static String bytesPerKey(long bytes, int size) {
+        return String.format("%.2f", bytes / (double)size);
+    }
+}
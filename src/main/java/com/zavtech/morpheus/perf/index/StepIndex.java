@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.index;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.index.Index;
+import com.zavtech.morpheus.perf.array.LongCodec;
+
+/**
+ * An index over keys that advance by a fixed step, where the ordinal of a key is computed as (key - start) / step.
+ *
+ * <p>No per-key memory is used while the index is unmodified, so an index over 10 million intraday timestamps
+ * costs the same as one over 10 keys. The first call to add() materializes the keys into an EpochIndex,
+ * which is used for all operations from then on.</p>
+ *
+ * <p>The factory methods mirror the Range.of() signatures, so the end value is exclusive and a start greater
+ * than end yields descending keys.</p>
+ *
+ * @param <K>   the key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class StepIndex<K> {
+
+    private long start;
+    private long step;
+    private int size;
+    private LongCodec<K> codec;
+    private EpochIndex<K> delegate;
+
+
+    /**
+     * Constructor
+     * @param codec     the codec to map keys to longs
+     * @param start     the encoded start key, inclusive
+     * @param end       the encoded end key, exclusive
+     * @param step      the absolute step between encoded keys
+     */
+    private StepIndex(LongCodec<K> codec, long start, long end, long step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("The step must be greater than zero: " + step);
+        } else {
+            final long span = Math.abs(end - start);
+            final long count = span / step + (span % step == 0 ? 0 : 1);
+            if (count > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many keys for index: " + count);
+            } else {
+                this.codec = codec;
+                this.start = start;
+                this.step = end < start ? -step : step;
+                this.size = (int)count;
+            }
+        }
+    }
+
+
+    /**
+     * Returns an index of integer keys from start to end with a step of 1
+     * @param start the start key, inclusive
+     * @param end   the end key, exclusive
+     * @return      the newly created index
+     */
+    public static StepIndex<Integer> of(int start, int end) {
+        return of(start, end, 1);
+    }
+
+
+    /**
+     * Returns an index of integer keys from start to end
+     * @param start the start key, inclusive
+     * @param end   the end key, exclusive
+     * @param step  the absolute step between keys
+     * @return      the newly created index
+     */
+    public static StepIndex<Integer> of(int start, int end, int step) {
+        return new StepIndex<>(LongCodec.ofInteger(), start, end, step);
+    }
+
+
+    /**
+     * Returns an index of long keys from start to end with a step of 1
+     * @param start the start key, inclusive
+     * @param end   the end key, exclusive
+     * @return      the newly created index
+     */
+    public static StepIndex<Long> of(long start, long end) {
+        return of(start, end, 1L);
+    }
+
+
+    /**
+     * Returns an index of long keys from start to end
+     * @param start the start key, inclusive
+     * @param end   the end key, exclusive
+     * @param step  the absolute step between keys
+     * @return      the newly created index
+     */
+    public static StepIndex<Long> of(long start, long end, long step) {
+        return new StepIndex<>(LongCodec.ofLong(), start, end, step);
+    }
+
+
+    /**
+     * Returns an index of LocalDate keys from start to end
+     * @param start the start key, inclusive
+     * @param end   the end key, exclusive
+     * @param step  the step between keys, which must be expressed in days only
+     * @return      the newly created index
+     */
+    public static StepIndex<LocalDate> of(LocalDate start, LocalDate end, Period step) {
+        if (step.getYears() != 0 || step.getMonths() != 0) {
+            throw new IllegalArgumentException("Only day based steps have a fixed length: " + step);
+        } else {
+            final LongCodec<LocalDate> codec = LongCodec.ofLocalDate();
+            return new StepIndex<>(codec, codec.encode(start), codec.encode(end), Math.abs(step.getDays()));
+        }
+    }
+
+
+    /**
+     * Returns an index of LocalDateTime keys from start to end
+     * @param start the start key, inclusive
+     * @param end   the end key, exclusive
+     * @param step  the step between keys
+     * @return      the newly created index
+     */
+    public static StepIndex<LocalDateTime> of(LocalDateTime start, LocalDateTime end, Duration step) {
+        final LongCodec<LocalDateTime> codec = LongCodec.ofLocalDateTime();
+        return new StepIndex<>(codec, codec.encode(start), codec.encode(end), step.abs().toNanos());
+    }
+
+
+    /**
+     * Returns an index of Instant keys from start to end
+     * @param start the start key, inclusive
+     * @param end   the end key, exclusive
+     * @param step  the step between keys
+     * @return      the newly created index
+     */
+    public static StepIndex<Instant> of(Instant start, Instant end, Duration step) {
+        final LongCodec<Instant> codec = LongCodec.ofInstant();
+        return new StepIndex<>(codec, codec.encode(start), codec.encode(end), step.abs().toNanos());
+    }
+
+
+    /**
+     * Returns the key type for this index
+     * @return  the key type
+     */
+    public Class<K> type() {
+        return codec.type();
+    }
+
+
+    /**
+     * Returns the number of keys in this index
+     * @return  the number of keys
+     */
+    public int size() {
+        return delegate != null ? delegate.size() : size;
+    }
+
+
+    /**
+     * Returns true if this index is still computed from start and step, and has not been materialized
+     * @return  true if this index is still arithmetic
+     */
+    public boolean isArithmetic() {
+        return delegate == null;
+    }
+
+
+    /**
+     * Returns the key at the ordinal specified
+     * @param ordinal   the ordinal for key
+     * @return          the key at ordinal
+     */
+    public K getKey(int ordinal) {
+        if (delegate != null) {
+            return delegate.getKey(ordinal);
+        } else if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("Ordinal out of bounds: " + ordinal);
+        } else {
+            return codec.decode(start + ordinal * step);
+        }
+    }
+
+
+    /**
+     * Returns the ordinal for the key specified
+     * @param key   the key to lookup
+     * @return      the ordinal for key, -1 if no match or if the key cannot be encoded as an epoch value
+     */
+    public int getIndexForKey(K key) {
+        if (key == null) {
+            return -1;
+        } else if (delegate != null) {
+            return delegate.getIndexForKey(key);
+        } else {
+            try {
+                final long offset = Math.subtractExact(codec.encode(key), start);
+                if (offset % step != 0) {
+                    return -1;
+                } else {
+                    final long ordinal = offset / step;
+                    return ordinal >= 0 && ordinal < size ? (int)ordinal : -1;
+                }
+            } catch (DateTimeException | ArithmeticException ex) {
+                return -1;
+            }
+        }
+    }
+
+
+    /**
+     * Returns true if this index contains the key specified
+     * @param key   the key to check
+     * @return      true if key exists
+     */
+    public boolean contains(K key) {
+        return getIndexForKey(key) >= 0;
+    }
+
+
+    /**
+     * Adds a key to this index, which materializes the keys on the first call
+     * @param key   the key to add
+     * @return      true if the key was added
+     */
+    public boolean add(K key) {
+        if (delegate == null) {
+            this.delegate = new EpochIndex<>(codec, size + 1);
+            for (int i=0; i<size; ++i) {
+                this.delegate.addLong(start + i * step);
+            }
+        }
+        return delegate.add(key);
+    }
+
+
+    /**
+     * Returns a Morpheus index containing the keys of this index
+     * @return  the Morpheus index
+     */
+    public Index<K> toIndex() {
+        if (delegate != null) {
+            return delegate.toIndex();
+        } else {
+            final Array<K> array = Array.of(codec.type(), size);
+            for (int i=0; i<size; ++i) {
+                array.setValue(i, codec.decode(start + i * step));
+            }
+            return Index.of(array);
+        }
+    }
+}
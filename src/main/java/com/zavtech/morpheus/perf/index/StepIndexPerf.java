@@ -0,0 +1,63 @@
+package com.zavtech.morpheus.perf.index;
+
+import java.awt.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.index.Index;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.MemoryEstimator;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class StepIndexPerf {
+
+    public static void main(String[] args) {
+
+        final int size = 10000000;
+        final Duration step = Duration.ofSeconds(1);
+        final LocalDateTime start = LocalDateTime.now().minusYears(1);
+        final LocalDateTime end = start.plusSeconds(size);
+        final Range<LocalDateTime> range = Range.of(start, end, step);
+        final Index<LocalDateTime> index = Index.of(range);
+        final StepIndex<LocalDateTime> stepIndex = StepIndex.of(start, end, step);
+
+        final MemoryEstimator estimator = new MemoryEstimator.DefaultMemoryEstimator();
+        System.out.println("Index Size = " + (estimator.getObjectSize(index) / (1024 * 1024)) + "MB");
+        System.out.println("StepIndex Size = " + estimator.getObjectSize(stepIndex) + " bytes");
+
+        DataFrame<String,String> times = PerfStat.run(10, TimeUnit.MILLISECONDS, false, tasks -> {
+
+            tasks.put("Index(create)", () -> Index.of(range));
+            tasks.put("StepIndex(create)", () -> StepIndex.of(start, end, step));
+
+            tasks.put("Index(lookup)", () -> {
+                int count = 0;
+                for (int i=0; i<size; i+=10) {
+                    count += index.getIndexForKey(start.plusSeconds(i)) >= 0 ? 1 : 0;
+                }
+                return count;
+            });
+
+            tasks.put("StepIndex(lookup)", () -> {
+                int count = 0;
+                for (int i=0; i<size; i+=10) {
+                    count += stepIndex.getIndexForKey(start.plusSeconds(i)) >= 0 ? 1 : 0;
+                }
+                return count;
+            });
+        });
+
+        Chart.create().withBarPlot(times, false, chart -> {
+            chart.title().withText("Median Index Times for LocalDateTime keys, 10 million entries");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+    }
+}
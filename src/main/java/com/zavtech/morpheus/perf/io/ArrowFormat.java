@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+/**
+ * The Arrow IPC formats supported by ArrowSink and ArrowSource
+ *
+ * @author  Xavier Witdouck
+ */
+public enum ArrowFormat {
+
+    /**
+     * The random access file format, with a footer that indexes the record batches
+     */
+    FILE,
+
+    /**
+     * The streaming format, which can be written to and read from a pipe or socket
+     */
+    STREAM
+}
@@ -0,0 +1,73 @@
+package com.zavtech.morpheus.perf.io;
+
+import java.awt.*;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.docs.DemoData;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class ArrowPerf {
+
+    public static void main(String[] args) {
+
+        final File dir = new File(System.getProperty("java.io.tmpdir"), "morpheus-arrow");
+        final File csvFile = new File(dir, "atp-2013.csv");
+        final File arrowFile = new File(dir, "atp-2013.arrow");
+        final File plainFile = new File(dir, "atp-2013-plain.arrow");
+        final DataFrame<Integer,String> frame = DemoData.loadTennisMatchData(2013);
+        dir.mkdirs();
+
+        DataFrame<String,String> timingStats = PerfStat.run(10, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("CSV", () -> {
+                frame.write().csv(options -> options.setFile(csvFile.getAbsolutePath()));
+                return DataFrame.read().csv(csvFile.getAbsolutePath());
+            });
+
+            tasks.put("Arrow", () -> {
+                frame.write().to(new ArrowSink<>(), options -> options.setFile(arrowFile));
+                return new ArrowSource<Integer>().read(options -> {
+                    options.setFile(arrowFile);
+                    options.setRowKeyColumn("RowKey");
+                });
+            });
+
+            tasks.put("Arrow(no dictionary)", () -> {
+                frame.write().to(new ArrowSink<>(), options -> {
+                    options.setFile(plainFile);
+                    options.setDictionaryEncoded(false);
+                });
+                return new ArrowSource<Integer>().read(options -> {
+                    options.setFile(plainFile);
+                    options.setRowKeyColumn("RowKey");
+                });
+            });
+
+            tasks.put("Arrow(stream)", () -> {
+                frame.write().to(new ArrowSink<>(), options -> {
+                    options.setFile(arrowFile);
+                    options.setFormat(ArrowFormat.STREAM);
+                });
+                return new ArrowSource<Integer>().read(options -> {
+                    options.setFile(arrowFile);
+                    options.setFormat(ArrowFormat.STREAM);
+                    options.setRowKeyColumn("RowKey");
+                });
+            });
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("DataFrame Round Trip Times, CSV vs Arrow IPC (ATP 2013 Match Results)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+    }
+}
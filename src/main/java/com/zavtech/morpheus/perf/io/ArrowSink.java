@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSink;
+import com.zavtech.morpheus.util.Initialiser;
+
+/**
+ * A DataFrameSink that writes a DataFrame in the Apache Arrow IPC file or stream format
+ *
+ * <p>The frame is written in record batches of a configurable number of rows, with the row keys optionally
+ * written as the first column and each column named by the string form of its key. String columns are
+ * dictionary encoded by default, which suits low cardinality columns such as Surface or Round in the ATP
+ * tennis dataset, where each value is then written once per file rather than once per row.</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ArrowSink<R,C> implements DataFrameSink<R,C,ArrowSinkOptions<C>> {
+
+
+    @Override
+    public void write(DataFrame<R,C> frame, Consumer<ArrowSinkOptions<C>> configurator) {
+        final ArrowSinkOptions<C> options = Initialiser.apply(new ArrowSinkOptions<>(), configurator);
+        options.validate();
+        OutputStream os = null;
+        VectorSchemaRoot root = null;
+        ArrowWriter writer = null;
+        final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        final DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+        final List<Dictionary> dictionaries = new ArrayList<>();
+        DataFrameException error = null;
+        try {
+            final int rowCount = frame.rowCount();
+            final Array<R> rowKeys = frame.rows().keyArray();
+            final Array<C> colKeys = frame.cols().keyArray();
+            final List<Field> fields = new ArrayList<>();
+            final List<Class<?>> types = new ArrayList<>();
+            final List<ColumnValues> values = new ArrayList<>();
+            final List<Map<String,Integer>> codes = new ArrayList<>();
+            if (options.isIncludeRowKeys()) {
+                fields.add(new Field(options.getRowKeyName(), FieldType.nullable(ArrowVectors.arrowType(rowKeys.type())), null));
+                types.add(rowKeys.type());
+                values.add(ColumnValues.of(rowKeys));
+                codes.add(null);
+            }
+            for (int colOrdinal=0; colOrdinal<colKeys.length(); ++colOrdinal) {
+                final C colKey = colKeys.getValue(colOrdinal);
+                final Class<?> type = frame.cols().type(colKey);
+                final String name = String.valueOf(colKey);
+                final ColumnValues column = ColumnValues.of(frame.data(), colOrdinal);
+                if (type == String.class && options.isDictionaryEncoded(colKey)) {
+                    final Map<String,Integer> dictionaryCodes = codes(column, rowCount);
+                    final DictionaryEncoding encoding = new DictionaryEncoding(colOrdinal, false, new ArrowType.Int(32, true));
+                    final Dictionary dictionary = new Dictionary(dictionaryVector(name, dictionaryCodes, allocator), encoding);
+                    dictionaries.add(dictionary);
+                    provider.put(dictionary);
+                    fields.add(new Field(name, new FieldType(true, new ArrowType.Int(32, true), encoding), null));
+                    codes.add(dictionaryCodes);
+                } else {
+                    fields.add(new Field(name, FieldType.nullable(ArrowVectors.arrowType(type)), null));
+                    codes.add(null);
+                }
+                types.add(type);
+                values.add(column);
+            }
+            final List<FieldVector> vectors = new ArrayList<>(fields.size());
+            for (Field field : fields) {
+                vectors.add(field.createVector(allocator));
+            }
+            root = new VectorSchemaRoot(fields, vectors, 0);
+            os = options.getOutputStream() != null ? options.getOutputStream() : new FileOutputStream(options.getFile());
+            switch (options.getFormat()) {
+                case FILE:      writer = new ArrowFileWriter(root, provider, Channels.newChannel(os));  break;
+                case STREAM:    writer = new ArrowStreamWriter(root, provider, os);                    break;
+                default:    throw new IllegalArgumentException("Unsupported Arrow format: " + options.getFormat());
+            }
+            writer.start();
+            final int batchSize = options.getBatchSize();
+            for (int start=0; start<rowCount; start+=batchSize) {
+                final int count = Math.min(batchSize, rowCount - start);
+                for (int i=0; i<vectors.size(); ++i) {
+                    ArrowVectors.fill(vectors.get(i), types.get(i), values.get(i), start, count, codes.get(i));
+                }
+                root.setRowCount(count);
+                writer.writeBatch();
+            }
+            writer.end();
+        } catch (DataFrameException ex) {
+            error = ex;
+            throw error;
+        } catch (Exception ex) {
+            error = new DataFrameException("Failed to write DataFrame to Arrow output", ex);
+            throw error;
+        } finally {
+            final List<AutoCloseable> resources = new ArrayList<>();
+            resources.add(writer);
+            resources.add(root);
+            dictionaries.forEach(dictionary -> resources.add(dictionary.getVector()));
+            resources.add(os);
+            resources.add(allocator);
+            close(error, resources);
+        }
+    }
+
+
+    /**
+     * Returns the dictionary codes for the distinct non-null values of a String column, in order of first appearance
+     * @param values    the column values
+     * @param rowCount  the row count
+     * @return          the map of value to dictionary code
+     */
+    private Map<String,Integer> codes(ColumnValues values, int rowCount) {
+        final Map<String,Integer> codes = new LinkedHashMap<>();
+        for (int i=0; i<rowCount; ++i) {
+            final Object value = values.getValue(i);
+            if (value != null) {
+                codes.putIfAbsent(value.toString(), codes.size());
+            }
+        }
+        return codes;
+    }
+
+
+    /**
+     * Returns a newly created vector holding the dictionary values in code order
+     * @param name          the column name
+     * @param codes         the map of value to dictionary code
+     * @param allocator     the allocator for the vector
+     * @return              the dictionary vector
+     */
+    private FieldVector dictionaryVector(String name, Map<String,Integer> codes, BufferAllocator allocator) {
+        final VarCharVector vector = new VarCharVector(name + "-dictionary", allocator);
+        vector.setInitialCapacity(codes.size());
+        vector.allocateNew();
+        codes.forEach((value, code) -> vector.setSafe(code, value.getBytes(StandardCharsets.UTF_8)));
+        vector.setValueCount(codes.size());
+        return vector;
+    }
+
+
+    /**
+     * Closes Arrow resources in the order given, adding any failures as suppressed exceptions of the write error
+     * @param error     the error the write failed with, or null if the write succeeded
+     * @param resources the resources to close, which may contain nulls
+     * @throws DataFrameException   if the write succeeded but one or more resources failed to close
+     */
+    private static void close(DataFrameException error, List<AutoCloseable> resources) {
+        final DataFrameException target = error != null ? error : new DataFrameException("Failed to close Arrow output");
+        for (AutoCloseable resource : resources) {
+            try {
+                if (resource != null) {
+                    resource.close();
+                }
+            } catch (Exception ex) {
+                target.addSuppressed(ex);
+            }
+        }
+        if (error == null && target.getSuppressed().length > 0) {
+            throw target;
+        }
+    }
+}
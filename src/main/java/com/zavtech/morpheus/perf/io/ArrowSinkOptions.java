@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * The options to configure an ArrowSink
+ *
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ArrowSinkOptions<C> {
+
+    private File file;
+    private OutputStream outputStream;
+    private ArrowFormat format = ArrowFormat.FILE;
+    private int batchSize = 1 << 16;
+    private boolean includeRowKeys = true;
+    private String rowKeyName = "RowKey";
+    private Predicate<C> dictionaryEncoded = colKey -> true;
+
+
+    /**
+     * Constructor
+     */
+    public ArrowSinkOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the file to write, if not writing to a stream
+     * @return  the file to write
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the output stream to write, if not writing to a file
+     * @return  the output stream
+     */
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * Returns the Arrow IPC format to write
+     * @return  the Arrow format
+     */
+    public ArrowFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the maximum number of rows in each record batch
+     * @return  the record batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns true if the row keys are written as the first column
+     * @return  true to include row keys
+     */
+    public boolean isIncludeRowKeys() {
+        return includeRowKeys;
+    }
+
+    /**
+     * Returns the name of the column that holds the row keys
+     * @return  the row key column name
+     */
+    public String getRowKeyName() {
+        return rowKeyName;
+    }
+
+    /**
+     * Returns true if the String column with the key specified should be dictionary encoded
+     * @param colKey    the column key
+     * @return          true to dictionary encode column
+     */
+    public boolean isDictionaryEncoded(C colKey) {
+        return dictionaryEncoded.test(colKey);
+    }
+
+    /**
+     * Sets the file to write
+     * @param file  the file to write
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the path of the file to write
+     * @param path  the file path
+     */
+    public void setFile(String path) {
+        this.file = new File(path);
+    }
+
+    /**
+     * Sets the output stream to write, which is closed once the frame has been written
+     * @param outputStream  the output stream
+     */
+    public void setOutputStream(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Sets the Arrow IPC format to write
+     * @param format    the Arrow format
+     */
+    public void setFormat(ArrowFormat format) {
+        this.format = Objects.requireNonNull(format, "The Arrow format cannot be null");
+    }
+
+    /**
+     * Sets the maximum number of rows in each record batch
+     * @param batchSize the record batch size
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets whether the row keys are written as the first column
+     * @param includeRowKeys    true to include row keys
+     */
+    public void setIncludeRowKeys(boolean includeRowKeys) {
+        this.includeRowKeys = includeRowKeys;
+    }
+
+    /**
+     * Sets the name of the column that holds the row keys
+     * @param rowKeyName    the row key column name
+     */
+    public void setRowKeyName(String rowKeyName) {
+        this.rowKeyName = rowKeyName;
+    }
+
+    /**
+     * Sets whether all String columns should be dictionary encoded
+     * @param dictionaryEncoded true to dictionary encode all String columns
+     */
+    public void setDictionaryEncoded(boolean dictionaryEncoded) {
+        this.dictionaryEncoded = colKey -> dictionaryEncoded;
+    }
+
+    /**
+     * Sets the predicate that selects the String columns to dictionary encode
+     * @param dictionaryEncoded the predicate that selects columns to encode
+     */
+    public void setDictionaryEncoded(Predicate<C> dictionaryEncoded) {
+        this.dictionaryEncoded = Objects.requireNonNull(dictionaryEncoded, "The dictionary predicate cannot be null");
+    }
+
+    /**
+     * Validates that these options are complete and consistent
+     */
+    void validate() {
+        if (file == null && outputStream == null) {
+            throw new IllegalStateException("Either a file or output stream must be specified");
+        } else if (file != null && outputStream != null) {
+            throw new IllegalStateException("Only one of a file or output stream can be specified");
+        } else if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be > 0: " + batchSize);
+        } else if (includeRowKeys && rowKeyName == null) {
+            throw new IllegalStateException("A row key name must be specified when including row keys");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.FileInputStream;
+import java.io.RandomAccessFile;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSource;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.Initialiser;
+
+/**
+ * A DataFrameSource that reads a DataFrame from the Apache Arrow IPC file or stream format
+ *
+ * <p>Each record batch is appended to primitive buffers per column, with fixed width integer, long and double
+ * vectors copied in bulk from the Arrow data buffer rather than value by value. Dictionary encoded columns
+ * are decoded once per dictionary, so all rows with the same value share one String instance.</p>
+ *
+ * @param <R>   the row key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ArrowSource<R> extends DataFrameSource<R,String,ArrowSourceOptions<R>> {
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataFrame<R,String> read(Consumer<ArrowSourceOptions<R>> configurator) throws DataFrameException {
+        final ArrowSourceOptions<R> options = Initialiser.apply(new ArrowSourceOptions<>(), configurator);
+        options.validate();
+        InputStream is = null;
+        RandomAccessFile file = null;
+        ArrowReader reader = null;
+        final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        DataFrameException error = null;
+        try {
+            switch (options.getFormat()) {
+                case FILE:
+                    file = new RandomAccessFile(options.getFile(), "r");
+                    reader = new ArrowFileReader(file.getChannel(), allocator);
+                    break;
+                case STREAM:
+                    is = options.getInputStream() != null ? options.getInputStream() : new FileInputStream(options.getFile());
+                    reader = new ArrowStreamReader(is, allocator);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported Arrow format: " + options.getFormat());
+            }
+            final String rowKeyColumn = options.getRowKeyColumn().orElse(null);
+            final Predicate<String> predicate = options.getColNamePredicate().orElse(name -> true);
+            final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            final List<ArrowVectors.Column> columns = new ArrayList<>();
+            final List<FieldVector> vectors = new ArrayList<>();
+            ArrowVectors.Column rowKeys = null;
+            int rowCount = 0;
+            while (reader.loadNextBatch()) {
+                rowCount += root.getRowCount();
+                if (vectors.isEmpty()) {
+                    for (FieldVector vector : root.getFieldVectors()) {
+                        final String name = vector.getField().getName();
+                        if (name.equals(rowKeyColumn)) {
+                            rowKeys = new ArrowVectors.Column(name, vector, dictionary(reader, vector));
+                            columns.add(0, rowKeys);
+                            vectors.add(0, vector);
+                        } else if (predicate.test(name)) {
+                            columns.add(new ArrowVectors.Column(name, vector, dictionary(reader, vector)));
+                            vectors.add(vector);
+                        }
+                    }
+                }
+                for (int i=0; i<columns.size(); ++i) {
+                    final FieldVector vector = vectors.get(i);
+                    columns.get(i).append(vector, dictionary(reader, vector));
+                }
+            }
+            if (rowKeyColumn != null && rowKeys == null && rowCount > 0) {
+                throw new DataFrameException("No row key column named " + rowKeyColumn + " in Arrow input");
+            }
+            final Iterable<R> keys = rowKeys != null ? (Array<R>)rowKeys.toArray() : (Iterable<R>)Range.of(0, rowCount);
+            final int first = rowKeys != null ? 1 : 0;
+            return DataFrame.of(keys, String.class, frameColumns -> {
+                for (int i=first; i<columns.size(); ++i) {
+                    final ArrowVectors.Column column = columns.get(i);
+                    frameColumns.add(column.name(), column.toArray());
+                }
+            });
+        } catch (DataFrameException ex) {
+            error = ex;
+            throw error;
+        } catch (Exception ex) {
+            error = new DataFrameException("Failed to read DataFrame from Arrow input", ex);
+            throw error;
+        } finally {
+            close(error, reader, file, is, allocator);
+        }
+    }
+
+
+    /**
+     * Returns the dictionary for the vector if its field is dictionary encoded
+     * @param reader    the Arrow reader, which provides dictionaries
+     * @param vector    the field vector
+     * @return          the dictionary, or null if the field is not dictionary encoded
+     */
+    private Dictionary dictionary(ArrowReader reader, FieldVector vector) {
+        final DictionaryEncoding encoding = vector.getField().getDictionary();
+        return encoding != null ? reader.lookup(encoding.getId()) : null;
+    }
+
+
+    /**
+     * Closes Arrow resources in the order given, adding any failures as suppressed exceptions of the read error
+     * @param error     the error the read failed with, or null if the read succeeded
+     * @param resources the resources to close, which may be null
+     * @throws DataFrameException   if the read succeeded but one or more resources failed to close
+     */
+    private static void close(DataFrameException error, AutoCloseable... resources) {
+        final DataFrameException target = error != null ? error : new DataFrameException("Failed to close Arrow input");
+        for (AutoCloseable resource : resources) {
+            try {
+                if (resource != null) {
+                    resource.close();
+                }
+            } catch (Exception ex) {
+                target.addSuppressed(ex);
+            }
+        }
+        if (error == null && target.getSuppressed().length > 0) {
+            throw target;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import com.zavtech.morpheus.frame.DataFrameSource;
+
+/**
+ * The options to configure an ArrowSource
+ *
+ * @param <R>   the row key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ArrowSourceOptions<R> implements DataFrameSource.Options<R,String> {
+
+    private File file;
+    private InputStream inputStream;
+    private ArrowFormat format = ArrowFormat.FILE;
+    private String rowKeyColumn;
+    private Predicate<String> colNamePredicate;
+
+
+    /**
+     * Constructor
+     */
+    public ArrowSourceOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the file to read, if not reading from a stream
+     * @return  the file to read
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the input stream to read, if not reading from a file
+     * @return  the input stream
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * Returns the Arrow IPC format to read
+     * @return  the Arrow format
+     */
+    public ArrowFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the name of the column that holds the row keys, if specified
+     * @return  the optional row key column name
+     */
+    public Optional<String> getRowKeyColumn() {
+        return Optional.ofNullable(rowKeyColumn);
+    }
+
+    /**
+     * Returns the predicate that selects columns by name, if specified
+     * @return  the optional column name predicate
+     */
+    public Optional<Predicate<String>> getColNamePredicate() {
+        return Optional.ofNullable(colNamePredicate);
+    }
+
+    /**
+     * Sets the file to read
+     * @param file  the file to read
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the path of the file to read
+     * @param path  the file path
+     */
+    public void setFile(String path) {
+        this.file = new File(path);
+    }
+
+    /**
+     * Sets the input stream to read, which requires the STREAM format and is closed once read
+     * @param inputStream   the input stream
+     */
+    public void setInputStream(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Sets the Arrow IPC format to read
+     * @param format    the Arrow format
+     */
+    public void setFormat(ArrowFormat format) {
+        this.format = Objects.requireNonNull(format, "The Arrow format cannot be null");
+    }
+
+    /**
+     * Sets the name of the column that holds the row keys, otherwise rows are keyed by ordinal
+     * @param rowKeyColumn  the row key column name
+     */
+    public void setRowKeyColumn(String rowKeyColumn) {
+        this.rowKeyColumn = rowKeyColumn;
+    }
+
+    /**
+     * Sets the predicate that selects columns by name
+     * @param colNamePredicate  the column name predicate
+     */
+    public void setColNamePredicate(Predicate<String> colNamePredicate) {
+        this.colNamePredicate = colNamePredicate;
+    }
+
+    @Override
+    public void validate() {
+        if (file == null && inputStream == null) {
+            throw new IllegalStateException("Either a file or input stream must be specified");
+        } else if (file != null && inputStream != null) {
+            throw new IllegalStateException("Only one of a file or input stream can be specified");
+        } else if (inputStream != null && format == ArrowFormat.FILE) {
+            throw new IllegalStateException("The Arrow FILE format requires a file rather than an input stream");
+        }
+    }
+}
@@ -0,0 +1,437 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TimeNanoVector;
+import org.apache.arrow.vector.TimeStampVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.perf.array.LongCodec;
+
+/**
+ * The type mapping and value transfer between Morpheus arrays and Arrow vectors used by ArrowSink and ArrowSource
+ *
+ * <p>Boolean, Integer, Long, Double and String map to Bit, Int(32), Int(64), Float8 and Utf8 vectors. LocalDate
+ * maps to a Date(DAY) vector and Date to a Date(MILLISECOND) vector, LocalTime maps to a nanosecond Time vector,
+ * and LocalDateTime and Instant map to millisecond Timestamp vectors, with Instant carrying a UTC time zone. This
+ * matches the precision of the Morpheus arrays while covering dates well beyond the nanosecond range of 1677
+ * through 2262. Timestamps in other units are read in their native unit and reduced to epoch millis without
+ * overflow. Double NaN values are written as NaN rather than null so that frames round trip exactly.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+final class ArrowVectors {
+
+    /**
+     * Private constructor
+     */
+    private ArrowVectors() {
+        super();
+    }
+
+
+    /**
+     * Returns the Arrow type for the Morpheus value type specified
+     * @param type  the Morpheus value type
+     * @return      the Arrow type
+     * @throws IllegalArgumentException if the type has no Arrow mapping
+     */
+    static ArrowType arrowType(Class<?> type) {
+        if (type == Boolean.class) {
+            return new ArrowType.Bool();
+        } else if (type == Integer.class) {
+            return new ArrowType.Int(32, true);
+        } else if (type == Long.class) {
+            return new ArrowType.Int(64, true);
+        } else if (type == Double.class) {
+            return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+        } else if (type == String.class) {
+            return new ArrowType.Utf8();
+        } else if (type == LocalDate.class) {
+            return new ArrowType.Date(DateUnit.DAY);
+        } else if (type == Date.class) {
+            return new ArrowType.Date(DateUnit.MILLISECOND);
+        } else if (type == LocalTime.class) {
+            return new ArrowType.Time(TimeUnit.NANOSECOND, 64);
+        } else if (type == LocalDateTime.class) {
+            return new ArrowType.Timestamp(TimeUnit.MILLISECOND, null);
+        } else if (type == Instant.class) {
+            return new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC");
+        } else {
+            throw new IllegalArgumentException("No Arrow type mapping for " + type.getName());
+        }
+    }
+
+
+    /**
+     * Fills the vector with a range of values, replacing its previous contents
+     * @param vector    the vector to fill
+     * @param type      the Morpheus value type
+     * @param values    the values to copy from
+     * @param start     the index of the first value
+     * @param count     the number of values to copy
+     * @param codes     the dictionary codes if the vector holds dictionary indexes, otherwise null
+     */
+    @SuppressWarnings("unchecked")
+    static void fill(FieldVector vector, Class<?> type, ColumnValues values, int start, int count, Map<String,Integer> codes) {
+        vector.setInitialCapacity(count);
+        vector.allocateNew();
+        if (codes != null) {
+            final IntVector indexes = (IntVector)vector;
+            for (int i=0; i<count; ++i) {
+                final Object value = values.getValue(start + i);
+                if (value == null) indexes.setNull(i);
+                else indexes.set(i, codes.get(value.toString()));
+            }
+        } else if (vector instanceof BitVector) {
+            final BitVector bits = (BitVector)vector;
+            for (int i=0; i<count; ++i) bits.set(i, values.getBoolean(start + i) ? 1 : 0);
+        } else if (vector instanceof IntVector) {
+            final IntVector ints = (IntVector)vector;
+            for (int i=0; i<count; ++i) ints.set(i, values.getInt(start + i));
+        } else if (vector instanceof BigIntVector) {
+            final BigIntVector longs = (BigIntVector)vector;
+            for (int i=0; i<count; ++i) longs.set(i, values.getLong(start + i));
+        } else if (vector instanceof Float8Vector) {
+            final Float8Vector doubles = (Float8Vector)vector;
+            for (int i=0; i<count; ++i) doubles.set(i, values.getDouble(start + i));
+        } else if (vector instanceof VarCharVector) {
+            final VarCharVector strings = (VarCharVector)vector;
+            for (int i=0; i<count; ++i) {
+                final Object value = values.getValue(start + i);
+                if (value == null) strings.setNull(i);
+                else strings.setSafe(i, value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        } else {
+            final LongCodec<Object> codec = (LongCodec<Object>)LongCodec.ofMillis(type);
+            for (int i=0; i<count; ++i) {
+                final long value = codec.encode(values.getValue(start + i));
+                if (value == LongCodec.NULL) {
+                    setNull(vector, i);
+                } else if (vector instanceof DateDayVector) {
+                    ((DateDayVector)vector).set(i, (int)value);
+                } else if (vector instanceof DateMilliVector) {
+                    ((DateMilliVector)vector).set(i, value);
+                } else if (vector instanceof TimeNanoVector) {
+                    ((TimeNanoVector)vector).set(i, value);
+                } else {
+                    ((TimeStampVector)vector).set(i, value);
+                }
+            }
+        }
+        vector.setValueCount(count);
+    }
+
+
+    /**
+     * Marks the value at the index specified as null in a temporal vector
+     * @param vector    the temporal vector
+     * @param index     the value index
+     */
+    private static void setNull(FieldVector vector, int index) {
+        if (vector instanceof DateDayVector) {
+            ((DateDayVector)vector).setNull(index);
+        } else if (vector instanceof DateMilliVector) {
+            ((DateMilliVector)vector).setNull(index);
+        } else if (vector instanceof TimeNanoVector) {
+            ((TimeNanoVector)vector).setNull(index);
+        } else {
+            ((TimeStampVector)vector).setNull(index);
+        }
+    }
+
+
+    /**
+     * Returns a little endian view of the first count fixed width values in the vector data buffer
+     * @param vector    the fixed width vector
+     * @param count     the number of values
+     * @param width     the width of each value in bytes
+     * @return          the view of the data buffer
+     */
+    private static ByteBuffer data(FieldVector vector, int count, int width) {
+        return vector.getDataBuffer().nioBuffer(0L, count * width).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+
+    /**
+     * Accumulates the values of one Arrow field across record batches into a primitive buffer
+     */
+    static class Column {
+
+        private String name;
+        private Class<?> type;
+        private long unitsPerMilli;
+        private long millisPerUnit;
+        private int length;
+        private boolean[] booleans;
+        private int[] ints;
+        private long[] longs;
+        private double[] doubles;
+        private Object[] objects;
+        private Dictionary dictionary;
+        private String[] dictionaryValues;
+
+        /**
+         * Constructor
+         * @param name          the field name
+         * @param vector        the first vector for the field, used to resolve the type
+         * @param dictionary    the dictionary if the field is dictionary encoded, otherwise null
+         */
+        Column(String name, FieldVector vector, Dictionary dictionary) {
+            this.name = name;
+            this.unitsPerMilli = 1L;
+            this.millisPerUnit = 1L;
+            final FieldVector values = dictionary != null ? dictionary.getVector() : vector;
+            switch (values.getMinorType()) {
+                case BIT:               this.type = Boolean.class;          break;
+                case TINYINT:           this.type = Integer.class;          break;
+                case SMALLINT:          this.type = Integer.class;          break;
+                case INT:               this.type = Integer.class;          break;
+                case BIGINT:            this.type = Long.class;             break;
+                case FLOAT4:            this.type = Double.class;           break;
+                case FLOAT8:            this.type = Double.class;           break;
+                case VARCHAR:           this.type = String.class;           break;
+                case DATEDAY:           this.type = LocalDate.class;        break;
+                case DATEMILLI:         this.type = Date.class;             break;
+                case TIMENANO:          this.type = LocalTime.class;        break;
+                case TIMESTAMPNANO:     this.type = LocalDateTime.class;    this.unitsPerMilli = 1000000L;  break;
+                case TIMESTAMPMICRO:    this.type = LocalDateTime.class;    this.unitsPerMilli = 1000L;     break;
+                case TIMESTAMPMILLI:    this.type = LocalDateTime.class;    break;
+                case TIMESTAMPSEC:      this.type = LocalDateTime.class;    this.millisPerUnit = 1000L;     break;
+                case TIMESTAMPNANOTZ:   this.type = Instant.class;          this.unitsPerMilli = 1000000L;  break;
+                case TIMESTAMPMICROTZ:  this.type = Instant.class;          this.unitsPerMilli = 1000L;     break;
+                case TIMESTAMPMILLITZ:  this.type = Instant.class;          break;
+                case TIMESTAMPSECTZ:    this.type = Instant.class;          this.millisPerUnit = 1000L;     break;
+                default:    throw new IllegalArgumentException("Unsupported Arrow type for field " + name + ": " + values.getMinorType());
+            }
+        }
+
+        /**
+         * Returns the field name for this column
+         * @return  the field name
+         */
+        String name() {
+            return name;
+        }
+
+        /**
+         * Appends the values in the vector to this column
+         * @param vector        the vector from the current record batch
+         * @param dictionary    the dictionary if the field is dictionary encoded, otherwise null
+         */
+        void append(FieldVector vector, Dictionary dictionary) {
+            final int count = vector.getValueCount();
+            if (dictionary != null) {
+                final String[] values = dictionaryValues(dictionary);
+                final Object[] target = objects(count);
+                for (int i=0; i<count; ++i) {
+                    target[length + i] = vector.isNull(i) ? null : values[index(vector, i)];
+                }
+            } else if (count > 0) {
+                switch (vector.getMinorType()) {
+                    case BIT:       appendBooleans((BitVector)vector, count);   break;
+                    case TINYINT:   appendInts(vector, count);                  break;
+                    case SMALLINT:  appendInts(vector, count);                  break;
+                    case INT:       appendInts(vector, count);                  break;
+                    case BIGINT:    appendLongs(vector, count);                 break;
+                    case FLOAT4:    appendDoubles(vector, count);               break;
+                    case FLOAT8:    appendDoubles(vector, count);               break;
+                    case VARCHAR:   appendStrings((VarCharVector)vector, count); break;
+                    default:        appendTemporals(vector, count);             break;
+                }
+            }
+            this.length += count;
+        }
+
+        /**
+         * Returns a Morpheus array with the values accumulated in this column
+         * @return  the Morpheus array
+         */
+        @SuppressWarnings("unchecked")
+        Array<?> toArray() {
+            if (type == Boolean.class) {
+                return Array.of(booleans != null ? Arrays.copyOf(booleans, length) : new boolean[0]);
+            } else if (type == Integer.class) {
+                return Array.of(ints != null ? Arrays.copyOf(ints, length) : new int[0]);
+            } else if (type == Long.class) {
+                return Array.of(longs != null ? Arrays.copyOf(longs, length) : new long[0]);
+            } else if (type == Double.class) {
+                return Array.of(doubles != null ? Arrays.copyOf(doubles, length) : new double[0]);
+            } else if (type == String.class) {
+                return Array.of(objects != null ? Arrays.copyOf(objects, length, String[].class) : new String[0]);
+            } else {
+                final Array<Object> array = Array.of((Class<Object>)type, length);
+                for (int i=0; i<length; ++i) {
+                    array.setValue(i, objects[i]);
+                }
+                return array;
+            }
+        }
+
+        private void appendBooleans(BitVector vector, int count) {
+            this.booleans = booleans == null ? new boolean[count] : grow(booleans, count);
+            for (int i=0; i<count; ++i) {
+                this.booleans[length + i] = !vector.isNull(i) && vector.get(i) != 0;
+            }
+        }
+
+        private void appendInts(FieldVector vector, int count) {
+            this.ints = ints == null ? new int[count] : grow(ints, count);
+            if (!(vector instanceof IntVector)) {
+                for (int i=0; i<count; ++i) ints[length + i] = vector.isNull(i) ? 0 : index(vector, i);
+            } else {
+                data(vector, count, 4).asIntBuffer().get(ints, length, count);
+                if (vector.getNullCount() > 0) {
+                    for (int i=0; i<count; ++i) if (vector.isNull(i)) ints[length + i] = 0;
+                }
+            }
+        }
+
+        private void appendLongs(FieldVector vector, int count) {
+            this.longs = longs == null ? new long[count] : grow(longs, count);
+            data(vector, count, 8).asLongBuffer().get(longs, length, count);
+            if (vector.getNullCount() > 0) {
+                for (int i=0; i<count; ++i) if (vector.isNull(i)) longs[length + i] = 0L;
+            }
+        }
+
+        private void appendDoubles(FieldVector vector, int count) {
+            this.doubles = doubles == null ? new double[count] : grow(doubles, count);
+            if (vector instanceof Float8Vector) {
+                data(vector, count, 8).asDoubleBuffer().get(doubles, length, count);
+            } else {
+                final Float4Vector floats = (Float4Vector)vector;
+                for (int i=0; i<count; ++i) doubles[length + i] = floats.isNull(i) ? Double.NaN : floats.get(i);
+            }
+            if (vector.getNullCount() > 0) {
+                for (int i=0; i<count; ++i) if (vector.isNull(i)) doubles[length + i] = Double.NaN;
+            }
+        }
+
+        private void appendStrings(VarCharVector vector, int count) {
+            final Object[] target = objects(count);
+            for (int i=0; i<count; ++i) {
+                target[length + i] = vector.isNull(i) ? null : new String(vector.get(i), StandardCharsets.UTF_8);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void appendTemporals(FieldVector vector, int count) {
+            final Object[] target = objects(count);
+            final LongCodec<Object> codec = (LongCodec<Object>)LongCodec.ofMillis(type);
+            if (vector instanceof DateDayVector) {
+                final DateDayVector days = (DateDayVector)vector;
+                for (int i=0; i<count; ++i) target[length + i] = days.isNull(i) ? null : codec.decode(days.get(i));
+            } else {
+                final ByteBuffer data = data(vector, count, 8);
+                for (int i=0; i<count; ++i) {
+                    target[length + i] = vector.isNull(i) ? null : codec.decode(epochMillis(data.getLong(i * 8)));
+                }
+            }
+        }
+
+        /**
+         * Returns the value in the native unit of this column reduced or scaled to epoch millis
+         * @param value     the value in the native unit, or a nanosecond of day for a time column
+         * @return          the value in millis, or the value unchanged for date and time columns
+         */
+        private long epochMillis(long value) {
+            if (unitsPerMilli > 1L) {
+                return Math.floorDiv(value, unitsPerMilli);
+            } else if (millisPerUnit > 1L) {
+                return LongCodec.scale(value, millisPerUnit);
+            } else {
+                return value;
+            }
+        }
+
+        private Object[] objects(int count) {
+            this.objects = objects == null ? new Object[count] : grow(objects, count);
+            return objects;
+        }
+
+        private String[] dictionaryValues(Dictionary dictionary) {
+            if (this.dictionary != dictionary) {
+                final VarCharVector vector = (VarCharVector)dictionary.getVector();
+                this.dictionary = dictionary;
+                this.dictionaryValues = new String[vector.getValueCount()];
+                for (int i=0; i<dictionaryValues.length; ++i) {
+                    this.dictionaryValues[i] = vector.isNull(i) ? null : new String(vector.get(i), StandardCharsets.UTF_8);
+                }
+            }
+            return dictionaryValues;
+        }
+
+        private int index(FieldVector vector, int i) {
+            if (vector instanceof IntVector) {
+                return ((IntVector)vector).get(i);
+            } else if (vector instanceof SmallIntVector) {
+                return ((SmallIntVector)vector).get(i);
+            } else if (vector instanceof TinyIntVector) {
+                return ((TinyIntVector)vector).get(i);
+            } else {
+                return (int)((BigIntVector)vector).get(i);
+            }
+        }
+
+        private boolean[] grow(boolean[] values, int count) {
+            return length + count <= values.length ? values : Arrays.copyOf(values, Math.max(length + count, values.length * 2));
+        }
+
+        private int[] grow(int[] values, int count) {
+            return length + count <= values.length ? values : Arrays.copyOf(values, Math.max(length + count, values.length * 2));
+        }
+
+        private long[] grow(long[] values, int count) {
+            return length + count <= values.length ? values : Arrays.copyOf(values, Math.max(length + count, values.length * 2));
+        }
+
+        private double[] grow(double[] values, int count) {
+            return length + count <= values.length ? values : Arrays.copyOf(values, Math.max(length + count, values.length * 2));
+        }
+
+        private Object[] grow(Object[] values, int count) {
+            return length + count <= values.length ? values : Arrays.copyOf(values, Math.max(length + count, values.length * 2));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable CharSequence view over a range of bytes in a ByteBuffer, so that fields can be parsed without
+ * first allocating a String.
+ *
+ * <p>charAt() exposes each byte as a char, which is exact for ASCII content such as numbers, dates and times.
+ * Text values should be decoded with toString(Charset). A slice that was cut from a quoted field may contain
+ * doubled quote characters, which are collapsed when decoding to a String.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public final class ByteSlice implements CharSequence {
+
+    private ByteBuffer buffer;
+    private int start;
+    private int end;
+    private byte quote;
+    private boolean escaped;
+    private byte[] scratch = new byte[256];
+
+
+    /**
+     * Constructor
+     */
+    public ByteSlice() {
+        super();
+    }
+
+
+    /**
+     * Points this slice at a new range of bytes
+     * @param buffer    the buffer to view
+     * @param start     the start offset, inclusive
+     * @param end       the end offset, exclusive
+     * @return          this slice
+     */
+    public ByteSlice set(ByteBuffer buffer, int start, int end) {
+        return set(buffer, start, end, (byte)0, false);
+    }
+
+
+    /**
+     * Points this slice at a new range of bytes which may contain doubled quote characters
+     * @param buffer    the buffer to view
+     * @param start     the start offset, inclusive
+     * @param end       the end offset, exclusive
+     * @param quote     the quote character
+     * @param escaped   true if the range contains doubled quotes to collapse when decoded
+     * @return          this slice
+     */
+    public ByteSlice set(ByteBuffer buffer, int start, int end, byte quote, boolean escaped) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+        this.quote = quote;
+        this.escaped = escaped;
+        return this;
+    }
+
+
+    /**
+     * Returns the byte at the index specified
+     * @param index     the index relative to the start of this slice
+     * @return          the byte value
+     */
+    public byte byteAt(int index) {
+        return buffer.get(start + index);
+    }
+
+
+    /**
+     * Returns true if this slice matches the ASCII text specified, ignoring case
+     * @param text  the ASCII text to compare to
+     * @return      true if this slice matches
+     */
+    public boolean equalsIgnoreCase(String text) {
+        final int length = length();
+        if (length != text.length()) {
+            return false;
+        } else {
+            for (int i=0; i<length; ++i) {
+                final char c1 = charAt(i);
+                final char c2 = text.charAt(i);
+                if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Returns this slice decoded as a String in the charset specified
+     * @param charset   the charset to decode with
+     * @return          the decoded String
+     */
+    public String toString(Charset charset) {
+        final int length = length();
+        if (scratch.length < length) {
+            this.scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int count = 0;
+        for (int i=start; i<end; ++i) {
+            final byte next = buffer.get(i);
+            scratch[count++] = next;
+            if (escaped && next == quote && i + 1 < end && buffer.get(i + 1) == quote) {
+                i++;
+            }
+        }
+        return new String(scratch, 0, count, charset);
+    }
+
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+
+    @Override
+    public char charAt(int index) {
+        return (char)(buffer.get(start + index) & 0xFF);
+    }
+
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new ByteSlice().set(buffer, this.start + start, this.start + end, quote, escaped);
+    }
+
+
+    @Override
+    public String toString() {
+        return toString(StandardCharsets.UTF_8);
+    }
+}
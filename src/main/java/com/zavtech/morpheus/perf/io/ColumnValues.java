@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrameContent;
+
+/**
+ * Random access to the values of a frame column or key array by ordinal, used by sinks to read values without boxing
+ *
+ * @author  Xavier Witdouck
+ */
+interface ColumnValues {
+
+    boolean getBoolean(int index);
+
+    int getInt(int index);
+
+    long getLong(int index);
+
+    double getDouble(int index);
+
+    Object getValue(int index);
+
+
+    /**
+     * Returns a view over a Morpheus array
+     * @param array the array
+     * @return      the values view
+     */
+    static ColumnValues of(Array<?> array) {
+        return new ColumnValues() {
+            public boolean getBoolean(int index) { return array.getBoolean(index); }
+            public int getInt(int index) { return array.getInt(index); }
+            public long getLong(int index) { return array.getLong(index); }
+            public double getDouble(int index) { return array.getDouble(index); }
+            public Object getValue(int index) { return array.getValue(index); }
+        };
+    }
+
+
+    /**
+     * Returns a view over a column of DataFrame content
+     * @param data          the frame content
+     * @param colOrdinal    the column ordinal
+     * @return              the values view
+     */
+    static ColumnValues of(DataFrameContent<?,?> data, int colOrdinal) {
+        return new ColumnValues() {
+            public boolean getBoolean(int index) { return data.getBoolean(index, colOrdinal); }
+            public int getInt(int index) { return data.getInt(index, colOrdinal); }
+            public long getLong(int index) { return data.getLong(index, colOrdinal); }
+            public double getDouble(int index) { return data.getDouble(index, colOrdinal); }
+            public Object getValue(int index) { return data.getValue(index, colOrdinal); }
+        };
+    }
+}
@@ -0,0 +1,311 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.util.IO;
+
+/**
+ * A read only view of a file written by ColumnarSink, where columns are decoded lazily from the memory mapped file on demand
+ *
+ * <p>Opening a file only reads the header, the block directory and the column keys, so the cost is independent
+ * of the number of rows. The row keys and each column are decoded the first time they are requested, one
+ * mapped segment at a time, which means a caller that only needs a handful of columns from a very large file
+ * only ever pages in those columns.</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ColumnarFile<R,C> implements Closeable {
+
+    private File file;
+    private RandomAccessFile input;
+    private FileChannel channel;
+    private ColumnarFormat.Block rowBlock;
+    private ColumnarFormat.Block[] colBlocks;
+    private Array<C> colKeys;
+    private Array<R> rowKeys;
+    private Map<C,Integer> colOrdinals;
+
+
+    /**
+     * Constructor
+     * @param file  the columnar file
+     */
+    private ColumnarFile(File file) throws IOException {
+        this.file = file;
+        this.input = new RandomAccessFile(file, "r");
+        this.channel = input.getChannel();
+    }
+
+
+    /**
+     * Returns a newly opened columnar file, which reads only the header, directory and column keys
+     * @param file  the file written by ColumnarSink
+     * @param <R>   the row key type
+     * @param <C>   the column key type
+     * @return      the opened file, which must be closed
+     */
+    public static <R,C> ColumnarFile<R,C> open(File file) {
+        Objects.requireNonNull(file, "The columnar file cannot be null");
+        ColumnarFile<R,C> result = null;
+        try {
+            result = new ColumnarFile<>(file);
+            result.init();
+            return result;
+        } catch (Exception ex) {
+            IO.close(result);
+            throw new DataFrameException("Failed to open columnar file: " + file, ex);
+        }
+    }
+
+
+    /**
+     * Reads the header, block directory and column keys
+     */
+    @SuppressWarnings("unchecked")
+    private void init() throws IOException {
+        final long size = channel.size();
+        final ByteBuffer header = read(0L, ColumnarFormat.MAGIC.length + 4);
+        final ByteBuffer footer = read(size - ColumnarFormat.FOOTER_SIZE, ColumnarFormat.FOOTER_SIZE);
+        final byte[] magic = new byte[ColumnarFormat.MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, ColumnarFormat.MAGIC)) {
+            throw new IOException("The file is not a columnar file");
+        } else if (header.getInt() != ColumnarFormat.VERSION) {
+            throw new IOException("Unsupported columnar file version");
+        }
+        final long directoryOffset = footer.getLong();
+        final int directoryLength = footer.getInt();
+        footer.get(magic);
+        if (!Arrays.equals(magic, ColumnarFormat.MAGIC)) {
+            throw new IOException("The columnar file is truncated");
+        }
+        final ByteBuffer directoryBytes = read(directoryOffset, directoryLength);
+        final DataInputStream directory = new DataInputStream(new ByteArrayInputStream(directoryBytes.array()));
+        final int blockCount = directory.readInt();
+        this.rowBlock = ColumnarFormat.Block.read(directory);
+        final ColumnarFormat.Block colKeyBlock = ColumnarFormat.Block.read(directory);
+        this.colBlocks = new ColumnarFormat.Block[blockCount - 2];
+        for (int i=0; i<colBlocks.length; ++i) {
+            this.colBlocks[i] = ColumnarFormat.Block.read(directory);
+        }
+        this.colKeys = (Array<C>)ColumnarFormat.read(channel, colKeyBlock);
+        this.colOrdinals = new HashMap<>(colKeys.length() * 2);
+        for (int i=0; i<colKeys.length(); ++i) {
+            this.colOrdinals.put(colKeys.getValue(i), i);
+        }
+    }
+
+
+    /**
+     * Returns a heap buffer with the bytes read from the file at the offset specified
+     * @param offset    the file offset
+     * @param length    the number of bytes to read
+     * @return          the buffer, positioned at zero
+     */
+    private ByteBuffer read(long offset, int length) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IOException("The columnar file is corrupt or truncated");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of columnar file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+
+    /**
+     * Returns the file this view reads from
+     * @return  the columnar file
+     */
+    public File getFile() {
+        return file;
+    }
+
+
+    /**
+     * Returns the number of rows in the file
+     * @return  the row count
+     */
+    public int rowCount() {
+        return rowBlock.count();
+    }
+
+
+    /**
+     * Returns the number of columns in the file
+     * @return  the column count
+     */
+    public int colCount() {
+        return colBlocks.length;
+    }
+
+
+    /**
+     * Returns the column keys, which are decoded when the file is opened
+     * @return  the column keys
+     */
+    public Array<C> colKeys() {
+        return colKeys;
+    }
+
+
+    /**
+     * Returns the row keys, decoding them from the file on first access
+     * @return  the row keys
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Array<R> rowKeys() {
+        if (rowKeys == null) {
+            try {
+                this.rowKeys = (Array<R>)ColumnarFormat.read(channel, rowBlock);
+            } catch (IOException ex) {
+                throw new DataFrameException("Failed to read row keys from columnar file: " + file, ex);
+            }
+        }
+        return rowKeys;
+    }
+
+
+    /**
+     * Returns the value type of the column specified
+     * @param colKey    the column key
+     * @return          the column value type
+     */
+    public Class<?> type(C colKey) {
+        return block(colKey).type();
+    }
+
+
+    /**
+     * Returns true if the column specified was compressed when written
+     * @param colKey    the column key
+     * @return          true if column is compressed
+     */
+    public boolean isCompressed(C colKey) {
+        return block(colKey).isCompressed();
+    }
+
+
+    /**
+     * Returns the values of the column specified, decoded from the file on each call
+     * @param colKey    the column key
+     * @return          the column values
+     */
+    public Array<?> column(C colKey) {
+        try {
+            return ColumnarFormat.read(channel, block(colKey));
+        } catch (IOException ex) {
+            throw new DataFrameException("Failed to read column " + colKey + " from columnar file: " + file, ex);
+        }
+    }
+
+
+    /**
+     * Returns a read only little endian mapped view of an uncompressed fixed width column, without decoding it
+     * <p>Boolean columns hold one byte per value, Integer columns 4 bytes, and all other fixed width types 8 bytes.</p>
+     * @param colKey    the column key
+     * @return          the mapped view of the column values
+     */
+    public ByteBuffer view(C colKey) {
+        final ColumnarFormat.Block block = block(colKey);
+        if (block.isCompressed()) {
+            throw new DataFrameException("Cannot map column " + colKey + " as it is compressed");
+        } else if (block.type() == String.class) {
+            throw new DataFrameException("Cannot map column " + colKey + " as String values are variable width");
+        } else if (block.length() > Integer.MAX_VALUE) {
+            throw new DataFrameException("Cannot map column " + colKey + " as it exceeds 2GB");
+        } else {
+            try {
+                final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, block.offset(), block.length());
+                return buffer.order(ByteOrder.LITTLE_ENDIAN);
+            } catch (IOException ex) {
+                throw new DataFrameException("Failed to map column " + colKey + " in columnar file: " + file, ex);
+            }
+        }
+    }
+
+
+    /**
+     * Returns a DataFrame with all columns in this file
+     * @return  the DataFrame
+     */
+    public DataFrame<R,C> toDataFrame() {
+        return toDataFrame(colKey -> true);
+    }
+
+
+    /**
+     * Returns a DataFrame with the columns in this file that match the predicate, only decoding those columns
+     * @param colPredicate  the predicate to select columns
+     * @return              the DataFrame
+     */
+    public DataFrame<R,C> toDataFrame(Predicate<C> colPredicate) {
+        return DataFrame.of(rowKeys(), colKeys.type(), columns -> {
+            for (int i=0; i<colKeys.length(); ++i) {
+                final C colKey = colKeys.getValue(i);
+                if (colPredicate.test(colKey)) {
+                    columns.add(colKey, column(colKey));
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Returns the block descriptor for the column specified
+     * @param colKey    the column key
+     * @return          the block descriptor
+     */
+    private ColumnarFormat.Block block(C colKey) {
+        final Integer ordinal = colOrdinals.get(colKey);
+        if (ordinal == null) {
+            throw new DataFrameException("No column for key " + colKey + " in columnar file: " + file);
+        } else {
+            return colBlocks[ordinal];
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.input.close();
+    }
+}
@@ -0,0 +1,388 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.perf.array.LongCodec;
+
+/**
+ * The block encoding shared by ColumnarSink and ColumnarFile.
+ *
+ * <p>A columnar file starts with an 8 byte magic number and a version, followed by one block for the row keys,
+ * one for the column keys and one per column. Each block holds the values of a single type in little endian
+ * order, optionally deflated. A directory describing every block is written after the last block, and the
+ * file ends with the directory offset, directory length and the magic number again, so a reader can locate
+ * any column by reading only the tail of the file.</p>
+ *
+ * <p>Booleans are stored as one byte, ints as 4 bytes, longs and doubles as 8 bytes, and Date, Instant,
+ * LocalDate, LocalTime and LocalDateTime as the 8 byte LongCodec encoding, with Instant and LocalDateTime held
+ * as epoch millis so that any value in a Morpheus array can be written. Strings are stored as a 4 byte UTF-8
+ * length, -1 for null, followed by the bytes.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+final class ColumnarFormat {
+
+    static final byte[] MAGIC = "MORPHCOL".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 2;
+    static final int FOOTER_SIZE = 8 + 4 + MAGIC.length;
+
+    private static final int STAGING_SIZE = 1 << 20;
+    private static final long SEGMENT_SIZE = 1L << 26;
+    private static final Map<String,Class<?>> typeMap = new HashMap<>();
+
+    /**
+     * Static initializer
+     */
+    static {
+        for (Class<?> type : new Class<?>[] {
+            Boolean.class, Integer.class, Long.class, Double.class, String.class,
+            Date.class, Instant.class, LocalDate.class, LocalTime.class, LocalDateTime.class }) {
+            typeMap.put(type.getName(), type);
+        }
+    }
+
+
+    /**
+     * Private constructor
+     */
+    private ColumnarFormat() {
+        super();
+    }
+
+
+    /**
+     * Describes the location, type and encoding of one block in the file
+     */
+    static class Block {
+
+        private Class<?> type;
+        private boolean compressed;
+        private long offset;
+        private long length;
+        private long rawLength;
+        private int count;
+
+        /**
+         * Constructor
+         * @param type          the value type
+         * @param compressed    true if the block is deflated
+         * @param offset        the file offset of block
+         * @param length        the stored length of block in bytes
+         * @param rawLength     the uncompressed length of block in bytes
+         * @param count         the number of values in block
+         */
+        Block(Class<?> type, boolean compressed, long offset, long length, long rawLength, int count) {
+            this.type = type;
+            this.compressed = compressed;
+            this.offset = offset;
+            this.length = length;
+            this.rawLength = rawLength;
+            this.count = count;
+        }
+
+        Class<?> type() {
+            return type;
+        }
+
+        boolean isCompressed() {
+            return compressed;
+        }
+
+        long offset() {
+            return offset;
+        }
+
+        long length() {
+            return length;
+        }
+
+        long rawLength() {
+            return rawLength;
+        }
+
+        int count() {
+            return count;
+        }
+
+        /**
+         * Writes this block descriptor to the directory
+         * @param output    the directory output
+         */
+        void write(DataOutput output) throws IOException {
+            output.writeUTF(type.getName());
+            output.writeBoolean(compressed);
+            output.writeLong(offset);
+            output.writeLong(length);
+            output.writeLong(rawLength);
+            output.writeInt(count);
+        }
+
+        /**
+         * Returns a block descriptor read from the directory
+         * @param input the directory input
+         * @return      the block descriptor
+         */
+        static Block read(DataInput input) throws IOException {
+            final String typeName = input.readUTF();
+            final Class<?> type = typeMap.get(typeName);
+            if (type == null) {
+                throw new IOException("Corrupt columnar file, unsupported column type: " + typeName);
+            } else {
+                return new Block(type, input.readBoolean(), input.readLong(), input.readLong(), input.readLong(), input.readInt());
+            }
+        }
+    }
+
+
+    /**
+     * Returns true if values of the type specified can be written to a columnar file
+     * @param type  the value type
+     * @return      true if type is supported
+     */
+    static boolean isSupported(Class<?> type) {
+        return type != null && typeMap.get(type.getName()) == type;
+    }
+
+
+    /**
+     * Writes the values as a block at the current position of the channel
+     * @param channel       the channel to write to
+     * @param type          the value type
+     * @param values        the values to write
+     * @param count         the number of values
+     * @param compressed    true to deflate the block
+     * @param level         the deflater level, if compressed
+     * @return              the descriptor of the block written
+     */
+    @SuppressWarnings("unchecked")
+    static Block write(FileChannel channel, Class<?> type, ColumnValues values, int count, boolean compressed, int level) throws IOException {
+        final long offset = channel.position();
+        final Deflater deflater = compressed ? new Deflater(level) : null;
+        final OutputStream channelStream = Channels.newOutputStream(channel);
+        final OutputStream output = compressed ? new DeflaterOutputStream(channelStream, deflater, STAGING_SIZE) : channelStream;
+        final ByteBuffer staging = ByteBuffer.allocate(STAGING_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long rawLength = 0L;
+        try {
+            for (int i=0; i<count; ++i) {
+                if (staging.remaining() < 8) {
+                    rawLength += flush(staging, output);
+                }
+                if (type == Boolean.class) {
+                    staging.put(values.getBoolean(i) ? (byte)1 : (byte)0);
+                } else if (type == Integer.class) {
+                    staging.putInt(values.getInt(i));
+                } else if (type == Long.class) {
+                    staging.putLong(values.getLong(i));
+                } else if (type == Double.class) {
+                    staging.putDouble(values.getDouble(i));
+                } else if (type == String.class) {
+                    final Object value = values.getValue(i);
+                    final byte[] bytes = value != null ? value.toString().getBytes(StandardCharsets.UTF_8) : null;
+                    staging.putInt(bytes != null ? bytes.length : -1);
+                    if (bytes != null && bytes.length <= staging.remaining()) {
+                        staging.put(bytes);
+                    } else if (bytes != null) {
+                        rawLength += flush(staging, output);
+                        output.write(bytes);
+                        rawLength += bytes.length;
+                    }
+                } else {
+                    final LongCodec<Object> codec = (LongCodec<Object>)LongCodec.ofMillis(type);
+                    staging.putLong(codec.encode(values.getValue(i)));
+                }
+            }
+            rawLength += flush(staging, output);
+            if (output instanceof DeflaterOutputStream) {
+                ((DeflaterOutputStream)output).finish();
+            }
+            output.flush();
+            return new Block(type, compressed, offset, channel.position() - offset, rawLength, count);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+
+    /**
+     * Returns a Morpheus array of the values decoded from the block
+     * @param channel   the channel to read from
+     * @param block     the block descriptor
+     * @return          the array of values
+     */
+    @SuppressWarnings("unchecked")
+    static Array<?> read(FileChannel channel, Block block) throws IOException {
+        final int count = block.count();
+        final Class<?> type = block.type();
+        final Inflater inflater = block.isCompressed() ? new Inflater() : null;
+        final InputStream mapped = new MappedInputStream(channel, block.offset(), block.length());
+        try (InputStream input = inflater != null ? new InflaterInputStream(mapped, inflater, STAGING_SIZE) : mapped) {
+            final ByteBuffer staging = ByteBuffer.allocate(STAGING_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            staging.limit(0);
+            if (type == Boolean.class) {
+                final boolean[] values = new boolean[count];
+                for (int i=0; i<count; ++i) values[i] = fill(input, staging, 1).get() != 0;
+                return Array.of(values);
+            } else if (type == Integer.class) {
+                final int[] values = new int[count];
+                for (int i=0; i<count; ++i) values[i] = fill(input, staging, 4).getInt();
+                return Array.of(values);
+            } else if (type == Long.class) {
+                final long[] values = new long[count];
+                for (int i=0; i<count; ++i) values[i] = fill(input, staging, 8).getLong();
+                return Array.of(values);
+            } else if (type == Double.class) {
+                final double[] values = new double[count];
+                for (int i=0; i<count; ++i) values[i] = fill(input, staging, 8).getDouble();
+                return Array.of(values);
+            } else if (type == String.class) {
+                final String[] values = new String[count];
+                byte[] bytes = new byte[256];
+                for (int i=0; i<count; ++i) {
+                    final int length = fill(input, staging, 4).getInt();
+                    if (length >= 0) {
+                        bytes = length > bytes.length ? new byte[Math.max(length, bytes.length * 2)] : bytes;
+                        for (int read = 0; read < length; ) {
+                            final int chunk = Math.min(length - read, STAGING_SIZE);
+                            fill(input, staging, chunk).get(bytes, read, chunk);
+                            read += chunk;
+                        }
+                        values[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                    }
+                }
+                return Array.of(values);
+            } else {
+                final LongCodec<Object> codec = (LongCodec<Object>)LongCodec.ofMillis(type);
+                final Array<Object> values = Array.of((Class<Object>)type, count);
+                for (int i=0; i<count; ++i) values.setValue(i, codec.decode(fill(input, staging, 8).getLong()));
+                return values;
+            }
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+
+    /**
+     * Ensures the staging buffer has at least the number of bytes specified, reading more from the input if required
+     * @param input     the input to read from
+     * @param staging   the staging buffer
+     * @param required  the number of bytes required, which must not exceed the buffer capacity
+     * @return          the staging buffer
+     */
+    private static ByteBuffer fill(InputStream input, ByteBuffer staging, int required) throws IOException {
+        if (staging.remaining() < required) {
+            staging.compact();
+            while (staging.position() < required) {
+                final int count = input.read(staging.array(), staging.position(), staging.remaining());
+                if (count < 0) {
+                    throw new EOFException("Unexpected end of block in columnar file");
+                } else {
+                    staging.position(staging.position() + count);
+                }
+            }
+            staging.flip();
+        }
+        return staging;
+    }
+
+
+    /**
+     * Writes the contents of the staging buffer to the output and clears it
+     * @param staging   the staging buffer
+     * @param output    the output stream
+     * @return          the number of bytes written
+     */
+    private static int flush(ByteBuffer staging, OutputStream output) throws IOException {
+        final int count = staging.position();
+        output.write(staging.array(), 0, count);
+        staging.clear();
+        return count;
+    }
+
+
+    /**
+     * An InputStream over a region of a file that maps one segment of the region at a time
+     */
+    private static class MappedInputStream extends InputStream {
+
+        private FileChannel channel;
+        private long position;
+        private long end;
+        private ByteBuffer segment;
+
+        /**
+         * Constructor
+         * @param channel   the file channel
+         * @param offset    the file offset of region
+         * @param length    the length of region
+         */
+        MappedInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (segment == null || !segment.hasRemaining()) {
+                if (position >= end) {
+                    return -1;
+                } else {
+                    final long size = Math.min(SEGMENT_SIZE, end - position);
+                    this.segment = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                    this.position += size;
+                }
+            }
+            final int count = Math.min(length, segment.remaining());
+            this.segment.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
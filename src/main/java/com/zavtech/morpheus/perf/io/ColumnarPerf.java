@@ -0,0 +1,97 @@
+package com.zavtech.morpheus.perf.io;
+
+import java.awt.*;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class ColumnarPerf {
+
+    public static void main(String[] args) {
+
+        final int rowCount = 5000000;
+        final int colCount = 10;
+        final File dir = new File(System.getProperty("java.io.tmpdir"), "morpheus-columnar");
+        final File csvFile = new File(dir, "frame.csv");
+        final File colFile = new File(dir, "frame.col");
+        final File zipFile = new File(dir, "frame-deflated.col");
+        dir.mkdirs();
+
+        final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            for (int i=0; i<colCount; ++i) {
+                columns.add("C" + i, Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+            }
+        });
+
+        DataFrame<String,String> writeTimes = PerfStat.run(5, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("CSV", () -> {
+                frame.write().csv(options -> options.setFile(csvFile.getAbsolutePath()));
+                return frame;
+            });
+
+            tasks.put("Columnar", () -> {
+                frame.write().to(new ColumnarSink<>(), options -> options.setFile(colFile));
+                return frame;
+            });
+
+            tasks.put("Columnar(deflated)", () -> {
+                frame.write().to(new ColumnarSink<>(), options -> {
+                    options.setFile(zipFile);
+                    options.setCompressed(true);
+                });
+                return frame;
+            });
+
+        });
+
+        DataFrame<String,String> readTimes = PerfStat.run(5, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("CSV", () -> DataFrame.read().csv(csvFile.getAbsolutePath()));
+
+            tasks.put("Columnar", () -> new ColumnarSource<Integer,String>().read(options -> {
+                options.setFile(colFile);
+            }));
+
+            tasks.put("Columnar(deflated)", () -> new ColumnarSource<Integer,String>().read(options -> {
+                options.setFile(zipFile);
+            }));
+
+            tasks.put("Columnar(2 columns)", () -> new ColumnarSource<Integer,String>().read(options -> {
+                options.setFile(colFile);
+                options.setColPredicate(colKey -> colKey.equals("C0") || colKey.equals("C1"));
+            }));
+
+            tasks.put("Columnar(open only)", () -> {
+                try (ColumnarFile<Integer,String> file = ColumnarFile.open(colFile)) {
+                    return file.colCount();
+                }
+            });
+
+        });
+
+        Chart.create().withBarPlot(writeTimes, false, chart -> {
+            chart.title().withText("DataFrame Write Times, CSV vs Columnar (5 Million rows x 10 columns of Doubles)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+
+        Chart.create().withBarPlot(readTimes, false, chart -> {
+            chart.title().withText("DataFrame Read Times, CSV vs Columnar (5 Million rows x 10 columns of Doubles)");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+    }
+}
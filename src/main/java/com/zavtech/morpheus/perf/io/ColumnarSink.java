@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSink;
+import com.zavtech.morpheus.util.IO;
+import com.zavtech.morpheus.util.Initialiser;
+
+/**
+ * A DataFrameSink that writes a DataFrame to a file in a typed columnar binary format that can be opened with ColumnarFile
+ *
+ * <p>Each column is written as a contiguous block of primitive values that can optionally be deflated, and the
+ * row and column keys are written as blocks of their own. See ColumnarFormat for the layout of the file.</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ColumnarSink<R,C> implements DataFrameSink<R,C,ColumnarSinkOptions<C>> {
+
+
+    @Override
+    public void write(DataFrame<R,C> frame, Consumer<ColumnarSinkOptions<C>> configurator) {
+        final ColumnarSinkOptions<C> options = Initialiser.apply(new ColumnarSinkOptions<>(), configurator);
+        options.validate();
+        final File file = options.getFile();
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new DataFrameException("Unable to create directory for columnar file: " + dir);
+        }
+        RandomAccessFile output = null;
+        try {
+            output = new RandomAccessFile(file, "rw");
+            output.setLength(0L);
+            final FileChannel channel = output.getChannel();
+            final List<ColumnarFormat.Block> blocks = new ArrayList<>(frame.colCount() + 2);
+            final Array<R> rowKeys = frame.rows().keyArray();
+            final Array<C> colKeys = frame.cols().keyArray();
+            channel.write(ByteBuffer.wrap(ColumnarFormat.MAGIC));
+            final ByteBuffer version = ByteBuffer.allocate(4).putInt(ColumnarFormat.VERSION);
+            version.flip();
+            channel.write(version);
+            blocks.add(writeKeys(channel, rowKeys, "row"));
+            blocks.add(writeKeys(channel, colKeys, "column"));
+            for (int colOrdinal=0; colOrdinal<colKeys.length(); ++colOrdinal) {
+                final C colKey = colKeys.getValue(colOrdinal);
+                final Class<?> type = frame.cols().type(colKey);
+                if (!ColumnarFormat.isSupported(type)) {
+                    throw new DataFrameException("Unsupported type for columnar column " + colKey + ": " + type.getName());
+                } else {
+                    final boolean compressed = options.isCompressed(colKey);
+                    final int level = options.getCompressionLevel();
+                    final ColumnValues values = ColumnValues.of(frame.data(), colOrdinal);
+                    blocks.add(ColumnarFormat.write(channel, type, values, rowKeys.length(), compressed, level));
+                }
+            }
+            writeDirectory(channel, blocks);
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to write DataFrame to columnar file: " + file, ex);
+        } finally {
+            IO.close(output);
+        }
+    }
+
+
+    /**
+     * Writes a block of row or column keys, which are never compressed
+     * @param channel   the channel to write to
+     * @param keys      the keys to write
+     * @param axis      the axis name for error reporting
+     * @return          the block descriptor
+     */
+    private ColumnarFormat.Block writeKeys(FileChannel channel, Array<?> keys, String axis) throws IOException {
+        if (!ColumnarFormat.isSupported(keys.type())) {
+            throw new DataFrameException("Unsupported " + axis + " key type for columnar file: " + keys.type().getName());
+        } else {
+            return ColumnarFormat.write(channel, keys.type(), ColumnValues.of(keys), keys.length(), false, 0);
+        }
+    }
+
+
+    /**
+     * Writes the block directory followed by the footer
+     * @param channel   the channel to write to
+     * @param blocks    the block descriptors
+     */
+    private void writeDirectory(FileChannel channel, List<ColumnarFormat.Block> blocks) throws IOException {
+        final long offset = channel.position();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(blocks.size() * 64);
+        final DataOutputStream directory = new DataOutputStream(bytes);
+        directory.writeInt(blocks.size());
+        for (ColumnarFormat.Block block : blocks) {
+            block.write(directory);
+        }
+        directory.flush();
+        final ByteBuffer footer = ByteBuffer.allocate(ColumnarFormat.FOOTER_SIZE);
+        footer.putLong(offset).putInt(bytes.size()).put(ColumnarFormat.MAGIC).flip();
+        channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+        channel.write(footer);
+    }
+}
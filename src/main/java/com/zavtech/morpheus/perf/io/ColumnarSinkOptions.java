@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+
+/**
+ * The options to configure a ColumnarSink
+ *
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ColumnarSinkOptions<C> {
+
+    private File file;
+    private Predicate<C> compressed = colKey -> false;
+    private int compressionLevel = Deflater.BEST_SPEED;
+
+
+    /**
+     * Constructor
+     */
+    public ColumnarSinkOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the file to write
+     * @return  the file to write
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns true if the column with the key specified should be compressed
+     * @param colKey    the column key
+     * @return          true to compress column
+     */
+    public boolean isCompressed(C colKey) {
+        return compressed.test(colKey);
+    }
+
+    /**
+     * Returns the deflater level used for compressed columns
+     * @return  the compression level
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the file to write
+     * @param file  the file to write
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the path of the file to write
+     * @param path  the file path
+     */
+    public void setFile(String path) {
+        this.file = new File(path);
+    }
+
+    /**
+     * Sets whether all columns should be compressed
+     * @param compressed    true to compress all columns
+     */
+    public void setCompressed(boolean compressed) {
+        this.compressed = colKey -> compressed;
+    }
+
+    /**
+     * Sets the predicate that selects the columns to compress
+     * @param compressed    the predicate that selects columns to compress
+     */
+    public void setCompressed(Predicate<C> compressed) {
+        this.compressed = Objects.requireNonNull(compressed, "The compressed predicate cannot be null");
+    }
+
+    /**
+     * Sets the deflater level used for compressed columns
+     * @param compressionLevel  the compression level, from 1 to 9
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Validates that these options are complete and consistent
+     */
+    void validate() {
+        Objects.requireNonNull(file, "The file to write must be specified");
+        if (compressionLevel < Deflater.BEST_SPEED || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("The compression level must be in the range 1-9: " + compressionLevel);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.util.function.Consumer;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSource;
+import com.zavtech.morpheus.util.IO;
+import com.zavtech.morpheus.util.Initialiser;
+
+/**
+ * A DataFrameSource that reads a DataFrame from a file written by ColumnarSink, decoding only the selected columns
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ColumnarSource<R,C> extends DataFrameSource<R,C,ColumnarSourceOptions<R,C>> {
+
+
+    @Override
+    public DataFrame<R,C> read(Consumer<ColumnarSourceOptions<R,C>> configurator) throws DataFrameException {
+        final ColumnarSourceOptions<R,C> options = Initialiser.apply(new ColumnarSourceOptions<>(), configurator);
+        options.validate();
+        ColumnarFile<R,C> file = null;
+        try {
+            file = ColumnarFile.open(options.getFile());
+            return file.toDataFrame(options.getColPredicate());
+        } finally {
+            IO.close(file);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import com.zavtech.morpheus.frame.DataFrameSource;
+
+/**
+ * The options to configure a ColumnarSource
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ColumnarSourceOptions<R,C> implements DataFrameSource.Options<R,C> {
+
+    private File file;
+    private Predicate<C> colPredicate = colKey -> true;
+
+
+    /**
+     * Constructor
+     */
+    public ColumnarSourceOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the file to read
+     * @return  the file to read
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the predicate that selects the columns to read
+     * @return  the column predicate
+     */
+    public Predicate<C> getColPredicate() {
+        return colPredicate;
+    }
+
+    /**
+     * Sets the file to read
+     * @param file  the file to read
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the path of the file to read
+     * @param path  the file path
+     */
+    public void setFile(String path) {
+        this.file = new File(path);
+    }
+
+    /**
+     * Sets the predicate that selects the columns to read, so that other columns are never paged in
+     * @param colPredicate  the column predicate
+     */
+    public void setColPredicate(Predicate<C> colPredicate) {
+        this.colPredicate = Objects.requireNonNull(colPredicate, "The column predicate cannot be null");
+    }
+
+    @Override
+    public void validate() {
+        Objects.requireNonNull(file, "The file to read must be specified");
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("The columnar file does not exist: " + file);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that CSV fields are formatted into as UTF-8, with fast paths for primitives and dates
+ *
+ * @author  Xavier Witdouck
+ */
+final class CsvBuffer {
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LONG_MIN = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] bytes;
+    private int length;
+
+
+    /**
+     * Constructor
+     * @param capacity  the initial capacity in bytes
+     */
+    CsvBuffer(int capacity) {
+        this.bytes = new byte[Math.max(capacity, 64)];
+    }
+
+
+    /**
+     * Returns the number of bytes in this buffer
+     * @return  the number of bytes
+     */
+    int length() {
+        return length;
+    }
+
+
+    /**
+     * Clears this buffer for reuse, retaining its capacity
+     */
+    void clear() {
+        this.length = 0;
+    }
+
+
+    /**
+     * Appends a single byte
+     * @param value the byte to append
+     */
+    void append(byte value) {
+        ensure(1);
+        bytes[length++] = value;
+    }
+
+
+    /**
+     * Appends an array of bytes
+     * @param values    the bytes to append
+     */
+    void append(byte[] values) {
+        ensure(values.length);
+        System.arraycopy(values, 0, bytes, length, values.length);
+        this.length += values.length;
+    }
+
+
+    /**
+     * Appends a boolean as true or false
+     * @param value the value to append
+     */
+    void appendBoolean(boolean value) {
+        append(value ? TRUE : FALSE);
+    }
+
+
+    /**
+     * Appends the decimal digits of a long
+     * @param value the value to append
+     */
+    void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            append(LONG_MIN);
+        } else {
+            ensure(20);
+            if (value < 0) {
+                bytes[length++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (long limit = 10; digits < 19 && value >= limit; limit *= 10) digits++;
+            for (int i=length + digits - 1; i>=length; --i) {
+                bytes[i] = (byte)('0' + value % 10);
+                value /= 10;
+            }
+            this.length += digits;
+        }
+    }
+
+
+    /**
+     * Appends the shortest round trip representation of a double
+     * @param value the value to append
+     */
+    void appendDouble(double value) {
+        ensure(DoubleFormat.MAX_LENGTH);
+        this.length = DoubleFormat.format(value, bytes, length);
+    }
+
+
+    /**
+     * Appends a date in ISO yyyy-MM-dd format, falling back to toString() for years outside 0 to 9999
+     * @param value the value to append
+     */
+    void appendDate(LocalDate value) {
+        final int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            appendText(value.toString(), (byte)0);
+        } else {
+            ensure(10);
+            final int month = value.getMonthValue();
+            final int day = value.getDayOfMonth();
+            bytes[length++] = (byte)('0' + year / 1000);
+            bytes[length++] = (byte)('0' + year / 100 % 10);
+            bytes[length++] = (byte)('0' + year / 10 % 10);
+            bytes[length++] = (byte)('0' + year % 10);
+            bytes[length++] = '-';
+            bytes[length++] = (byte)('0' + month / 10);
+            bytes[length++] = (byte)('0' + month % 10);
+            bytes[length++] = '-';
+            bytes[length++] = (byte)('0' + day / 10);
+            bytes[length++] = (byte)('0' + day % 10);
+        }
+    }
+
+
+    /**
+     * Appends text as UTF-8, enclosing it in double quotes if it contains the separator, a quote or a line break
+     * @param text      the text to append
+     * @param separator the single byte separator, or zero to never quote
+     */
+    void appendText(CharSequence text, byte separator) {
+        final int count = text.length();
+        boolean quote = false;
+        boolean ascii = true;
+        for (int i=0; i<count; ++i) {
+            final char c = text.charAt(i);
+            if (c >= 0x80) {
+                ascii = false;
+            } else if (separator != 0 && (c == separator || c == '"' || c == '\n' || c == '\r')) {
+                quote = true;
+            }
+        }
+        if (!quote && ascii) {
+            ensure(count);
+            for (int i=0; i<count; ++i) {
+                bytes[length++] = (byte)text.charAt(i);
+            }
+        } else {
+            final String value = text.toString();
+            final byte[] encoded = (quote ? "\"" + value.replace("\"", "\"\"") + "\"" : value).getBytes(StandardCharsets.UTF_8);
+            append(encoded);
+        }
+    }
+
+
+    /**
+     * Writes the contents of this buffer to the channel at its current position
+     * @param channel   the channel to write to
+     */
+    void writeTo(FileChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+
+    /**
+     * Ensures there is capacity for the number of additional bytes specified
+     * @param count the number of additional bytes
+     */
+    private void ensure(int count) {
+        if (length + count > bytes.length) {
+            this.bytes = Arrays.copyOf(bytes, Math.max(length + count, bytes.length * 2));
+        }
+    }
+}
@@ -0,0 +1,523 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.nio.charset.Charset;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.array.ArrayType;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.perf.array.LongCodec;
+
+/**
+ * A growable primitive buffer that holds the parsed values of one column within one chunk of a CSV file.
+ *
+ * <p>Values arrive as ByteSlice views over the mapped file and are parsed with SliceParsers, so only String
+ * columns allocate per value. The type of a column is either fixed up front, or inferred from the first non-null
+ * value and widened along Integer, Long, Double as later values require. A value that would force a typed column to become a
+ * String cannot be represented from the parsed primitives, so add() returns false and the caller re-parses
+ * the chunk with the column fixed as a String. LocalDateTime values are held as epoch millis like the Morpheus
+ * arrays they end up in, which keeps open ended sentinels such as 9999-12-31T00:00:00 within range.</p>
+ *
+ * <p>String columns are dictionary encoded while the number of distinct values stays within a threshold, in which
+ * case the column holds an int code per value and each distinct value is decoded only once. A column that exceeds
+ * the threshold is converted to plain Strings and continues without a dictionary.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+final class CsvColumn {
+
+    private static final LongCodec<LocalDate> DATE_CODEC = LongCodec.ofLocalDate();
+    private static final LongCodec<LocalTime> TIME_CODEC = LongCodec.ofLocalTime();
+    private static final LongCodec<LocalDateTime> DATE_TIME_CODEC = LongCodec.ofLocalDateTimeMillis();
+
+    private int size;
+    private ArrayType type;
+    private boolean fixed;
+    private Charset charset;
+    private FixedDateTimeFormat format;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private boolean[] booleans;
+    private String[] strings;
+    private int dictionaryThreshold;
+    private CsvDictionary dictionary;
+
+
+    /**
+     * Constructor
+     * @param type      the fixed type for column, null to infer
+     * @param format    the optional fixed width format for a date or time column, null for ISO
+     * @param charset   the charset to decode String values
+     * @param dictionaryThreshold   the maximum number of distinct values to dictionary encode a String column, 0 to disable
+     */
+    CsvColumn(ArrayType type, FixedDateTimeFormat format, Charset charset, int dictionaryThreshold) {
+        this.fixed = type != null;
+        this.format = format;
+        this.charset = charset;
+        this.dictionaryThreshold = dictionaryThreshold;
+        if (format != null && type != ArrayType.LOCAL_DATE && type != ArrayType.LOCAL_TIME && type != ArrayType.LOCAL_DATETIME) {
+            throw new IllegalArgumentException("A date time format only applies to LocalDate, LocalTime or LocalDateTime columns");
+        } else if (type != null) {
+            this.init(type, 1024);
+        }
+    }
+
+
+    /**
+     * Returns the number of values in this column
+     * @return  the number of values
+     */
+    int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the type of this column, null if only nulls have been added and the type was not fixed
+     * @return  the column type, which may be null
+     */
+    ArrayType type() {
+        return type;
+    }
+
+
+    /**
+     * Returns the dictionary for a dictionary encoded String column
+     * @return  the dictionary, null if this column is not dictionary encoded
+     */
+    CsvDictionary dictionary() {
+        return dictionary;
+    }
+
+
+    /**
+     * Returns the dictionary codes of a dictionary encoded String column, of which the first size() are valid
+     * @return  the dictionary codes, -1 for null
+     */
+    int[] codes() {
+        return ints;
+    }
+
+
+    /**
+     * Returns the column type code for the Java type specified
+     * @param type  the Java type
+     * @return      the column type code
+     */
+    static ArrayType typeOf(Class<?> type) {
+        if (type == Integer.class || type == int.class) {
+            return ArrayType.INTEGER;
+        } else if (type == Long.class || type == long.class) {
+            return ArrayType.LONG;
+        } else if (type == Double.class || type == double.class) {
+            return ArrayType.DOUBLE;
+        } else if (type == Boolean.class || type == boolean.class) {
+            return ArrayType.BOOLEAN;
+        } else if (type == LocalDate.class) {
+            return ArrayType.LOCAL_DATE;
+        } else if (type == LocalTime.class) {
+            return ArrayType.LOCAL_TIME;
+        } else if (type == LocalDateTime.class) {
+            return ArrayType.LOCAL_DATETIME;
+        } else if (type == String.class) {
+            return ArrayType.STRING;
+        } else {
+            throw new IllegalArgumentException("Unsupported CSV column type: " + type);
+        }
+    }
+
+
+    /**
+     * Returns the narrowest column type that can represent the value
+     * @param value     the non-null value
+     * @return          the inferred column type
+     */
+    static ArrayType infer(ByteSlice value) {
+        if (SliceParsers.isInteger(value)) {
+            try {
+                final long result = SliceParsers.parseLong(value);
+                return result == (int)result ? ArrayType.INTEGER : ArrayType.LONG;
+            } catch (NumberFormatException ex) {
+                return ArrayType.DOUBLE;
+            }
+        } else if (SliceParsers.isDecimal(value)) {
+            return ArrayType.DOUBLE;
+        } else if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+            return ArrayType.BOOLEAN;
+        } else if (SliceParsers.isIsoDate(value)) {
+            return ArrayType.LOCAL_DATE;
+        } else if (SliceParsers.isIsoTime(value)) {
+            return ArrayType.LOCAL_TIME;
+        } else if (SliceParsers.isIsoDateTime(value)) {
+            return ArrayType.LOCAL_DATETIME;
+        } else {
+            return ArrayType.STRING;
+        }
+    }
+
+
+    /**
+     * Returns the narrowest type that can represent values of both types specified
+     * @param t1    the first type, which may be null
+     * @param t2    the second type, which may be null
+     * @return      the widest of the two types
+     */
+    static ArrayType widest(ArrayType t1, ArrayType t2) {
+        if (t1 == null || t1 == t2) {
+            return t2;
+        } else if (t2 == null) {
+            return t1;
+        } else if (isNumeric(t1) && isNumeric(t2)) {
+            return rank(t1) > rank(t2) ? t1 : t2;
+        } else {
+            return ArrayType.STRING;
+        }
+    }
+
+
+    /**
+     * Adds a null value to this column
+     */
+    void addNull() {
+        if (type == null) {
+            this.size++;
+        } else {
+            this.ensureCapacity();
+            switch (type) {
+                case INTEGER:           ints[size++] = 0;                   break;
+                case LONG:              longs[size++] = 0L;                 break;
+                case DOUBLE:            doubles[size++] = Double.NaN;       break;
+                case BOOLEAN:           booleans[size++] = false;           break;
+                case LOCAL_DATE:        longs[size++] = LongCodec.NULL;     break;
+                case LOCAL_TIME:        longs[size++] = LongCodec.NULL;     break;
+                case LOCAL_DATETIME:    longs[size++] = LongCodec.NULL;     break;
+                default:
+                    if (dictionary != null) ints[size++] = -1;
+                    else strings[size++] = null;
+                    break;
+            }
+        }
+    }
+
+
+    /**
+     * Adds a value to this column, widening the column type if necessary
+     * @param value     the value to add, null for a missing value
+     * @return          true if added, false if the column must be re-parsed as a String column
+     */
+    boolean add(ByteSlice value) {
+        if (value == null) {
+            this.addNull();
+            return true;
+        } else if (type == null) {
+            this.init(infer(value), Math.max(1024, size * 2));
+        }
+        this.ensureCapacity();
+        try {
+            switch (type) {
+                case INTEGER:
+                    this.ints[size] = SliceParsers.parseInt(value);
+                    break;
+                case LONG:
+                    this.longs[size] = SliceParsers.parseLong(value);
+                    break;
+                case DOUBLE:
+                    this.doubles[size] = SliceParsers.parseDouble(value);
+                    break;
+                case BOOLEAN:
+                    if (value.equalsIgnoreCase("true")) this.booleans[size] = true;
+                    else if (value.equalsIgnoreCase("false")) this.booleans[size] = false;
+                    else throw new IllegalArgumentException("Not a boolean");
+                    break;
+                case LOCAL_DATE:
+                    this.longs[size] = format != null ? format.parseEpochDay(value) : SliceParsers.parseIsoDate(value);
+                    break;
+                case LOCAL_TIME:
+                    this.longs[size] = format != null ? format.parseNanoOfDay(value) : SliceParsers.parseIsoTime(value);
+                    break;
+                case LOCAL_DATETIME:
+                    this.longs[size] = format != null ? format.parseEpochMillis(value) : SliceParsers.parseIsoDateTimeMillis(value);
+                    break;
+                default:
+                    final int code = dictionary != null ? dictionary.code(value, charset) : -1;
+                    if (code >= 0) {
+                        this.ints[size] = code;
+                    } else {
+                        if (dictionary != null) this.decodeDictionary();
+                        this.strings[size] = value.toString(charset);
+                    }
+                    break;
+            }
+            this.size++;
+            return true;
+        } catch (IllegalArgumentException | DateTimeException | ArithmeticException ex) {
+            return widen(value);
+        }
+    }
+
+
+    /**
+     * Widens this column so that it can hold the value specified, and then adds the value
+     * @param value     the value that could not be parsed as the current type
+     * @return          true if added, false if the column must be re-parsed as a String column
+     */
+    private boolean widen(ByteSlice value) {
+        if (fixed) {
+            throw new DataFrameException("Failed to parse '" + value.toString(charset) + "' as " + type + " at row " + size);
+        } else {
+            final ArrayType target = widest(type, infer(value));
+            if (target == type || target == ArrayType.STRING) {
+                return false;
+            } else {
+                this.convert(target);
+                return add(value);
+            }
+        }
+    }
+
+
+    /**
+     * Converts the values in this numeric column to a wider numeric type
+     * @param target    the target type
+     */
+    private void convert(ArrayType target) {
+        final int capacity = capacity();
+        if (target == ArrayType.LONG) {
+            this.longs = new long[capacity];
+            for (int i=0; i<size; ++i) longs[i] = ints[i];
+            this.ints = null;
+        } else if (target == ArrayType.DOUBLE) {
+            this.doubles = new double[capacity];
+            if (type == ArrayType.INTEGER) {
+                for (int i=0; i<size; ++i) doubles[i] = ints[i];
+            } else {
+                for (int i=0; i<size; ++i) doubles[i] = longs[i];
+            }
+            this.ints = null;
+            this.longs = null;
+        }
+        this.type = target;
+    }
+
+
+    /**
+     * Replaces the dictionary codes of this column with decoded Strings, after the dictionary threshold is exceeded
+     */
+    private void decodeDictionary() {
+        this.strings = new String[ints.length];
+        for (int i=0; i<size; ++i) {
+            strings[i] = dictionary.value(ints[i]);
+        }
+        this.ints = null;
+        this.dictionary = null;
+    }
+
+
+    /**
+     * Copies the values of this column into a target array of the type specified
+     * @param target        the target array created by newArray()
+     * @param targetType    the type of the target array
+     * @param offset        the offset in target to copy to
+     */
+    void copyTo(Object target, ArrayType targetType, int offset) {
+        if (type == null) {
+            this.fillNulls(target, targetType, offset);
+        } else if (type == targetType && dictionary != null) {
+            final String[] values = (String[])target;
+            for (int i=0; i<size; ++i) values[offset + i] = dictionary.value(ints[i]);
+        } else if (type == targetType) {
+            switch (type) {
+                case INTEGER:   System.arraycopy(ints, 0, target, offset, size);      break;
+                case DOUBLE:    System.arraycopy(doubles, 0, target, offset, size);   break;
+                case BOOLEAN:   System.arraycopy(booleans, 0, target, offset, size);  break;
+                case STRING:    System.arraycopy(strings, 0, target, offset, size);   break;
+                default:        System.arraycopy(longs, 0, target, offset, size);     break;
+            }
+        } else if (targetType == ArrayType.LONG && type == ArrayType.INTEGER) {
+            final long[] values = (long[])target;
+            for (int i=0; i<size; ++i) values[offset + i] = ints[i];
+        } else if (targetType == ArrayType.DOUBLE && type == ArrayType.INTEGER) {
+            final double[] values = (double[])target;
+            for (int i=0; i<size; ++i) values[offset + i] = ints[i];
+        } else if (targetType == ArrayType.DOUBLE && type == ArrayType.LONG) {
+            final double[] values = (double[])target;
+            for (int i=0; i<size; ++i) values[offset + i] = longs[i];
+        } else {
+            throw new IllegalStateException("Cannot copy " + type + " column into " + targetType + " array");
+        }
+    }
+
+
+    /**
+     * Returns a new primitive array of the length specified for the column type
+     * @param type      the column type, null if all values are null
+     * @param length    the array length
+     * @return          the newly created array
+     */
+    static Object newArray(ArrayType type, int length) {
+        if (type == null) {
+            return new String[length];
+        } else {
+            switch (type) {
+                case INTEGER:   return new int[length];
+                case DOUBLE:    return new double[length];
+                case BOOLEAN:   return new boolean[length];
+                case STRING:    return new String[length];
+                default:        return new long[length];
+            }
+        }
+    }
+
+
+    /**
+     * Returns a Morpheus array that wraps or decodes the primitive array created by newArray()
+     * @param type      the column type, null if all values are null
+     * @param values    the primitive values
+     * @return          the Morpheus array
+     */
+    static Array<?> toArray(ArrayType type, Object values) {
+        if (type == null) {
+            return Array.of(String.class, ((String[])values).length);
+        } else {
+            switch (type) {
+                case INTEGER:           return Array.of((int[])values);
+                case LONG:              return Array.of((long[])values);
+                case DOUBLE:            return Array.of((double[])values);
+                case BOOLEAN:           return Array.of((boolean[])values);
+                case LOCAL_DATE:        return decode(DATE_CODEC, (long[])values);
+                case LOCAL_TIME:        return decode(TIME_CODEC, (long[])values);
+                case LOCAL_DATETIME:    return decode(DATE_TIME_CODEC, (long[])values);
+                default:                return Array.of((String[])values);
+            }
+        }
+    }
+
+
+    /**
+     * Returns a Morpheus array of the values decoded from epoch encoded longs
+     * @param codec     the codec to decode values
+     * @param values    the encoded values
+     * @return          the Morpheus array
+     */
+    private static <T> Array<T> decode(LongCodec<T> codec, long[] values) {
+        final Array<T> array = Array.of(codec.type(), values.length);
+        for (int i=0; i<values.length; ++i) {
+            array.setValue(i, codec.decode(values[i]));
+        }
+        return array;
+    }
+
+
+    /**
+     * Fills the target array with nulls for the size of this column
+     * @param target        the target array
+     * @param targetType    the type of target array
+     * @param offset        the offset in target
+     */
+    private void fillNulls(Object target, ArrayType targetType, int offset) {
+        if (targetType == ArrayType.DOUBLE) {
+            Arrays.fill((double[])target, offset, offset + size, Double.NaN);
+        } else if (targetType == ArrayType.LOCAL_DATE || targetType == ArrayType.LOCAL_TIME || targetType == ArrayType.LOCAL_DATETIME) {
+            Arrays.fill((long[])target, offset, offset + size, LongCodec.NULL);
+        }
+    }
+
+
+    /**
+     * Initializes the buffers for the type specified, and fills nulls that were added before the type was known
+     * @param type      the column type
+     * @param capacity  the initial capacity
+     */
+    private void init(ArrayType type, int capacity) {
+        this.type = type;
+        switch (type) {
+            case INTEGER:           this.ints = new int[capacity];          break;
+            case LONG:              this.longs = new long[capacity];        break;
+            case DOUBLE:            this.doubles = new double[capacity];    break;
+            case BOOLEAN:           this.booleans = new boolean[capacity];  break;
+            case LOCAL_DATE:        this.longs = new long[capacity];        break;
+            case LOCAL_TIME:        this.longs = new long[capacity];        break;
+            case LOCAL_DATETIME:    this.longs = new long[capacity];        break;
+            case STRING:
+                if (dictionaryThreshold > 0) {
+                    this.ints = new int[capacity];
+                    this.dictionary = new CsvDictionary(dictionaryThreshold);
+                } else {
+                    this.strings = new String[capacity];
+                }
+                break;
+            default:    throw new IllegalArgumentException("Unsupported CSV column type: " + type);
+        }
+        final int nullCount = size;
+        this.size = 0;
+        for (int i=0; i<nullCount; ++i) {
+            this.addNull();
+        }
+    }
+
+
+    /**
+     * Returns the capacity of the active buffer
+     * @return  the buffer capacity
+     */
+    private int capacity() {
+        switch (type) {
+            case INTEGER:   return ints.length;
+            case DOUBLE:    return doubles.length;
+            case BOOLEAN:   return booleans.length;
+            case STRING:    return dictionary != null ? ints.length : strings.length;
+            default:        return longs.length;
+        }
+    }
+
+
+    /**
+     * Ensures the active buffer has capacity for one more value
+     */
+    private void ensureCapacity() {
+        final int capacity = capacity();
+        if (size == capacity) {
+            final int newCapacity = capacity + (capacity >> 1) + 1;
+            switch (type) {
+                case INTEGER:   this.ints = Arrays.copyOf(ints, newCapacity);          break;
+                case DOUBLE:    this.doubles = Arrays.copyOf(doubles, newCapacity);    break;
+                case BOOLEAN:   this.booleans = Arrays.copyOf(booleans, newCapacity);  break;
+                case STRING:
+                    if (dictionary != null) this.ints = Arrays.copyOf(ints, newCapacity);
+                    else this.strings = Arrays.copyOf(strings, newCapacity);
+                    break;
+                default:        this.longs = Arrays.copyOf(longs, newCapacity);        break;
+            }
+        }
+    }
+
+
+    private static boolean isNumeric(ArrayType type) {
+        return type == ArrayType.INTEGER || type == ArrayType.LONG || type == ArrayType.DOUBLE;
+    }
+
+
+    private static int rank(ArrayType type) {
+        return type == ArrayType.INTEGER ? 0 : type == ArrayType.LONG ? 1 : 2;
+    }
+}
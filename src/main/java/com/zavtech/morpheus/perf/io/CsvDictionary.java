@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dictionary of the distinct values of a String column within one CSV chunk, looked up by raw bytes
+ *
+ * <p>Fields are hashed and compared as bytes in the mapped file, so a value that has been seen before is resolved
+ * to its code without decoding a String. Only the first occurrence of each distinct byte sequence is decoded, and
+ * byte sequences that decode to an existing value, such as quoted and unquoted forms, share its code.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+final class CsvDictionary {
+
+    private int threshold;
+    private int entryCount;
+    private int[] slots;
+    private int[] hashes;
+    private int[] codes;
+    private byte[][] keys;
+    private List<String> values = new ArrayList<>();
+    private Map<String,Integer> codeMap = new HashMap<>();
+
+
+    /**
+     * Constructor
+     * @param threshold the maximum number of distinct values
+     */
+    CsvDictionary(int threshold) {
+        this.threshold = threshold;
+        this.slots = new int[64];
+        this.hashes = new int[16];
+        this.codes = new int[16];
+        this.keys = new byte[16][];
+    }
+
+
+    /**
+     * Returns the number of distinct values
+     * @return  the number of distinct values
+     */
+    int size() {
+        return values.size();
+    }
+
+
+    /**
+     * Returns the distinct values, indexed by code
+     * @return  the distinct values
+     */
+    List<String> values() {
+        return values;
+    }
+
+
+    /**
+     * Returns the value for the code specified
+     * @param code  the code, -1 for null
+     * @return      the value, or null
+     */
+    String value(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+
+    /**
+     * Returns the code for the value, adding it if it has not been seen before
+     * @param value     the value to look up
+     * @param charset   the charset to decode a new value
+     * @return          the code for value, or -1 if adding it would exceed the threshold
+     */
+    int code(ByteSlice value, Charset charset) {
+        final int length = value.length();
+        int hash = length;
+        for (int i=0; i<length; ++i) {
+            hash = 31 * hash + value.byteAt(i);
+        }
+        final int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            final int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && matches(keys[entry], value)) {
+                return codes[entry];
+            }
+            slot = (slot + 1) & mask;
+        }
+        final String text = value.toString(charset);
+        final Integer existing = codeMap.get(text);
+        final int code;
+        if (existing != null) {
+            code = existing;
+        } else if (values.size() >= threshold) {
+            return -1;
+        } else {
+            code = values.size();
+            this.values.add(text);
+            this.codeMap.put(text, code);
+        }
+        this.addEntry(slot, hash, value, code);
+        return code;
+    }
+
+
+    /**
+     * Records the bytes of a value in the lookup table
+     * @param slot      the empty slot for the entry
+     * @param hash      the hash of the value bytes
+     * @param value     the value bytes
+     * @param code      the code for value
+     */
+    private void addEntry(int slot, int hash, ByteSlice value, int code) {
+        if (entryCount == keys.length) {
+            this.hashes = Arrays.copyOf(hashes, entryCount * 2);
+            this.codes = Arrays.copyOf(codes, entryCount * 2);
+            this.keys = Arrays.copyOf(keys, entryCount * 2);
+        }
+        final byte[] bytes = new byte[value.length()];
+        for (int i=0; i<bytes.length; ++i) {
+            bytes[i] = value.byteAt(i);
+        }
+        this.hashes[entryCount] = hash;
+        this.codes[entryCount] = code;
+        this.keys[entryCount] = bytes;
+        this.slots[slot] = ++entryCount;
+        if (entryCount * 2 > slots.length) {
+            this.rehash();
+        }
+    }
+
+
+    /**
+     * Doubles the size of the slot table and re-inserts all entries
+     */
+    private void rehash() {
+        this.slots = new int[slots.length * 2];
+        final int mask = slots.length - 1;
+        for (int entry=0; entry<entryCount; ++entry) {
+            int slot = mix(hashes[entry]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.slots[slot] = entry + 1;
+        }
+    }
+
+
+    /**
+     * Returns true if the bytes match the value
+     * @param bytes     the bytes of an existing entry
+     * @param value     the value to compare
+     * @return          true if equal
+     */
+    private static boolean matches(byte[] bytes, ByteSlice value) {
+        if (bytes.length != value.length()) {
+            return false;
+        } else {
+            for (int i=0; i<bytes.length; ++i) {
+                if (bytes[i] != value.byteAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
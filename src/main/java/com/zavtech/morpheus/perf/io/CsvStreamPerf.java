@@ -0,0 +1,59 @@
+package com.zavtech.morpheus.perf.io;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class CsvStreamPerf {
+
+    public static void main(String[] args) {
+
+        final String path = args.length > 0 ? args[0] : "/Users/witdxav/Dropbox/data/uk-house-prices/uk-house-prices-2016.csv";
+
+        DataFrame<String,String> timingStats = PerfStat.run(3, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("Read", () -> {
+                final DataFrame<Integer,String> frame = MappedCsvReader.read(options -> {
+                    options.setFile(path);
+                    options.setHeader(false);
+                    options.setIncludeColumnIndexes(1, 4, 11);
+                    options.setRowPredicate(row -> "F".equals(row.getValue("Column-4")));
+                });
+                return frame.rows().count();
+            });
+
+            tasks.put("Stream", () -> {
+                final Map<String,double[]> totals = new HashMap<>();
+                try (Stream<DataFrame<Integer,String>> batches = MappedCsvReader.stream(100000, options -> {
+                    options.setFile(path);
+                    options.setHeader(false);
+                    options.setIncludeColumnIndexes(1, 4, 11);
+                    options.setColumnType(1, Double.class);
+                    options.setRowPredicate(row -> "F".equals(row.getValue("Column-4")));
+                })) {
+                    batches.forEach(batch -> batch.rows().forEach(row -> {
+                        final double[] total = totals.computeIfAbsent(row.getValue("Column-11"), k -> new double[2]);
+                        total[0] += row.getDouble("Column-1");
+                        total[1] += 1d;
+                    }));
+                }
+                return totals.size();
+            });
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("UK House Prices, Whole File vs Streaming Batches of 100K rows");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 16));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+    }
+}
@@ -0,0 +1,385 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats doubles as the shortest decimal string that parses back to the same value, using the Ryu algorithm
+ *
+ * <p>This follows Ulf Adams, "Ryu: fast float-to-string conversion" (PLDI 2018). The binary value and the two
+ * bounds halfway to its neighbours are multiplied by a 125 bit approximation of a power of 5 in one pass, and
+ * digits are then removed while the bounds still differ, so the shortest digit string is found with only 64 bit
+ * integer arithmetic and no BigDecimal or string allocation. The power of 5 tables are computed once at class load
+ * with BigInteger. Digits are written as ASCII bytes directly into a caller supplied buffer, in plain notation
+ * when the decimal exponent is between -7 and 20, and otherwise in the scientific notation of Double.toString().</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public final class DoubleFormat {
+
+    /** The maximum number of bytes written for any double value */
+    public static final int MAX_LENGTH = 32;
+
+    private static final int MANTISSA_BITS = 52;
+    private static final int EXPONENT_BITS = 11;
+    private static final int EXPONENT_BIAS = 1023;
+    private static final int POW5_BITCOUNT = 125;
+    private static final int POW5_INV_BITCOUNT = 125;
+    private static final int POW5_TABLE_SIZE = 326;
+    private static final int POW5_INV_TABLE_SIZE = 342;
+    private static final long[][] POW5_SPLIT = new long[POW5_TABLE_SIZE][2];
+    private static final long[][] POW5_INV_SPLIT = new long[POW5_INV_TABLE_SIZE][2];
+    private static final byte[] NAN = "NaN".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INFINITY = "Infinity".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Static initializer
+     */
+    static {
+        final BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int i=0; i<POW5_INV_TABLE_SIZE; ++i) {
+            final BigInteger pow = BigInteger.valueOf(5).pow(i);
+            final int pow5len = pow.bitLength();
+            if (i < POW5_TABLE_SIZE) {
+                final int shift = pow5len - POW5_BITCOUNT;
+                final BigInteger split = shift >= 0 ? pow.shiftRight(shift) : pow.shiftLeft(-shift);
+                POW5_SPLIT[i][0] = split.and(mask64).longValue();
+                POW5_SPLIT[i][1] = split.shiftRight(64).longValue();
+            }
+            final BigInteger inv = BigInteger.ONE.shiftLeft(pow5len - 1 + POW5_INV_BITCOUNT).divide(pow).add(BigInteger.ONE);
+            POW5_INV_SPLIT[i][0] = inv.and(mask64).longValue();
+            POW5_INV_SPLIT[i][1] = inv.shiftRight(64).longValue();
+        }
+    }
+
+
+    /**
+     * Private constructor
+     */
+    private DoubleFormat() {
+        super();
+    }
+
+
+    /**
+     * Returns the shortest round trip string for the value specified
+     * @param value     the value to format
+     * @return          the formatted value
+     */
+    public static String toString(double value) {
+        final byte[] buffer = new byte[MAX_LENGTH];
+        final int length = format(value, buffer, 0);
+        return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+    }
+
+
+    /**
+     * Writes the shortest round trip representation of the value as ASCII bytes into the buffer
+     * @param value     the value to format
+     * @param buffer    the buffer to write to, with at least MAX_LENGTH bytes available from offset
+     * @param offset    the offset in buffer to write from
+     * @return          the offset after the last byte written
+     */
+    public static int format(double value, byte[] buffer, int offset) {
+        final long bits = Double.doubleToRawLongBits(value);
+        final long ieeeMantissa = bits & ((1L << MANTISSA_BITS) - 1);
+        final int ieeeExponent = (int)((bits >>> MANTISSA_BITS) & ((1 << EXPONENT_BITS) - 1));
+        final boolean negative = bits < 0;
+        int index = offset;
+        if (ieeeExponent == (1 << EXPONENT_BITS) - 1) {
+            if (ieeeMantissa != 0) {
+                System.arraycopy(NAN, 0, buffer, index, NAN.length);
+                return index + NAN.length;
+            } else {
+                if (negative) buffer[index++] = '-';
+                System.arraycopy(INFINITY, 0, buffer, index, INFINITY.length);
+                return index + INFINITY.length;
+            }
+        } else if (ieeeExponent == 0 && ieeeMantissa == 0) {
+            if (negative) buffer[index++] = '-';
+            buffer[index++] = '0';
+            buffer[index++] = '.';
+            buffer[index++] = '0';
+            return index;
+        } else {
+            if (negative) buffer[index++] = '-';
+            return write(ieeeMantissa, ieeeExponent, buffer, index);
+        }
+    }
+
+
+    /**
+     * Computes the shortest decimal digits for a finite non-zero value and writes them to the buffer
+     * @param ieeeMantissa  the IEEE mantissa bits
+     * @param ieeeExponent  the IEEE biased exponent bits
+     * @param buffer        the buffer to write to
+     * @param offset        the offset in buffer to write from
+     * @return              the offset after the last byte written
+     */
+    private static int write(long ieeeMantissa, int ieeeExponent, byte[] buffer, int offset) {
+        final int e2;
+        final long m2;
+        if (ieeeExponent == 0) {
+            e2 = 1 - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = ieeeMantissa;
+        } else {
+            e2 = ieeeExponent - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = (1L << MANTISSA_BITS) | ieeeMantissa;
+        }
+        final boolean acceptBounds = (m2 & 1) == 0;
+        final long mv = 4 * m2;
+        final long mp = 4 * m2 + 2;
+        final int mmShift = ieeeMantissa != 0 || ieeeExponent <= 1 ? 1 : 0;
+        final long mm = 4 * m2 - 1 - mmShift;
+
+        long vr, vp, vm;
+        final int e10;
+        boolean vmIsTrailingZeros = false;
+        boolean vrIsTrailingZeros = false;
+        if (e2 >= 0) {
+            final int q = log10Pow2(e2) - (e2 > 3 ? 1 : 0);
+            final int k = POW5_INV_BITCOUNT + pow5bits(q) - 1;
+            final int i = -e2 + q + k;
+            e10 = q;
+            vr = mulShift(mv, POW5_INV_SPLIT[q], i);
+            vp = mulShift(mp, POW5_INV_SPLIT[q], i);
+            vm = mulShift(mm, POW5_INV_SPLIT[q], i);
+            if (q <= 21) {
+                if (mv % 5 == 0) {
+                    vrIsTrailingZeros = pow5Factor(mv) >= q;
+                } else if (acceptBounds) {
+                    vmIsTrailingZeros = pow5Factor(mm) >= q;
+                } else if (pow5Factor(mp) >= q) {
+                    vp--;
+                }
+            }
+        } else {
+            final int q = log10Pow5(-e2) - (-e2 > 1 ? 1 : 0);
+            final int i = -e2 - q;
+            final int k = pow5bits(i) - POW5_BITCOUNT;
+            final int j = q - k;
+            e10 = q + e2;
+            vr = mulShift(mv, POW5_SPLIT[i], j);
+            vp = mulShift(mp, POW5_SPLIT[i], j);
+            vm = mulShift(mm, POW5_SPLIT[i], j);
+            if (q <= 1) {
+                vrIsTrailingZeros = true;
+                if (acceptBounds) {
+                    vmIsTrailingZeros = mmShift == 1;
+                } else {
+                    vp--;
+                }
+            } else if (q < 63) {
+                vrIsTrailingZeros = (mv & ((1L << q) - 1)) == 0;
+            }
+        }
+
+        int removed = 0;
+        int lastRemovedDigit = 0;
+        final long output;
+        if (vmIsTrailingZeros || vrIsTrailingZeros) {
+            while (vp / 10 > vm / 10) {
+                vmIsTrailingZeros &= vm % 10 == 0;
+                vrIsTrailingZeros &= lastRemovedDigit == 0;
+                lastRemovedDigit = (int)(vr % 10);
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            if (vmIsTrailingZeros) {
+                while (vm % 10 == 0) {
+                    vrIsTrailingZeros &= lastRemovedDigit == 0;
+                    lastRemovedDigit = (int)(vr % 10);
+                    vr /= 10;
+                    vp /= 10;
+                    vm /= 10;
+                    removed++;
+                }
+            }
+            if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0) {
+                lastRemovedDigit = 4;
+            }
+            final boolean roundUp = (vr == vm && (!acceptBounds || !vmIsTrailingZeros)) || lastRemovedDigit >= 5;
+            output = vr + (roundUp ? 1 : 0);
+        } else {
+            boolean roundUp = false;
+            if (vp / 100 > vm / 100) {
+                roundUp = vr % 100 >= 50;
+                vr /= 100;
+                vp /= 100;
+                vm /= 100;
+                removed += 2;
+            }
+            while (vp / 10 > vm / 10) {
+                roundUp = vr % 10 >= 5;
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            output = vr + (vr == vm || roundUp ? 1 : 0);
+        }
+        return writeDigits(output, e10 + removed, buffer, offset);
+    }
+
+
+    /**
+     * Writes the value digits * 10^exponent in plain or scientific notation
+     * @param digits    the decimal digits, which may have trailing zeros
+     * @param exponent  the decimal exponent of the last digit
+     * @param buffer    the buffer to write to
+     * @param offset    the offset in buffer to write from
+     * @return          the offset after the last byte written
+     */
+    private static int writeDigits(long digits, int exponent, byte[] buffer, int offset) {
+        int length = decimalLength(digits);
+        while (length > 1 && digits % 10 == 0) {
+            digits /= 10;
+            exponent++;
+            length--;
+        }
+        final int scientific = exponent + length - 1;
+        int index = offset;
+        if (scientific >= -7 && scientific < 21) {
+            if (exponent >= 0) {
+                index = writeLong(digits, length, buffer, index);
+                for (int i=0; i<exponent; ++i) buffer[index++] = '0';
+                buffer[index++] = '.';
+                buffer[index++] = '0';
+            } else if (length + exponent > 0) {
+                final int point = length + exponent;
+                writeLong(digits, length, buffer, index + 1);
+                System.arraycopy(buffer, index + 1, buffer, index, point);
+                buffer[index + point] = '.';
+                index += length + 1;
+            } else {
+                buffer[index++] = '0';
+                buffer[index++] = '.';
+                for (int i=0; i<-(length + exponent); ++i) buffer[index++] = '0';
+                index = writeLong(digits, length, buffer, index);
+            }
+        } else {
+            writeLong(digits, length, buffer, index + 1);
+            buffer[index] = buffer[index + 1];
+            buffer[index + 1] = '.';
+            index += length + 1;
+            if (length == 1) buffer[index++] = '0';
+            buffer[index++] = 'E';
+            int exp = scientific;
+            if (exp < 0) {
+                buffer[index++] = '-';
+                exp = -exp;
+            }
+            index = writeLong(exp, decimalLength(exp), buffer, index);
+        }
+        return index;
+    }
+
+
+    /**
+     * Writes the decimal digits of a non-negative long into the buffer
+     * @param value     the value to write
+     * @param length    the number of decimal digits in value
+     * @param buffer    the buffer to write to
+     * @param offset    the offset in buffer to write from
+     * @return          the offset after the last digit
+     */
+    private static int writeLong(long value, int length, byte[] buffer, int offset) {
+        for (int i=offset + length - 1; i>=offset; --i) {
+            buffer[i] = (byte)('0' + value % 10);
+            value /= 10;
+        }
+        return offset + length;
+    }
+
+
+    /**
+     * Returns the number of decimal digits in a positive value
+     * @param value the value
+     * @return      the number of digits
+     */
+    private static int decimalLength(long value) {
+        int length = 1;
+        for (long limit = 10; length < 19 && value >= limit; limit *= 10) {
+            length++;
+        }
+        return length;
+    }
+
+
+    /**
+     * Returns the bits of (m * mul) >> j, where mul is a 128 bit value held as low and high longs and j >= 64
+     * @param m     the multiplier, which is at most 55 bits
+     * @param mul   the low and high 64 bits of the multiplicand
+     * @param j     the right shift
+     * @return      the shifted product
+     */
+    private static long mulShift(long m, long[] mul, int j) {
+        final long high0 = multiplyHigh(m, mul[0]);
+        final long low1 = m * mul[1];
+        final long high1 = multiplyHigh(m, mul[1]);
+        final long sumLow = high0 + low1;
+        final long sumHigh = high1 + (Long.compareUnsigned(sumLow, high0) < 0 ? 1 : 0);
+        final int shift = j - 64;
+        if (shift == 0) {
+            return sumLow;
+        } else if (shift < 64) {
+            return (sumHigh << (64 - shift)) | (sumLow >>> shift);
+        } else {
+            return sumHigh >>> (shift - 64);
+        }
+    }
+
+
+    /**
+     * Returns the high 64 bits of the unsigned 128 bit product of two longs
+     * @param x     the first value, treated as unsigned
+     * @param y     the second value, treated as unsigned
+     * @return      the high 64 bits of the product
+     */
+    private static long multiplyHigh(long x, long y) {
+        final long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32;
+        final long y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+        final long p00 = x0 * y0, p01 = x0 * y1, p10 = x1 * y0, p11 = x1 * y1;
+        final long middle = p10 + (p00 >>> 32) + (p01 & 0xFFFFFFFFL);
+        return p11 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+
+    private static int pow5bits(int e) {
+        return ((e * 1217359) >>> 19) + 1;
+    }
+
+    private static int log10Pow2(int e) {
+        return (e * 78913) >>> 18;
+    }
+
+    private static int log10Pow5(int e) {
+        return (e * 732923) >>> 20;
+    }
+
+    private static int pow5Factor(long value) {
+        int count = 0;
+        while (value > 0 && value % 5 == 0) {
+            value /= 5;
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed width date time format, such as yyyy.MM.dd or yyyy-MM-dd HH:mm, that parses fields by position from a
+ * CharSequence without allocating any objects.
+ *
+ * <p>The supported pattern letters are yyyy, yy (interpreted as 2000 to 2099), MM, dd, HH, mm, ss and one to
+ * nine S for fractions of a second. Any other character is a literal, and letters can be used as literals by
+ * enclosing them in single quotes as in yyyy-MM-dd'T'HH:mm.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class FixedDateTimeFormat {
+
+    private String pattern;
+    private int length;
+    private char[] literals;
+    private int[] fieldTypes;
+    private int[] fieldOffsets;
+    private int[] fieldWidths;
+
+
+    /**
+     * Constructor
+     * @param pattern   the fixed width pattern
+     */
+    private FixedDateTimeFormat(String pattern) {
+        this.pattern = pattern;
+        final StringBuilder text = new StringBuilder();
+        final List<int[]> fields = new ArrayList<>();
+        for (int i=0; i<pattern.length(); ++i) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                final int close = pattern.indexOf('\'', i + 1);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unterminated quote in pattern: " + pattern);
+                } else {
+                    text.append(pattern, i + 1, close);
+                    i = close;
+                }
+            } else if (Character.isLetter(c)) {
+                int end = i;
+                while (end < pattern.length() && pattern.charAt(end) == c) end++;
+                final int width = end - i;
+                if ("yMdHmsS".indexOf(c) < 0 || (c == 'y' && width != 4 && width != 2) || (c == 'S' && width > 9) || (c != 'y' && c != 'S' && width != 2)) {
+                    throw new IllegalArgumentException("Unsupported field " + pattern.substring(i, end) + " in pattern: " + pattern);
+                } else {
+                    fields.add(new int[] {c, text.length(), width});
+                    for (int j=0; j<width; ++j) text.append('\0');
+                    i = end - 1;
+                }
+            } else {
+                text.append(c);
+            }
+        }
+        this.length = text.length();
+        this.literals = text.toString().toCharArray();
+        this.fieldTypes = fields.stream().mapToInt(f -> f[0]).toArray();
+        this.fieldOffsets = fields.stream().mapToInt(f -> f[1]).toArray();
+        this.fieldWidths = fields.stream().mapToInt(f -> f[2]).toArray();
+    }
+
+
+    /**
+     * Returns a new fixed width format for the pattern specified
+     * @param pattern   the pattern, for example yyyy.MM.dd or HH:mm:ss
+     * @return          the newly created format
+     * @throws IllegalArgumentException if the pattern contains unsupported or variable width fields
+     */
+    public static FixedDateTimeFormat of(String pattern) {
+        return new FixedDateTimeFormat(pattern);
+    }
+
+
+    /**
+     * Returns the pattern for this format
+     * @return  the pattern for this format
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+
+    /**
+     * Returns true if this format has year, month and day fields
+     * @return  true if this format has date fields
+     */
+    public boolean hasDate() {
+        return has('y') && has('M') && has('d');
+    }
+
+
+    /**
+     * Returns true if this format has hour and minute fields
+     * @return  true if this format has time fields
+     */
+    public boolean hasTime() {
+        return has('H') && has('m');
+    }
+
+
+    /**
+     * Returns the epoch day of the date in the value
+     * @param value     the value to parse
+     * @return          the epoch day
+     * @throws DateTimeParseException   if the value does not match this format
+     */
+    public long parseEpochDay(CharSequence value) {
+        this.check(value);
+        final int year = field(value, 'y', -1);
+        return SliceParsers.epochDay(value, year, field(value, 'M', -1), field(value, 'd', -1));
+    }
+
+
+    /**
+     * Returns the nano of day of the time in the value
+     * @param value     the value to parse
+     * @return          the nano of day
+     * @throws DateTimeParseException   if the value does not match this format
+     */
+    public long parseNanoOfDay(CharSequence value) {
+        this.check(value);
+        final int hour = field(value, 'H', -1);
+        final int minute = field(value, 'm', -1);
+        final int second = field(value, 's', 0);
+        final int nanos = field(value, 'S', 0);
+        return SliceParsers.nanoOfDay(value, hour, minute, second, nanos);
+    }
+
+
+    /**
+     * Returns the epoch nanos of the date time in the value, treated as UTC
+     * @param value     the value to parse
+     * @return          the epoch nanos
+     * @throws DateTimeParseException   if the value does not match this format or is outside the years 1677 through 2262
+     */
+    public long parseEpochNanos(CharSequence value) {
+        final long epochDay = parseEpochDay(value);
+        final long nanoOfDay = hasTime() ? parseNanoOfDay(value) : 0L;
+        return SliceParsers.epochNanos(value, epochDay, nanoOfDay);
+    }
+
+
+    /**
+     * Returns the epoch millis of the date time in the value, treated as UTC
+     * @param value     the value to parse
+     * @return          the epoch millis, with any fraction below a millisecond truncated
+     * @throws DateTimeParseException   if the value does not match this format
+     */
+    public long parseEpochMillis(CharSequence value) {
+        final long epochDay = parseEpochDay(value);
+        final long nanoOfDay = hasTime() ? parseNanoOfDay(value) : 0L;
+        return SliceParsers.epochMillis(value, epochDay, nanoOfDay);
+    }
+
+
+    /**
+     * Checks the length and literals of the value match this format
+     * @param value     the value to check
+     */
+    private void check(CharSequence value) {
+        if (value.length() != length) {
+            throw new DateTimeParseException("Value does not match pattern " + pattern + ": " + value, value, 0);
+        } else {
+            for (int i=0; i<length; ++i) {
+                final char expected = literals[i];
+                if (expected != '\0' && value.charAt(i) != expected) {
+                    throw new DateTimeParseException("Value does not match pattern " + pattern + ": " + value, value, i);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the numeric value of the field of the type specified
+     * @param value         the value to read from
+     * @param type          the field type letter
+     * @param defaultValue  the value if the field is absent, or -1 if the field is required
+     * @return              the field value
+     */
+    private int field(CharSequence value, char type, int defaultValue) {
+        for (int i=0; i<fieldTypes.length; ++i) {
+            if (fieldTypes[i] == type) {
+                final int width = fieldWidths[i];
+                final int result = SliceParsers.digits(value, fieldOffsets[i], width);
+                if (result < 0) {
+                    throw new DateTimeParseException("Value does not match pattern " + pattern + ": " + value, value, fieldOffsets[i]);
+                } else if (type == 'y' && width == 2) {
+                    return 2000 + result;
+                } else if (type == 'S') {
+                    return SliceParsers.fractionNanos(result, width);
+                } else {
+                    return result;
+                }
+            }
+        }
+        if (defaultValue < 0) {
+            throw new DateTimeParseException("Pattern " + pattern + " has no " + type + " field", value, 0);
+        } else {
+            return defaultValue;
+        }
+    }
+
+
+    /**
+     * Returns true if this format has a field of the type specified
+     * @param type  the field type letter
+     * @return      true if field exists
+     */
+    private boolean has(char type) {
+        for (int fieldType : fieldTypes) {
+            if (fieldType == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
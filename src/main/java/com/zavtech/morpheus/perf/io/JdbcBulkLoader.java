@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * A vendor specific fast path that loads a CSV file with a header row into an existing table
+ *
+ * <p>JdbcSink writes each row range to a temporary CSV file and hands it to the loader on the connection for that
+ * range, so a loader only needs to know how to issue the bulk load for its database, for example a COPY command
+ * through the vendor driver. Empty fields represent null values.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public interface JdbcBulkLoader {
+
+    /**
+     * Loads the CSV file into the table
+     * @param connection    the connection to load through
+     * @param tableName     the table name
+     * @param columns       the column names, in the order they appear in the file
+     * @param file          the CSV file, with a header row
+     * @throws SQLException if the load fails
+     */
+    void load(Connection connection, String tableName, List<String> columns, File file) throws SQLException;
+
+
+    /**
+     * Returns a loader for H2 that inserts the result of the CSVREAD table function
+     * <p>H2 does not accept a bind parameter as the CSVREAD file name, so the path is inlined as an escaped literal</p>
+     * @return  the H2 bulk loader
+     */
+    static JdbcBulkLoader h2() {
+        return (connection, tableName, columns, file) -> {
+            final String fileName = "'" + file.getAbsolutePath().replace("'", "''") + "'";
+            final String sql = String.format("INSERT INTO %s (%s) SELECT * FROM CSVREAD(%s, NULL, 'charset=UTF-8')", tableName, String.join(",", columns), fileName);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(sql);
+            }
+        };
+    }
+}
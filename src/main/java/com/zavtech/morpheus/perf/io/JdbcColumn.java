@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+
+/**
+ * Binds the values of one frame column to a PreparedStatement parameter, or formats them as CSV text for a bulk load
+ *
+ * <p>The binder and formatter are resolved once per column from its type, so boolean, int, long and double values
+ * are read from primitive storage and bound with setBoolean(), setInt(), setLong() and setDouble() without boxing.
+ * Double NaN values are bound as SQL NULL.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+final class JdbcColumn {
+
+    private String name;
+    private Class<?> type;
+    private String sqlType;
+    private Binder binder;
+    private Formatter formatter;
+
+
+    /**
+     * Binds the value in a row to a statement parameter
+     */
+    private interface Binder {
+
+        void bind(PreparedStatement statement, int param, int row) throws SQLException;
+    }
+
+
+    /**
+     * Appends the CSV text for the value in a row, appending nothing for null
+     */
+    private interface Formatter {
+
+        void append(StringBuilder text, int row);
+    }
+
+
+    /**
+     * Constructor
+     * @param name      the SQL column name
+     * @param type      the column value type
+     * @param values    the column values
+     */
+    JdbcColumn(String name, Class<?> type, ColumnValues values) {
+        this.name = name;
+        this.type = type;
+        if (type == Boolean.class) {
+            this.sqlType = "BOOLEAN";
+            this.binder = (statement, param, row) -> statement.setBoolean(param, values.getBoolean(row));
+            this.formatter = (text, row) -> text.append(values.getBoolean(row));
+        } else if (type == Integer.class) {
+            this.sqlType = "INTEGER";
+            this.binder = (statement, param, row) -> statement.setInt(param, values.getInt(row));
+            this.formatter = (text, row) -> text.append(values.getInt(row));
+        } else if (type == Long.class) {
+            this.sqlType = "BIGINT";
+            this.binder = (statement, param, row) -> statement.setLong(param, values.getLong(row));
+            this.formatter = (text, row) -> text.append(values.getLong(row));
+        } else if (type == Double.class) {
+            this.sqlType = "DOUBLE";
+            this.binder = (statement, param, row) -> {
+                final double value = values.getDouble(row);
+                if (Double.isNaN(value)) statement.setNull(param, Types.DOUBLE);
+                else statement.setDouble(param, value);
+            };
+            this.formatter = (text, row) -> {
+                final double value = values.getDouble(row);
+                if (!Double.isNaN(value)) text.append(value);
+            };
+        } else if (type == LocalDate.class) {
+            this.sqlType = "DATE";
+            this.binder = (statement, param, row) -> {
+                final LocalDate value = (LocalDate)values.getValue(row);
+                if (value == null) statement.setNull(param, Types.DATE);
+                else statement.setDate(param, java.sql.Date.valueOf(value));
+            };
+            this.formatter = (text, row) -> appendNonNull(text, values.getValue(row));
+        } else if (type == LocalTime.class) {
+            this.sqlType = "TIME";
+            this.binder = (statement, param, row) -> {
+                final LocalTime value = (LocalTime)values.getValue(row);
+                if (value == null) statement.setNull(param, Types.TIME);
+                else statement.setTime(param, Time.valueOf(value));
+            };
+            this.formatter = (text, row) -> appendNonNull(text, values.getValue(row));
+        } else if (type == LocalDateTime.class || type == Instant.class || type == Date.class) {
+            this.sqlType = "TIMESTAMP";
+            this.binder = (statement, param, row) -> {
+                final Timestamp value = timestamp(values.getValue(row));
+                if (value == null) statement.setNull(param, Types.TIMESTAMP);
+                else statement.setTimestamp(param, value);
+            };
+            this.formatter = (text, row) -> appendNonNull(text, timestamp(values.getValue(row)));
+        } else {
+            this.sqlType = "VARCHAR";
+            this.binder = (statement, param, row) -> {
+                final Object value = values.getValue(row);
+                if (value == null) statement.setNull(param, Types.VARCHAR);
+                else statement.setString(param, value instanceof Enum ? ((Enum<?>)value).name() : value.toString());
+            };
+            this.formatter = (text, row) -> {
+                final Object value = values.getValue(row);
+                if (value != null) {
+                    final String string = value instanceof Enum ? ((Enum<?>)value).name() : value.toString();
+                    text.append('"');
+                    for (int i=0; i<string.length(); ++i) {
+                        final char c = string.charAt(i);
+                        text.append(c);
+                        if (c == '"') text.append('"');
+                    }
+                    text.append('"');
+                }
+            };
+        }
+    }
+
+
+    /**
+     * Returns the SQL column name
+     * @return  the column name
+     */
+    String name() {
+        return name;
+    }
+
+
+    /**
+     * Returns the column value type
+     * @return  the value type
+     */
+    Class<?> type() {
+        return type;
+    }
+
+
+    /**
+     * Returns the SQL type used when creating a table for this column
+     * @return  the SQL type
+     */
+    String sqlType() {
+        return sqlType;
+    }
+
+
+    /**
+     * Binds the value in the row specified to the statement parameter
+     * @param statement the prepared statement
+     * @param param     the 1-based parameter index
+     * @param row       the row ordinal
+     */
+    void bind(PreparedStatement statement, int param, int row) throws SQLException {
+        binder.bind(statement, param, row);
+    }
+
+
+    /**
+     * Appends the CSV text for the value in the row specified, appending nothing if the value is null
+     * @param text  the text to append to
+     * @param row   the row ordinal
+     */
+    void format(StringBuilder text, int row) {
+        formatter.append(text, row);
+    }
+
+
+    private static void appendNonNull(StringBuilder text, Object value) {
+        if (value != null) {
+            text.append(value);
+        }
+    }
+
+
+    private static Timestamp timestamp(Object value) {
+        if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime)value);
+        } else if (value instanceof Instant) {
+            return Timestamp.from((Instant)value);
+        } else if (value instanceof Date) {
+            return new Timestamp(((Date)value).getTime());
+        } else {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.perf.array.LongCodec;
+import com.zavtech.morpheus.util.sql.SQLExtractor;
+
+/**
+ * Accumulates the values of one ResultSet column into a primitive buffer for a Morpheus array
+ *
+ * <p>The storage is resolved once from the JDBC column type, so BIT and BOOLEAN columns are read with getBoolean(),
+ * integer columns with getInt() or getLong(), and floating point and decimal columns with getDouble(), with SQL
+ * NULL becoming NaN for doubles and zero for other primitives. DATE, TIME and TIMESTAMP columns are held as longs
+ * using the LongCodec encoding for LocalDate, LocalTime and LocalDateTime, with timestamps held as epoch millis like
+ * the Morpheus arrays so that sentinels such as 9999-12-31 are within range. A column with an SQLExtractor, or of
+ * any other type, is read as objects.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+final class JdbcResultColumn {
+
+    private enum Storage { BOOLEAN, INT, LONG, DOUBLE, DATE, TIME, TIMESTAMP, STRING, OBJECT }
+
+    private String name;
+    private int colIndex;
+    private Class<?> type;
+    private Storage storage;
+    private SQLExtractor extractor;
+    private LongCodec<Object> codec;
+    private int length;
+    private boolean[] booleans;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+
+
+    /**
+     * Constructor
+     * @param metaData      the result set meta data
+     * @param colIndex      the 1-based column index
+     * @param extractor     the extractor for the column, or null to resolve from the JDBC type
+     */
+    @SuppressWarnings("unchecked")
+    JdbcResultColumn(ResultSetMetaData metaData, int colIndex, SQLExtractor extractor) throws SQLException {
+        this.name = metaData.getColumnLabel(colIndex);
+        this.colIndex = colIndex;
+        this.extractor = extractor;
+        if (extractor != null) {
+            this.storage = Storage.OBJECT;
+            this.type = extractor.getDataType();
+        } else {
+            switch (metaData.getColumnType(colIndex)) {
+                case Types.BIT:
+                case Types.BOOLEAN:     this.storage = Storage.BOOLEAN;     this.type = Boolean.class;          break;
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:     this.storage = Storage.INT;         this.type = Integer.class;          break;
+                case Types.BIGINT:      this.storage = Storage.LONG;        this.type = Long.class;             break;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                case Types.NUMERIC:
+                case Types.DECIMAL:     this.storage = Storage.DOUBLE;      this.type = Double.class;           break;
+                case Types.DATE:        this.storage = Storage.DATE;        this.type = LocalDate.class;        break;
+                case Types.TIME:        this.storage = Storage.TIME;        this.type = LocalTime.class;        break;
+                case Types.TIMESTAMP:   this.storage = Storage.TIMESTAMP;   this.type = LocalDateTime.class;    break;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.CLOB:        this.storage = Storage.STRING;      this.type = String.class;           break;
+                default:                this.storage = Storage.OBJECT;      this.type = Object.class;           break;
+            }
+        }
+        if (storage == Storage.DATE || storage == Storage.TIME || storage == Storage.TIMESTAMP) {
+            this.codec = (LongCodec<Object>)LongCodec.ofMillis(type);
+        }
+    }
+
+
+    /**
+     * Constructor for an empty copy of a column
+     * @param source    the column to copy the name, index, type and storage from
+     */
+    private JdbcResultColumn(JdbcResultColumn source) {
+        this.name = source.name;
+        this.colIndex = source.colIndex;
+        this.type = source.type;
+        this.storage = source.storage;
+        this.extractor = source.extractor;
+        this.codec = source.codec;
+    }
+
+
+    /**
+     * Returns a new empty column with the same name, index, type and storage as this column
+     * @return  the empty column
+     */
+    JdbcResultColumn emptyCopy() {
+        return new JdbcResultColumn(this);
+    }
+
+
+    /**
+     * Returns the column label
+     * @return  the column label
+     */
+    String name() {
+        return name;
+    }
+
+
+    /**
+     * Returns the number of values read into this column
+     * @return  the number of values
+     */
+    int length() {
+        return length;
+    }
+
+
+    /**
+     * Reads the value of this column from the current row of the result set
+     * @param rs    the result set, positioned on a row
+     */
+    void read(ResultSet rs) throws SQLException {
+        switch (storage) {
+            case BOOLEAN:
+                booleans(length + 1)[length] = rs.getBoolean(colIndex);
+                break;
+            case INT:
+                ints(length + 1)[length] = rs.getInt(colIndex);
+                break;
+            case LONG:
+                longs(length + 1)[length] = rs.getLong(colIndex);
+                break;
+            case DOUBLE:
+                final double value = rs.getDouble(colIndex);
+                doubles(length + 1)[length] = rs.wasNull() ? Double.NaN : value;
+                break;
+            case DATE:
+                final java.sql.Date date = rs.getDate(colIndex);
+                longs(length + 1)[length] = date == null ? LongCodec.NULL : codec.encode(date.toLocalDate());
+                break;
+            case TIME:
+                final Time time = rs.getTime(colIndex);
+                longs(length + 1)[length] = time == null ? LongCodec.NULL : codec.encode(time.toLocalTime());
+                break;
+            case TIMESTAMP:
+                final Timestamp timestamp = rs.getTimestamp(colIndex);
+                longs(length + 1)[length] = timestamp == null ? LongCodec.NULL : codec.encode(timestamp.toLocalDateTime());
+                break;
+            case STRING:
+                objects(length + 1)[length] = rs.getString(colIndex);
+                break;
+            default:
+                objects(length + 1)[length] = extractor != null ? extractor.getValue(rs, colIndex) : rs.getObject(colIndex);
+                break;
+        }
+        ++length;
+    }
+
+
+    /**
+     * Appends the values of another column with the same storage to this column
+     * @param other the column to append
+     */
+    void append(JdbcResultColumn other) {
+        final int count = other.length;
+        if (count > 0) {
+            switch (storage) {
+                case BOOLEAN:   System.arraycopy(other.booleans, 0, booleans(length + count), length, count);     break;
+                case INT:       System.arraycopy(other.ints, 0, ints(length + count), length, count);             break;
+                case DOUBLE:    System.arraycopy(other.doubles, 0, doubles(length + count), length, count);       break;
+                case STRING:
+                case OBJECT:    System.arraycopy(other.objects, 0, objects(length + count), length, count);       break;
+                default:        System.arraycopy(other.longs, 0, longs(length + count), length, count);           break;
+            }
+            this.length += count;
+        }
+    }
+
+
+    /**
+     * Returns a Morpheus array with the values read into this column
+     * @return  the Morpheus array
+     */
+    @SuppressWarnings("unchecked")
+    Array<?> toArray() {
+        switch (storage) {
+            case BOOLEAN:   return Array.of(Arrays.copyOf(booleans(0), length));
+            case INT:       return Array.of(Arrays.copyOf(ints(0), length));
+            case LONG:      return Array.of(Arrays.copyOf(longs(0), length));
+            case DOUBLE:    return Array.of(Arrays.copyOf(doubles(0), length));
+            case STRING:    return Array.of(Arrays.copyOf(objects(0), length, String[].class));
+            case OBJECT:
+                final Array<Object> values = Array.of((Class<Object>)type, length);
+                for (int i=0; i<length; ++i) values.setValue(i, objects[i]);
+                return values;
+            default:
+                final Array<Object> temporals = Array.of((Class<Object>)type, length);
+                for (int i=0; i<length; ++i) temporals.setValue(i, codec.decode(longs[i]));
+                return temporals;
+        }
+    }
+
+
+    private boolean[] booleans(int capacity) {
+        if (booleans == null || booleans.length < capacity) {
+            this.booleans = booleans == null ? new boolean[Math.max(capacity, 1024)] : Arrays.copyOf(booleans, Math.max(capacity, booleans.length * 2));
+        }
+        return booleans;
+    }
+
+    private int[] ints(int capacity) {
+        if (ints == null || ints.length < capacity) {
+            this.ints = ints == null ? new int[Math.max(capacity, 1024)] : Arrays.copyOf(ints, Math.max(capacity, ints.length * 2));
+        }
+        return ints;
+    }
+
+    private long[] longs(int capacity) {
+        if (longs == null || longs.length < capacity) {
+            this.longs = longs == null ? new long[Math.max(capacity, 1024)] : Arrays.copyOf(longs, Math.max(capacity, longs.length * 2));
+        }
+        return longs;
+    }
+
+    private double[] doubles(int capacity) {
+        if (doubles == null || doubles.length < capacity) {
+            this.doubles = doubles == null ? new double[Math.max(capacity, 1024)] : Arrays.copyOf(doubles, Math.max(capacity, doubles.length * 2));
+        }
+        return doubles;
+    }
+
+    private Object[] objects(int capacity) {
+        if (objects == null || objects.length < capacity) {
+            this.objects = objects == null ? new Object[Math.max(capacity, 1024)] : Arrays.copyOf(objects, Math.max(capacity, objects.length * 2));
+        }
+        return objects;
+    }
+}
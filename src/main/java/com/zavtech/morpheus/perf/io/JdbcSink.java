@@ -0,0 +1,240 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSink;
+import com.zavtech.morpheus.util.Initialiser;
+
+/**
+ * A DataFrameSink that writes a DataFrame to a database table, splitting the rows into ranges written concurrently
+ *
+ * <p>Each row range is written on its own connection and committed independently, either as batched inserts that
+ * bind primitive values without boxing, or through a JdbcBulkLoader that loads a CSV file of the range using a
+ * vendor specific fast path. Since ranges commit independently, a failure in one range does not roll back the
+ * ranges that have already committed.</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class JdbcSink<R,C> implements DataFrameSink<R,C,JdbcSinkOptions<R,C>> {
+
+
+    @Override
+    public void write(DataFrame<R,C> frame, Consumer<JdbcSinkOptions<R,C>> configurator) {
+        final JdbcSinkOptions<R,C> options = Initialiser.apply(new JdbcSinkOptions<>(), configurator);
+        options.validate();
+        final List<JdbcColumn> columns = new ArrayList<>();
+        options.getRowKeyName().ifPresent(name -> {
+            final Array<R> rowKeys = frame.rows().keyArray();
+            columns.add(new JdbcColumn(name, rowKeys.type(), ColumnValues.of(rowKeys)));
+        });
+        for (int colOrdinal=0; colOrdinal<frame.colCount(); ++colOrdinal) {
+            final C colKey = frame.cols().key(colOrdinal);
+            final String name = options.getColumnName(colKey);
+            columns.add(new JdbcColumn(name, frame.cols().type(colKey), ColumnValues.of(frame.data(), colOrdinal)));
+        }
+        try (Connection connection = options.newConnection()) {
+            if (options.isCreateTable() && !exists(connection, options.getTableName())) {
+                create(connection, options.getTableName(), columns);
+            }
+        } catch (SQLException ex) {
+            throw new DataFrameException("Failed to create table " + options.getTableName(), ex);
+        }
+        final int rowCount = frame.rowCount();
+        final int rangeCount = Math.max(1, Math.min(options.getThreads(), (rowCount + options.getBatchSize() - 1) / options.getBatchSize()));
+        final ExecutorService executor = Executors.newFixedThreadPool(rangeCount);
+        try {
+            final List<Future<?>> futures = new ArrayList<>(rangeCount);
+            for (int i=0; i<rangeCount; ++i) {
+                final int start = (int)((long)rowCount * i / rangeCount);
+                final int end = (int)((long)rowCount * (i + 1) / rangeCount);
+                futures.add(executor.submit(() -> {
+                    write(options, columns, start, end);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new DataFrameException("Failed to write DataFrame to table " + options.getTableName(), ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataFrameException("Interrupted writing DataFrame to table " + options.getTableName(), ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Writes a range of rows on a new connection and commits them
+     * @param options   the sink options
+     * @param columns   the columns to write
+     * @param start     the first row ordinal, inclusive
+     * @param end       the last row ordinal, exclusive
+     */
+    private void write(JdbcSinkOptions<R,C> options, List<JdbcColumn> columns, int start, int end) throws SQLException, IOException {
+        try (Connection connection = options.newConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (options.getBulkLoader().isPresent()) {
+                    load(connection, options, columns, start, end);
+                } else {
+                    insert(connection, options, columns, start, end);
+                }
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            }
+        }
+    }
+
+
+    /**
+     * Writes a range of rows with batched inserts
+     * @param connection    the connection
+     * @param options       the sink options
+     * @param columns       the columns to write
+     * @param start         the first row ordinal, inclusive
+     * @param end           the last row ordinal, exclusive
+     */
+    private void insert(Connection connection, JdbcSinkOptions<R,C> options, List<JdbcColumn> columns, int start, int end) throws SQLException {
+        final String names = columns.stream().map(JdbcColumn::name).collect(Collectors.joining(","));
+        final String params = columns.stream().map(c -> "?").collect(Collectors.joining(","));
+        final String sql = String.format("INSERT INTO %s (%s) VALUES (%s)", options.getTableName(), names, params);
+        final int batchSize = options.getBatchSize();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int count = 0;
+            for (int row=start; row<end; ++row) {
+                for (int i=0; i<columns.size(); ++i) {
+                    columns.get(i).bind(statement, i + 1, row);
+                }
+                statement.addBatch();
+                if (++count % batchSize == 0) {
+                    statement.executeBatch();
+                }
+            }
+            if (count % batchSize != 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+
+    /**
+     * Writes a range of rows to a temporary CSV file and loads it with the bulk loader
+     * @param connection    the connection
+     * @param options       the sink options
+     * @param columns       the columns to write
+     * @param start         the first row ordinal, inclusive
+     * @param end           the last row ordinal, exclusive
+     */
+    private void load(Connection connection, JdbcSinkOptions<R,C> options, List<JdbcColumn> columns, int start, int end) throws SQLException, IOException {
+        final File file = File.createTempFile("morpheus-bulk-", ".csv");
+        try {
+            final List<String> names = columns.stream().map(JdbcColumn::name).collect(Collectors.toList());
+            try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                final StringBuilder text = new StringBuilder(1024);
+                writer.write(String.join(",", names));
+                writer.newLine();
+                for (int row=start; row<end; ++row) {
+                    text.setLength(0);
+                    for (int i=0; i<columns.size(); ++i) {
+                        if (i > 0) text.append(',');
+                        columns.get(i).format(text, row);
+                    }
+                    writer.append(text);
+                    writer.newLine();
+                }
+            }
+            options.getBulkLoader().get().load(connection, options.getTableName(), names, file);
+        } finally {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+
+    /**
+     * Returns true if the table exists, matching the name as given, upper case or lower case
+     * @param connection    the connection
+     * @param tableName     the table name
+     * @return              true if the table exists
+     */
+    private boolean exists(Connection connection, String tableName) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[] {tableName, tableName.toUpperCase(), tableName.toLowerCase()}) {
+            try (ResultSet tables = metaData.getTables(null, null, name, null)) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Creates the table with a column for each frame column
+     * @param connection    the connection
+     * @param tableName     the table name
+     * @param columns       the columns
+     */
+    private void create(Connection connection, String tableName, List<JdbcColumn> columns) throws SQLException {
+        final String definitions = columns.stream().map(c -> c.name() + " " + sqlType(c)).collect(Collectors.joining(", "));
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(String.format("CREATE TABLE %s (%s)", tableName, definitions));
+        }
+    }
+
+
+    /**
+     * Returns the SQL type for the column, with a length for VARCHAR columns as some databases require one
+     * @param column    the column
+     * @return          the SQL type
+     */
+    private String sqlType(JdbcColumn column) {
+        return column.sqlType().equals("VARCHAR") ? "VARCHAR(4000)" : column.sqlType();
+    }
+}
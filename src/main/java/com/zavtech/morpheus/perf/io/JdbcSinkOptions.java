@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.sql.DataSource;
+
+/**
+ * The options to configure a JdbcSink
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class JdbcSinkOptions<R,C> {
+
+    private String url;
+    private String user;
+    private String password;
+    private DataSource dataSource;
+    private String tableName;
+    private int batchSize = 1000;
+    private int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private boolean createTable = true;
+    private String rowKeyName;
+    private Function<C,String> columnNames = String::valueOf;
+    private JdbcBulkLoader bulkLoader;
+
+
+    /**
+     * Constructor
+     */
+    public JdbcSinkOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the name of the table to write to
+     * @return  the table name
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Returns the number of rows per JDBC batch
+     * @return  the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the number of row ranges written concurrently, each on its own connection
+     * @return  the number of writer threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns true if the table should be created when it does not exist
+     * @return  true to create the table
+     */
+    public boolean isCreateTable() {
+        return createTable;
+    }
+
+    /**
+     * Returns the name of the column to write row keys to, if row keys are written
+     * @return  the optional row key column name
+     */
+    public Optional<String> getRowKeyName() {
+        return Optional.ofNullable(rowKeyName);
+    }
+
+    /**
+     * Returns the SQL column name for the column key specified
+     * @param colKey    the column key
+     * @return          the SQL column name
+     */
+    public String getColumnName(C colKey) {
+        return columnNames.apply(colKey);
+    }
+
+    /**
+     * Returns the vendor bulk loader used instead of batched inserts, if specified
+     * @return  the optional bulk loader
+     */
+    public Optional<JdbcBulkLoader> getBulkLoader() {
+        return Optional.ofNullable(bulkLoader);
+    }
+
+    /**
+     * Sets the JDBC url and credentials used to open each connection
+     * @param url       the JDBC url
+     * @param user      the user name
+     * @param password  the password
+     */
+    public void setConnection(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+    }
+
+    /**
+     * Sets the data source used to open each connection, which would typically be a pool
+     * @param dataSource    the data source
+     */
+    public void setConnection(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Sets the name of the table to write to
+     * @param tableName the table name
+     */
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * Sets the number of rows per JDBC batch
+     * @param batchSize the batch size
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the number of row ranges written concurrently, each on its own connection
+     * @param threads   the number of writer threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Sets whether the table should be created when it does not exist
+     * @param createTable   true to create the table
+     */
+    public void setCreateTable(boolean createTable) {
+        this.createTable = createTable;
+    }
+
+    /**
+     * Sets the name of the column to write row keys to, or null to not write row keys
+     * @param rowKeyName    the row key column name
+     */
+    public void setRowKeyName(String rowKeyName) {
+        this.rowKeyName = rowKeyName;
+    }
+
+    /**
+     * Sets the function that maps column keys to SQL column names
+     * @param columnNames   the column name function
+     */
+    public void setColumnNames(Function<C,String> columnNames) {
+        this.columnNames = Objects.requireNonNull(columnNames, "The column name function cannot be null");
+    }
+
+    /**
+     * Sets the vendor bulk loader used instead of batched inserts
+     * @param bulkLoader    the bulk loader, such as JdbcBulkLoader.h2()
+     */
+    public void setBulkLoader(JdbcBulkLoader bulkLoader) {
+        this.bulkLoader = bulkLoader;
+    }
+
+    /**
+     * Returns a newly opened connection from the data source or JDBC url
+     * @return  the new connection
+     */
+    Connection newConnection() throws SQLException {
+        return dataSource != null ? dataSource.getConnection() : DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Validates that these options are complete and consistent
+     */
+    void validate() {
+        Objects.requireNonNull(tableName, "The table name must be specified");
+        if (url == null && dataSource == null) {
+            throw new IllegalStateException("Either a JDBC url or data source must be specified");
+        } else if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be > 0: " + batchSize);
+        } else if (threads <= 0) {
+            throw new IllegalArgumentException("The thread count must be > 0: " + threads);
+        }
+    }
+}
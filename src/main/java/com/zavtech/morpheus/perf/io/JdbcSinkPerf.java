@@ -0,0 +1,100 @@
+package com.zavtech.morpheus.perf.io;
+
+import java.awt.*;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class JdbcSinkPerf {
+
+    private static final String URL = "jdbc:h2:mem:perf;DB_CLOSE_DELAY=-1";
+
+    public static void main(String[] args) throws Exception {
+
+        Class.forName("org.h2.Driver");
+
+        for (int rowCount : new int[] {1000000, 10000000}) {
+
+            final LocalDate start = LocalDate.of(2000, 1, 1);
+            final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+                columns.add("Open", Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+                columns.add("Close", Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+                columns.add("Volume", Array.of(Long.class, rowCount).applyLongs(v -> (long)(Math.random() * 1000000)));
+                columns.add("Trades", Array.of(Integer.class, rowCount).applyInts(v -> (int)(Math.random() * 1000)));
+                columns.add("Date", LocalDate.class, v -> start.plusDays(v.rowOrdinal() % 3650));
+            });
+
+            DataFrame<String,String> timingStats = PerfStat.run(3, TimeUnit.MILLISECONDS, false, tasks -> {
+
+                tasks.put("DbSink", () -> {
+                    dropTable();
+                    frame.write().db(options -> {
+                        options.setBatchSize(1000);
+                        options.setTableName("Prices");
+                        options.setConnection(URL, "sa", null);
+                    });
+                    return frame;
+                });
+
+                tasks.put("JdbcSink(1 thread)", () -> {
+                    dropTable();
+                    frame.write().to(new JdbcSink<>(), options -> {
+                        options.setThreads(1);
+                        options.setTableName("Prices");
+                        options.setConnection(URL, "sa", null);
+                    });
+                    return frame;
+                });
+
+                tasks.put("JdbcSink(4 threads)", () -> {
+                    dropTable();
+                    frame.write().to(new JdbcSink<>(), options -> {
+                        options.setThreads(4);
+                        options.setTableName("Prices");
+                        options.setConnection(URL, "sa", null);
+                    });
+                    return frame;
+                });
+
+                tasks.put("JdbcSink(H2 CSVREAD)", () -> {
+                    dropTable();
+                    frame.write().to(new JdbcSink<>(), options -> {
+                        options.setThreads(4);
+                        options.setTableName("Prices");
+                        options.setConnection(URL, "sa", null);
+                        options.setBulkLoader(JdbcBulkLoader.h2());
+                    });
+                    return frame;
+                });
+
+            });
+
+            Chart.create().withBarPlot(timingStats, false, chart -> {
+                chart.title().withText(String.format("DataFrame write to H2, %,d rows x 5 columns", rowCount));
+                chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+                chart.plot().axes().domain().label().withText("Timing Statistic");
+                chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+                chart.legend().on().bottom();
+                chart.show();
+            });
+        }
+    }
+
+    private static void dropTable() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", null)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DROP TABLE IF EXISTS Prices");
+            }
+        }
+    }
+}
@@ -0,0 +1,477 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSource;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.Initialiser;
+
+/**
+ * A DataFrameSource that reads the results of a SQL query into a DataFrame, either in one pass, as a stream
+ * of fixed size frames, or as parallel range partitioned queries over separate connections.
+ *
+ * <p>Values are read by column ordinal into primitive buffers chosen from the result set metadata, so numeric
+ * columns are never boxed, and temporal columns are held as longs until the frame is built. The fetch size hint
+ * is applied to every statement with auto-commit disabled, which some drivers require before they will stream
+ * rows rather than buffer the entire result in memory.</p>
+ *
+ * <p>When a partition column is specified, the query is wrapped as a sub-select and split into equal width ranges
+ * of that column, between bounds that are either specified or queried with MIN / MAX. The partition column may be
+ * integral, floating point, DATE or TIMESTAMP. The bounds only decide where the ranges split, so the first partition
+ * is open below and the last open above, and rows with a null partition value are included in the first partition.
+ * Partitions are concatenated in range order.</p>
+ *
+ * @param <R>   the row key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class JdbcSource<R> extends DataFrameSource<R,String,JdbcSourceOptions<R>> {
+
+
+    @Override
+    public DataFrame<R,String> read(Consumer<JdbcSourceOptions<R>> configurator) throws DataFrameException {
+        final JdbcSourceOptions<R> options = Initialiser.apply(new JdbcSourceOptions<>(), configurator);
+        options.validate();
+        try {
+            if (!options.getPartitionColumn().isPresent() || options.getPartitions() == 1) {
+                try (Connection conn = options.newConnection()) {
+                    conn.setAutoCommit(false);
+                    try (PreparedStatement stmt = prepare(conn, options.getSql(), options)) {
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            final Partition<R> partition = new Partition<>(rs, options);
+                            while (rs.next()) {
+                                partition.read(rs);
+                            }
+                            return partition.toDataFrame(0);
+                        }
+                    } finally {
+                        conn.rollback();
+                    }
+                }
+            } else {
+                return readPartitioned(options);
+            }
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to read DataFrame for SQL: " + options.getSql(), ex);
+        }
+    }
+
+
+    /**
+     * Returns a lazy stream of DataFrames for the SQL query, each with at most the configured batch size rows
+     * <p>The underlying connection is held open until the stream is closed, so this should be consumed in a
+     * try-with-resources block. Row ordinals continue across frames when no row key function is specified.</p>
+     * @param configurator  the options configurator
+     * @return              the stream of DataFrames
+     */
+    public Stream<DataFrame<R,String>> stream(Consumer<JdbcSourceOptions<R>> configurator) throws DataFrameException {
+        final JdbcSourceOptions<R> options = Initialiser.apply(new JdbcSourceOptions<>(), configurator);
+        options.validate();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = options.newConnection();
+            conn.setAutoCommit(false);
+            stmt = prepare(conn, options.getSql(), options);
+            rs = stmt.executeQuery();
+            final ResultSet results = rs;
+            final Partition<R> template = new Partition<>(rs, options);
+            final Spliterator<DataFrame<R,String>> spliterator = new Spliterators.AbstractSpliterator<DataFrame<R,String>>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                private int offset;
+                private boolean done;
+                @Override
+                public boolean tryAdvance(Consumer<? super DataFrame<R,String>> action) {
+                    try {
+                        if (done) {
+                            return false;
+                        } else {
+                            final Partition<R> batch = template.emptyCopy();
+                            while (batch.length() < options.getBatchSize() && results.next()) {
+                                batch.read(results);
+                            }
+                            this.done = batch.length() < options.getBatchSize();
+                            if (batch.length() == 0) {
+                                return false;
+                            } else {
+                                action.accept(batch.toDataFrame(offset));
+                                this.offset += batch.length();
+                                return true;
+                            }
+                        }
+                    } catch (SQLException ex) {
+                        throw new DataFrameException("Failed to read next batch for SQL: " + options.getSql(), ex);
+                    }
+                }
+            };
+            final Connection connection = conn;
+            final Statement statement = stmt;
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                final DataFrameException error = new DataFrameException("Failed to close JDBC resources for SQL: " + options.getSql());
+                close(error, results, statement, connection);
+                if (error.getSuppressed().length > 0) {
+                    throw error;
+                }
+            });
+        } catch (Exception ex) {
+            final DataFrameException error = new DataFrameException("Failed to stream DataFrames for SQL: " + options.getSql(), ex);
+            close(error, rs, stmt, conn);
+            throw error;
+        }
+    }
+
+
+    /**
+     * Returns a DataFrame assembled from range partitions of the query read in parallel
+     * @param options   the source options
+     * @return          the combined DataFrame
+     */
+    private DataFrame<R,String> readPartitioned(JdbcSourceOptions<R> options) throws Exception {
+        final String column = options.getPartitionColumn().get();
+        final String sql = "SELECT * FROM (" + options.getSql() + ") t";
+        final Object[] bounds = bounds(options, column);
+        if (bounds[0] == null || bounds[1] == null) {
+            return readPartitioned(options, Collections.singletonList(sql), Collections.singletonList(new Object[0]));
+        } else {
+            final Object[] splits = splits(bounds[0], bounds[1], options.getPartitions());
+            final int count = splits.length - 1;
+            final List<String> queries = new ArrayList<>(count);
+            final List<Object[]> arguments = new ArrayList<>(count);
+            for (int i=0; i<count; ++i) {
+                if (i == 0) {
+                    queries.add(sql + " WHERE " + column + " < ? OR " + column + " IS NULL");
+                    arguments.add(new Object[] {splits[1]});
+                } else if (i == count - 1) {
+                    queries.add(sql + " WHERE " + column + " >= ?");
+                    arguments.add(new Object[] {splits[i]});
+                } else {
+                    queries.add(sql + " WHERE " + column + " >= ? AND " + column + " < ?");
+                    arguments.add(new Object[] {splits[i], splits[i + 1]});
+                }
+            }
+            return readPartitioned(options, queries, arguments);
+        }
+    }
+
+
+    /**
+     * Returns a DataFrame assembled from parallel reads of each partition query
+     * @param options   the source options
+     * @param queries   the partition queries, in range order
+     * @param arguments the partition bounds to bind after the query parameters, for each partition query
+     * @return          the combined DataFrame
+     */
+    private DataFrame<R,String> readPartitioned(JdbcSourceOptions<R> options, List<String> queries, List<Object[]> arguments) throws Exception {
+        final int count = queries.size();
+        final ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            final List<Future<Partition<R>>> futures = new ArrayList<>(count);
+            for (int i=0; i<count; ++i) {
+                final String query = queries.get(i);
+                final Object[] bounds = arguments.get(i);
+                futures.add(executor.submit(() -> {
+                    try (Connection conn = options.newConnection()) {
+                        conn.setAutoCommit(false);
+                        try (PreparedStatement stmt = prepare(conn, query, options, bounds)) {
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                final Partition<R> partition = new Partition<>(rs, options);
+                                while (rs.next()) {
+                                    partition.read(rs);
+                                }
+                                return partition;
+                            }
+                        } finally {
+                            conn.rollback();
+                        }
+                    }
+                }));
+            }
+            final Partition<R> result = futures.get(0).get();
+            for (int i=1; i<count; ++i) {
+                result.append(futures.get(i).get());
+            }
+            return result.toDataFrame(0);
+        } catch (ExecutionException ex) {
+            throw new DataFrameException("Failed to read partition for SQL: " + options.getSql(), ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Returns a statement prepared with the fetch size, query parameters, and any partition bounds
+     * @param conn      the connection
+     * @param sql       the SQL to prepare
+     * @param options   the source options
+     * @param bounds    the partition bounds to bind after the query parameters
+     * @return          the prepared statement
+     */
+    private PreparedStatement prepare(Connection conn, String sql, JdbcSourceOptions<R> options, Object... bounds) throws SQLException {
+        final PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            stmt.setFetchSize(options.getFetchSize());
+            final Object[] parameters = options.getParameters();
+            for (int i=0; i<parameters.length; ++i) {
+                stmt.setObject(i + 1, parameters[i]);
+            }
+            for (int i=0; i<bounds.length; ++i) {
+                stmt.setObject(parameters.length + i + 1, bounds[i]);
+            }
+            return stmt;
+        } catch (SQLException ex) {
+            stmt.close();
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Returns the lower and upper bounds of the partition column, either as specified or by query
+     * @param options   the source options
+     * @param column    the partition column
+     * @return          the two element array of lower and upper bound, which are null if there are no rows
+     */
+    private Object[] bounds(JdbcSourceOptions<R> options, String column) throws SQLException {
+        if (options.getPartitionLower().isPresent()) {
+            return new Object[] {options.getPartitionLower().get(), options.getPartitionUpper().get()};
+        } else {
+            final String sql = "SELECT MIN(" + column + "), MAX(" + column + ") FROM (" + options.getSql() + ") t";
+            try (Connection conn = options.newConnection()) {
+                try (PreparedStatement stmt = prepare(conn, sql, options)) {
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        return rs.next() ? new Object[] {rs.getObject(1), rs.getObject(2)} : new Object[2];
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns count + 1 equally spaced split points between the bounds, expressed in a JDBC bindable type
+     * @param lower     the lower bound, inclusive
+     * @param upper     the upper bound, inclusive
+     * @param count     the number of partitions
+     * @return          the split points, with the first and last equal to the bounds
+     */
+    private Object[] splits(Object lower, Object upper, int count) {
+        final Object[] splits = new Object[count + 1];
+        if (isIntegral(lower) && isIntegral(upper)) {
+            final long min = ((Number)lower).longValue();
+            final long max = ((Number)upper).longValue();
+            final double step = ((double)max - (double)min) / count;
+            for (int i=0; i<=count; ++i) splits[i] = i == count ? max : min + (long)Math.floor(step * i);
+        } else if (lower instanceof Number && upper instanceof Number) {
+            final double min = ((Number)lower).doubleValue();
+            final double max = ((Number)upper).doubleValue();
+            final double step = (max - min) / count;
+            for (int i=0; i<=count; ++i) splits[i] = i == count ? max : min + step * i;
+        } else if (isDate(lower) && isDate(upper)) {
+            final long min = toLocalDate(lower).toEpochDay();
+            final long max = toLocalDate(upper).toEpochDay();
+            final double step = ((double)max - (double)min) / count;
+            for (int i=0; i<=count; ++i) splits[i] = java.sql.Date.valueOf(LocalDate.ofEpochDay(i == count ? max : min + (long)Math.floor(step * i)));
+        } else if (isTimestamp(lower) && isTimestamp(upper)) {
+            final long min = toTimestamp(lower).getTime();
+            final long max = toTimestamp(upper).getTime();
+            final double step = ((double)max - (double)min) / count;
+            for (int i=0; i<=count; ++i) splits[i] = i == count ? toTimestamp(upper) : new Timestamp(min + (long)Math.floor(step * i));
+        } else {
+            throw new DataFrameException("Unsupported partition bounds, must be numeric, date or timestamp: " + lower + ", " + upper);
+        }
+        return splits;
+    }
+
+
+    private static boolean isIntegral(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal)value).stripTrailingZeros().scale() <= 0;
+        } else {
+            return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof BigInteger;
+        }
+    }
+
+    private static boolean isDate(Object value) {
+        return value instanceof java.sql.Date || value instanceof LocalDate;
+    }
+
+    private static boolean isTimestamp(Object value) {
+        return value instanceof Timestamp || value instanceof LocalDateTime || value instanceof java.util.Date;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof LocalDate ? (LocalDate)value : ((java.sql.Date)value).toLocalDate();
+    }
+
+    private static Timestamp toTimestamp(Object value) {
+        if (value instanceof Timestamp) {
+            return (Timestamp)value;
+        } else if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime)value);
+        } else {
+            return new Timestamp(((java.util.Date)value).getTime());
+        }
+    }
+
+
+    /**
+     * Closes JDBC resources in the order given, adding any errors as suppressed exceptions of the error specified
+     * @param error     the error to record close failures against
+     * @param resources the resources to close, which may be null
+     */
+    private static void close(Throwable error, AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            try {
+                if (resource != null) {
+                    resource.close();
+                }
+            } catch (Exception ex) {
+                error.addSuppressed(ex);
+            }
+        }
+    }
+
+
+    /**
+     * The columns and optional row keys read from one result set, or one batch of a result set
+     * @param <R>   the row key type
+     */
+    private static class Partition<R> {
+
+        private List<JdbcResultColumn> columns;
+        private Function<ResultSet,R> rowKeyFunction;
+        private List<R> rowKeys;
+        private int length;
+
+        /**
+         * Constructor
+         * @param rs        the result set to create columns for
+         * @param options   the source options
+         */
+        Partition(ResultSet rs, JdbcSourceOptions<R> options) throws SQLException {
+            final ResultSetMetaData metaData = rs.getMetaData();
+            this.columns = new ArrayList<>(metaData.getColumnCount());
+            this.rowKeyFunction = options.getRowKeyFunction().orElse(null);
+            this.rowKeys = rowKeyFunction != null ? new ArrayList<>() : null;
+            for (int i=1; i<=metaData.getColumnCount(); ++i) {
+                final String name = metaData.getColumnLabel(i);
+                if (!options.isExcluded(name)) {
+                    columns.add(new JdbcResultColumn(metaData, i, options.getExtractor(name).orElse(null)));
+                }
+            }
+        }
+
+        /**
+         * Constructor
+         * @param template  the partition to copy the column definitions from
+         */
+        private Partition(Partition<R> template) {
+            this.columns = new ArrayList<>(template.columns.size());
+            this.rowKeyFunction = template.rowKeyFunction;
+            this.rowKeys = rowKeyFunction != null ? new ArrayList<>() : null;
+            template.columns.forEach(column -> columns.add(column.emptyCopy()));
+        }
+
+        /**
+         * Returns a new empty partition with the same columns as this partition
+         * @return  the empty partition
+         */
+        Partition<R> emptyCopy() {
+            return new Partition<>(this);
+        }
+
+        /**
+         * Returns the number of rows read into this partition
+         * @return  the number of rows
+         */
+        int length() {
+            return length;
+        }
+
+        /**
+         * Reads the current row of the result set into this partition
+         * @param rs    the result set, positioned on a row
+         */
+        void read(ResultSet rs) throws SQLException {
+            for (JdbcResultColumn column : columns) {
+                column.read(rs);
+            }
+            if (rowKeys != null) {
+                rowKeys.add(rowKeyFunction.apply(rs));
+            }
+            ++length;
+        }
+
+        /**
+         * Appends the rows of another partition of the same query to this partition
+         * @param other the partition to append
+         */
+        void append(Partition<R> other) {
+            for (int i=0; i<columns.size(); ++i) {
+                columns.get(i).append(other.columns.get(i));
+            }
+            if (rowKeys != null) {
+                rowKeys.addAll(other.rowKeys);
+            }
+            this.length += other.length;
+        }
+
+        /**
+         * Returns a DataFrame with the rows read into this partition
+         * @param offset    the first row ordinal, used when there is no row key function
+         * @return          the DataFrame
+         */
+        @SuppressWarnings("unchecked")
+        DataFrame<R,String> toDataFrame(int offset) {
+            final Iterable<R> keys = rowKeys != null ? rowKeys : (Iterable<R>)Range.of(offset, offset + length);
+            return DataFrame.of(keys, String.class, frameColumns -> {
+                for (JdbcResultColumn column : columns) {
+                    frameColumns.add(column.name(), column.toArray());
+                }
+            });
+        }
+    }
+}
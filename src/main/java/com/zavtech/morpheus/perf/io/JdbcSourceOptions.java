@@ -0,0 +1,278 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import javax.sql.DataSource;
+
+import com.zavtech.morpheus.frame.DataFrameSource;
+import com.zavtech.morpheus.util.sql.SQLExtractor;
+
+/**
+ * The options to configure a JdbcSource, which follow the naming of the Morpheus database source options
+ *
+ * @param <R>   the row key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class JdbcSourceOptions<R> implements DataFrameSource.Options<R,String> {
+
+    private String url;
+    private String user;
+    private String password;
+    private DataSource dataSource;
+    private String sql;
+    private Object[] parameters = new Object[0];
+    private int fetchSize = 1000;
+    private int batchSize = 100000;
+    private Set<String> excludeColumns = new HashSet<>();
+    private Map<String,SQLExtractor> extractors = new HashMap<>();
+    private Function<ResultSet,R> rowKeyFunction;
+    private String partitionColumn;
+    private int partitions = 1;
+    private Object partitionLower;
+    private Object partitionUpper;
+
+
+    /**
+     * Constructor
+     */
+    public JdbcSourceOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the SQL query to execute
+     * @return  the SQL query
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the parameters for the SQL query
+     * @return  the SQL parameters
+     */
+    public Object[] getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the JDBC fetch size hint applied to each statement
+     * @return  the fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the number of rows in each frame when streaming
+     * @return  the streaming batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns true if the column with the label specified should be excluded
+     * @param column    the column label
+     * @return          true to exclude column
+     */
+    public boolean isExcluded(String column) {
+        return excludeColumns.contains(column);
+    }
+
+    /**
+     * Returns the extractor for the column with the label specified, if one was specified
+     * @param column    the column label
+     * @return          the optional extractor
+     */
+    public Optional<SQLExtractor> getExtractor(String column) {
+        return Optional.ofNullable(extractors.get(column));
+    }
+
+    /**
+     * Returns the function that generates a row key from the current row, if specified
+     * @return  the optional row key function
+     */
+    public Optional<Function<ResultSet,R>> getRowKeyFunction() {
+        return Optional.ofNullable(rowKeyFunction);
+    }
+
+    /**
+     * Returns the numeric or date column used to partition the query, if specified
+     * @return  the optional partition column
+     */
+    public Optional<String> getPartitionColumn() {
+        return Optional.ofNullable(partitionColumn);
+    }
+
+    /**
+     * Returns the number of partitions read in parallel
+     * @return  the partition count
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Returns the lower bound of the partition column, if specified rather than queried
+     * @return  the optional lower bound
+     */
+    public Optional<Object> getPartitionLower() {
+        return Optional.ofNullable(partitionLower);
+    }
+
+    /**
+     * Returns the upper bound of the partition column, if specified rather than queried
+     * @return  the optional upper bound
+     */
+    public Optional<Object> getPartitionUpper() {
+        return Optional.ofNullable(partitionUpper);
+    }
+
+    /**
+     * Sets the JDBC url and credentials used to open each connection
+     * @param url       the JDBC url
+     * @param user      the user name
+     * @param password  the password
+     */
+    public void withConnection(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+    }
+
+    /**
+     * Sets the data source used to open each connection, which would typically be a pool
+     * @param dataSource    the data source
+     */
+    public void withConnection(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Sets the SQL query to execute
+     * @param sql   the SQL query
+     */
+    public void withSql(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Sets the parameters for the SQL query
+     * @param parameters    the SQL parameters
+     */
+    public void withParameters(Object... parameters) {
+        this.parameters = Arrays.copyOf(parameters, parameters.length);
+    }
+
+    /**
+     * Sets the JDBC fetch size hint applied to each statement
+     * @param fetchSize the fetch size
+     */
+    public void withFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Sets the number of rows in each frame when streaming
+     * @param batchSize the streaming batch size
+     */
+    public void withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the labels of columns to exclude from the frame, for example because they make up the row key
+     * @param columns   the column labels to exclude
+     */
+    public void withExcludeColumns(String... columns) {
+        this.excludeColumns.addAll(Arrays.asList(columns));
+    }
+
+    /**
+     * Sets the extractor used to read the column with the label specified
+     * @param column    the column label
+     * @param extractor the extractor
+     */
+    public void withExtractor(String column, SQLExtractor extractor) {
+        this.extractors.put(column, extractor);
+    }
+
+    /**
+     * Sets the function that generates a row key from the current row, otherwise rows are keyed by ordinal
+     * @param rowKeyFunction    the row key function
+     */
+    public void withRowKeyFunction(Function<ResultSet,R> rowKeyFunction) {
+        this.rowKeyFunction = rowKeyFunction;
+    }
+
+    /**
+     * Sets the numeric or date column used to split the query into ranges read in parallel on separate connections
+     * @param column        the partition column
+     * @param partitions    the number of partitions
+     */
+    public void withPartitions(String column, int partitions) {
+        this.partitionColumn = column;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Sets the bounds of the partition column, which avoids querying for its min and max
+     * <p>The bounds only decide where ranges split, rows outside the bounds are read by the first or last partition</p>
+     * @param lower the lower bound used to compute split points
+     * @param upper the upper bound used to compute split points
+     */
+    public void withPartitionBounds(Object lower, Object upper) {
+        this.partitionLower = Objects.requireNonNull(lower, "The lower partition bound cannot be null");
+        this.partitionUpper = Objects.requireNonNull(upper, "The upper partition bound cannot be null");
+    }
+
+    /**
+     * Returns a newly opened connection from the data source or JDBC url
+     * @return  the new connection
+     */
+    Connection newConnection() throws SQLException {
+        return dataSource != null ? dataSource.getConnection() : DriverManager.getConnection(url, user, password);
+    }
+
+    @Override
+    public void validate() {
+        Objects.requireNonNull(sql, "The SQL query must be specified");
+        if (url == null && dataSource == null) {
+            throw new IllegalStateException("Either a JDBC url or data source must be specified");
+        } else if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be > 0: " + batchSize);
+        } else if (partitions <= 0) {
+            throw new IllegalArgumentException("The partition count must be > 0: " + partitions);
+        } else if ((partitionLower == null) != (partitionUpper == null)) {
+            throw new IllegalStateException("Both partition bounds must be specified, or neither");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.zavtech.morpheus.perf.io;
+
+import java.awt.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class JdbcSourcePerf {
+
+    private static final String URL = "jdbc:h2:mem:perf;DB_CLOSE_DELAY=-1";
+
+    public static void main(String[] args) throws Exception {
+
+        Class.forName("org.h2.Driver");
+
+        final int rowCount = 2000000;
+        final LocalDate start = LocalDate.of(2000, 1, 1);
+        final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add("Id", Array.of(Long.class, rowCount).applyLongs(v -> v.index()));
+            columns.add("Open", Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+            columns.add("Close", Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+            columns.add("Volume", Array.of(Long.class, rowCount).applyLongs(v -> (long)(Math.random() * 1000000)));
+            columns.add("Date", LocalDate.class, v -> start.plusDays(v.rowOrdinal() % 3650));
+        });
+
+        frame.write().to(new JdbcSink<>(), options -> {
+            options.setTableName("Prices");
+            options.setConnection(URL, "sa", null);
+            options.setBulkLoader(JdbcBulkLoader.h2());
+        });
+
+        final String sql = "SELECT * FROM Prices";
+
+        DataFrame<String,String> timingStats = PerfStat.run(5, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("DbSource", () -> DataFrame.read().db(options -> {
+                options.withConnection(URL, "sa", null);
+                options.withSql(sql);
+                options.withRowCapacity(rowCount);
+            }));
+
+            tasks.put("JdbcSource", () -> new JdbcSource<Integer>().read(options -> {
+                options.withConnection(URL, "sa", null);
+                options.withSql(sql);
+            }));
+
+            tasks.put("JdbcSource(Stream)", () -> {
+                try (Stream<DataFrame<Integer,String>> frames = new JdbcSource<Integer>().stream(options -> {
+                    options.withConnection(URL, "sa", null);
+                    options.withSql(sql);
+                    options.withFetchSize(10000);
+                    options.withBatchSize(100000);
+                })) {
+                    return frames.mapToInt(DataFrame::rowCount).sum();
+                }
+            });
+
+            tasks.put("JdbcSource(4 partitions)", () -> new JdbcSource<Integer>().read(options -> {
+                options.withConnection(URL, "sa", null);
+                options.withSql(sql);
+                options.withPartitions("Id", 4);
+            }));
+
+            tasks.put("JdbcSource(4 partitions by date)", () -> new JdbcSource<Integer>().read(options -> {
+                options.withConnection(URL, "sa", null);
+                options.withSql(sql);
+                options.withPartitions("Date", 4);
+            }));
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText(String.format("DataFrame read from H2, %,d rows x 5 columns", rowCount));
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.zavtech.morpheus.perf.io;
+
+import java.awt.*;
+import java.io.File;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class JsonStreamPerf {
+
+    public static void main(String[] args) {
+
+        final int rowCount = 1000000;
+        final File dir = new File(System.getProperty("java.io.tmpdir"), "morpheus-json");
+        final File morpheusFile = new File(dir, "frame-morpheus.json");
+        final File streamFile = new File(dir, "frame-stream.json");
+        dir.mkdirs();
+
+        final LocalDate start = LocalDate.of(2000, 1, 1);
+        final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add("Open", Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+            columns.add("Close", Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+            columns.add("Volume", Array.of(Long.class, rowCount).applyLongs(v -> (long)(Math.random() * 1000000)));
+            columns.add("Trades", Array.of(Integer.class, rowCount).applyInts(v -> (int)(Math.random() * 1000)));
+            columns.add("Date", LocalDate.class, v -> start.plusDays(v.rowOrdinal() % 3650));
+        });
+
+        DataFrame<String,String> writeTimes = PerfStat.run(5, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("JsonSink", () -> {
+                frame.write().json(options -> options.setFile(morpheusFile.getAbsolutePath()));
+                return frame;
+            });
+
+            tasks.put("JsonStreamSink", () -> {
+                frame.write().to(new JsonStreamSink<>(), options -> options.setFile(streamFile));
+                return frame;
+            });
+
+        });
+
+        DataFrame<String,String> readTimes = PerfStat.run(5, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("JsonSource", () -> DataFrame.read().<Integer>json(options -> {
+                options.setResource(morpheusFile.getAbsolutePath());
+            }));
+
+            tasks.put("JsonSource(filtered)", () -> DataFrame.read().<Integer>json(options -> {
+                options.setResource(morpheusFile.getAbsolutePath());
+                options.setRowPredicate(rowKey -> rowKey % 10 == 0);
+                options.setColPredicate(colKey -> colKey.equals("Close"));
+            }));
+
+            tasks.put("JsonStreamSource", () -> new JsonStreamSource<Integer,String>().read(options -> {
+                options.setFile(streamFile);
+            }));
+
+            tasks.put("JsonStreamSource(filtered)", () -> new JsonStreamSource<Integer,String>().read(options -> {
+                options.setFile(streamFile);
+                options.setRowPredicate(rowKey -> rowKey % 10 == 0);
+                options.setColPredicate(colKey -> colKey.equals("Close"));
+            }));
+
+        });
+
+        Chart.create().withBarPlot(writeTimes, false, chart -> {
+            chart.title().withText(String.format("DataFrame JSON Write Times (%,d rows x 5 columns)", rowCount));
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+
+        Chart.create().withBarPlot(readTimes, false, chart -> {
+            chart.title().withText(String.format("DataFrame JSON Read Times (%,d rows x 5 columns)", rowCount));
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+    }
+}
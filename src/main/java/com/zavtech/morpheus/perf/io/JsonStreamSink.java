@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.function.Consumer;
+
+import com.google.gson.stream.JsonWriter;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSink;
+import com.zavtech.morpheus.util.IO;
+import com.zavtech.morpheus.util.Initialiser;
+import com.zavtech.morpheus.util.text.Formats;
+import com.zavtech.morpheus.util.text.printer.Printer;
+
+/**
+ * A DataFrameSink that writes a DataFrame in the Morpheus JSON format one token at a time
+ *
+ * <p>Nothing is buffered beyond the output writer, so memory use is independent of frame size. Boolean, int, long and
+ * double columns are written straight from primitive storage as JSON literals without boxing or formatting through a
+ * Printer. Keys and all other values are written as strings using the printer registered against the column key, or
+ * otherwise the data type, falling back to toString().</p>
+ *
+ * <p>Null values are written as the string "null" as they are by the Morpheus JsonSink, since the Morpheus JsonSource
+ * cannot read a JSON null literal in a values array. JSON has no literals for NaN or infinity, so these double values
+ * are written as the strings "NaN", "Infinity" and "-Infinity", which the JsonStreamSource reads back exactly. The
+ * Morpheus JsonSource rejects them with an error, but it cannot read a double column containing NaN in any form.</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class JsonStreamSink<R,C> implements DataFrameSink<R,C,JsonStreamSinkOptions> {
+
+
+    @Override
+    public void write(DataFrame<R,C> frame, Consumer<JsonStreamSinkOptions> configurator) {
+        final JsonStreamSinkOptions options = Initialiser.apply(new JsonStreamSinkOptions(), configurator);
+        options.validate();
+        OutputStream os = null;
+        JsonWriter writer = null;
+        try {
+            final Formats formats = options.getFormats();
+            final int rowCount = frame.rowCount();
+            final Array<R> rowKeys = frame.rows().keyArray();
+            final Array<C> colKeys = frame.cols().keyArray();
+            os = options.getOutputStream() != null ? options.getOutputStream() : new FileOutputStream(options.getFile());
+            writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(os, options.getEncoding()), 1 << 16));
+            writer.setIndent(options.isPretty() ? "  " : "");
+            writer.beginObject();
+            writer.name("DataFrame");
+            writer.beginObject();
+            writer.name("rowCount").value(rowCount);
+            writer.name("colCount").value(colKeys.length());
+            writer.name("rowKeys");
+            writer.beginObject();
+            writer.name("type").value(rowKeys.type().getSimpleName());
+            writer.name("values");
+            writeValues(writer, rowKeys.type(), ColumnValues.of(rowKeys), rowCount, printer(formats, null, rowKeys.type()));
+            writer.endObject();
+            writer.name("columns");
+            writer.beginArray();
+            for (int colOrdinal=0; colOrdinal<colKeys.length(); ++colOrdinal) {
+                final C colKey = colKeys.getValue(colOrdinal);
+                final Class<?> type = frame.cols().type(colKey);
+                writer.beginObject();
+                writer.name("key").value(printer(formats, null, colKeys.type()).apply(colKey));
+                writer.name("keyType").value(colKeys.type().getSimpleName());
+                writer.name("dataType").value(type.getSimpleName());
+                writer.name("defaultValue");
+                writeDefault(writer, type);
+                writer.name("values");
+                writeValues(writer, type, ColumnValues.of(frame.data(), colOrdinal), rowCount, printer(formats, colKey, type));
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+            writer.endObject();
+            writer.flush();
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to write DataFrame to JSON output", ex);
+        } finally {
+            IO.close(writer);
+            IO.close(os);
+        }
+    }
+
+
+    /**
+     * Writes a JSON array with the values of a column or key array
+     * @param writer    the JSON writer
+     * @param type      the data type of values
+     * @param values    the values to write
+     * @param count     the number of values
+     * @param printer   the printer for non-numeric values
+     */
+    private void writeValues(JsonWriter writer, Class<?> type, ColumnValues values, int count, Printer<Object> printer) throws IOException {
+        writer.beginArray();
+        if (type == Boolean.class) {
+            for (int i=0; i<count; ++i) {
+                writer.value(values.getBoolean(i));
+            }
+        } else if (type == Integer.class) {
+            for (int i=0; i<count; ++i) {
+                writer.value(values.getInt(i));
+            }
+        } else if (type == Long.class) {
+            for (int i=0; i<count; ++i) {
+                writer.value(values.getLong(i));
+            }
+        } else if (type == Double.class) {
+            for (int i=0; i<count; ++i) {
+                final double value = values.getDouble(i);
+                if (Double.isNaN(value) || Double.isInfinite(value)) {
+                    writer.value(Double.toString(value));
+                } else {
+                    writer.value(value);
+                }
+            }
+        } else {
+            for (int i=0; i<count; ++i) {
+                final Object value = values.getValue(i);
+                if (value == null) {
+                    writer.value(printer.apply(null));
+                } else if (value instanceof String) {
+                    writer.value((String)value);
+                } else {
+                    writer.value(printer.apply(value));
+                }
+            }
+        }
+        writer.endArray();
+    }
+
+
+    /**
+     * Writes the default value for the data type, which is false or zero for primitive types and null otherwise
+     * @param writer    the JSON writer
+     * @param type      the data type
+     */
+    private void writeDefault(JsonWriter writer, Class<?> type) throws IOException {
+        if (type == Boolean.class) {
+            writer.value(false);
+        } else if (type == Integer.class || type == Long.class) {
+            writer.value(0L);
+        } else {
+            writer.nullValue();
+        }
+    }
+
+
+    /**
+     * Returns the printer registered for the column key, or otherwise the data type, falling back to toString()
+     * @param formats   the formats
+     * @param colKey    the column key, which may be null
+     * @param type      the data type
+     * @return          the printer
+     */
+    private Printer<Object> printer(Formats formats, Object colKey, Class<?> type) {
+        final Printer<Object> colPrinter = colKey != null ? formats.getPrinter(colKey) : null;
+        final Printer<Object> typePrinter = colPrinter != null ? colPrinter : formats.getPrinter(type);
+        return typePrinter != null ? typePrinter : Printer.forObject(String::valueOf);
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.zavtech.morpheus.util.text.Formats;
+
+/**
+ * The options to configure a JsonStreamSink
+ *
+ * @author  Xavier Witdouck
+ */
+public class JsonStreamSinkOptions {
+
+    private File file;
+    private OutputStream outputStream;
+    private String encoding = "UTF-8";
+    private boolean pretty = false;
+    private Formats formats = new Formats();
+
+
+    /**
+     * Constructor
+     */
+    public JsonStreamSinkOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the file to write, if not writing to a stream
+     * @return  the file to write
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the output stream to write, if not writing to a file
+     * @return  the output stream
+     */
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * Returns the character encoding for output
+     * @return  the character encoding
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Returns true if output is indented for readability
+     * @return  true for indented output
+     */
+    public boolean isPretty() {
+        return pretty;
+    }
+
+    /**
+     * Returns the formats used to print keys and non-numeric values
+     * @return  the formats
+     */
+    public Formats getFormats() {
+        return formats;
+    }
+
+    /**
+     * Sets the file to write
+     * @param file  the file to write
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the path of the file to write
+     * @param path  the file path
+     */
+    public void setFile(String path) {
+        this.file = new File(path);
+    }
+
+    /**
+     * Sets the output stream to write, which is closed once the frame has been written
+     * @param outputStream  the output stream
+     */
+    public void setOutputStream(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Sets the character encoding for output
+     * @param encoding  the character encoding
+     */
+    public void setEncoding(String encoding) {
+        this.encoding = Objects.requireNonNull(encoding, "The encoding cannot be null");
+    }
+
+    /**
+     * Sets whether output is indented for readability, which roughly doubles the size of numeric output
+     * @param pretty    true for indented output
+     */
+    public void setPretty(boolean pretty) {
+        this.pretty = pretty;
+    }
+
+    /**
+     * Configures the formats used to print keys and non-numeric values
+     * @param configurator  the formats configurator
+     */
+    public void setFormats(Consumer<Formats> configurator) {
+        configurator.accept(formats);
+    }
+
+    /**
+     * Validates that these options are complete and consistent
+     */
+    void validate() {
+        if (file == null && outputStream == null) {
+            throw new IllegalStateException("Either a file or output stream must be specified");
+        } else if (file != null && outputStream != null) {
+            throw new IllegalStateException("Only one of a file or output stream can be specified");
+        }
+    }
+}
@@ -0,0 +1,436 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Currency;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSource;
+import com.zavtech.morpheus.util.IO;
+import com.zavtech.morpheus.util.Initialiser;
+import com.zavtech.morpheus.util.text.Formats;
+import com.zavtech.morpheus.util.text.parser.Parser;
+
+/**
+ * A DataFrameSource that reads a DataFrame in the Morpheus JSON format one token at a time
+ *
+ * <p>No document tree is built, and values are decoded from the token stream directly into typed Morpheus arrays,
+ * so memory use is bounded by the size of the selected data rather than the document. The row keys are read first
+ * and tested against the row predicate to build a selection mask, after which every column array is allocated at
+ * the selected row count and values for unselected rows are skipped without being parsed. Columns rejected by the
+ * column predicate are skipped in the same way. This relies on the rowCount and rowKeys properties preceding the
+ * columns, which is the order in which they are written by both the Morpheus JsonSink and the JsonStreamSink.</p>
+ *
+ * <p>Null values are accepted either as a JSON null literal or as the string "null" written by the Morpheus JsonSink,
+ * and double values also as the strings "NaN", "Infinity" and "-Infinity" written by the JsonStreamSink.</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class JsonStreamSource<R,C> extends DataFrameSource<R,C,JsonStreamSourceOptions<R,C>> {
+
+    private static final Map<String,Class<?>> dataTypeMap = new HashMap<>();
+    private static final Map<Class<?>,Function<String,?>> defaultParserMap = new HashMap<>();
+
+    /**
+     * Static initializer
+     */
+    static {
+        defaultParserMap.put(Float.class, Float::valueOf);
+        defaultParserMap.put(Short.class, Short::valueOf);
+        defaultParserMap.put(Byte.class, Byte::valueOf);
+        defaultParserMap.put(BigInteger.class, BigInteger::new);
+        defaultParserMap.put(Instant.class, Instant::parse);
+        defaultParserMap.put(OffsetDateTime.class, OffsetDateTime::parse);
+        defaultParserMap.put(Duration.class, Duration::parse);
+        defaultParserMap.put(Year.class, Year::parse);
+        defaultParserMap.put(YearMonth.class, YearMonth::parse);
+        defaultParserMap.put(UUID.class, UUID::fromString);
+        defaultParserMap.put(Currency.class, Currency::getInstance);
+        for (Class<?> type : new Class<?>[] {
+            Boolean.class, Integer.class, Long.class, Double.class, String.class, Object.class, BigDecimal.class,
+            LocalDate.class, LocalTime.class, LocalDateTime.class, ZonedDateTime.class, Date.class,
+            Month.class, DayOfWeek.class, Period.class, ZoneId.class, TimeZone.class }) {
+            dataTypeMap.put(type.getSimpleName(), type);
+        }
+        for (Class<?> type : defaultParserMap.keySet()) {
+            dataTypeMap.put(type.getSimpleName(), type);
+        }
+    }
+
+
+    @Override
+    public DataFrame<R,C> read(Consumer<JsonStreamSourceOptions<R,C>> configurator) throws DataFrameException {
+        final JsonStreamSourceOptions<R,C> options = Initialiser.apply(new JsonStreamSourceOptions<>(), configurator);
+        options.validate();
+        InputStream is = null;
+        JsonReader reader = null;
+        try {
+            is = options.getInputStream() != null ? options.getInputStream() : new FileInputStream(options.getFile());
+            reader = new JsonReader(new BufferedReader(new InputStreamReader(is, options.getEncoding()), 1 << 16));
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("DataFrame")) {
+                    return readFrame(reader, options);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            throw new DataFrameException("No DataFrame property found in JSON input");
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to read DataFrame from JSON input", ex);
+        } finally {
+            IO.close(reader);
+            IO.close(is);
+        }
+    }
+
+
+    /**
+     * Returns a DataFrame read from the body of the DataFrame JSON object
+     * @param reader    the JSON reader, positioned at the DataFrame object
+     * @param options   the source options
+     * @return          the DataFrame
+     */
+    @SuppressWarnings("unchecked")
+    private DataFrame<R,C> readFrame(JsonReader reader, JsonStreamSourceOptions<R,C> options) throws IOException {
+        int rowCount = -1;
+        Selection<R> selection = null;
+        Class<C> colKeyType = null;
+        final List<C> colKeys = new ArrayList<>();
+        final List<Array<?>> arrays = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "rowCount":
+                    rowCount = reader.nextInt();
+                    break;
+                case "rowKeys":
+                    if (rowCount < 0) {
+                        throw new DataFrameException("The JSON rowCount property must precede the rowKeys");
+                    }
+                    selection = readRowKeys(reader, rowCount, options);
+                    break;
+                case "columns":
+                    if (selection == null) {
+                        throw new DataFrameException("The JSON rowKeys property must precede the columns");
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reader.beginObject();
+                        String keyText = null;
+                        String keyType = "String";
+                        String dataType = null;
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "key":         keyText = reader.nextString();  break;
+                                case "keyType":     keyType = reader.nextString();  break;
+                                case "dataType":    dataType = reader.nextString(); break;
+                                case "values":
+                                    final Class<C> keyClass = (Class<C>)dataType(keyType, options);
+                                    final C colKey = (C)parser(options.getFormats(), null, keyClass).apply(keyText);
+                                    colKeyType = colKeyType != null ? colKeyType : keyClass;
+                                    if (!options.getColPredicate().map(p -> p.test(colKey)).orElse(true)) {
+                                        reader.skipValue();
+                                    } else {
+                                        final Class<?> type = dataType(dataType, options);
+                                        final Decoder decoder = decoder(type, parser(options.getFormats(), colKey, type));
+                                        colKeys.add(colKey);
+                                        arrays.add(readValues(reader, type, decoder, selection));
+                                    }
+                                    break;
+                                default:
+                                    reader.skipValue();
+                                    break;
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        if (selection == null) {
+            throw new DataFrameException("No rowKeys property found in JSON input");
+        } else {
+            final Array<R> rowKeys = selection.keys;
+            final Class<C> colType = colKeyType != null ? colKeyType : (Class<C>)String.class;
+            return DataFrame.of(rowKeys, colType, columns -> {
+                for (int i=0; i<colKeys.size(); ++i) {
+                    columns.add(colKeys.get(i), arrays.get(i));
+                }
+            });
+        }
+    }
+
+
+    /**
+     * Returns the selected row keys and selection mask from the rowKeys JSON object
+     * @param reader    the JSON reader, positioned at the rowKeys object
+     * @param rowCount  the row count declared in the document
+     * @param options   the source options
+     * @return          the row selection
+     */
+    @SuppressWarnings("unchecked")
+    private Selection<R> readRowKeys(JsonReader reader, int rowCount, JsonStreamSourceOptions<R,C> options) throws IOException {
+        Class<R> type = null;
+        Selection<R> selection = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "type":
+                    type = (Class<R>)dataType(reader.nextString(), options);
+                    break;
+                case "values":
+                    if (type == null) {
+                        throw new DataFrameException("The JSON row key type must precede the row key values");
+                    }
+                    final Predicate<R> predicate = options.getRowPredicate().orElse(null);
+                    final Decoder decoder = decoder(type, parser(options.getFormats(), null, type));
+                    final Array<R> keys = Array.of(type, rowCount);
+                    final BitSet mask = predicate != null ? new BitSet(rowCount) : null;
+                    int count = 0;
+                    reader.beginArray();
+                    for (int i=0; reader.hasNext(); ++i) {
+                        if (i >= rowCount) {
+                            throw new DataFrameException("More row keys than the declared row count of " + rowCount);
+                        }
+                        decoder.read(reader, keys, count);
+                        if (predicate == null) {
+                            ++count;
+                        } else if (predicate.test(keys.getValue(count))) {
+                            mask.set(i);
+                            ++count;
+                        }
+                    }
+                    reader.endArray();
+                    selection = new Selection<>(count < rowCount ? keys.copy(0, count) : keys, mask);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        if (selection == null) {
+            throw new DataFrameException("No row key values found in JSON input");
+        } else {
+            return selection;
+        }
+    }
+
+
+    /**
+     * Returns an array with the values for selected rows from a JSON values array
+     * @param reader        the JSON reader, positioned at the values array
+     * @param type          the data type for column
+     * @param decoder       the decoder for values
+     * @param selection     the row selection
+     * @return              the array of selected values
+     */
+    private Array<?> readValues(JsonReader reader, Class<?> type, Decoder decoder, Selection<R> selection) throws IOException {
+        final int length = selection.keys.length();
+        final Array<?> array = Array.of(type, length);
+        final BitSet mask = selection.mask;
+        int index = 0;
+        reader.beginArray();
+        for (int i=0; reader.hasNext(); ++i) {
+            if (mask != null && !mask.get(i)) {
+                reader.skipValue();
+            } else if (index < length) {
+                decoder.read(reader, array, index++);
+            } else {
+                throw new DataFrameException("More column values than the declared row count of " + length);
+            }
+        }
+        reader.endArray();
+        return array;
+    }
+
+
+    /**
+     * Returns the data type for the name specified, checking types registered with the options first
+     * @param name      the data type name
+     * @param options   the source options
+     * @return          the data type
+     */
+    private Class<?> dataType(String name, JsonStreamSourceOptions<R,C> options) {
+        final Class<?> type = options.getDataType(name).orElse(dataTypeMap.get(name));
+        if (type == null) {
+            throw new DataFrameException("Unknown data type in JSON input, register it with setDataType(): " + name);
+        } else {
+            return type;
+        }
+    }
+
+
+    /**
+     * Returns the parser registered for the column key, or otherwise the data type, with defaults for String, enums
+     * and the types that have no Morpheus parser, which the JsonStreamSink writes with toString()
+     * @param formats   the formats
+     * @param colKey    the column key, which may be null
+     * @param type      the data type
+     * @return          the parser
+     */
+    @SuppressWarnings("unchecked")
+    private Function<String,?> parser(Formats formats, Object colKey, Class<?> type) {
+        final Parser<?> colParser = colKey != null ? formats.getParser(colKey) : null;
+        final Parser<?> typeParser = colParser != null ? colParser : formats.getParser(type);
+        if (typeParser != null) {
+            return typeParser;
+        } else if (defaultParserMap.containsKey(type)) {
+            return defaultParserMap.get(type);
+        } else if (type == String.class || type == Object.class) {
+            return Function.identity();
+        } else if (type.isEnum()) {
+            final Class<Enum> enumType = (Class<Enum>)type;
+            return value -> Enum.valueOf(enumType, value);
+        } else {
+            throw new DataFrameException("No parser registered for data type: " + type.getSimpleName());
+        }
+    }
+
+
+    /**
+     * Returns a decoder that reads a value of the type specified into an array without boxing primitives
+     * @param type      the data type
+     * @param parser    the parser for string encoded values
+     * @return          the decoder
+     */
+    @SuppressWarnings("unchecked")
+    private Decoder decoder(Class<?> type, Function<String,?> parser) {
+        if (type == Boolean.class) {
+            return (reader, array, index) -> array.setBoolean(index, !isNull(reader) && reader.nextBoolean());
+        } else if (type == Integer.class) {
+            return (reader, array, index) -> array.setInt(index, isNull(reader) ? 0 : reader.nextInt());
+        } else if (type == Long.class) {
+            return (reader, array, index) -> array.setLong(index, isNull(reader) ? 0L : reader.nextLong());
+        } else if (type == Double.class) {
+            return (reader, array, index) -> array.setDouble(index, nextDouble(reader));
+        } else {
+            return (reader, array, index) -> {
+                final String text = isNull(reader) ? null : reader.nextString();
+                ((Array<Object>)array).setValue(index, text == null || text.equals("null") ? null : parser.apply(text));
+            };
+        }
+    }
+
+
+    /**
+     * Returns the next double value, which may be a number, a null literal, or a string such as "NaN" or "Infinity"
+     * @param reader    the JSON reader
+     * @return          the double value, NaN if null
+     */
+    private static double nextDouble(JsonReader reader) throws IOException {
+        if (isNull(reader)) {
+            return Double.NaN;
+        } else if (reader.peek() == JsonToken.STRING) {
+            final String text = reader.nextString();
+            return text.equals("null") ? Double.NaN : Double.parseDouble(text);
+        } else {
+            return reader.nextDouble();
+        }
+    }
+
+
+    /**
+     * Returns true and consumes the token if the next JSON token is null
+     * @param reader    the JSON reader
+     * @return          true if the next token was null
+     */
+    private static boolean isNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+
+    /**
+     * Decodes the next JSON value into an array
+     */
+    private interface Decoder {
+
+        void read(JsonReader reader, Array<?> array, int index) throws IOException;
+    }
+
+
+    /**
+     * The selected row keys, and a mask of selected row ordinals in the document, which is null if all rows are selected
+     * @param <R>   the row key type
+     */
+    private static class Selection<R> {
+
+        private Array<R> keys;
+        private BitSet mask;
+
+        /**
+         * Constructor
+         * @param keys  the selected row keys
+         * @param mask  the selection mask, null if all rows are selected
+         */
+        Selection(Array<R> keys, BitSet mask) {
+            this.keys = keys;
+            this.mask = mask;
+        }
+    }
+}
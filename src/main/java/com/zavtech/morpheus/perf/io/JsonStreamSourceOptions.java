@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.zavtech.morpheus.frame.DataFrameSource;
+import com.zavtech.morpheus.util.text.Formats;
+
+/**
+ * The options to configure a JsonStreamSource
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class JsonStreamSourceOptions<R,C> implements DataFrameSource.Options<R,C> {
+
+    private File file;
+    private InputStream inputStream;
+    private String encoding = "UTF-8";
+    private Predicate<R> rowPredicate;
+    private Predicate<C> colPredicate;
+    private Formats formats = new Formats();
+    private Map<String,Class<?>> dataTypes = new HashMap<>();
+
+
+    /**
+     * Constructor
+     */
+    public JsonStreamSourceOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the file to read, if not reading from a stream
+     * @return  the file to read
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the input stream to read, if not reading from a file
+     * @return  the input stream
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * Returns the character encoding of the input
+     * @return  the character encoding
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Returns the optional predicate to select rows by key
+     * @return  the optional row predicate
+     */
+    public Optional<Predicate<R>> getRowPredicate() {
+        return Optional.ofNullable(rowPredicate);
+    }
+
+    /**
+     * Returns the optional predicate to select columns by key
+     * @return  the optional column predicate
+     */
+    public Optional<Predicate<C>> getColPredicate() {
+        return Optional.ofNullable(colPredicate);
+    }
+
+    /**
+     * Returns the formats used to parse keys and non-numeric values
+     * @return  the formats
+     */
+    public Formats getFormats() {
+        return formats;
+    }
+
+    /**
+     * Returns the class registered for the data type name specified
+     * @param name  the data type name, as written by the sink
+     * @return      the optional class for name
+     */
+    public Optional<Class<?>> getDataType(String name) {
+        return Optional.ofNullable(dataTypes.get(name));
+    }
+
+    /**
+     * Sets the file to read
+     * @param file  the file to read
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the path of the file to read
+     * @param path  the file path
+     */
+    public void setFile(String path) {
+        this.file = new File(path);
+    }
+
+    /**
+     * Sets the input stream to read, which is closed once the frame has been read
+     * @param inputStream   the input stream
+     */
+    public void setInputStream(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Sets the character encoding of the input
+     * @param encoding  the character encoding
+     */
+    public void setEncoding(String encoding) {
+        this.encoding = Objects.requireNonNull(encoding, "The encoding cannot be null");
+    }
+
+    /**
+     * Sets the predicate to select rows by key, which is applied before any column values are read
+     * @param rowPredicate  the row predicate
+     */
+    public void setRowPredicate(Predicate<R> rowPredicate) {
+        this.rowPredicate = rowPredicate;
+    }
+
+    /**
+     * Sets the predicate to select columns by key, where the values of other columns are skipped without parsing
+     * @param colPredicate  the column predicate
+     */
+    public void setColPredicate(Predicate<C> colPredicate) {
+        this.colPredicate = colPredicate;
+    }
+
+    /**
+     * Configures the formats used to parse keys and non-numeric values
+     * @param configurator  the formats configurator
+     */
+    public void setFormats(Consumer<Formats> configurator) {
+        configurator.accept(formats);
+    }
+
+    /**
+     * Registers the class for a data type name, which is the simple class name for types written by the sink
+     * @param name  the data type name
+     * @param type  the data type class
+     */
+    public void setDataType(String name, Class<?> type) {
+        this.dataTypes.put(name, type);
+    }
+
+    @Override
+    public void validate() {
+        if (file == null && inputStream == null) {
+            throw new IllegalStateException("Either a file or input stream must be specified");
+        } else if (file != null && inputStream != null) {
+            throw new IllegalStateException("Only one of a file or input stream can be specified");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+/**
+ * A Parquet InputFile over a local file that reads through a FileChannel, so no Hadoop FileSystem is involved
+ *
+ * @author  Xavier Witdouck
+ */
+final class LocalInputFile implements InputFile {
+
+    private Path path;
+
+
+    /**
+     * Constructor
+     * @param path  the path of the local file
+     */
+    LocalInputFile(Path path) {
+        this.path = path;
+    }
+
+
+    @Override
+    public long getLength() throws IOException {
+        return Files.size(path);
+    }
+
+
+    @Override
+    public SeekableInputStream newStream() throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new SeekableInputStream() {
+
+            private final ByteBuffer single = ByteBuffer.allocate(1);
+
+            @Override
+            public long getPos() throws IOException {
+                return channel.position();
+            }
+
+            @Override
+            public void seek(long position) throws IOException {
+                channel.position(position);
+            }
+
+            @Override
+            public int read() throws IOException {
+                single.clear();
+                return channel.read(single) < 0 ? -1 : single.get(0) & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                return channel.read(ByteBuffer.wrap(bytes, offset, length));
+            }
+
+            @Override
+            public int read(ByteBuffer buffer) throws IOException {
+                return channel.read(buffer);
+            }
+
+            @Override
+            public void readFully(byte[] bytes) throws IOException {
+                readFully(ByteBuffer.wrap(bytes));
+            }
+
+            @Override
+            public void readFully(byte[] bytes, int offset, int length) throws IOException {
+                readFully(ByteBuffer.wrap(bytes, offset, length));
+            }
+
+            @Override
+            public void readFully(ByteBuffer buffer) throws IOException {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException("Unexpected end of Parquet file: " + path);
+                    }
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+}
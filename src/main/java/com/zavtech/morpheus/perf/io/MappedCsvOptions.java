@@ -0,0 +1,343 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+import com.zavtech.morpheus.frame.DataFrameRow;
+
+/**
+ * The options to configure a MappedCsvReader
+ *
+ * @author  Xavier Witdouck
+ */
+public class MappedCsvOptions {
+
+    private File file;
+    private boolean header = true;
+    private char delimiter = ',';
+    private char quote = '"';
+    private Charset charset = StandardCharsets.UTF_8;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = 1 << 26;
+    private int[] includeColumnIndexes;
+    private Map<String,Class<?>> columnTypeByName = new HashMap<>();
+    private Map<Integer,Class<?>> columnTypeByIndex = new HashMap<>();
+    private Map<String,String> columnFormatByName = new HashMap<>();
+    private Map<Integer,String> columnFormatByIndex = new HashMap<>();
+    private BiFunction<String,Integer,String> columnNameMapping;
+    private Predicate<String> colNamePredicate;
+    private Predicate<DataFrameRow<Integer,String>> rowPredicate;
+    private int dictionaryThreshold = 4096;
+
+
+    /**
+     * Constructor
+     */
+    public MappedCsvOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the file to read
+     * @return  the file to read
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns true if the first line of the file is a header
+     * @return  true if file has a header
+     */
+    public boolean isHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the field delimiter, which must be a single byte character
+     * @return  the field delimiter
+     */
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Returns the quote character, which must be a single byte character
+     * @return  the quote character
+     */
+    public char getQuote() {
+        return quote;
+    }
+
+    /**
+     * Returns the charset used to decode String values
+     * @return  the charset for String values
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Returns the number of threads used to parse chunks
+     * @return  the number of parser threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the target size in bytes of each chunk, which is extended to the next line end
+     * @return  the target chunk size in bytes
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the column indexes to include, empty to include all columns
+     * @return  the optional column indexes to include
+     */
+    public Optional<int[]> getIncludeColumnIndexes() {
+        return Optional.ofNullable(includeColumnIndexes);
+    }
+
+    /**
+     * Returns the explicit column type for the column index and name, if one was specified
+     * @param colIndex  the column index in the file
+     * @param colName   the column name
+     * @return          the optional column type
+     */
+    public Optional<Class<?>> getColumnType(int colIndex, String colName) {
+        final Class<?> type = columnTypeByName.get(colName);
+        return Optional.ofNullable(type != null ? type : columnTypeByIndex.get(colIndex));
+    }
+
+    /**
+     * Returns the fixed width date time pattern for the column index and name, if one was specified
+     * @param colIndex  the column index in the file
+     * @param colName   the column name
+     * @return          the optional date time pattern
+     */
+    public Optional<String> getColumnFormat(int colIndex, String colName) {
+        final String pattern = columnFormatByName.get(colName);
+        return Optional.ofNullable(pattern != null ? pattern : columnFormatByIndex.get(colIndex));
+    }
+
+    /**
+     * Returns the column name mapping function, if specified
+     * @return  the optional column name mapping
+     */
+    public Optional<BiFunction<String,Integer,String>> getColumnNameMapping() {
+        return Optional.ofNullable(columnNameMapping);
+    }
+
+    /**
+     * Returns the predicate that selects columns by name, if specified
+     * @return  the optional column name predicate
+     */
+    public Optional<Predicate<String>> getColNamePredicate() {
+        return Optional.ofNullable(colNamePredicate);
+    }
+
+    /**
+     * Returns the predicate that selects rows, if specified
+     * @return  the optional row predicate
+     */
+    public Optional<Predicate<DataFrameRow<Integer,String>>> getRowPredicate() {
+        return Optional.ofNullable(rowPredicate);
+    }
+
+    /**
+     * Returns the maximum number of distinct values for a String column to be dictionary encoded
+     * @return  the dictionary threshold, 0 if disabled
+     */
+    public int getDictionaryThreshold() {
+        return dictionaryThreshold;
+    }
+
+    /**
+     * Sets the file to read
+     * @param file  the file to read
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the path of the file to read
+     * @param path  the file path
+     */
+    public void setFile(String path) {
+        this.file = new File(path);
+    }
+
+    /**
+     * Sets whether the first line of the file is a header
+     * @param header    true if the file has a header
+     */
+    public void setHeader(boolean header) {
+        this.header = header;
+    }
+
+    /**
+     * Sets the field delimiter, which must be a single byte character
+     * @param delimiter the field delimiter
+     */
+    public void setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Sets the quote character, which must be a single byte character
+     * @param quote the quote character
+     */
+    public void setQuote(char quote) {
+        this.quote = quote;
+    }
+
+    /**
+     * Sets the charset used to decode String values
+     * @param charset   the charset, which must be ASCII compatible
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Sets the number of threads used to parse chunks
+     * @param threads   the number of parser threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the target size in bytes of each chunk
+     * @param chunkSize the target chunk size in bytes
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets the column indexes to include
+     * @param indexes   the column indexes to include
+     */
+    public void setIncludeColumnIndexes(int... indexes) {
+        this.includeColumnIndexes = indexes;
+    }
+
+    /**
+     * Sets the type for the column name, bypassing type inference for that column
+     * @param colName   the column name
+     * @param type      the column type
+     */
+    public void setColumnType(String colName, Class<?> type) {
+        this.columnTypeByName.put(colName, type);
+    }
+
+    /**
+     * Sets the type for the column index, bypassing type inference for that column
+     * @param colIndex  the column index in the file
+     * @param type      the column type
+     */
+    public void setColumnType(int colIndex, Class<?> type) {
+        this.columnTypeByIndex.put(colIndex, type);
+    }
+
+    /**
+     * Sets the date or time type for the column name, parsed with a fixed width pattern such as yyyy.MM.dd
+     * @param colName   the column name
+     * @param type      the column type, which must be LocalDate, LocalTime or LocalDateTime
+     * @param pattern   the fixed width pattern
+     * @see FixedDateTimeFormat
+     */
+    public void setColumnType(String colName, Class<?> type, String pattern) {
+        this.columnTypeByName.put(colName, type);
+        this.columnFormatByName.put(colName, pattern);
+    }
+
+    /**
+     * Sets the date or time type for the column index, parsed with a fixed width pattern such as yyyy.MM.dd
+     * @param colIndex  the column index in the file
+     * @param type      the column type, which must be LocalDate, LocalTime or LocalDateTime
+     * @param pattern   the fixed width pattern
+     * @see FixedDateTimeFormat
+     */
+    public void setColumnType(int colIndex, Class<?> type, String pattern) {
+        this.columnTypeByIndex.put(colIndex, type);
+        this.columnFormatByIndex.put(colIndex, pattern);
+    }
+
+    /**
+     * Sets the function that maps header names and column ordinals to column names
+     * @param columnNameMapping the column name mapping
+     */
+    public void setColumnNameMapping(BiFunction<String,Integer,String> columnNameMapping) {
+        this.columnNameMapping = columnNameMapping;
+    }
+
+    /**
+     * Sets the predicate that selects columns by name, where rejected columns are skipped by the tokenizer
+     * @param colNamePredicate  the column name predicate
+     */
+    public void setColNamePredicate(Predicate<String> colNamePredicate) {
+        this.colNamePredicate = colNamePredicate;
+    }
+
+    /**
+     * Sets the predicate that selects rows, applied to the merged frame by read() and to each batch by stream()
+     * @param rowPredicate  the row predicate
+     */
+    public void setRowPredicate(Predicate<DataFrameRow<Integer,String>> rowPredicate) {
+        this.rowPredicate = rowPredicate;
+    }
+
+    /**
+     * Sets the maximum number of distinct values for a String column to be dictionary encoded, 0 to disable
+     * @param dictionaryThreshold   the dictionary threshold
+     */
+    public void setDictionaryThreshold(int dictionaryThreshold) {
+        this.dictionaryThreshold = dictionaryThreshold;
+    }
+
+
+    /**
+     * Validates these options
+     */
+    void validate() {
+        if (file == null) {
+            throw new IllegalStateException("The CSV file must be specified");
+        } else if (threads < 1) {
+            throw new IllegalStateException("The thread count must be > 0: " + threads);
+        } else if (chunkSize < 1024 || chunkSize > (1 << 30)) {
+            throw new IllegalStateException("The chunk size must be between 1KB and 1GB: " + chunkSize);
+        } else if (delimiter > 127 || quote > 127) {
+            throw new IllegalStateException("The delimiter and quote must be single byte characters");
+        } else if (dictionaryThreshold < 0) {
+            throw new IllegalStateException("The dictionary threshold must be >= 0: " + dictionaryThreshold);
+        }
+    }
+}
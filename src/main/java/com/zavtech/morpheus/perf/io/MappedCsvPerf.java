@@ -0,0 +1,66 @@
+package com.zavtech.morpheus.perf.io;
+
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class MappedCsvPerf {
+
+    public static void main(String[] args) {
+
+        final String path = args.length > 0 ? args[0] : "/Users/witdxav/Dropbox/data/fxcm/AUDUSD/2012/AUDUSD-2012.csv";
+
+        DataFrame<String,String> timingStats = PerfStat.run(5, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("Sequential", () -> DataFrame.read().csv(options -> {
+                options.setHeader(false);
+                options.setParallel(false);
+                options.setResource(path);
+            }));
+
+            tasks.put("Parallel", () -> DataFrame.read().csv(options -> {
+                options.setHeader(false);
+                options.setParallel(true);
+                options.setResource(path);
+            }));
+
+            tasks.put("Mapped(1 thread)", () -> MappedCsvReader.read(options -> {
+                options.setHeader(false);
+                options.setThreads(1);
+                options.setFile(path);
+            }));
+
+            tasks.put("Mapped", () -> MappedCsvReader.read(options -> {
+                options.setHeader(false);
+                options.setChunkSize(1 << 22);
+                options.setFile(path);
+            }));
+
+            tasks.put("Mapped(typed)", () -> MappedCsvReader.read(options -> {
+                options.setHeader(false);
+                options.setChunkSize(1 << 22);
+                options.setFile(path);
+                options.setColumnType(0, LocalDate.class, "yyyy.MM.dd");
+                options.setColumnType(1, LocalTime.class, "HH:mm");
+            }));
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("CSV Parsing Performance incl. GC (DataFrame.read() vs Memory Mapped)");
+            chart.subtitle().withText("File Size: 40MB, 760,000 lines, 6 columns");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 16));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+
+    }
+
+}
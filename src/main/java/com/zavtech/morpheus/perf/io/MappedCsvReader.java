@@ -0,0 +1,882 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.array.ArrayType;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.perf.array.DictionaryArray;
+import com.zavtech.morpheus.range.Range;
+
+/**
+ * A CSV reader that memory maps a file, splits it into newline aligned byte ranges, and tokenizes each range on
+ * its own thread directly into primitive column buffers, which are then merged into a single DataFrame.
+ *
+ * <p>Unlike DataFrame.read().csv(), no single thread decodes the whole file into Strings before parsing begins,
+ * and no String[] is created per row. Column types are inferred per chunk and reconciled when chunks are merged,
+ * so a column that is numeric in one chunk and text in another is re-parsed as text in the affected chunks.</p>
+ *
+ * <p>String columns with at most the configured number of distinct values are dictionary encoded while parsing,
+ * so each distinct value is decoded once and every row with that value shares one String instance. When no row
+ * predicate is configured, the encoded form of these columns is available from getDictionary() after a read.</p>
+ *
+ * <p>Files that do not fit in memory can be read with stream(), which yields DataFrames of a bounded number of
+ * rows with a consistent set of columns and types.</p>
+ *
+ * <p>Chunks are aligned on line feeds, so quoted values must not contain line breaks. Fields are tokenized at the
+ * byte level, which requires the delimiter and quote to be single byte characters in an ASCII compatible
+ * charset such as UTF-8 or ISO-8859-1.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class MappedCsvReader {
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private MappedCsvOptions options;
+    private volatile Map<String,DictionaryArray<String>> dictionaries = Collections.emptyMap();
+
+
+    /**
+     * Constructor
+     * @param options   the options for this reader
+     */
+    public MappedCsvReader(MappedCsvOptions options) {
+        this.options = options;
+    }
+
+
+    /**
+     * Returns a DataFrame read from a CSV file configured by the consumer
+     * @param configurator  the consumer to configure options
+     * @return              the DataFrame keyed by row ordinal
+     */
+    public static DataFrame<Integer,String> read(Consumer<MappedCsvOptions> configurator) {
+        final MappedCsvOptions options = new MappedCsvOptions();
+        configurator.accept(options);
+        return new MappedCsvReader(options).read();
+    }
+
+
+    /**
+     * Returns a stream of DataFrames of at most batchSize rows read from a CSV file configured by the consumer
+     * @param batchSize     the maximum number of rows per DataFrame
+     * @param configurator  the consumer to configure options
+     * @return              the stream of DataFrames keyed by row ordinal, which should be closed after use
+     * @see #stream(int)
+     */
+    public static Stream<DataFrame<Integer,String>> stream(int batchSize, Consumer<MappedCsvOptions> configurator) {
+        final MappedCsvOptions options = new MappedCsvOptions();
+        configurator.accept(options);
+        return new MappedCsvReader(options).stream(batchSize);
+    }
+
+
+    /**
+     * Returns the dictionary encoded form of a String column in the last DataFrame read by this reader
+     * <p>This is only available for columns whose distinct values are within the dictionary threshold across the
+     * whole frame, and only when no row predicate is configured, since the codes describe the unfiltered rows.
+     * With stream(), it describes the most recent batch.</p>
+     * @param colName   the column name
+     * @return          the optional dictionary array for column
+     */
+    public Optional<DictionaryArray<String>> getDictionary(String colName) {
+        return Optional.ofNullable(dictionaries.get(colName));
+    }
+
+
+    /**
+     * Returns a DataFrame read from the CSV file described by the options of this reader
+     * @return  the DataFrame keyed by row ordinal
+     */
+    public DataFrame<Integer,String> read() {
+        this.options.validate();
+        final ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+        try (FileChannel channel = FileChannel.open(options.getFile().toPath(), StandardOpenOption.READ)) {
+            final Schema schema = schema(channel);
+            final List<long[]> ranges = chunks(channel, schema.dataStart, channel.size());
+            final List<Callable<Chunk>> tasks = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                tasks.add(() -> {
+                    final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+                    return new ChunkParser(buffer, schema.colIndexes, schema.fixedTypes.clone(), schema.formats).parse(0, Integer.MAX_VALUE);
+                });
+            }
+            final List<Chunk> chunks = invokeAll(executor, tasks);
+            final ArrayType[] types = reconcile(executor, chunks, schema);
+            if (!options.getRowPredicate().isPresent() || chunks.isEmpty()) {
+                return filter(merge(chunks, schema.colNames, types, 0));
+            } else {
+                return filterChunks(chunks, schema.colNames, types);
+            }
+        } catch (IOException ex) {
+            throw new DataFrameException("Failed to read CSV file: " + options.getFile(), ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Returns a stream of DataFrames of at most batchSize rows, read sequentially from the CSV file
+     *
+     * <p>Only one batch and one mapped window of the file is held at a time, so arbitrarily large files can be
+     * aggregated in constant memory. Every batch has the same columns and column types, which are resolved from
+     * the first batch unless set explicitly in the options. A later value that cannot be parsed as the type of
+     * its column raises a DataFrameException, in which case the column type should be set explicitly. Row keys
+     * are the ordinal of the row in the file, and the row predicate is applied to each batch.</p>
+     *
+     * @param batchSize the maximum number of rows per DataFrame
+     * @return          the stream of DataFrames, which should be closed after use to release the file
+     */
+    public Stream<DataFrame<Integer,String>> stream(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be > 0: " + batchSize);
+        } else {
+            this.options.validate();
+            final BatchIterator iterator = new BatchIterator(batchSize);
+            final int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+            final Spliterator<DataFrame<Integer,String>> spliterator = Spliterators.spliteratorUnknownSize(iterator, characteristics);
+            return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+        }
+    }
+
+
+    /**
+     * Returns the schema resolved from the first line of the file and the options
+     * @param channel   the file channel
+     * @return          the schema for file
+     */
+    private Schema schema(FileChannel channel) throws IOException {
+        final long headerEnd = nextLineStart(channel, 0L);
+        final List<String> firstLine = parseLine(channel, 0L, headerEnd);
+        final int[] candidates = options.getIncludeColumnIndexes().orElse(range(firstLine.size()));
+        final List<Integer> colIndexes = new ArrayList<>(candidates.length);
+        final List<String> colNames = new ArrayList<>(candidates.length);
+        for (int colIndex : candidates) {
+            final String header = options.isHeader() && colIndex < firstLine.size() ? firstLine.get(colIndex) : "Column-" + colIndex;
+            final String colName = options.getColumnNameMapping().map(f -> f.apply(header, colIndex)).orElse(header);
+            if (options.getColNamePredicate().map(p -> p.test(colName)).orElse(true)) {
+                colIndexes.add(colIndex);
+                colNames.add(colName);
+            }
+        }
+        final Schema schema = new Schema(colIndexes.size(), options.isHeader() ? headerEnd : 0L);
+        for (int i=0; i<colIndexes.size(); ++i) {
+            final int colIndex = colIndexes.get(i);
+            schema.colIndexes[i] = colIndex;
+            schema.colNames[i] = colNames.get(i);
+            schema.fixedTypes[i] = options.getColumnType(colIndex, colNames.get(i)).map(CsvColumn::typeOf).orElse(null);
+            schema.formats[i] = options.getColumnFormat(colIndex, colNames.get(i)).map(FixedDateTimeFormat::of).orElse(null);
+        }
+        return schema;
+    }
+
+
+    /**
+     * Returns the column types that can represent every chunk, re-parsing chunks where a column must become a String
+     * @param executor  the executor to re-parse chunks, null to re-parse in the calling thread
+     * @param chunks    the chunks, which are replaced in the list if re-parsed
+     * @param schema    the schema for file
+     * @return          the reconciled column types
+     */
+    private ArrayType[] reconcile(ExecutorService executor, List<Chunk> chunks, Schema schema) {
+        final ArrayType[] types = new ArrayType[schema.colIndexes.length];
+        for (Chunk chunk : chunks) {
+            for (int i=0; i<types.length; ++i) {
+                types[i] = CsvColumn.widest(types[i], chunk.columns[i].type());
+            }
+        }
+        final ArrayType[] fixedTypes = schema.fixedTypes.clone();
+        final List<Integer> reparse = new ArrayList<>();
+        for (int i=0; i<chunks.size(); ++i) {
+            boolean mismatch = false;
+            for (int j=0; j<types.length; ++j) {
+                final ArrayType type = chunks.get(i).columns[j].type();
+                if (types[j] == ArrayType.STRING && type != null && type != ArrayType.STRING) {
+                    fixedTypes[j] = ArrayType.STRING;
+                    mismatch = true;
+                }
+            }
+            if (mismatch) {
+                reparse.add(i);
+            }
+        }
+        if (!reparse.isEmpty()) {
+            final List<Callable<Chunk>> tasks = new ArrayList<>(reparse.size());
+            for (int index : reparse) {
+                final Chunk chunk = chunks.get(index);
+                tasks.add(() -> new ChunkParser(chunk.buffer, schema.colIndexes, fixedTypes.clone(), schema.formats).parse(chunk.start, chunk.rowCount));
+            }
+            final List<Chunk> results = invokeAll(executor, tasks);
+            for (int i=0; i<reparse.size(); ++i) {
+                chunks.set(reparse.get(i), results.get(i));
+            }
+        }
+        return types;
+    }
+
+
+    /**
+     * Runs the tasks on the executor, or in the calling thread if the executor is null, and returns results in order
+     * @param executor  the executor, which may be null
+     * @param tasks     the tasks to run
+     * @return          the task results, in the same order as the tasks
+     */
+    private List<Chunk> invokeAll(ExecutorService executor, List<Callable<Chunk>> tasks) {
+        try {
+            final List<Chunk> chunks = new ArrayList<>(tasks.size());
+            if (executor == null) {
+                for (Callable<Chunk> task : tasks) {
+                    chunks.add(task.call());
+                }
+            } else {
+                for (Future<Chunk> future : executor.invokeAll(tasks)) {
+                    chunks.add(future.get());
+                }
+            }
+            return chunks;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)ex.getCause();
+            } else {
+                throw new DataFrameException("Failed to parse CSV file: " + options.getFile(), ex.getCause());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataFrameException("Interrupted while parsing CSV file: " + options.getFile(), ex);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to parse CSV file: " + options.getFile(), ex);
+        }
+    }
+
+
+    /**
+     * Returns a DataFrame that combines the columns of all chunks
+     * @param chunks    the parsed chunks, in file order
+     * @param colNames  the column names
+     * @param types     the reconciled column types
+     * @param rowOffset the row ordinal of the first row in the chunks
+     * @return          the combined DataFrame
+     */
+    private DataFrame<Integer,String> merge(List<Chunk> chunks, String[] colNames, ArrayType[] types, int rowOffset) {
+        final int rowCount = chunks.stream().mapToInt(c -> c.rowCount).sum();
+        final Array<?>[] arrays = new Array<?>[colNames.length];
+        final Map<String,DictionaryArray<String>> encoded = new HashMap<>();
+        for (int i=0; i<colNames.length; ++i) {
+            final DictionaryArray<String> dictionary = types[i] == ArrayType.STRING ? dictionary(chunks, i, rowCount) : null;
+            if (dictionary != null) {
+                arrays[i] = dictionary.toArray();
+                encoded.put(colNames[i], dictionary);
+                continue;
+            }
+            int offset = 0;
+            final Object values = CsvColumn.newArray(types[i], rowCount);
+            for (Chunk chunk : chunks) {
+                chunk.columns[i].copyTo(values, types[i], offset);
+                offset += chunk.rowCount;
+            }
+            arrays[i] = CsvColumn.toArray(types[i], values);
+        }
+        this.dictionaries = options.getRowPredicate().isPresent() ? Collections.emptyMap() : encoded;
+        return DataFrame.of(Range.of(rowOffset, rowOffset + rowCount), String.class, columns -> {
+            for (int i=0; i<colNames.length; ++i) {
+                columns.add(colNames[i], arrays[i]);
+            }
+        });
+    }
+
+
+    /**
+     * Returns a dictionary array that combines the chunk dictionaries of a String column, if within the threshold
+     * @param chunks    the parsed chunks, in file order
+     * @param colIndex  the index of the column in each chunk
+     * @param rowCount  the total row count
+     * @return          the combined dictionary array, null if any chunk is not dictionary encoded or the threshold is exceeded
+     */
+    private DictionaryArray<String> dictionary(List<Chunk> chunks, int colIndex, int rowCount) {
+        final int threshold = options.getDictionaryThreshold();
+        final List<String> values = new ArrayList<>();
+        final Map<String,Integer> codeMap = new HashMap<>();
+        final int[] codes = new int[rowCount];
+        int offset = 0;
+        for (Chunk chunk : chunks) {
+            final CsvColumn column = chunk.columns[colIndex];
+            if (column.type() == null) {
+                Arrays.fill(codes, offset, offset + column.size(), -1);
+            } else if (column.dictionary() == null) {
+                return null;
+            } else {
+                final List<String> chunkValues = column.dictionary().values();
+                final int[] remap = new int[chunkValues.size()];
+                for (int j=0; j<remap.length; ++j) {
+                    final String value = chunkValues.get(j);
+                    final Integer code = codeMap.get(value);
+                    if (code != null) {
+                        remap[j] = code;
+                    } else if (values.size() >= threshold) {
+                        return null;
+                    } else {
+                        remap[j] = values.size();
+                        values.add(value);
+                        codeMap.put(value, remap[j]);
+                    }
+                }
+                final int[] chunkCodes = column.codes();
+                for (int j=0; j<column.size(); ++j) {
+                    final int code = chunkCodes[j];
+                    codes[offset + j] = code < 0 ? -1 : remap[code];
+                }
+            }
+            offset += column.size();
+        }
+        return DictionaryArray.of(String.class, values, codes);
+    }
+
+
+    /**
+     * Returns a DataFrame that combines the rows of each chunk selected by the row predicate
+     * <p>Each chunk is merged and filtered on its own and then released, so rows that are filtered out are never
+     * copied into a frame the size of the whole file.</p>
+     * @param chunks    the parsed chunks, in file order, which are cleared from the list as they are filtered
+     * @param colNames  the column names
+     * @param types     the reconciled column types
+     * @return          the combined DataFrame of selected rows
+     */
+    @SuppressWarnings("unchecked")
+    private DataFrame<Integer,String> filterChunks(List<Chunk> chunks, String[] colNames, ArrayType[] types) {
+        int rowOffset = 0;
+        DataFrame<Integer,String> empty = null;
+        final List<DataFrame<Integer,String>> frames = new ArrayList<>(chunks.size());
+        for (int i=0; i<chunks.size(); ++i) {
+            final Chunk chunk = chunks.set(i, null);
+            final DataFrame<Integer,String> frame = filter(merge(Collections.singletonList(chunk), colNames, types, rowOffset));
+            if (frame.rowCount() > 0) {
+                frames.add(frame.copy());
+            } else if (empty == null) {
+                empty = frame.copy();
+            }
+            rowOffset += chunk.rowCount;
+        }
+        if (frames.isEmpty()) {
+            return empty;
+        } else if (frames.size() == 1) {
+            return frames.get(0);
+        } else {
+            final DataFrame<Integer,String>[] parts = frames.toArray(new DataFrame[frames.size()]);
+            return DataFrame.concatRows(parts);
+        }
+    }
+
+
+    /**
+     * Returns the frame filtered by the row predicate, if one is configured
+     * @param frame     the frame to filter
+     * @return          the filtered frame
+     */
+    private DataFrame<Integer,String> filter(DataFrame<Integer,String> frame) {
+        return options.getRowPredicate().map(p -> frame.rows().select(p)).orElse(frame);
+    }
+
+
+    /**
+     * Returns the byte ranges of chunks of roughly the configured size, each ending on a line boundary
+     * @param channel   the file channel
+     * @param start     the start offset of data
+     * @param end       the end offset of data
+     * @return          the list of [start, end) byte ranges
+     */
+    private List<long[]> chunks(FileChannel channel, long start, long end) throws IOException {
+        final List<long[]> ranges = new ArrayList<>();
+        long position = start;
+        while (position < end) {
+            final long chunkEnd = chunkEnd(channel, position, end);
+            ranges.add(new long[] {position, chunkEnd});
+            position = chunkEnd;
+        }
+        return ranges;
+    }
+
+
+    /**
+     * Returns the end of the chunk that starts at the position specified, which is on a line boundary
+     * @param channel   the file channel
+     * @param position  the start offset of chunk
+     * @param end       the end offset of data
+     * @return          the end offset of chunk, exclusive
+     */
+    private long chunkEnd(FileChannel channel, long position, long end) throws IOException {
+        final long limit = position + options.getChunkSize();
+        return limit >= end ? end : nextLineStart(channel, limit);
+    }
+
+
+
+    /**
+     * Returns the file offset of the start of the line that follows the position specified
+     * @param channel   the file channel
+     * @param position  the position to search from
+     * @return          the offset after the next line feed, or the file size if none
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (true) {
+            buffer.clear();
+            final int count = channel.read(buffer, position);
+            if (count <= 0) {
+                return channel.size();
+            } else {
+                for (int i=0; i<count; ++i) {
+                    if (buffer.get(i) == LF) {
+                        return position + i + 1;
+                    }
+                }
+                position += count;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the fields of the single line in the byte range specified
+     * @param channel   the file channel
+     * @param start     the start offset of line
+     * @param end       the end offset of line
+     * @return          the list of field values
+     */
+    private List<String> parseLine(FileChannel channel, long start, long end) throws IOException {
+        final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        final List<String> fields = new ArrayList<>();
+        final ChunkParser parser = new ChunkParser(buffer, new int[0], new ArrayType[0], new FixedDateTimeFormat[0]);
+        parser.tokenize(fields::add);
+        return fields;
+    }
+
+
+    /**
+     * Returns an array of the integers from 0 to count, exclusive
+     * @param count     the count
+     * @return          the array of integers
+     */
+    private static int[] range(int count) {
+        final int[] values = new int[count];
+        for (int i=0; i<count; ++i) values[i] = i;
+        return values;
+    }
+
+
+    /**
+     * The columns, names, types and formats resolved from the header and options
+     */
+    private static class Schema {
+
+        private long dataStart;
+        private int[] colIndexes;
+        private String[] colNames;
+        private ArrayType[] fixedTypes;
+        private FixedDateTimeFormat[] formats;
+
+        /**
+         * Constructor
+         * @param colCount  the number of columns to read
+         * @param dataStart the file offset of the first data row
+         */
+        Schema(int colCount, long dataStart) {
+            this.dataStart = dataStart;
+            this.colIndexes = new int[colCount];
+            this.colNames = new String[colCount];
+            this.fixedTypes = new ArrayType[colCount];
+            this.formats = new FixedDateTimeFormat[colCount];
+        }
+    }
+
+
+    /**
+     * The parsed columns of one chunk of the file, and the byte range they were parsed from
+     */
+    private static class Chunk {
+
+        private ByteBuffer buffer;
+        private int start;
+        private int end;
+        private int rowCount;
+        private CsvColumn[] columns;
+
+        /**
+         * Constructor
+         * @param buffer    the buffer the chunk was parsed from
+         * @param start     the start offset in buffer
+         * @param end       the end offset in buffer, exclusive
+         * @param rowCount  the row count for chunk
+         * @param columns   the columns for chunk
+         */
+        Chunk(ByteBuffer buffer, int start, int end, int rowCount, CsvColumn[] columns) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.rowCount = rowCount;
+            this.columns = columns;
+        }
+    }
+
+
+    /**
+     * An iterator that reads the file sequentially in batches, mapping one window of the file at a time
+     */
+    private class BatchIterator implements Iterator<DataFrame<Integer,String>> {
+
+        private int batchSize;
+        private int rowOffset;
+        private int position;
+        private long windowStart;
+        private long fileSize;
+        private ByteBuffer window;
+        private Schema schema;
+        private ArrayType[] types;
+        private FileChannel channel;
+        private DataFrame<Integer,String> next;
+
+        /**
+         * Constructor
+         * @param batchSize the maximum number of rows per batch
+         */
+        BatchIterator(int batchSize) {
+            try {
+                this.batchSize = batchSize;
+                this.channel = FileChannel.open(options.getFile().toPath(), StandardOpenOption.READ);
+                this.fileSize = channel.size();
+                this.schema = schema(channel);
+                this.windowStart = schema.dataStart;
+            } catch (IOException ex) {
+                this.close();
+                throw new DataFrameException("Failed to open CSV file: " + options.getFile(), ex);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && channel != null) {
+                this.next = readBatch();
+            }
+            return next != null;
+        }
+
+        @Override
+        public DataFrame<Integer,String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more batches in CSV file: " + options.getFile());
+            } else {
+                final DataFrame<Integer,String> result = next;
+                this.next = null;
+                return result;
+            }
+        }
+
+        /**
+         * Returns the next batch from the file, or null if the end of the file has been reached
+         * @return  the next batch, or null
+         */
+        private DataFrame<Integer,String> readBatch() {
+            try {
+                int remaining = batchSize;
+                final List<Chunk> chunks = new ArrayList<>();
+                while (remaining > 0) {
+                    if (window == null || position >= window.limit()) {
+                        final long start = window == null ? windowStart : windowStart + window.limit();
+                        if (start >= fileSize) {
+                            break;
+                        } else {
+                            final long end = chunkEnd(channel, start, fileSize);
+                            this.window = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                            this.windowStart = start;
+                            this.position = 0;
+                        }
+                    }
+                    final ArrayType[] fixedTypes = types != null ? types.clone() : schema.fixedTypes.clone();
+                    final Chunk chunk = new ChunkParser(window, schema.colIndexes, fixedTypes, schema.formats).parse(position, remaining);
+                    this.position = chunk.end;
+                    if (chunk.rowCount > 0) {
+                        chunks.add(chunk);
+                        remaining -= chunk.rowCount;
+                    }
+                }
+                if (chunks.isEmpty()) {
+                    this.close();
+                    return null;
+                } else {
+                    if (types == null) {
+                        this.types = reconcile(null, chunks, schema);
+                        for (int i=0; i<types.length; ++i) {
+                            types[i] = types[i] != null ? types[i] : ArrayType.STRING;
+                        }
+                    }
+                    final DataFrame<Integer,String> frame = merge(chunks, schema.colNames, types, rowOffset);
+                    this.rowOffset += batchSize - remaining;
+                    return filter(frame);
+                }
+            } catch (IOException ex) {
+                this.close();
+                throw new DataFrameException("Failed to read CSV file: " + options.getFile(), ex);
+            } catch (RuntimeException ex) {
+                this.close();
+                throw ex;
+            }
+        }
+
+        /**
+         * Closes the file channel, after which no further batches are read
+         */
+        void close() {
+            try {
+                if (channel != null) {
+                    this.channel.close();
+                }
+            } catch (IOException ex) {
+                throw new DataFrameException("Failed to close CSV file: " + options.getFile(), ex);
+            } finally {
+                this.channel = null;
+                this.window = null;
+            }
+        }
+    }
+
+
+    /**
+     * A byte level tokenizer that parses one chunk of the file into column buffers
+     */
+    private class ChunkParser {
+
+        private ByteBuffer buffer;
+        private int position;
+        private int rows;
+        private int[] slots;
+        private ArrayType[] types;
+        private FixedDateTimeFormat[] formats;
+        private ByteSlice slice = new ByteSlice();
+        private Charset charset = options.getCharset();
+        private byte delimiter = (byte)options.getDelimiter();
+        private byte quote = (byte)options.getQuote();
+
+        /**
+         * Constructor
+         * @param buffer        the buffer for chunk
+         * @param colIndexes    the column indexes to include
+         * @param types         the fixed column types, with nulls for columns to infer, which is updated on re-parse
+         * @param formats       the fixed width date time formats, with nulls for ISO or non temporal columns
+         */
+        ChunkParser(ByteBuffer buffer, int[] colIndexes, ArrayType[] types, FixedDateTimeFormat[] formats) {
+            this.buffer = buffer;
+            this.types = types;
+            this.formats = formats;
+            final int maxIndex = colIndexes.length == 0 ? 0 : Arrays.stream(colIndexes).max().getAsInt() + 1;
+            this.slots = new int[maxIndex];
+            Arrays.fill(slots, -1);
+            for (int i=0; i<colIndexes.length; ++i) {
+                this.slots[colIndexes[i]] = i;
+            }
+        }
+
+        /**
+         * Parses up to the number of rows specified, re-parsing with a column fixed as String if inference reaches a dead end
+         * @param start     the buffer offset to start parsing from, which must be the start of a line
+         * @param maxRows   the maximum number of rows to parse
+         * @return          the parsed chunk
+         */
+        Chunk parse(int start, int maxRows) {
+            while (true) {
+                final CsvColumn[] columns = new CsvColumn[types.length];
+                for (int i=0; i<columns.length; ++i) {
+                    columns[i] = new CsvColumn(types[i], formats[i], charset, options.getDictionaryThreshold());
+                }
+                final int failed = tokenize(columns, start, maxRows);
+                if (failed < 0) {
+                    return new Chunk(buffer, start, position, rows, columns);
+                } else {
+                    this.types[failed] = ArrayType.STRING;
+                }
+            }
+        }
+
+        /**
+         * Tokenizes lines from the start offset into the columns specified, until the row limit or end of buffer
+         * @param columns   the columns to populate
+         * @param start     the buffer offset to start from
+         * @param maxRows   the maximum number of rows to parse
+         * @return          -1 if successful, otherwise the column that must be re-parsed as a String
+         */
+        private int tokenize(CsvColumn[] columns, int start, int maxRows) {
+            final int limit = buffer.limit();
+            this.position = start;
+            this.rows = 0;
+            while (position < limit && rows < maxRows) {
+                if (isLineEnd(position)) {
+                    this.position = skipLineEnd(position);
+                    continue;
+                }
+                int colIndex = 0;
+                while (true) {
+                    final int end = fieldEnd(position, limit);
+                    final int slot = colIndex < slots.length ? slots[colIndex] : -1;
+                    if (slot >= 0 && !columns[slot].add(value(position, end))) {
+                        return slot;
+                    }
+                    this.position = end;
+                    colIndex++;
+                    if (position < limit && buffer.get(position) == delimiter) {
+                        this.position++;
+                    } else {
+                        this.position = skipLineEnd(position);
+                        break;
+                    }
+                }
+                this.rows++;
+                for (CsvColumn column : columns) {
+                    while (column.size() < rows) {
+                        column.addNull();
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Tokenizes the first line of the buffer, passing every field to the consumer
+         * @param consumer  the consumer of field values
+         */
+        void tokenize(Consumer<String> consumer) {
+            final int limit = buffer.limit();
+            int position = 0;
+            while (position < limit && !isLineEnd(position)) {
+                final int end = fieldEnd(position, limit);
+                final ByteSlice value = value(position, end);
+                consumer.accept(value != null ? value.toString(charset) : "");
+                position = end;
+                if (position < limit && buffer.get(position) == delimiter) {
+                    position++;
+                    if (position == limit || isLineEnd(position)) {
+                        consumer.accept("");
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the offset of the delimiter or line end that terminates the field at position
+         * @param position  the start of field
+         * @param limit     the buffer limit
+         * @return          the end offset of field, exclusive
+         */
+        private int fieldEnd(int position, int limit) {
+            if (position < limit && buffer.get(position) == quote) {
+                position++;
+                while (position < limit) {
+                    if (buffer.get(position) == quote) {
+                        if (position + 1 < limit && buffer.get(position + 1) == quote) {
+                            position += 2;
+                        } else {
+                            position++;
+                            break;
+                        }
+                    } else {
+                        position++;
+                    }
+                }
+            }
+            while (position < limit) {
+                final byte next = buffer.get(position);
+                if (next == delimiter || next == LF || next == CR) {
+                    return position;
+                } else {
+                    position++;
+                }
+            }
+            return position;
+        }
+
+        /**
+         * Returns a reused slice over the field between start and end, excluding any enclosing quotes
+         * @param start     the start offset of field
+         * @param end       the end offset of field
+         * @return          the slice over the field, null if empty
+         */
+        private ByteSlice value(int start, int end) {
+            if (end - start >= 2 && buffer.get(start) == quote) {
+                int close = end - 1;
+                while (close > start && buffer.get(close) != quote) close--;
+                if (close > start) {
+                    boolean escaped = false;
+                    for (int i=start+1; i<close && !escaped; ++i) {
+                        escaped = buffer.get(i) == quote;
+                    }
+                    return slice.set(buffer, start + 1, close, quote, escaped);
+                }
+            }
+            return start == end ? null : slice.set(buffer, start, end);
+        }
+
+
+        /**
+         * Returns true if the byte at position is a line feed or carriage return
+         * @param position  the buffer position
+         * @return          true if at a line end
+         */
+        private boolean isLineEnd(int position) {
+            final byte next = buffer.get(position);
+            return next == LF || next == CR;
+        }
+
+        /**
+         * Returns the position after any line end characters at position
+         * @param position  the buffer position
+         * @return          the start of the next line
+         */
+        private int skipLineEnd(int position) {
+            final int limit = buffer.limit();
+            if (position < limit && buffer.get(position) == CR) position++;
+            if (position < limit && buffer.get(position) == LF) position++;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.zavtech.morpheus.perf.io;
+
+import java.awt.*;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class ParallelCsvPerf {
+
+    public static void main(String[] args) {
+
+        final int rowCount = 5000000;
+        final int colCount = 10;
+        final File dir = new File(System.getProperty("java.io.tmpdir"), "morpheus-csv");
+        final File file = new File(dir, "frame.csv");
+        dir.mkdirs();
+
+        final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            for (int i=0; i<colCount; ++i) {
+                columns.add("C" + i, Array.of(Double.class, rowCount).applyDoubles(v -> Math.random()));
+            }
+        });
+
+        DataFrame<String,String> timingStats = PerfStat.run(3, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("CsvSink", () -> {
+                frame.write().csv(options -> options.setFile(file.getAbsolutePath()));
+                return frame;
+            });
+
+            tasks.put("CsvSink(pattern)", () -> {
+                frame.write().csv(options -> {
+                    options.setFile(file.getAbsolutePath());
+                    options.setFormats(formats -> formats.setDecimalFormat(Double.class, "0.00##;-0.00##", 1));
+                });
+                return frame;
+            });
+
+            for (int threads : new int[] {1, 4, 8}) {
+                tasks.put(String.format("ParallelCsvSink(%s)", threads), () -> {
+                    frame.write().to(new ParallelCsvSink<>(), options -> {
+                        options.setFile(file);
+                        options.setThreads(threads);
+                    });
+                    return frame;
+                });
+            }
+
+            tasks.put("ParallelCsvSink(8, pattern)", () -> {
+                frame.write().to(new ParallelCsvSink<>(), options -> {
+                    options.setFile(file);
+                    options.setThreads(8);
+                    options.setFormats(formats -> formats.setDecimalFormat(Double.class, "0.00##;-0.00##", 1));
+                });
+                return frame;
+            });
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText(String.format("DataFrame CSV Write Times (%,d rows x %s columns of Doubles)", rowCount, colCount));
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 15));
+            chart.plot().axes().domain().label().withText("Timing Statistic");
+            chart.plot().axes().range(0).label().withText("Time (Milliseconds)");
+            chart.legend().on().bottom();
+            chart.show();
+        });
+    }
+}
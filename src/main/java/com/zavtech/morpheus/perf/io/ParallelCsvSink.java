@@ -0,0 +1,300 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSink;
+import com.zavtech.morpheus.util.IO;
+import com.zavtech.morpheus.util.Initialiser;
+import com.zavtech.morpheus.util.text.Formats;
+import com.zavtech.morpheus.util.text.printer.Printer;
+
+/**
+ * A DataFrameSink that writes CSV by formatting blocks of rows in parallel and writing them in order to a FileChannel
+ *
+ * <p>Each block of rows is formatted by a worker thread into a pooled UTF-8 byte buffer, and the calling thread
+ * writes completed buffers to the file in row order, so at most two blocks per thread are held in memory at once.
+ * When no formats are configured, values are written by fast paths without going through a Printer: doubles use
+ * the shortest round trip DoubleFormat, integral types are written digit by digit, and dates are written as
+ * yyyy-MM-dd. When formats are configured, the configurator is applied to a separate Formats instance on each
+ * worker thread, since the DecimalFormat and similar objects behind printers are not safe to share.</p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ParallelCsvSink<R,C> implements DataFrameSink<R,C,ParallelCsvSinkOptions<R>> {
+
+    private static final int BOOLEAN = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int DATE = 4;
+    private static final int OBJECT = 5;
+
+
+    @Override
+    public void write(DataFrame<R,C> frame, Consumer<ParallelCsvSinkOptions<R>> configurator) {
+        final ParallelCsvSinkOptions<R> options = Initialiser.apply(new ParallelCsvSinkOptions<>(), configurator);
+        options.validate();
+        final int rowCount = frame.rowCount();
+        final int blockSize = options.getBlockSize();
+        final int blockCount = (rowCount + blockSize - 1) / blockSize;
+        final int threads = Math.max(1, Math.min(options.getThreads(), blockCount));
+        final Layout layout = new Layout(frame, options);
+        final ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        final ThreadLocal<Printer<Object>[]> printers = ThreadLocal.withInitial(() -> layout.printers(options));
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(options.getFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            if (options.isIncludeColumnHeader()) {
+                final CsvBuffer header = new CsvBuffer(1024);
+                layout.header(header, options);
+                header.writeTo(channel);
+            }
+            if (executor == null) {
+                final CsvBuffer buffer = new CsvBuffer(blockSize * 64);
+                for (int start=0; start<rowCount; start+=blockSize) {
+                    buffer.clear();
+                    layout.format(buffer, start, Math.min(start + blockSize, rowCount), printers.get());
+                    buffer.writeTo(channel);
+                }
+            } else {
+                final int window = threads * 2;
+                final BlockingQueue<CsvBuffer> pool = new ArrayBlockingQueue<>(window);
+                final Deque<Future<CsvBuffer>> pending = new ArrayDeque<>(window);
+                for (int i=0; i<window; ++i) {
+                    pool.add(new CsvBuffer(blockSize * 64));
+                }
+                for (int start=0; start<rowCount; start+=blockSize) {
+                    if (pending.size() == window) {
+                        final CsvBuffer buffer = pending.poll().get();
+                        buffer.writeTo(channel);
+                        pool.add(buffer);
+                    }
+                    final int from = start;
+                    final int to = Math.min(start + blockSize, rowCount);
+                    pending.add(executor.submit(() -> {
+                        final CsvBuffer buffer = pool.take();
+                        buffer.clear();
+                        layout.format(buffer, from, to, printers.get());
+                        return buffer;
+                    }));
+                }
+                while (!pending.isEmpty()) {
+                    pending.poll().get().writeTo(channel);
+                }
+            }
+        } catch (ExecutionException ex) {
+            throw new DataFrameException("Failed to format CSV block for " + options.getFile(), ex.getCause());
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to write DataFrame to CSV file " + options.getFile(), ex);
+        } finally {
+            IO.close(channel);
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+
+    /**
+     * Returns the fast path code for the data type
+     * @param type  the data type
+     * @return      the fast path code
+     */
+    private static int code(Class<?> type) {
+        if (type == Boolean.class)          return BOOLEAN;
+        else if (type == Integer.class)     return INT;
+        else if (type == Long.class)        return LONG;
+        else if (type == Double.class)      return DOUBLE;
+        else if (type == LocalDate.class)   return DATE;
+        else                                return OBJECT;
+    }
+
+
+    /**
+     * The column layout of the frame being written, which formats blocks of rows into buffers
+     */
+    private class Layout {
+
+        private byte separator;
+        private byte[] nullText;
+        private boolean includeRowKeys;
+        private Printer<R> rowKeyPrinter;
+        private ColumnValues rowKeys;
+        private int rowKeyCode;
+        private Array<C> colKeys;
+        private Class<?>[] types;
+        private int[] codes;
+        private ColumnValues[] columns;
+
+        /**
+         * Constructor
+         * @param frame     the frame to write
+         * @param options   the sink options
+         */
+        Layout(DataFrame<R,C> frame, ParallelCsvSinkOptions<R> options) {
+            final Array<R> keys = frame.rows().keyArray();
+            this.separator = (byte)options.getSeparator().charAt(0);
+            this.nullText = options.getNullText().getBytes(StandardCharsets.UTF_8);
+            this.includeRowKeys = options.isIncludeRowHeader();
+            this.rowKeyPrinter = options.getRowKeyPrinter().orElse(null);
+            this.rowKeys = ColumnValues.of(keys);
+            this.rowKeyCode = code(keys.type());
+            this.colKeys = frame.cols().keyArray();
+            this.types = new Class<?>[colKeys.length()];
+            this.codes = new int[colKeys.length()];
+            this.columns = new ColumnValues[colKeys.length()];
+            for (int i=0; i<colKeys.length(); ++i) {
+                this.types[i] = frame.cols().type(colKeys.getValue(i));
+                this.codes[i] = code(types[i]);
+                this.columns[i] = ColumnValues.of(frame.data(), i);
+            }
+        }
+
+        /**
+         * Returns the printer for each column from a newly configured Formats, or null if no formats are configured
+         * @param options   the sink options
+         * @return          the printers by column ordinal, or null
+         */
+        @SuppressWarnings("unchecked")
+        Printer<Object>[] printers(ParallelCsvSinkOptions<R> options) {
+            if (!options.getFormats().isPresent()) {
+                return null;
+            } else {
+                final Formats formats = new Formats();
+                options.getFormats().get().accept(formats);
+                final Printer<Object>[] printers = (Printer<Object>[])new Printer<?>[colKeys.length()];
+                for (int i=0; i<printers.length; ++i) {
+                    final Printer<Object> colPrinter = formats.getPrinter(colKeys.getValue(i));
+                    printers[i] = colPrinter != null ? colPrinter : formats.getPrinter(types[i]);
+                }
+                return printers;
+            }
+        }
+
+        /**
+         * Formats the header line with the row key title and column keys
+         * @param buffer    the buffer to format into
+         * @param options   the sink options
+         */
+        void header(CsvBuffer buffer, ParallelCsvSinkOptions<R> options) {
+            if (includeRowKeys) {
+                buffer.appendText(String.valueOf(options.getTitle()), separator);
+            }
+            for (int i=0; i<colKeys.length(); ++i) {
+                if (i > 0 || includeRowKeys) buffer.append(separator);
+                buffer.appendText(String.valueOf(colKeys.getValue(i)), separator);
+            }
+            buffer.append((byte)'\n');
+        }
+
+        /**
+         * Formats a block of rows into the buffer
+         * @param buffer    the buffer to format into
+         * @param from      the first row ordinal, inclusive
+         * @param to        the last row ordinal, exclusive
+         * @param printers  the column printers, null to use fast paths for all columns
+         */
+        @SuppressWarnings("unchecked")
+        void format(CsvBuffer buffer, int from, int to, Printer<Object>[] printers) {
+            for (int row=from; row<to; ++row) {
+                if (includeRowKeys) {
+                    if (rowKeyPrinter != null) {
+                        final R rowKey = (R)rowKeys.getValue(row);
+                        buffer.appendText(rowKeyPrinter.apply(rowKey), separator);
+                    } else {
+                        append(buffer, rowKeys, row, rowKeyCode, null);
+                    }
+                }
+                for (int col=0; col<codes.length; ++col) {
+                    if (col > 0 || includeRowKeys) buffer.append(separator);
+                    append(buffer, columns[col], row, codes[col], printers != null ? printers[col] : null);
+                }
+                buffer.append((byte)'\n');
+            }
+        }
+
+        /**
+         * Formats a single value into the buffer
+         * @param buffer    the buffer to format into
+         * @param values    the column values
+         * @param row       the row ordinal
+         * @param code      the fast path code for the column type
+         * @param printer   the printer for the column, null to use the fast path
+         */
+        private void append(CsvBuffer buffer, ColumnValues values, int row, int code, Printer<Object> printer) {
+            if (printer != null) {
+                final Object value = values.getValue(row);
+                if (value == null) {
+                    buffer.append(nullText);
+                } else {
+                    buffer.appendText(printer.apply(value), separator);
+                }
+            } else {
+                switch (code) {
+                    case BOOLEAN:   buffer.appendBoolean(values.getBoolean(row));   break;
+                    case INT:       buffer.appendLong(values.getInt(row));          break;
+                    case LONG:      buffer.appendLong(values.getLong(row));         break;
+                    case DOUBLE:
+                        final double number = values.getDouble(row);
+                        if (Double.isNaN(number)) {
+                            buffer.append(nullText);
+                        } else {
+                            buffer.appendDouble(number);
+                        }
+                        break;
+                    case DATE:
+                        final Object date = values.getValue(row);
+                        if (date == null) {
+                            buffer.append(nullText);
+                        } else {
+                            buffer.appendDate((LocalDate)date);
+                        }
+                        break;
+                    default:
+                        final Object value = values.getValue(row);
+                        if (value == null) {
+                            buffer.append(nullText);
+                        } else {
+                            buffer.appendText(value.toString(), separator);
+                        }
+                        break;
+                }
+            }
+        }
+    }
+}
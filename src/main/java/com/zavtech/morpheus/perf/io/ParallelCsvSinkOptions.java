@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import com.zavtech.morpheus.util.text.Formats;
+import com.zavtech.morpheus.util.text.printer.Printer;
+
+/**
+ * The options to configure a ParallelCsvSink, which follow the naming of the Morpheus CSV sink options
+ *
+ * @param <R>   the row key type
+ *
+ * @author  Xavier Witdouck
+ */
+public class ParallelCsvSinkOptions<R> {
+
+    private File file;
+    private String separator = ",";
+    private boolean includeRowHeader = true;
+    private boolean includeColumnHeader = true;
+    private String nullText = "null";
+    private String title = "DataFrame";
+    private Printer<R> rowKeyPrinter;
+    private Consumer<Formats> formats;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int blockSize = 10000;
+
+
+    /**
+     * Constructor
+     */
+    public ParallelCsvSinkOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the file to write
+     * @return  the file to write
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the column separator
+     * @return  the column separator
+     */
+    public String getSeparator() {
+        return separator;
+    }
+
+    /**
+     * Returns true if the row keys are written as the first column
+     * @return  true to include row keys
+     */
+    public boolean isIncludeRowHeader() {
+        return includeRowHeader;
+    }
+
+    /**
+     * Returns true if a header line with the column keys is written
+     * @return  true to include column keys
+     */
+    public boolean isIncludeColumnHeader() {
+        return includeColumnHeader;
+    }
+
+    /**
+     * Returns the text written for null and NaN values
+     * @return  the null text
+     */
+    public String getNullText() {
+        return nullText;
+    }
+
+    /**
+     * Returns the header title of the row key column
+     * @return  the row key column title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the printer for row keys, if specified
+     * @return  the optional row key printer
+     */
+    public Optional<Printer<R>> getRowKeyPrinter() {
+        return Optional.ofNullable(rowKeyPrinter);
+    }
+
+    /**
+     * Returns the configurator for formats, if specified
+     * @return  the optional formats configurator
+     */
+    public Optional<Consumer<Formats>> getFormats() {
+        return Optional.ofNullable(formats);
+    }
+
+    /**
+     * Returns the number of threads that format row blocks
+     * @return  the thread count
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the number of rows formatted as one block
+     * @return  the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Sets the file to write
+     * @param file  the file to write
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the path of the file to write
+     * @param path  the file path
+     */
+    public void setFile(String path) {
+        this.file = new File(path);
+    }
+
+    /**
+     * Sets the column separator, which must be a single ASCII character
+     * @param separator the column separator
+     */
+    public void setSeparator(String separator) {
+        this.separator = Objects.requireNonNull(separator, "The separator cannot be null");
+    }
+
+    /**
+     * Sets whether the row keys are written as the first column
+     * @param includeRowHeader  true to include row keys
+     */
+    public void setIncludeRowHeader(boolean includeRowHeader) {
+        this.includeRowHeader = includeRowHeader;
+    }
+
+    /**
+     * Sets whether a header line with the column keys is written
+     * @param includeColumnHeader   true to include column keys
+     */
+    public void setIncludeColumnHeader(boolean includeColumnHeader) {
+        this.includeColumnHeader = includeColumnHeader;
+    }
+
+    /**
+     * Sets the text written for null and NaN values
+     * @param nullText  the null text
+     */
+    public void setNullText(String nullText) {
+        this.nullText = Objects.requireNonNull(nullText, "The null text cannot be null");
+    }
+
+    /**
+     * Sets the header title of the row key column
+     * @param title the row key column title
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Sets the printer for row keys, which is called concurrently and so must be thread safe
+     * @param rowKeyPrinter the row key printer
+     */
+    public void setRowKeyPrinter(Printer<R> rowKeyPrinter) {
+        this.rowKeyPrinter = rowKeyPrinter;
+    }
+
+    /**
+     * Sets the configurator for formats, which is applied once per formatting thread so printers are never shared
+     * @param formats   the formats configurator
+     */
+    public void setFormats(Consumer<Formats> formats) {
+        this.formats = formats;
+    }
+
+    /**
+     * Sets the number of threads that format row blocks
+     * @param threads   the thread count
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the number of rows formatted as one block
+     * @param blockSize the block size
+     */
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Validates that these options are complete and consistent
+     */
+    void validate() {
+        if (file == null) {
+            throw new IllegalStateException("The file to write must be specified");
+        } else if (separator.length() != 1 || separator.charAt(0) >= 0x80) {
+            throw new IllegalArgumentException("The separator must be a single ASCII character: " + separator);
+        } else if (threads <= 0) {
+            throw new IllegalArgumentException("The thread count must be > 0: " + threads);
+        } else if (blockSize <= 0) {
+            throw new IllegalArgumentException("The block size must be > 0: " + blockSize);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import com.zavtech.morpheus.array.Array;
+import com.zavtech.morpheus.perf.array.LongCodec;
+
+/**
+ * Decodes the values of a flat Parquet column across row groups into a primitive buffer for a Morpheus array
+ *
+ * <p>BOOLEAN, INT32, INT64, FLOAT and DOUBLE columns decode to boolean, int, long and double buffers, with FLOAT
+ * widened to double and DECIMAL annotated columns decoded to double. DATE, TIME and TIMESTAMP annotated columns,
+ * as well as legacy INT96 timestamps, are held in a long buffer using the LongCodec encoding, where timestamps
+ * adjusted to UTC become Instant values and all others LocalDateTime. BINARY columns decode to String.</p>
+ *
+ * <p>Null DOUBLE, FLOAT and DECIMAL values decode to NaN, and null STRING and temporal values to null. BOOLEAN, INT32
+ * and INT64 buffers have no such sentinel, so a validity mask built from the definition levels records which rows
+ * are defined, and getValue() returns null for the others so that filters never match them. The Morpheus arrays
+ * built by toArray() are primitive, so null values of these types appear in the frame as false or zero.</p>
+ *
+ * <p>TIMESTAMP and INT96 values are decoded directly to epoch milliseconds, the precision of the Morpheus Instant
+ * and LocalDateTime arrays, so MICROS and NANOS values are truncated to the millisecond. Reducing rather than
+ * scaling the stored value means no timestamp can overflow, and row group statistics are decoded the same way so
+ * that filters see the same values as the rows.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+final class ParquetColumn {
+
+    private static final long MILLIS_PER_DAY = 86400L * 1000L;
+    private static final int JULIAN_EPOCH_DAY = 2440588;
+
+    private enum Decoding { BOOLEAN, INT, LONG, FLOAT, DOUBLE, STRING, DATE, TIME_MILLIS, TIME, TIMESTAMP, INT96, DECIMAL_INT, DECIMAL_LONG, DECIMAL_BINARY }
+
+    private String name;
+    private ColumnDescriptor descriptor;
+    private Decoding decoding;
+    private Class<?> type;
+    private LongCodec<Object> codec;
+    private long nanosPerUnit = 1L;
+    private long unitsPerMilli = 1L;
+    private int decimalScale;
+    private double decimalDivisor = 1d;
+    private int length;
+    private boolean[] booleans;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private String[] strings;
+    private boolean[] validity;
+
+
+    /**
+     * Constructor
+     * @param descriptor    the column descriptor
+     * @param capacity      the total number of rows to be read into this column
+     */
+    @SuppressWarnings("unchecked")
+    ParquetColumn(ColumnDescriptor descriptor, int capacity) {
+        this.descriptor = descriptor;
+        this.name = String.join(".", descriptor.getPath());
+        this.resolve(descriptor.getPrimitiveType());
+        if (type == Boolean.class) {
+            this.booleans = new boolean[capacity];
+            this.validity = new boolean[capacity];
+        } else if (type == Integer.class) {
+            this.ints = new int[capacity];
+            this.validity = new boolean[capacity];
+        } else if (type == Double.class) {
+            this.doubles = new double[capacity];
+        } else if (type == String.class) {
+            this.strings = new String[capacity];
+        } else {
+            this.longs = new long[capacity];
+            this.codec = type != Long.class ? (LongCodec<Object>)LongCodec.ofMillis(type) : null;
+            this.validity = type == Long.class ? new boolean[capacity] : null;
+        }
+    }
+
+
+    /**
+     * Returns true if the field is a primitive column that is not repeated, which is required to map to a frame column
+     * @param field the schema field
+     * @return      true if field can be read into a frame column
+     */
+    static boolean isSupported(Type field) {
+        return field.isPrimitive() && !field.isRepetition(Type.Repetition.REPEATED);
+    }
+
+
+    /**
+     * Resolves the decoding and Morpheus type for the Parquet column type
+     * @param primitive the Parquet column type
+     */
+    private void resolve(PrimitiveType primitive) {
+        final LogicalTypeAnnotation logical = primitive.getLogicalTypeAnnotation();
+        if (logical instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation) {
+            this.type = Double.class;
+            this.decimalScale = ((LogicalTypeAnnotation.DecimalLogicalTypeAnnotation)logical).getScale();
+            this.decimalDivisor = Math.pow(10d, decimalScale);
+        }
+        switch (primitive.getPrimitiveTypeName()) {
+            case BOOLEAN:
+                this.decoding = Decoding.BOOLEAN;
+                this.type = Boolean.class;
+                break;
+            case INT32:
+                if (type == Double.class) {
+                    this.decoding = Decoding.DECIMAL_INT;
+                } else if (logical instanceof LogicalTypeAnnotation.DateLogicalTypeAnnotation) {
+                    this.decoding = Decoding.DATE;
+                    this.type = LocalDate.class;
+                } else if (logical instanceof LogicalTypeAnnotation.TimeLogicalTypeAnnotation) {
+                    this.decoding = Decoding.TIME_MILLIS;
+                    this.type = LocalTime.class;
+                } else {
+                    this.decoding = Decoding.INT;
+                    this.type = Integer.class;
+                }
+                break;
+            case INT64:
+                if (type == Double.class) {
+                    this.decoding = Decoding.DECIMAL_LONG;
+                } else if (logical instanceof LogicalTypeAnnotation.TimestampLogicalTypeAnnotation) {
+                    final LogicalTypeAnnotation.TimestampLogicalTypeAnnotation timestamp = (LogicalTypeAnnotation.TimestampLogicalTypeAnnotation)logical;
+                    this.decoding = Decoding.TIMESTAMP;
+                    this.type = timestamp.isAdjustedToUTC() ? Instant.class : LocalDateTime.class;
+                    this.unitsPerMilli = 1000000L / nanosPerUnit(timestamp.getUnit());
+                } else if (logical instanceof LogicalTypeAnnotation.TimeLogicalTypeAnnotation) {
+                    this.decoding = Decoding.TIME;
+                    this.type = LocalTime.class;
+                    this.nanosPerUnit = nanosPerUnit(((LogicalTypeAnnotation.TimeLogicalTypeAnnotation)logical).getUnit());
+                } else {
+                    this.decoding = Decoding.LONG;
+                    this.type = Long.class;
+                }
+                break;
+            case INT96:
+                this.decoding = Decoding.INT96;
+                this.type = Instant.class;
+                break;
+            case FLOAT:
+                this.decoding = Decoding.FLOAT;
+                this.type = Double.class;
+                break;
+            case DOUBLE:
+                this.decoding = Decoding.DOUBLE;
+                this.type = Double.class;
+                break;
+            default:
+                this.decoding = type == Double.class ? Decoding.DECIMAL_BINARY : Decoding.STRING;
+                this.type = type == Double.class ? Double.class : String.class;
+                break;
+        }
+    }
+
+
+    /**
+     * Returns the nanoseconds per unit for the Parquet time unit
+     * @param unit  the Parquet time unit
+     * @return      the nanoseconds per unit
+     */
+    private static long nanosPerUnit(LogicalTypeAnnotation.TimeUnit unit) {
+        switch (unit) {
+            case MILLIS:    return 1000000L;
+            case MICROS:    return 1000L;
+            default:        return 1L;
+        }
+    }
+
+
+    /**
+     * Returns the dotted name of this column
+     * @return  the column name
+     */
+    String name() {
+        return name;
+    }
+
+
+    /**
+     * Returns the descriptor for this column
+     * @return  the column descriptor
+     */
+    ColumnDescriptor descriptor() {
+        return descriptor;
+    }
+
+
+    /**
+     * Returns the Morpheus type for this column
+     * @return  the Morpheus type
+     */
+    Class<?> type() {
+        return type;
+    }
+
+
+    /**
+     * Returns the number of values read into this column
+     * @return  the number of values
+     */
+    int length() {
+        return length;
+    }
+
+
+    /**
+     * Reads the values for the next rows from the column reader, one value per row
+     * @param reader    the column reader for the current row group
+     * @param count     the number of rows in the row group
+     */
+    void read(ColumnReader reader, int count) {
+        final int maxLevel = descriptor.getMaxDefinitionLevel();
+        final int end = length + count;
+        for (int i=length; i<end; ++i, reader.consume()) {
+            final boolean defined = reader.getCurrentDefinitionLevel() == maxLevel;
+            if (validity != null) {
+                this.validity[i] = defined;
+            }
+            switch (decoding) {
+                case BOOLEAN:           booleans[i] = defined && reader.getBoolean();                                               break;
+                case INT:               ints[i] = defined ? reader.getInteger() : 0;                                                break;
+                case LONG:              longs[i] = defined ? reader.getLong() : 0L;                                                 break;
+                case FLOAT:             doubles[i] = defined ? reader.getFloat() : Double.NaN;                                      break;
+                case DOUBLE:            doubles[i] = defined ? reader.getDouble() : Double.NaN;                                     break;
+                case DECIMAL_INT:       doubles[i] = defined ? reader.getInteger() / decimalDivisor : Double.NaN;                   break;
+                case DECIMAL_LONG:      doubles[i] = defined ? reader.getLong() / decimalDivisor : Double.NaN;                      break;
+                case DECIMAL_BINARY:    doubles[i] = defined ? decimal(reader.getBinary()) : Double.NaN;                            break;
+                case STRING:            strings[i] = defined ? reader.getBinary().toStringUsingUTF8() : null;                       break;
+                case DATE:              longs[i] = defined ? reader.getInteger() : LongCodec.NULL;                                  break;
+                case TIME_MILLIS:       longs[i] = defined ? reader.getInteger() * 1000000L : LongCodec.NULL;                       break;
+                case INT96:             longs[i] = defined ? int96(reader.getBinary()) : LongCodec.NULL;                            break;
+                case TIMESTAMP:         longs[i] = defined ? Math.floorDiv(reader.getLong(), unitsPerMilli) : LongCodec.NULL;       break;
+                default:                longs[i] = defined ? reader.getLong() * nanosPerUnit : LongCodec.NULL;                      break;
+            }
+        }
+        this.length = end;
+    }
+
+
+    /**
+     * Returns the value at the row specified as its Morpheus type, or null if the value is null or NaN
+     * @param row   the row index
+     * @return      the value, or null
+     */
+    Object getValue(int row) {
+        if (validity != null && !validity[row]) {
+            return null;
+        } else if (type == Boolean.class) {
+            return booleans[row];
+        } else if (type == Integer.class) {
+            return ints[row];
+        } else if (type == Long.class) {
+            return longs[row];
+        } else if (type == Double.class) {
+            return Double.isNaN(doubles[row]) ? null : doubles[row];
+        } else if (type == String.class) {
+            return strings[row];
+        } else {
+            return codec.decode(longs[row]);
+        }
+    }
+
+
+    /**
+     * Returns a row group min or max statistic converted to the Morpheus type of this column
+     * @param raw   the raw statistic value
+     * @return      the converted value, or null if the statistic cannot be used
+     */
+    Object toValue(Object raw) {
+        if (raw == null) {
+            return null;
+        } else {
+            switch (decoding) {
+                case BOOLEAN:           return raw;
+                case INT:               return raw;
+                case LONG:              return raw;
+                case FLOAT:             return ((Number)raw).doubleValue();
+                case DOUBLE:            return raw;
+                case DECIMAL_INT:       return ((Number)raw).intValue() / decimalDivisor;
+                case DECIMAL_LONG:      return ((Number)raw).longValue() / decimalDivisor;
+                case DECIMAL_BINARY:    return decimal((Binary)raw);
+                case STRING:            return ((Binary)raw).toStringUsingUTF8();
+                case DATE:              return LocalDate.ofEpochDay(((Number)raw).intValue());
+                case TIME_MILLIS:       return LocalTime.ofNanoOfDay(((Number)raw).intValue() * 1000000L);
+                case INT96:             return null;
+                case TIMESTAMP:         return codec.decode(Math.floorDiv(((Number)raw).longValue(), unitsPerMilli));
+                default:
+                    return codec.decode(((Number)raw).longValue() * nanosPerUnit);
+            }
+        }
+    }
+
+
+    /**
+     * Compacts this column to retain only the rows selected by the mask
+     * @param mask  the mask of rows to retain
+     * @param count the number of rows selected in the mask
+     */
+    void retain(boolean[] mask, int count) {
+        int target = 0;
+        for (int i=0; i<length; ++i) {
+            if (mask[i]) {
+                if (booleans != null) booleans[target] = booleans[i];
+                else if (ints != null) ints[target] = ints[i];
+                else if (doubles != null) doubles[target] = doubles[i];
+                else if (strings != null) strings[target] = strings[i];
+                else longs[target] = longs[i];
+                if (validity != null) validity[target] = validity[i];
+                ++target;
+            }
+        }
+        this.length = count;
+    }
+
+
+    /**
+     * Returns a Morpheus array with the values read into this column
+     * @return  the Morpheus array
+     */
+    @SuppressWarnings("unchecked")
+    Array<?> toArray() {
+        if (type == Boolean.class) {
+            return Array.of(booleans.length == length ? booleans : Arrays.copyOf(booleans, length));
+        } else if (type == Integer.class) {
+            return Array.of(ints.length == length ? ints : Arrays.copyOf(ints, length));
+        } else if (type == Long.class) {
+            return Array.of(longs.length == length ? longs : Arrays.copyOf(longs, length));
+        } else if (type == Double.class) {
+            return Array.of(doubles.length == length ? doubles : Arrays.copyOf(doubles, length));
+        } else if (type == String.class) {
+            return Array.of(strings.length == length ? strings : Arrays.copyOf(strings, length));
+        } else {
+            final Array<Object> array = Array.of((Class<Object>)type, length);
+            for (int i=0; i<length; ++i) {
+                array.setValue(i, codec.decode(longs[i]));
+            }
+            return array;
+        }
+    }
+
+
+    /**
+     * Returns the double value of an unscaled big endian two's complement decimal
+     * @param binary    the unscaled decimal bytes
+     * @return          the decimal value
+     */
+    private double decimal(Binary binary) {
+        return new BigDecimal(new BigInteger(binary.getBytes()), decimalScale).doubleValue();
+    }
+
+
+    /**
+     * Returns epoch milliseconds for a legacy INT96 timestamp, which holds nanos of day followed by the Julian day
+     * @param binary    the 12 byte little endian timestamp
+     * @return          the epoch milliseconds
+     */
+    private static long int96(Binary binary) {
+        final ByteBuffer buffer = binary.toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        final long nanosOfDay = buffer.getLong();
+        final int julianDay = buffer.getInt();
+        return ((long)julianDay - JULIAN_EPOCH_DAY) * MILLIS_PER_DAY + Math.floorDiv(nanosOfDay, 1000000L);
+    }
+}
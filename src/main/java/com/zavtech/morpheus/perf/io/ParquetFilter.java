@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A simple row predicate on Parquet columns that can be pushed down to skip row groups using min/max statistics
+ *
+ * <p>A filter is first tested against the statistics of each row group, and row groups that cannot contain a
+ * match are skipped without being read. The filter is then applied to each row of the row groups that are read,
+ * so the result is exact. Bounds are compared with column values as Comparable, except that numeric bounds are
+ * compared numerically so an Integer bound can be used with a Double column. Null values never match.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public abstract class ParquetFilter {
+
+
+    /**
+     * Returns a filter that matches rows where the column equals the value
+     * @param column    the column name
+     * @param value     the value to match
+     * @return          the filter
+     */
+    public static ParquetFilter eq(String column, Comparable<?> value) {
+        return new Bounds(column, value, true, value, true);
+    }
+
+
+    /**
+     * Returns a filter that matches rows where the column is less than the value
+     * @param column    the column name
+     * @param value     the exclusive upper bound
+     * @return          the filter
+     */
+    public static ParquetFilter lt(String column, Comparable<?> value) {
+        return new Bounds(column, null, false, value, false);
+    }
+
+
+    /**
+     * Returns a filter that matches rows where the column is less than or equal to the value
+     * @param column    the column name
+     * @param value     the inclusive upper bound
+     * @return          the filter
+     */
+    public static ParquetFilter le(String column, Comparable<?> value) {
+        return new Bounds(column, null, false, value, true);
+    }
+
+
+    /**
+     * Returns a filter that matches rows where the column is greater than the value
+     * @param column    the column name
+     * @param value     the exclusive lower bound
+     * @return          the filter
+     */
+    public static ParquetFilter gt(String column, Comparable<?> value) {
+        return new Bounds(column, value, false, null, false);
+    }
+
+
+    /**
+     * Returns a filter that matches rows where the column is greater than or equal to the value
+     * @param column    the column name
+     * @param value     the inclusive lower bound
+     * @return          the filter
+     */
+    public static ParquetFilter ge(String column, Comparable<?> value) {
+        return new Bounds(column, value, true, null, false);
+    }
+
+
+    /**
+     * Returns a filter that matches rows where the column is between the bounds, inclusive
+     * @param column    the column name
+     * @param lower     the inclusive lower bound
+     * @param upper     the inclusive upper bound
+     * @return          the filter
+     */
+    public static ParquetFilter between(String column, Comparable<?> lower, Comparable<?> upper) {
+        return new Bounds(column, lower, true, upper, true);
+    }
+
+
+    /**
+     * Returns a filter that matches rows that match all of the filters specified
+     * @param filters   the filters to combine
+     * @return          the filter
+     */
+    public static ParquetFilter and(ParquetFilter... filters) {
+        return new And(filters);
+    }
+
+
+    /**
+     * Adds the names of the columns this filter references to the set
+     * @param columns   the set to add column names to
+     */
+    abstract void columns(Set<String> columns);
+
+
+    /**
+     * Returns true if a row group with the statistics specified might contain a matching row
+     * @param stats the min and max values by column, with null min and max if a column only has nulls
+     * @return      false if the row group can be skipped
+     */
+    abstract boolean mightMatch(Map<String,Object[]> stats);
+
+
+    /**
+     * Returns true if the row specified matches this filter
+     * @param columns   the columns read, keyed by name
+     * @param row       the row index
+     * @return          true if row matches
+     */
+    abstract boolean test(Map<String,ParquetColumn> columns, int row);
+
+
+    /**
+     * Returns the result of comparing two values, numerically if both are numbers
+     * @param value the value
+     * @param bound the bound to compare with
+     * @return      the comparison result
+     */
+    @SuppressWarnings("unchecked")
+    static int compare(Object value, Object bound) {
+        if (value instanceof Number && bound instanceof Number) {
+            final Number left = (Number)value;
+            final Number right = (Number)bound;
+            if (isIntegral(left) && isIntegral(right)) {
+                return Long.compare(left.longValue(), right.longValue());
+            } else {
+                return Double.compare(left.doubleValue(), right.doubleValue());
+            }
+        } else {
+            return ((Comparable<Object>)value).compareTo(bound);
+        }
+    }
+
+
+    private static boolean isIntegral(Number value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+
+    /**
+     * A filter that matches values within optional lower and upper bounds
+     */
+    private static class Bounds extends ParquetFilter {
+
+        private String column;
+        private Object lower;
+        private Object upper;
+        private boolean lowerInclusive;
+        private boolean upperInclusive;
+
+        /**
+         * Constructor
+         * @param column            the column name
+         * @param lower             the lower bound, null if unbounded
+         * @param lowerInclusive    true if the lower bound is inclusive
+         * @param upper             the upper bound, null if unbounded
+         * @param upperInclusive    true if the upper bound is inclusive
+         */
+        Bounds(String column, Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+            this.column = Objects.requireNonNull(column, "The filter column cannot be null");
+            this.lower = lower;
+            this.upper = upper;
+            this.lowerInclusive = lowerInclusive;
+            this.upperInclusive = upperInclusive;
+        }
+
+        @Override
+        void columns(Set<String> columns) {
+            columns.add(column);
+        }
+
+        @Override
+        boolean mightMatch(Map<String,Object[]> stats) {
+            final Object[] minMax = stats.get(column);
+            if (minMax == null) {
+                return true;
+            } else if (minMax[0] == null || minMax[1] == null) {
+                return false;
+            } else {
+                return aboveLower(minMax[1]) && belowUpper(minMax[0]);
+            }
+        }
+
+        @Override
+        boolean test(Map<String,ParquetColumn> columns, int row) {
+            final Object value = columns.get(column).getValue(row);
+            return value != null && aboveLower(value) && belowUpper(value);
+        }
+
+        private boolean aboveLower(Object value) {
+            if (lower == null) {
+                return true;
+            } else {
+                final int result = compare(value, lower);
+                return lowerInclusive ? result >= 0 : result > 0;
+            }
+        }
+
+        private boolean belowUpper(Object value) {
+            if (upper == null) {
+                return true;
+            } else {
+                final int result = compare(value, upper);
+                return upperInclusive ? result <= 0 : result < 0;
+            }
+        }
+    }
+
+
+    /**
+     * A filter that matches rows that match all of its filters
+     */
+    private static class And extends ParquetFilter {
+
+        private ParquetFilter[] filters;
+
+        /**
+         * Constructor
+         * @param filters   the filters to combine
+         */
+        And(ParquetFilter... filters) {
+            this.filters = Arrays.copyOf(filters, filters.length);
+        }
+
+        @Override
+        void columns(Set<String> columns) {
+            for (ParquetFilter filter : filters) {
+                filter.columns(columns);
+            }
+        }
+
+        @Override
+        boolean mightMatch(Map<String,Object[]> stats) {
+            for (ParquetFilter filter : filters) {
+                if (!filter.mightMatch(stats)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean test(Map<String,ParquetColumn> columns, int row) {
+            for (ParquetFilter filter : filters) {
+                if (!filter.test(columns, row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.zavtech.morpheus.perf.io;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+
+import com.zavtech.morpheus.viz.chart.Chart;
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.util.PerfStat;
+
+public class ParquetPerf {
+
+    public static void main(String[] args) throws IOException {
+
+        final File nullablePath = File.createTempFile("volumes", ".parquet");
+        nullablePath.deleteOnExit();
+        final int expected = writeVolumes(nullablePath, 200000);
+        final int actual = new ParquetSource().read(options -> {
+            options.setFile(nullablePath);
+            options.setFilter(ParquetFilter.lt("Vol", 10L));
+        }).rowCount();
+        if (actual != expected) {
+            throw new IllegalStateException("Expected " + expected + " rows with Vol < 10 but read " + actual);
+        }
+
+        final String csvPath = args.length > 0 ? args[0] : "/Users/witdxav/Dropbox/data/fxcm/AUDUSD/2012/AUDUSD-2012.csv";
+        final String parquetPath = args.length > 1 ? args[1] : "/Users/witdxav/Dropbox/data/fxcm/AUDUSD/2012/AUDUSD-2012.parquet";
+
+        DataFrame<String,String> timingStats = PerfStat.run(5, TimeUnit.MILLISECONDS, true, tasks -> {
+
+            tasks.put("CSV(Mapped)", () -> MappedCsvReader.read(options -> {
+                options.setHeader(false);
+                options.setFile(csvPath);
+            }));
+
+            tasks.put("CSV(Projected)", () -> MappedCsvReader.read(options -> {
+                options.setHeader(false);
+                options.setFile(csvPath);
+                options.setIncludeColumnIndexes(0, 5);
+            }));
+
+            tasks.put("Parquet", () -> new ParquetSource().read(options -> {
+                options.setFile(parquetPath);
+            }));
+
+            tasks.put("Parquet(Projected)", () -> new ParquetSource().read(options -> {
+                options.setFile(parquetPath);
+                options.setColNamePredicate(name -> name.equals("Date") || name.equals("Close"));
+            }));
+
+            tasks.put("Parquet(Filtered)", () -> new ParquetSource().read(options -> {
+                options.setFile(parquetPath);
+                options.setColNamePredicate(name -> name.equals("Date") || name.equals("Close"));
+                options.setFilter(ParquetFilter.between("Date", LocalDate.of(2012, 6, 1), LocalDate.of(2012, 6, 30)));
+            }));
+
+            tasks.put("Parquet(Filtered Nulls)", () -> new ParquetSource().read(options -> {
+                options.setFile(nullablePath);
+                options.setFilter(ParquetFilter.lt("Vol", 10L));
+            }));
+
+        });
+
+        Chart.create().withBarPlot(timingStats, false, chart -> {
+            chart.title().withText("Read Performance incl. GC (CSV vs Parquet with Projection and Row Group Pruning)");
+            chart.subtitle().withText("AUDUSD 2012, 760,000 rows, 7 columns");
+            chart.title().withFont(new Font("Verdana", Font.PLAIN, 16));
+            chart.plot().axes().domain().label().withText("Statistic");
+            chart.plot().axes().range(0).label().withText("Time in Milliseconds");
+            chart.legend().on();
+            chart.show();
+        });
+
+    }
+
+
+    /**
+     * Writes a file of random volumes with about 5% null Vol and Trades values, spread over many row groups
+     * @param file  the file to write
+     * @param rows  the number of rows to write
+     * @return      the number of rows where Vol is not null and less than 10
+     */
+    private static int writeVolumes(File file, int rows) throws IOException {
+        final MessageType schema = MessageTypeParser.parseMessageType(
+            "message volumes { required int32 Id; optional int64 Vol; optional int32 Trades; }"
+        );
+        final Random random = new Random(7);
+        final SimpleGroupFactory factory = new SimpleGroupFactory(schema);
+        int matches = 0;
+        file.delete();
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new Path(file.toURI())).withType(schema).withRowGroupSize(256L * 1024L).build()) {
+            for (int i=0; i<rows; ++i) {
+                final Group group = factory.newGroup().append("Id", i);
+                if (random.nextDouble() >= 0.05d) {
+                    final long vol = random.nextInt(1000);
+                    group.append("Vol", vol);
+                    matches += vol < 10L ? 1 : 0;
+                }
+                if (random.nextDouble() >= 0.05d) {
+                    group.append("Trades", random.nextInt(100));
+                }
+                writer.write(group);
+            }
+        }
+        return matches;
+    }
+
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+
+import com.zavtech.morpheus.frame.DataFrame;
+import com.zavtech.morpheus.frame.DataFrameException;
+import com.zavtech.morpheus.frame.DataFrameSource;
+import com.zavtech.morpheus.range.Range;
+import com.zavtech.morpheus.util.IO;
+import com.zavtech.morpheus.util.Initialiser;
+
+/**
+ * A DataFrameSource that reads a local Parquet file into a DataFrame keyed by row ordinal
+ *
+ * <p>The requested schema is narrowed to the columns selected by the column name predicate plus any columns
+ * referenced by the filter, so no other column chunks are read from disk. Row groups whose min/max statistics
+ * cannot satisfy the filter are skipped, and the remaining row groups are decoded value by value from the
+ * column readers directly into primitive buffers sized from the row group metadata, without assembling records.
+ * Only flat schemas are supported, and nested or repeated fields are ignored.</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class ParquetSource extends DataFrameSource<Integer,String,ParquetSourceOptions> {
+
+
+    @Override
+    public DataFrame<Integer,String> read(Consumer<ParquetSourceOptions> configurator) throws DataFrameException {
+        final ParquetSourceOptions options = Initialiser.apply(new ParquetSourceOptions(), configurator);
+        options.validate();
+        ParquetFileReader reader = null;
+        try {
+            final ParquetFilter filter = options.getFilter().orElse(null);
+            final Predicate<String> predicate = options.getColNamePredicate().orElse(name -> true);
+            final Set<String> filterColumns = new HashSet<>();
+            if (filter != null) {
+                filter.columns(filterColumns);
+            }
+            reader = ParquetFileReader.open(new LocalInputFile(options.getFile().toPath()), ParquetReadOptions.builder().build());
+            final MessageType schema = reader.getFooter().getFileMetaData().getSchema();
+            final String createdBy = reader.getFooter().getFileMetaData().getCreatedBy();
+            final List<Type> fields = new ArrayList<>();
+            for (Type field : schema.getFields()) {
+                final String name = field.getName();
+                if (ParquetColumn.isSupported(field) && (predicate.test(name) || filterColumns.contains(name))) {
+                    fields.add(field);
+                }
+            }
+            for (String name : filterColumns) {
+                if (fields.stream().noneMatch(field -> field.getName().equals(name))) {
+                    throw new DataFrameException("The filter column " + name + " is not a flat column in " + options.getFile());
+                }
+            }
+            final MessageType projection = new MessageType(schema.getName(), fields);
+            reader.setRequestedSchema(projection);
+            final List<BlockMetaData> rowGroups = reader.getRowGroups();
+            final boolean[] include = new boolean[rowGroups.size()];
+            final Map<String,ParquetColumn> columns = new LinkedHashMap<>();
+            long rowCount = 0L;
+            for (int i=0; i<rowGroups.size(); ++i) {
+                final BlockMetaData rowGroup = rowGroups.get(i);
+                include[i] = filter == null || filter.mightMatch(stats(rowGroup, projection, filterColumns));
+                rowCount += include[i] ? rowGroup.getRowCount() : 0L;
+            }
+            if (rowCount > Integer.MAX_VALUE) {
+                throw new DataFrameException("The selected row groups exceed the maximum DataFrame row count: " + rowCount);
+            }
+            for (ColumnDescriptor descriptor : projection.getColumns()) {
+                final ParquetColumn column = new ParquetColumn(descriptor, (int)rowCount);
+                columns.put(column.name(), column);
+            }
+            for (int i=0; i<rowGroups.size(); ++i) {
+                if (!include[i]) {
+                    reader.skipNextRowGroup();
+                } else {
+                    final PageReadStore pages = reader.readNextRowGroup();
+                    final ColumnReadStoreImpl store = new ColumnReadStoreImpl(pages, new ColumnConverter(), projection, createdBy);
+                    final int count = (int)pages.getRowCount();
+                    for (ParquetColumn column : columns.values()) {
+                        column.read(store.getColumnReader(column.descriptor()), count);
+                    }
+                }
+            }
+            if (filter != null) {
+                retain(columns, filter, (int)rowCount);
+            }
+            final int length = columns.isEmpty() ? (int)rowCount : columns.values().iterator().next().length();
+            final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, length), String.class, frameColumns -> {
+                for (ParquetColumn column : columns.values()) {
+                    if (predicate.test(column.name())) {
+                        frameColumns.add(column.name(), column.toArray());
+                    }
+                }
+            });
+            return options.getRowPredicate().map(p -> frame.rows().select(p)).orElse(frame);
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to read DataFrame from Parquet file: " + options.getFile(), ex);
+        } finally {
+            IO.close(reader);
+        }
+    }
+
+
+    /**
+     * Returns the min and max statistics for the filter columns in the row group, converted to Morpheus types
+     * <p>A chunk is only treated as all null when its null count equals its value count, since writers may omit
+     * min and max for chunks that do hold values, for example NaN doubles or long binary values. String columns
+     * are never pruned, as Parquet orders binary by unsigned bytes while the filter compares Strings.</p>
+     * @param rowGroup      the row group metadata
+     * @param projection    the requested schema
+     * @param names         the names of the filter columns
+     * @return              the min and max values keyed by column name, excluding columns without usable statistics
+     */
+    private Map<String,Object[]> stats(BlockMetaData rowGroup, MessageType projection, Set<String> names) {
+        final Map<String,Object[]> stats = new HashMap<>();
+        for (ColumnChunkMetaData chunk : rowGroup.getColumns()) {
+            final String name = chunk.getPath().toDotString();
+            final Statistics<?> statistics = chunk.getStatistics();
+            if (names.contains(name) && statistics != null && !statistics.isEmpty()) {
+                final ColumnDescriptor descriptor = projection.getColumnDescription(chunk.getPath().toArray());
+                final ParquetColumn column = new ParquetColumn(descriptor, 0);
+                if (statistics.isNumNullsSet() && statistics.getNumNulls() == chunk.getValueCount()) {
+                    stats.put(name, new Object[2]);
+                } else if (statistics.hasNonNullValue() && column.type() != String.class) {
+                    final Object min = column.toValue(statistics.genericGetMin());
+                    final Object max = column.toValue(statistics.genericGetMax());
+                    if (min != null && max != null) {
+                        stats.put(name, new Object[] {min, max});
+                    }
+                }
+            }
+        }
+        return stats;
+    }
+
+
+    /**
+     * Compacts the columns to retain only the rows that match the filter
+     * @param columns   the columns read, keyed by name
+     * @param filter    the row filter
+     * @param rowCount  the number of rows read
+     */
+    private void retain(Map<String,ParquetColumn> columns, ParquetFilter filter, int rowCount) {
+        int count = 0;
+        final boolean[] mask = new boolean[rowCount];
+        for (int i=0; i<rowCount; ++i) {
+            mask[i] = filter.test(columns, i);
+            count += mask[i] ? 1 : 0;
+        }
+        if (count < rowCount) {
+            for (ParquetColumn column : columns.values()) {
+                column.retain(mask, count);
+            }
+        }
+    }
+
+
+    /**
+     * A converter that is only used to satisfy the column read store, since values are read directly from column readers
+     */
+    private static class ColumnConverter extends GroupConverter {
+
+        private final PrimitiveConverter primitive = new PrimitiveConverter() {};
+
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            return primitive;
+        }
+
+        @Override
+        public void start() {}
+
+        @Override
+        public void end() {}
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import com.zavtech.morpheus.frame.DataFrameRow;
+import com.zavtech.morpheus.frame.DataFrameSource;
+
+/**
+ * The options to configure a ParquetSource
+ *
+ * @author  Xavier Witdouck
+ */
+public class ParquetSourceOptions implements DataFrameSource.Options<Integer,String> {
+
+    private File file;
+    private ParquetFilter filter;
+    private Predicate<String> colNamePredicate;
+    private Predicate<DataFrameRow<Integer,String>> rowPredicate;
+
+
+    /**
+     * Constructor
+     */
+    public ParquetSourceOptions() {
+        super();
+    }
+
+
+    /**
+     * Returns the file to read
+     * @return  the file to read
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the filter pushed down to skip row groups, if specified
+     * @return  the optional row group filter
+     */
+    public Optional<ParquetFilter> getFilter() {
+        return Optional.ofNullable(filter);
+    }
+
+    /**
+     * Returns the predicate that selects columns by name, if specified
+     * @return  the optional column name predicate
+     */
+    public Optional<Predicate<String>> getColNamePredicate() {
+        return Optional.ofNullable(colNamePredicate);
+    }
+
+    /**
+     * Returns the predicate that selects rows, if specified
+     * @return  the optional row predicate
+     */
+    public Optional<Predicate<DataFrameRow<Integer,String>>> getRowPredicate() {
+        return Optional.ofNullable(rowPredicate);
+    }
+
+    /**
+     * Sets the file to read
+     * @param file  the file to read
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the path of the file to read
+     * @param path  the file path
+     */
+    public void setFile(String path) {
+        this.file = new File(path);
+    }
+
+    /**
+     * Sets the filter used to skip row groups by their statistics and then to select rows
+     * @param filter    the row group filter
+     */
+    public void setFilter(ParquetFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Sets the predicate that selects columns by name, so that only those column chunks are read
+     * @param colNamePredicate  the column name predicate
+     */
+    public void setColNamePredicate(Predicate<String> colNamePredicate) {
+        this.colNamePredicate = colNamePredicate;
+    }
+
+    /**
+     * Sets the predicate that selects rows, which is applied after decoding and cannot skip row groups
+     * @param rowPredicate  the row predicate
+     */
+    public void setRowPredicate(Predicate<DataFrameRow<Integer,String>> rowPredicate) {
+        this.rowPredicate = rowPredicate;
+    }
+
+    @Override
+    public void validate() {
+        Objects.requireNonNull(file, "The file to read must be specified");
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("The Parquet file does not exist: " + file);
+        }
+    }
+}
@@ -0,0 +1,485 @@
+/**
+ * Copyright (C) 2014-2017 Xavier Witdouck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zavtech.morpheus.perf.io;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parsers that read numbers, dates and times directly from a CharSequence such as a ByteSlice, without
+ * allocating any objects on the success path.
+ *
+ * <p>Dates and times are returned in the encodings used by LongCodec, namely epoch days for LocalDate,
+ * nanoseconds of the day for LocalTime and epoch nanoseconds or milliseconds for LocalDateTime. A date time
+ * outside the range of its encoding is reported as a DateTimeParseException, like any other bad value. Doubles whose digits fit in
+ * 53 bits with a decimal exponent within 22 are computed exactly with a single multiply or divide, and all
+ * other doubles fall back to Double.parseDouble().</p>
+ *
+ * @author  Xavier Witdouck
+ */
+public final class SliceParsers {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int[] NANO_SCALE = {
+        1000000000, 100000000, 10000000, 1000000, 100000, 10000, 1000, 100, 10, 1
+    };
+
+
+    /**
+     * Private constructor
+     */
+    private SliceParsers() {
+        super();
+    }
+
+
+    /**
+     * Returns true if the value is an optionally signed sequence of digits
+     * @param value     the value to check
+     * @return          true if value is an integer
+     */
+    public static boolean isInteger(CharSequence value) {
+        final int length = value.length();
+        int i = length > 0 && isSign(value.charAt(0)) ? 1 : 0;
+        if (i == length) {
+            return false;
+        } else {
+            for (; i<length; ++i) {
+                if (!isDigit(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Returns true if the value is a decimal number, optionally with an exponent, or NaN or Infinity
+     * @param value     the value to check
+     * @return          true if value is a decimal
+     */
+    public static boolean isDecimal(CharSequence value) {
+        final int length = value.length();
+        int i = length > 0 && isSign(value.charAt(0)) ? 1 : 0;
+        if (i < length && (value.charAt(i) == 'N' || value.charAt(i) == 'I')) {
+            return matches(value, i, "NaN") || matches(value, i, "Infinity");
+        }
+        int digits = 0;
+        while (i < length && isDigit(value.charAt(i))) { i++; digits++; }
+        if (i < length && value.charAt(i) == '.') {
+            i++;
+            while (i < length && isDigit(value.charAt(i))) { i++; digits++; }
+        }
+        if (digits == 0) {
+            return false;
+        } else if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < length && isSign(value.charAt(i))) i++;
+            final int start = i;
+            while (i < length && isDigit(value.charAt(i))) i++;
+            return i > start && i == length;
+        } else {
+            return i == length;
+        }
+    }
+
+
+    /**
+     * Returns true if the value has the layout of an ISO local date, yyyy-MM-dd
+     * @param value     the value to check
+     * @return          true if value looks like an ISO date
+     */
+    public static boolean isIsoDate(CharSequence value) {
+        return value.length() == 10 && isIsoDatePrefix(value);
+    }
+
+
+    /**
+     * Returns true if the value has the layout of an ISO local time, HH:mm[:ss[.SSSSSSSSS]]
+     * @param value     the value to check
+     * @return          true if value looks like an ISO time
+     */
+    public static boolean isIsoTime(CharSequence value) {
+        return isIsoTime(value, 0);
+    }
+
+
+    /**
+     * Returns true if the value has the layout of an ISO local date time, yyyy-MM-ddTHH:mm[:ss[.SSSSSSSSS]]
+     * @param value     the value to check
+     * @return          true if value looks like an ISO date time
+     */
+    public static boolean isIsoDateTime(CharSequence value) {
+        return value.length() > 11 && value.charAt(10) == 'T' && isIsoDatePrefix(value) && isIsoTime(value, 11);
+    }
+
+
+    /**
+     * Returns the int value of the sequence of decimal digits
+     * @param value     the value to parse
+     * @return          the int value
+     * @throws NumberFormatException    if the value is not a valid int
+     */
+    public static int parseInt(CharSequence value) {
+        final long result = parseLong(value);
+        if (result != (int)result) {
+            throw new NumberFormatException("Value out of range for int: " + value);
+        } else {
+            return (int)result;
+        }
+    }
+
+
+    /**
+     * Returns the long value of the sequence of decimal digits
+     * @param value     the value to parse
+     * @return          the long value
+     * @throws NumberFormatException    if the value is not a valid long
+     */
+    public static long parseLong(CharSequence value) {
+        final int length = value.length();
+        final boolean negative = length > 0 && value.charAt(0) == '-';
+        int i = length > 0 && isSign(value.charAt(0)) ? 1 : 0;
+        if (i == length) {
+            throw new NumberFormatException("For input string: \"" + value + "\"");
+        } else {
+            final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            final long multiplyLimit = limit / 10;
+            long result = 0L;
+            for (; i<length; ++i) {
+                final int digit = value.charAt(i) - '0';
+                if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                    throw new NumberFormatException("For input string: \"" + value + "\"");
+                }
+                result *= 10;
+                if (result < limit + digit) {
+                    throw new NumberFormatException("For input string: \"" + value + "\"");
+                }
+                result -= digit;
+            }
+            return negative ? result : -result;
+        }
+    }
+
+
+    /**
+     * Returns the double value of the decimal number
+     * @param value     the value to parse
+     * @return          the double value
+     * @throws NumberFormatException    if the value is not a valid decimal
+     */
+    public static double parseDouble(CharSequence value) {
+        final int length = value.length();
+        final boolean negative = length > 0 && value.charAt(0) == '-';
+        int i = length > 0 && isSign(value.charAt(0)) ? 1 : 0;
+        long mantissa = 0L;
+        int significant = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+        for (; i<length && isDigit(value.charAt(i)); ++i, ++digits) {
+            if (significant < 18) {
+                mantissa = mantissa * 10 + (value.charAt(i) - '0');
+                significant += mantissa > 0 ? 1 : 0;
+            } else {
+                exponent++;
+                exact &= value.charAt(i) == '0';
+            }
+        }
+        if (i < length && value.charAt(i) == '.') {
+            for (i++; i<length && isDigit(value.charAt(i)); ++i, ++digits) {
+                if (significant < 18) {
+                    mantissa = mantissa * 10 + (value.charAt(i) - '0');
+                    significant += mantissa > 0 ? 1 : 0;
+                    exponent--;
+                } else {
+                    exact &= value.charAt(i) == '0';
+                }
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(value.toString());
+        } else if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            final boolean negativeExponent = i < length && value.charAt(i) == '-';
+            i += i < length && isSign(value.charAt(i)) ? 1 : 0;
+            int explicit = 0;
+            final int start = i;
+            for (; i<length && isDigit(value.charAt(i)); ++i) {
+                explicit = explicit < 10000 ? explicit * 10 + (value.charAt(i) - '0') : explicit;
+            }
+            if (i == start) {
+                throw new NumberFormatException("For input string: \"" + value + "\"");
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (i != length) {
+            throw new NumberFormatException("For input string: \"" + value + "\"");
+        } else if (exact && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            final double result = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -result : result;
+        } else {
+            return Double.parseDouble(value.toString());
+        }
+    }
+
+
+    /**
+     * Returns the epoch day of an ISO local date, yyyy-MM-dd
+     * @param value     the value to parse
+     * @return          the epoch day
+     * @throws DateTimeParseException   if the value is not a valid date
+     */
+    public static long parseIsoDate(CharSequence value) {
+        if (!isIsoDate(value)) {
+            return LocalDate.parse(value).toEpochDay();
+        } else {
+            return epochDay(value, digits(value, 0, 4), digits(value, 5, 2), digits(value, 8, 2));
+        }
+    }
+
+
+    /**
+     * Returns the nano of day of an ISO local time, HH:mm[:ss[.SSSSSSSSS]]
+     * @param value     the value to parse
+     * @return          the nano of day
+     * @throws DateTimeParseException   if the value is not a valid time
+     */
+    public static long parseIsoTime(CharSequence value) {
+        if (!isIsoTime(value, 0)) {
+            return LocalTime.parse(value).toNanoOfDay();
+        } else {
+            return isoNanoOfDay(value, 0);
+        }
+    }
+
+
+    /**
+     * Returns the epoch nanos of an ISO local date time, yyyy-MM-ddTHH:mm[:ss[.SSSSSSSSS]], treated as UTC
+     * @param value     the value to parse
+     * @return          the epoch nanos
+     * @throws DateTimeParseException   if the value is not a valid date time within the years 1677 through 2262
+     */
+    public static long parseIsoDateTime(CharSequence value) {
+        if (!isIsoDateTime(value)) {
+            final LocalDateTime dateTime = LocalDateTime.parse(value);
+            return epochNanos(value, dateTime.toLocalDate().toEpochDay(), dateTime.toLocalTime().toNanoOfDay());
+        } else {
+            final long epochDay = epochDay(value, digits(value, 0, 4), digits(value, 5, 2), digits(value, 8, 2));
+            return epochNanos(value, epochDay, isoNanoOfDay(value, 11));
+        }
+    }
+
+
+    /**
+     * Returns the epoch millis of an ISO local date time, yyyy-MM-ddTHH:mm[:ss[.SSSSSSSSS]], treated as UTC
+     * @param value     the value to parse
+     * @return          the epoch millis, with any fraction below a millisecond truncated
+     * @throws DateTimeParseException   if the value is not a valid date time
+     */
+    public static long parseIsoDateTimeMillis(CharSequence value) {
+        if (!isIsoDateTime(value)) {
+            final LocalDateTime dateTime = LocalDateTime.parse(value);
+            return epochMillis(value, dateTime.toLocalDate().toEpochDay(), dateTime.toLocalTime().toNanoOfDay());
+        } else {
+            final long epochDay = epochDay(value, digits(value, 0, 4), digits(value, 5, 2), digits(value, 8, 2));
+            return epochMillis(value, epochDay, isoNanoOfDay(value, 11));
+        }
+    }
+
+
+    /**
+     * Returns the epoch nanos for the epoch day and nano of day
+     * @param value     the value being parsed, for error reporting
+     * @param epochDay  the epoch day
+     * @param nanoOfDay the nano of day
+     * @return          the epoch nanos
+     * @throws DateTimeParseException   if the date time is outside the range of epoch nanos
+     */
+    static long epochNanos(CharSequence value, long epochDay, long nanoOfDay) {
+        try {
+            return Math.addExact(Math.multiplyExact(epochDay, 86400000000000L), nanoOfDay);
+        } catch (ArithmeticException ex) {
+            throw new DateTimeParseException("Date time is outside the range of epoch nanos: " + value, value, 0, ex);
+        }
+    }
+
+
+    /**
+     * Returns the epoch millis for the epoch day and nano of day
+     * @param value     the value being parsed, for error reporting
+     * @param epochDay  the epoch day
+     * @param nanoOfDay the nano of day
+     * @return          the epoch millis
+     * @throws DateTimeParseException   if the date time is outside the range of epoch millis
+     */
+    static long epochMillis(CharSequence value, long epochDay, long nanoOfDay) {
+        try {
+            return Math.addExact(Math.multiplyExact(epochDay, 86400000L), nanoOfDay / 1000000L);
+        } catch (ArithmeticException ex) {
+            throw new DateTimeParseException("Date time is outside the range of epoch millis: " + value, value, 0, ex);
+        }
+    }
+
+
+    /**
+     * Returns the epoch day for the year, month and day, validating the fields
+     * @param value     the value being parsed, for error reporting
+     * @param year      the year
+     * @param month     the month of year, 1 to 12
+     * @param day       the day of month
+     * @return          the epoch day
+     * @throws DateTimeParseException   if the fields do not describe a valid date
+     */
+    static long epochDay(CharSequence value, int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > monthLength(year, month)) {
+            throw new DateTimeParseException("Invalid date: " + value, value, 0);
+        } else {
+            final long y = month <= 2 ? year - 1 : year;
+            final long era = Math.floorDiv(y, 400);
+            final long yearOfEra = y - era * 400;
+            final long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+            final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+            return era * 146097 + dayOfEra - 719468;
+        }
+    }
+
+
+    /**
+     * Returns the nano of day for the time fields, validating the fields
+     * @param value     the value being parsed, for error reporting
+     * @param hour      the hour of day
+     * @param minute    the minute of hour
+     * @param second    the second of minute
+     * @param nanos     the nano of second
+     * @return          the nano of day
+     * @throws DateTimeParseException   if the fields do not describe a valid time
+     */
+    static long nanoOfDay(CharSequence value, int hour, int minute, int second, int nanos) {
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || nanos < 0) {
+            throw new DateTimeParseException("Invalid time: " + value, value, 0);
+        } else {
+            return ((hour * 60L + minute) * 60L + second) * 1000000000L + nanos;
+        }
+    }
+
+
+    /**
+     * Returns the non-negative value of a fixed width run of digits
+     * @param value     the value to read from
+     * @param start     the start index
+     * @param count     the number of digits
+     * @return          the value of the digits, -1 if any character is not a digit
+     */
+    static int digits(CharSequence value, int start, int count) {
+        int result = 0;
+        for (int i=start; i<start+count; ++i) {
+            final char c = value.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            } else {
+                result = result * 10 + (c - '0');
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the nanos for a fraction of a second with the number of digits specified
+     * @param fraction  the fraction digits as an integer
+     * @param count     the number of fraction digits, 0 to 9
+     * @return          the nano of second
+     */
+    static int fractionNanos(int fraction, int count) {
+        return fraction * NANO_SCALE[count];
+    }
+
+
+    private static boolean isIsoDatePrefix(CharSequence value) {
+        return value.charAt(4) == '-' && value.charAt(7) == '-' && digits(value, 0, 4) >= 0 && digits(value, 5, 2) >= 0 && digits(value, 8, 2) >= 0;
+    }
+
+
+    private static boolean isIsoTime(CharSequence value, int offset) {
+        final int length = value.length() - offset;
+        if (length != 5 && length != 8 && (length < 10 || length > 18)) {
+            return false;
+        } else if (value.charAt(offset + 2) != ':' || digits(value, offset, 2) < 0 || digits(value, offset + 3, 2) < 0) {
+            return false;
+        } else if (length == 5) {
+            return true;
+        } else if (value.charAt(offset + 5) != ':' || digits(value, offset + 6, 2) < 0) {
+            return false;
+        } else {
+            return length == 8 || (value.charAt(offset + 8) == '.' && digits(value, offset + 9, length - 9) >= 0);
+        }
+    }
+
+
+    private static long isoNanoOfDay(CharSequence value, int offset) {
+        final int length = value.length() - offset;
+        final int hour = digits(value, offset, 2);
+        final int minute = digits(value, offset + 3, 2);
+        final int second = length >= 8 ? digits(value, offset + 6, 2) : 0;
+        final int nanos = length >= 10 ? fractionNanos(digits(value, offset + 9, length - 9), length - 9) : 0;
+        return nanoOfDay(value, hour, minute, second, nanos);
+    }
+
+
+    private static int monthLength(int year, int month) {
+        switch (month) {
+            case 2:     return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:     return 30;
+            case 6:     return 30;
+            case 9:     return 30;
+            case 11:    return 30;
+            default:    return 31;
+        }
+    }
+
+
+    private static boolean matches(CharSequence value, int offset, String text) {
+        if (value.length() - offset != text.length()) {
+            return false;
+        } else {
+            for (int i=0; i<text.length(); ++i) {
+                if (value.charAt(offset + i) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    private static boolean isSign(char c) {
+        return c == '-' || c == '+';
+    }
+
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}